@@ -30,9 +30,16 @@ return [
 
     /**
      * List of SNMP versions
+     * v3 is used by worker only, web SNMP requests use communities
      * @see http://docs.php.net/manual/ru/class.snmp.php#snmp.class.constants.protocols
      */
-    'snmp_versions' => ['0' => 'v1', '1' => 'v2 / v2c'],
+    'snmp_versions' => ['0' => 'v1', '1' => 'v2 / v2c', '2' => 'v3'],
+
+    /** SNMPv3 USM authentication protocols */
+    'snmp_v3_auth_protocols' => ['md5' => 'MD5', 'sha' => 'SHA', 'sha224' => 'SHA-224', 'sha256' => 'SHA-256', 'sha384' => 'SHA-384', 'sha512' => 'SHA-512'],
+
+    /** SNMPv3 USM privacy protocols */
+    'snmp_v3_priv_protocols' => ['des' => 'DES', '3des' => '3DES', 'aes128' => 'AES-128', 'aes192' => 'AES-192', 'aes256' => 'AES-256'],
 
     /** List of permanent task which can not be assigned to nodes */
     'forbidden_tasks_list' => ['discovery', 'log_processing', 'node_processing', 'git_commit'],
@@ -73,7 +73,7 @@ class ConfigController extends Controller
     {
 
         $config  = new Config();
-        $data    = ArrayHelper::map($config::find()->asArray()->all(), 'key', 'value');
+        $data    = array_merge(Config::WORKER_DEFAULTS, ArrayHelper::map($config::find()->asArray()->all(), 'key', 'value'));
         $changed = false;
         $errors  = [];
 
@@ -2,16 +2,27 @@
 /** @noinspection HtmlUnknownTarget */
 $lang = array(
     'Absolute path to the local directory intended to store backup data' => 'Absolute path to the local directory intended to store backup data',
+    'Action when scheduled task is started while its previous run is still running' => 'Action when scheduled task is started while its previous run is still running',
     'Administrator e-mail' => 'Administrator e-mail',
     'Amount of concurrent threads for java background workers' => 'Amount of concurrent threads for java background workers',
     'Background process settings' => 'Background process settings',
+    'Blocking' => 'Blocking',
+    'Blocking: thread per session, NIO: one selector thread for all sessions' => 'Blocking: thread per session, NIO: one selector thread for all sessions',
+    'Cancel previous run' => 'Cancel previous run',
     'Change system logging level. We do not recommend set DEBUG log level on production server' => 'Change system logging level. We do not recommend set DEBUG log level on production server',
     'Click here to edit task "backup"' => 'Click here to edit task "backup"',
+    'Comma separated list of "Vendor" or "Vendor/Model" using Apache SSHD transport' => 'Comma separated list of "Vendor" or "Vendor/Model" using Apache SSHD transport',
+    'Comma separated ports for TCP liveness check, refused connection also means host is alive' => 'Comma separated ports for TCP liveness check, refused connection also means host is alive',
     'Configuration saved' => 'Configuration saved',
     'Daemon credentials' => 'Daemon credentials',
     'Default prepend location' => 'Default prepend location',
     'Disable OpenSSL certificate verification if certificate verify error occurs' => 'Disable OpenSSL certificate verification if certificate verify error occurs',
     'Disable SSL certificate verify' => 'Disable SSL certificate verify',
+    'Disabled' => 'Disabled',
+    'Discovery batch size' => 'Discovery batch size',
+    'Discovery concurrency' => 'Discovery concurrency',
+    'Discovery mode' => 'Discovery mode',
+    'Discovery pre-filter' => 'Discovery pre-filter',
     'Do not forget to <b>reinit git settings</b> after you change and save any data in this section' => 'Do not forget to <b>reinit git settings</b> after you change and save any data in this section',
     'E-mail address used for major notifications and scheduled reporting' => 'E-mail address used for major notifications and scheduled reporting',
     'E-mail which will be written in git config file' => 'E-mail which will be written in git config file',
@@ -22,6 +33,8 @@ $lang = array(
     'For how long period in days will changes be displayed' => 'For how long period in days will changes be displayed',
     'From email' => 'From email',
     'From name' => 'From name',
+    'Full' => 'Full',
+    'Full rescan interval' => 'Full rescan interval',
     'Git email' => 'Git email',
     'Git executable cannot be found in specified location' => 'Git executable cannot be found in specified location',
     'Git log display period' => 'Git log display period',
@@ -32,18 +45,55 @@ $lang = array(
     'Git settings' => 'Git settings',
     'Git username' => 'Git username',
     'Global settings' => 'Global settings',
+    'Incremental' => 'Incremental',
+    'Incremental mode sends only new or changed hosts to core' => 'Incremental mode sends only new or changed hosts to core',
     'Init repository' => 'Init repository',
     'Isolated system' => 'Isolated system',
     'Java console login' => 'Java console login',
     'Java console password' => 'Java console password',
     'Java console port' => 'Java console port',
+    'Liveness check of subnet hosts before discovery, hosts without response are skipped' => 'Liveness check of subnet hosts before discovery, hosts without response are skipped',
     'Login is required if "git remote" is enabled' => 'Login is required if "git remote" is enabled',
     'Logs lifetime' => 'Logs lifetime',
     'Mailer settings' => 'Mailer settings',
     'Mailer type' => 'Mailer type',
+    'Max number of OIDs packed into one SNMP GET request. 1: one OID per request' => 'Max number of OIDs packed into one SNMP GET request. 1: one OID per request',
+    'Max number of SNMP requests waiting for response at once' => 'Max number of SNMP requests waiting for response at once',
+    'Max number of hosts discovered at once' => 'Max number of hosts discovered at once',
+    'Max number of liveness checks at once' => 'Max number of liveness checks at once',
+    'Max number of node workers waiting for a free thread' => 'Max number of node workers waiting for a free thread',
+    'Max random delay in seconds before scheduled task start. 0: no delay' => 'Max random delay in seconds before scheduled task start. 0: no delay',
     'Mismatched data in application.properties and database for following keys: <b>{0}</b>' => 'Mismatched data in application.properties and database for following keys: <b>{0}</b>',
+    'Node page size' => 'Node page size',
+    'Node queue size' => 'Node queue size',
+    'Node spread window' => 'Node spread window',
+    'Number of UDP sockets shared by all SNMP requests of worker' => 'Number of UDP sockets shared by all SNMP requests of worker',
+    'Number of discovery results sent to core in one request' => 'Number of discovery results sent to core in one request',
+    'Number of hours between full rescans in incremental mode. 0: every run is full rescan' => 'Number of hours between full rescans in incremental mode. 0: every run is full rescan',
+    'Number of rows requested by one GETBULK request of SNMP walk' => 'Number of rows requested by one GETBULK request of SNMP walk',
+    'Number of seconds to spread start of task node workers over. 0: start without delay' => 'Number of seconds to spread start of task node workers over. 0: start without delay',
+    'Number of task nodes received from core in one request. 0: all nodes in one request' => 'Number of task nodes received from core in one request. 0: all nodes in one request',
+    'Output spill threshold' => 'Output spill threshold',
+    'Pre-filter TCP ports' => 'Pre-filter TCP ports',
+    'Pre-filter concurrency' => 'Pre-filter concurrency',
+    'Pre-filter timeout' => 'Pre-filter timeout',
+    'Queue one run' => 'Queue one run',
+    'SNMP OIDs per request' => 'SNMP OIDs per request',
+    'SNMP max repetitions' => 'SNMP max repetitions',
+    'SNMP requests in flight' => 'SNMP requests in flight',
+    'SNMP transports' => 'SNMP transports',
+    'SSH and Telnet output size in chars, from which output is kept on disk. 0: always in memory' => 'SSH and Telnet output size in chars, from which output is kept on disk. 0: always in memory',
+    'SSH library used for all nodes' => 'SSH library used for all nodes',
+    'SSH transport' => 'SSH transport',
+    'SSHD models' => 'SSHD models',
+    'Skip new run' => 'Skip new run',
     'Sync application.properties' => 'Sync application.properties',
     'Synchronize application.properties file with database values' => 'Synchronize application.properties file with database values',
+    'Task overlap policy' => 'Task overlap policy',
+    'Task start jitter' => 'Task start jitter',
+    'Telnet engine' => 'Telnet engine',
+    'The number of milliseconds to wait for liveness check response' => 'The number of milliseconds to wait for liveness check response',
+    'Worker tuning settings' => 'Worker tuning settings',
     'application.properties synchronized successfully' => 'application.properties synchronized successfully',
     'Failed to synchronize. Check file permissions for: {file}' => 'Failed to synchronize. Check file permissions for: {file}',
     'Failed to synchronize. Directory writable: {dir}, File writable: {file}' => 'Failed to synchronize. Directory writable: {dir}, File writable: {file}',
@@ -2,16 +2,27 @@
 /** @noinspection HtmlUnknownTarget */
 $lang = array(
     'Absolute path to the local directory intended to store backup data' => 'Абсолютный путь до локальной директории, в которой хранятся резервные копии',
+    'Action when scheduled task is started while its previous run is still running' => 'Действие при запуске задачи по расписанию, пока предыдущий запуск ещё выполняется',
     'Administrator e-mail' => 'E-mail администратора',
     'Amount of concurrent threads for java background workers' => 'Количество одновременных потоков для фоновых java-процессов',
     'Background process settings' => 'Настройки фоновых процессов',
+    'Blocking' => 'Блокирующий',
+    'Blocking: thread per session, NIO: one selector thread for all sessions' => 'Блокирующий: поток на сессию, NIO: один поток селектора для всех сессий',
+    'Cancel previous run' => 'Отменить предыдущий запуск',
     'Change system logging level. We do not recommend set DEBUG log level on production server' => 'Изменение уровня логирования. Не ставьте уровень DEBUG на production сервере',
     'Click here to edit task "backup"' => 'Нажмите здесь, чтобы изменить задачу "backup"',
+    'Comma separated list of "Vendor" or "Vendor/Model" using Apache SSHD transport' => 'Список "Производитель" или "Производитель/Модель" через запятую, использующих транспорт Apache SSHD',
+    'Comma separated ports for TCP liveness check, refused connection also means host is alive' => 'Порты через запятую для TCP проверки доступности, отклонённое соединение также означает, что хост доступен',
     'Configuration saved' => 'Конфигурация сохранена',
     'Daemon credentials' => 'Реквизиты сервиса',
     'Default prepend location' => 'Префикс местонахождения по умолчанию',
     'Disable OpenSSL certificate verification if certificate verify error occurs' => 'Отключить проверку сертификата OpenSSL, если возникает ошибка проверки SSL сертификата',
     'Disable SSL certificate verify' => 'Отключить проверку SSL сертификата',
+    'Disabled' => 'Отключено',
+    'Discovery batch size' => 'Размер пакета обнаружения',
+    'Discovery concurrency' => 'Параллельность обнаружения',
+    'Discovery mode' => 'Режим обнаружения',
+    'Discovery pre-filter' => 'Предварительный фильтр обнаружения',
     'Do not forget to <b>reinit git settings</b> after you change and save any data in this section' => 'Не забудьте <b>переинициализировать Git</b> после того, как измените какие-либо данные в этой секции настроек',
     'E-mail address used for major notifications and scheduled reporting' => 'Адрес электронной почты для важных уведомлений и регулярных отчётов',
     'E-mail which will be written in git config file' => 'Электронная почта, которая будет записана в файле конфигурации git',
@@ -22,6 +33,8 @@ $lang = array(
     'For how long period in days will changes be displayed' => 'Сколько дней будет отображаться в просмотре изменений конфигурации',
     'From email' => 'E-mail сайта',
     'From name' => 'Отправитель письма',
+    'Full' => 'Полный',
+    'Full rescan interval' => 'Интервал полного сканирования',
     'Git email' => 'E-mail Git',
     'Git executable cannot be found in specified location' => 'Невозможно найти исполняемый Git файл в указанном месте',
     'Git log display period' => 'Отображение git лога в днях',
@@ -32,18 +45,55 @@ $lang = array(
     'Git settings' => 'Настройки Git',
     'Git username' => 'Имя пользователя Git',
     'Global settings' => 'Общие настройки',
+    'Incremental' => 'Инкрементальный',
+    'Incremental mode sends only new or changed hosts to core' => 'В инкрементальном режиме в ядро отправляются только новые или изменённые хосты',
     'Init repository' => 'Инициализировать репозиторий',
     'Isolated system' => 'Изолированная система',
     'Java console login' => 'Логин в Java консоль',
     'Java console password' => 'Пароль для Java консоли',
     'Java console port' => 'Порт Java консоли',
+    'Liveness check of subnet hosts before discovery, hosts without response are skipped' => 'Проверка доступности хостов подсети перед обнаружением, хосты без ответа пропускаются',
     'Login is required if "git remote" is enabled' => 'Логин необходим, если включен "git remote"',
     'Logs lifetime' => 'Время жизни логов',
     'Mailer settings' => 'Настройки почты',
     'Mailer type' => 'Способ отправки',
+    'Max number of OIDs packed into one SNMP GET request. 1: one OID per request' => 'Максимальное количество OID в одном SNMP GET запросе. 1: один OID в запросе',
+    'Max number of SNMP requests waiting for response at once' => 'Максимальное количество SNMP-запросов, одновременно ожидающих ответа',
+    'Max number of hosts discovered at once' => 'Максимальное количество одновременно опрашиваемых хостов',
+    'Max number of liveness checks at once' => 'Максимальное количество одновременных проверок доступности',
+    'Max number of node workers waiting for a free thread' => 'Максимальное количество воркеров узлов, ожидающих свободный поток',
+    'Max random delay in seconds before scheduled task start. 0: no delay' => 'Максимальная случайная задержка в секундах перед запуском задачи по расписанию. 0: без задержки',
     'Mismatched data in application.properties and database for following keys: <b>{0}</b>' => 'Несовпадение данных в application.properties и базе данных для следующих ключей: <b>{0}</b>',
+    'Node page size' => 'Размер страницы узлов',
+    'Node queue size' => 'Размер очереди узлов',
+    'Node spread window' => 'Окно распределения узлов',
+    'Number of UDP sockets shared by all SNMP requests of worker' => 'Количество UDP-сокетов, общих для всех SNMP-запросов воркера',
+    'Number of discovery results sent to core in one request' => 'Количество результатов обнаружения, отправляемых в ядро одним запросом',
+    'Number of hours between full rescans in incremental mode. 0: every run is full rescan' => 'Количество часов между полными сканированиями в инкрементальном режиме. 0: каждый запуск - полное сканирование',
+    'Number of rows requested by one GETBULK request of SNMP walk' => 'Количество строк, запрашиваемых одним GETBULK запросом при SNMP walk',
+    'Number of seconds to spread start of task node workers over. 0: start without delay' => 'Количество секунд, на которые распределяется запуск воркеров узлов задачи. 0: запуск без задержки',
+    'Number of task nodes received from core in one request. 0: all nodes in one request' => 'Количество узлов задачи, получаемых из ядра одним запросом. 0: все узлы одним запросом',
+    'Output spill threshold' => 'Порог выгрузки вывода на диск',
+    'Pre-filter TCP ports' => 'TCP порты предварительного фильтра',
+    'Pre-filter concurrency' => 'Параллельность предварительного фильтра',
+    'Pre-filter timeout' => 'Тайм-аут предварительного фильтра',
+    'Queue one run' => 'Поставить один запуск в очередь',
+    'SNMP OIDs per request' => 'SNMP OID в запросе',
+    'SNMP max repetitions' => 'SNMP max repetitions',
+    'SNMP requests in flight' => 'Одновременные SNMP-запросы',
+    'SNMP transports' => 'SNMP транспорты',
+    'SSH and Telnet output size in chars, from which output is kept on disk. 0: always in memory' => 'Размер вывода SSH и Telnet в символах, начиная с которого вывод хранится на диске. 0: всегда в памяти',
+    'SSH library used for all nodes' => 'SSH библиотека, используемая для всех узлов',
+    'SSH transport' => 'SSH транспорт',
+    'SSHD models' => 'Модели SSHD',
+    'Skip new run' => 'Пропустить новый запуск',
     'Sync application.properties' => 'Синхронизировать application.properties',
     'Synchronize application.properties file with database values' => 'Синхронизировать файл application.properties со значениями из базы данных',
+    'Task overlap policy' => 'Политика наложения задач',
+    'Task start jitter' => 'Случайная задержка запуска задачи',
+    'Telnet engine' => 'Telnet движок',
+    'The number of milliseconds to wait for liveness check response' => 'Количество миллисекунд ожидания ответа на проверку доступности',
+    'Worker tuning settings' => 'Настройки производительности воркера',
     'application.properties synchronized successfully' => 'application.properties успешно синхронизирован',
     'Failed to synchronize. Check file permissions for: {file}' => 'Не удалось синхронизировать. Проверьте права доступа к файлу: {file}',
     'Failed to synchronize. Directory writable: {dir}, File writable: {file}' => 'Не удалось синхронизировать. Директория доступна для записи: {dir}, Файл доступен для записи: {file}',
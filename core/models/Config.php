@@ -37,6 +37,33 @@ use GitWrapper\GitWrapper;
 class Config extends ActiveRecord
 {
 
+    /**
+     * Worker tuning settings, same defaults as built into java worker
+     */
+    const WORKER_DEFAULTS = [
+        'snmpTransports'                => '4',
+        'snmpMaxInFlight'               => '512',
+        'snmpMaxVarbinds'               => '10',
+        'snmpMaxRepetitions'            => '20',
+        'discoveryConcurrency'          => '512',
+        'discoveryPrefilter'            => 'none',
+        'discoveryPrefilterTimeout'     => '300',
+        'discoveryPrefilterConcurrency' => '1024',
+        'discoveryPrefilterPorts'       => '22,23',
+        'discoveryMode'                 => 'full',
+        'discoveryFullRescanInterval'   => '24',
+        'discoveryBatchSize'            => '100',
+        'nodeQueueSize'                 => '10000',
+        'nodePageSize'                  => '1000',
+        'nodeSpreadWindow'              => '0',
+        'taskJitter'                    => '0',
+        'taskOverlap'                   => 'skip',
+        'sshTransport'                  => 'jsch',
+        'sshdModels'                    => '',
+        'telnetEngine'                  => 'blocking',
+        'outputSpillThreshold'          => '4194304',
+    ];
+
     /**
      * @inheritdoc
      */
@@ -186,6 +213,24 @@ class Config extends ActiveRecord
             return ($fields->attributes['mailer'] == 1 && $fields->attributes['mailerSmtpAuth'] == 1);
         }]);
 
+        /** Worker tuning settings validation */
+        $fields->addRule(array_keys(self::WORKER_DEFAULTS), 'filter', ['filter' => 'trim']);
+        $fields->addRule(array_diff(array_keys(self::WORKER_DEFAULTS), ['discoveryPrefilterPorts', 'sshdModels']), 'required');
+        $fields->addRule(['snmpTransports'], 'integer', ['min' => 1, 'max' => 64]);
+        $fields->addRule(['snmpMaxInFlight'], 'integer', ['min' => 1, 'max' => 65535]);
+        $fields->addRule(['snmpMaxVarbinds', 'snmpMaxRepetitions'], 'integer', ['min' => 1, 'max' => 100]);
+        $fields->addRule(['discoveryConcurrency', 'discoveryPrefilterConcurrency', 'nodeQueueSize'], 'integer', ['min' => 1, 'max' => 100000]);
+        $fields->addRule(['discoveryPrefilterTimeout'], 'integer', ['min' => 1, 'max' => 60000]);
+        $fields->addRule(['discoveryBatchSize'], 'integer', ['min' => 1, 'max' => 1000]);
+        $fields->addRule(['discoveryFullRescanInterval', 'nodePageSize', 'nodeSpreadWindow', 'taskJitter', 'outputSpillThreshold'], 'integer', ['min' => 0]);
+        $fields->addRule(['discoveryPrefilterPorts'], 'match', ['pattern' => '/^\d{1,5}(,\d{1,5})*$/']);
+        $fields->addRule(['discoveryPrefilter'], 'in', ['range' => ['none', 'snmp', 'tcp']]);
+        $fields->addRule(['discoveryMode'], 'in', ['range' => ['full', 'incremental']]);
+        $fields->addRule(['taskOverlap'], 'in', ['range' => ['skip', 'queue-one', 'cancel-previous']]);
+        $fields->addRule(['sshTransport'], 'in', ['range' => ['jsch', 'sshd']]);
+        $fields->addRule(['telnetEngine'], 'in', ['range' => ['blocking', 'nio']]);
+        $fields->addRule(['sshdModels'], 'string', ['max' => 255]);
+
         /** SSH port number validators */
         $fields->addRule(['javaSchedulerPort', 'javaServerPort'], 'integer', ['min' => 1, 'max' => 65535]);
         $fields->addRule(['javaSchedulerPort'], 'compare', ['compareAttribute' => 'javaServerPort', 'operator' => '!=', 'type' => 'number']);
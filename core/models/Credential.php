@@ -37,6 +37,11 @@ use yii\helpers\Html;
  * @property string $snmp_set
  * @property integer $snmp_version
  * @property string $snmp_encryption
+ * @property string $snmp_v3_user
+ * @property string $snmp_v3_auth_protocol
+ * @property string $snmp_v3_auth_password
+ * @property string $snmp_v3_priv_protocol
+ * @property string $snmp_v3_priv_password
  * @property string $enable_password
  * @property integer $port_telnet
  * @property integer $port_ssh
@@ -90,14 +95,20 @@ class Credential extends ActiveRecord
     {
         return [
             [['name'], 'required'],
-            [['name', 'telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password'], 'filter', 'filter' => 'trim'],
+            [['name', 'telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password', 'snmp_v3_user'], 'filter', 'filter' => 'trim'],
             [['name'], 'unique'],
             [['snmp_version', 'port_telnet', 'port_ssh', 'port_snmp'], 'integer'],
             [['port_telnet', 'port_ssh', 'port_snmp'], 'integer', 'min' => 1, 'max' => 65535],
-            [['snmp_version'], 'in', 'range' => [0, 1]],
-            [['name', 'telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password'], 'string', 'max' => 128],
+            [['snmp_version'], 'in', 'range' => [0, 1, 2]],
+            [['snmp_v3_auth_protocol'], 'in', 'range' => array_keys(\Y::param('snmp_v3_auth_protocols'))],
+            [['snmp_v3_priv_protocol'], 'in', 'range' => array_keys(\Y::param('snmp_v3_priv_protocols'))],
+            [['name', 'telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password', 'snmp_v3_user', 'snmp_v3_auth_password', 'snmp_v3_priv_password'], 'string', 'max' => 128],
+            [['snmp_v3_auth_password', 'snmp_v3_priv_password'], 'string', 'min' => 8],
             [['snmp_read'], 'required', 'when' => function($model) { /** @var $model Credential */return (!empty($model->snmp_set)); }],
-            [['telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password'], 'default', 'value' => null]
+            [['snmp_v3_user'], 'required', 'when' => function($model) { /** @var $model Credential */return ($model->snmp_version == 2); }],
+            [['snmp_v3_auth_password'], 'required', 'when' => function($model) { /** @var $model Credential */return (!empty($model->snmp_v3_auth_protocol)); }],
+            [['snmp_v3_auth_protocol', 'snmp_v3_priv_password'], 'required', 'when' => function($model) { /** @var $model Credential */return (!empty($model->snmp_v3_priv_protocol)); }],
+            [['telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password', 'snmp_v3_user', 'snmp_v3_auth_protocol', 'snmp_v3_auth_password', 'snmp_v3_priv_protocol', 'snmp_v3_priv_password'], 'default', 'value' => null]
         ];
     }
 
@@ -107,22 +118,27 @@ class Credential extends ActiveRecord
     public function attributeLabels()
     {
         return [
-            'id'              => 'ID',
-            'name'            => Yii::t('app', 'Name'),
-            'telnet_login'    => Yii::t('network', 'Telnet Login'),
-            'telnet_password' => Yii::t('network', 'Telnet Password'),
-            'ssh_login'       => Yii::t('network', 'SSH Login'),
-            'ssh_password'    => Yii::t('network', 'SSH Password'),
-            'snmp_read'       => Yii::t('network', 'Read community'),
-            'snmp_set'        => Yii::t('network', 'Set community'),
-            'snmp_version'    => Yii::t('network', 'SNMP version'),
-            'snmp_encryption' => Yii::t('network', 'SNMP encryption'),
-            'enable_password' => Yii::t('network', 'Privileged mode password'),
-            'port_telnet'     => Yii::t('network', 'Telnet port'),
-            'port_ssh'        => Yii::t('network', 'SSH port'),
-            'port_snmp'       => Yii::t('network', 'SNMP port'),
-            'network_ip'      => Yii::t('app', 'Subnets'),
-            'node_name'       => Yii::t('node', 'Nodes'),
+            'id'                    => 'ID',
+            'name'                  => Yii::t('app', 'Name'),
+            'telnet_login'          => Yii::t('network', 'Telnet Login'),
+            'telnet_password'       => Yii::t('network', 'Telnet Password'),
+            'ssh_login'             => Yii::t('network', 'SSH Login'),
+            'ssh_password'          => Yii::t('network', 'SSH Password'),
+            'snmp_read'             => Yii::t('network', 'Read community'),
+            'snmp_set'              => Yii::t('network', 'Set community'),
+            'snmp_version'          => Yii::t('network', 'SNMP version'),
+            'snmp_encryption'       => Yii::t('network', 'SNMP encryption'),
+            'snmp_v3_user'          => Yii::t('network', 'SNMPv3 user'),
+            'snmp_v3_auth_protocol' => Yii::t('network', 'SNMPv3 authentication protocol'),
+            'snmp_v3_auth_password' => Yii::t('network', 'SNMPv3 authentication password'),
+            'snmp_v3_priv_protocol' => Yii::t('network', 'SNMPv3 privacy protocol'),
+            'snmp_v3_priv_password' => Yii::t('network', 'SNMPv3 privacy password'),
+            'enable_password'       => Yii::t('network', 'Privileged mode password'),
+            'port_telnet'           => Yii::t('network', 'Telnet port'),
+            'port_ssh'              => Yii::t('network', 'SSH port'),
+            'port_snmp'             => Yii::t('network', 'SNMP port'),
+            'network_ip'            => Yii::t('app', 'Subnets'),
+            'node_name'             => Yii::t('node', 'Nodes'),
         ];
     }
 
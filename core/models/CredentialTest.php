@@ -131,7 +131,7 @@ class CredentialTest extends Model
             [['ip'], 'required'],
             ['ip', 'ip', 'ipv4' => true, 'ipv6' => false, 'subnet' => false],
             [['port_telnet', 'port_ssh', 'port_snmp'], 'integer', 'min' => 1, 'max' => 65535],
-            [['snmp_version'], 'in', 'range' => [0, 1]],
+            [['snmp_version'], 'in', 'range' => [0, 1, 2]],
             [['telnet_login', 'telnet_password', 'ssh_login', 'ssh_password', 'snmp_read', 'snmp_set', 'snmp_encryption', 'enable_password', 'enable_prompt', 'enable_success', 'password_prompt', 'login_prompt', 'main_prompt'], 'string', 'max' => 128],
             [['telnet_login',  'telnet_password', 'ssh_login', 'ssh_password', 'snmp_encryption', 'enable_password', 'enable_prompt', 'enable_success', 'ip', 'snmp_version', 'snmp_read', 'snmp_set', 'port_telnet', 'port_ssh', 'port_snmp', 'password_prompt', 'login_prompt', 'main_prompt'], 'safe']
         ];
@@ -164,8 +164,8 @@ class CredentialTest extends Model
         $err_level = error_reporting();
                      error_reporting(0);
 
-        // SNMP
-        if (!empty($this->snmp_read)) {
+        // SNMP, v3 USM user is tested by worker only
+        if (!empty($this->snmp_read) && $this->snmp_version != 2) {
             $snmp_host = isset($this->port_snmp) ? "$this->ip:$this->port_snmp" : $this->ip;
             $snmp      = (new NetSNMP())->init($snmp_host, [$this->snmp_read, $this->snmp_set], $this->snmp_version);
             $snmpget   = intval(boolval($snmp->get('1.3.6.1.2.1.1.3.0')));
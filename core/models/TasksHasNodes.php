@@ -153,22 +153,49 @@ class TasksHasNodes extends ActiveRecord
 
     /**
      * Getting task node list
+     * With limit, page of nodes ordered by node id, starting after node $after
      *
-     * @param string $task
+     * @param string   $task
+     * @param int      $after
+     * @param int|null $limit
      * @return array
      */
-    public static function getTaskNodes($task): array
+    public static function getTaskNodes($task, int $after = 0, ?int $limit = null): array
     {
         /** Get array of exclusions */
         $exclusions = Exclusion::find()->select('ip')->asArray()->all();
 
-        return (new Query())
+        $query = (new Query())
             ->select(['node_id'])
+            ->from('{{%tasks_has_nodes}} t')
+            ->leftJoin('{{%node}} n', 't.node_id = n.id')
+            ->where('task_name=:task', [':task' => $task])
+            ->andWhere(['not in', 'ip', $exclusions]);
+
+        if (!is_null($limit)) {
+            $query->andWhere(['>', 't.node_id', $after])->orderBy(['t.node_id' => SORT_ASC])->limit($limit);
+        }
+
+        return $query->column();
+    }
+
+    /**
+     * Count of task nodes, exclusions are not counted
+     *
+     * @param string $task
+     * @return int
+     */
+    public static function countTaskNodes($task): int
+    {
+        /** Get array of exclusions */
+        $exclusions = Exclusion::find()->select('ip')->asArray()->all();
+
+        return (int)(new Query())
             ->from('{{%tasks_has_nodes}} t')
             ->leftJoin('{{%node}} n', 't.node_id = n.id')
             ->where('task_name=:task', [':task' => $task])
             ->andWhere(['not in', 'ip', $exclusions])
-            ->column();
+            ->count('t.node_id');
     }
 
     /**
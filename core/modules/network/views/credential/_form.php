@@ -316,6 +316,54 @@ $this->registerJs(
                             ?>
                         </div>
                     </div>
+                    <div class="row">
+                        <div class="col-md-4">
+                            <?php
+                                echo $form->field($model, 'snmp_v3_user')->textInput([
+                                    'class'        => 'form-control',
+                                    'placeholder'  => FormHelper::label($model, 'snmp_v3_user')
+                                ]);
+                            ?>
+                        </div>
+                        <div class="col-md-4">
+                            <?php
+                                echo $form->field($model, 'snmp_v3_auth_protocol')->dropDownList(\Y::param('snmp_v3_auth_protocols'), [
+                                    'prompt'           => '',
+                                    'class'            => 'select2',
+                                    'data-placeholder' => Yii::t('network', 'No authentication'),
+                                ]);
+                            ?>
+                        </div>
+                        <div class="col-md-4">
+                            <?php
+                                echo $form->field($model, 'snmp_v3_auth_password')->passwordInput([
+                                    'class'        => 'form-control',
+                                    'autocomplete' => 'off',
+                                    'placeholder'  => FormHelper::label($model, 'snmp_v3_auth_password')
+                                ]);
+                            ?>
+                        </div>
+                    </div>
+                    <div class="row">
+                        <div class="col-md-4 col-md-offset-4">
+                            <?php
+                                echo $form->field($model, 'snmp_v3_priv_protocol')->dropDownList(\Y::param('snmp_v3_priv_protocols'), [
+                                    'prompt'           => '',
+                                    'class'            => 'select2',
+                                    'data-placeholder' => Yii::t('network', 'No privacy'),
+                                ]);
+                            ?>
+                        </div>
+                        <div class="col-md-4">
+                            <?php
+                                echo $form->field($model, 'snmp_v3_priv_password')->passwordInput([
+                                    'class'        => 'form-control',
+                                    'autocomplete' => 'off',
+                                    'placeholder'  => FormHelper::label($model, 'snmp_v3_priv_password')
+                                ]);
+                            ?>
+                        </div>
+                    </div>
 
                     <h5 class="heading-hr text-bolder">
                         <i class="icon-user"></i> <?= Yii::t('network', 'Port information') ?>
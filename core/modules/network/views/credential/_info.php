@@ -54,6 +54,14 @@
                                 <th><?= Yii::t('network', 'SNMP port') ?></th>
                                 <td><?= (!empty($data->port_snmp)) ? $data->port_snmp : Yii::t('yii', '(not set)') ?></td>
                             </tr>
+                            <?php if ($data->snmp_version == 2): ?>
+                                <tr>
+                                    <th><?= Yii::t('network', 'SNMPv3 user') ?></th>
+                                    <td><?= (!empty($data->snmp_v3_user)) ? $data->snmp_v3_user : Yii::t('yii', '(not set)') ?></td>
+                                    <th><?= Yii::t('network', 'SNMPv3 security') ?></th>
+                                    <td><?= (!empty($data->snmp_v3_priv_protocol)) ? 'authPriv' : ((!empty($data->snmp_v3_auth_protocol)) ? 'authNoPriv' : 'noAuthNoPriv') ?></td>
+                                </tr>
+                            <?php endif; ?>
                         </tbody>
                     </table>
                 </div>
@@ -110,10 +110,12 @@ class CoreController extends Controller
                 'set-system-log'            => ['post'],
                 'set-worker-result'         => ['post'],
                 'set-discovery-result'      => ['post'],
+                'set-discovery-results'     => ['post'],
                 'get-exclusions'            => ['get'],
                 'get-variables'             => ['get'],
                 'get-worker-by-node-id'     => ['get'],
                 'get-nodes-workers-by-task' => ['get'],
+                'get-nodes-workers-page'    => ['get'],
                 'get-node-credentials'      => ['get'],
                 'get-config'                => ['get'],
                 'get-jobs'                  => ['get'],
@@ -155,26 +157,100 @@ class CoreController extends Controller
      *
      * @return array
      * @throws \yii\base\InvalidConfigException
-     * @throws \Exception
      */
     public function actionSetDiscoveryResult(): array
     {
-        $data = Yii::$app->request->getBodyParams();
+        [$code, $response] = $this->saveDiscoveryResult(Yii::$app->request->getBodyParams());
+
+        Yii::$app->response->statusCode = $code;
+        return $response;
+    }
+
+
+    /**
+     * Discovery nodes in bulk
+     * Each row is processed as in set-discovery-result, failed row does not stop others
+     * Status 201 if all rows are saved, 207 with per-row errors otherwise
+     *
+     * POST example:
+     * [
+     *   [ set-discovery-result row ],
+     *   [ set-discovery-result row ],
+     *   ...
+     * ]
+     *
+     * Response example (207):
+     * [
+     * 'success' => 98,
+     * 'failed'  => 2,
+     * 'errors'  => [
+     *     ['index' => 3, 'ip' => '10.0.0.4', 'status' => 422, 'message' => 'Validation failed'],
+     *     ...
+     * ]
+     * ]
+     *
+     * @return array
+     * @throws \yii\base\InvalidConfigException
+     */
+    public function actionSetDiscoveryResults(): array
+    {
+        $rows = Yii::$app->request->getBodyParams();
+
+        if (empty($rows) || !is_array($rows)) {
+            Yii::$app->response->statusCode = 422;
+            return ApiHelper::getResponseBodyByCode(422);
+        }
+
+        $result = ['success' => 0, 'failed' => 0, 'errors' => []];
+
+        foreach ($rows as $index => $row) {
+
+            if (!is_array($row)) {
+                $code     = 422;
+                $response = ApiHelper::getResponseBodyByCode(422);
+            } else {
+                [$code, $response] = $this->saveDiscoveryResult($row);
+            }
+
+            if ($code == 201) {
+                $result['success']++;
+            } else {
+                $result['failed']++;
+                $result['errors'][] = [
+                    'index'   => $index,
+                    'ip'      => (is_array($row) && isset($row['ip'])) ? $row['ip'] : null,
+                    'status'  => $code,
+                    'message' => $response['message'] ?? '',
+                ];
+            }
+        }
+
+        Yii::$app->response->statusCode = ($result['failed'] == 0) ? 201 : 207;
+        return $result;
+    }
+
+
+    /**
+     * Save one discovery result
+     *
+     * @param  array $data
+     * @return array [http status code, response body]
+     */
+    private function saveDiscoveryResult($data): array
+    {
 
         /*
          * Empty POST data or empty all model identifiers
          */
         if(empty($data) || (is_null($data['sysobject_id']) && is_null($data['hw']) && is_null($data['sys_description']))) {
-            Yii::$app->response->statusCode = 422;
-            return ApiHelper::getResponseBodyByCode(422);
+            return [422, ApiHelper::getResponseBodyByCode(422)];
         }
 
         /*
          * Required data validation
          */
         if(empty($data['ip']) || empty($data['network_id'])) {
-            Yii::$app->response->statusCode = 422;
-            return ApiHelper::getResponseBodyByCode(422);
+            return [422, ApiHelper::getResponseBodyByCode(422)];
         }
 
         /*
@@ -250,16 +326,13 @@ class CoreController extends Controller
             }
 
             if ($success) {
-                Yii::$app->response->statusCode = 201;
-                return [];
+                return [201, []];
             } else {
-                Yii::$app->response->statusCode = 500;
-                return ApiHelper::getResponseBodyByCode(500);
+                return [500, ApiHelper::getResponseBodyByCode(500)];
             }
 
         } catch (\Exception $e) {
-            Yii::$app->response->statusCode = 500;
-            return ApiHelper::getResponseBodyByCode(500, $e->getMessage());
+            return [500, ApiHelper::getResponseBodyByCode(500, $e->getMessage())];
         }
 
     }
@@ -287,6 +360,7 @@ class CoreController extends Controller
      *  'snmp_set'     => ..
      *  'snmp_version' => ..
      *  'port_snmp'    => ..
+     *  'snmp_v3_user' => .. //and other snmp_v3_* fields, used when snmp_version is 2
      * ]]
      *
      * @return array
@@ -296,7 +370,10 @@ class CoreController extends Controller
         $toReturn = [];
 
         $subnets = Network::find()
-            ->select(['network.id', 'network', 'credential_id', 'snmp_read', 'snmp_set', 'snmp_version', 'port_snmp'])
+            ->select([
+                'network.id', 'network', 'credential_id', 'snmp_read', 'snmp_set', 'snmp_version', 'port_snmp',
+                'snmp_v3_user', 'snmp_v3_auth_protocol', 'snmp_v3_auth_password', 'snmp_v3_priv_protocol', 'snmp_v3_priv_password'
+            ])
             ->where(['discoverable' => 1])
             ->joinWith('credential')
             ->asArray()
@@ -304,11 +381,16 @@ class CoreController extends Controller
 
         foreach($subnets as $network) {
             $toReturn[$network['network']] = [
-                'id'           => $network['id'],
-                'snmp_read'    => $network['snmp_read'],
-                'snmp_set'     => $network['snmp_set'],
-                'snmp_version' => $network['snmp_version'],
-                'port_snmp'    => $network['port_snmp']];
+                'id'                    => $network['id'],
+                'snmp_read'             => $network['snmp_read'],
+                'snmp_set'              => $network['snmp_set'],
+                'snmp_version'          => $network['snmp_version'],
+                'port_snmp'             => $network['port_snmp'],
+                'snmp_v3_user'          => $network['snmp_v3_user'],
+                'snmp_v3_auth_protocol' => $network['snmp_v3_auth_protocol'],
+                'snmp_v3_auth_password' => $network['snmp_v3_auth_password'],
+                'snmp_v3_priv_protocol' => $network['snmp_v3_priv_protocol'],
+                'snmp_v3_priv_password' => $network['snmp_v3_priv_password']];
         }
 
         return $toReturn;
@@ -872,15 +954,67 @@ class CoreController extends Controller
      */
     public function actionGetNodesWorkersByTask($schedule_id, $task_name)
     {
-        $result = [];
-
         if(empty($task_name)) {
             Yii::$app->response->statusCode = 422;
             return ApiHelper::getResponseBodyByCode(422);
         }
 
         $nodes = TasksHasNodes::getTaskNodes($task_name);
-        $nodes = array_unique($nodes);
+
+        return $this->getNodesWorkers(array_unique($nodes), $schedule_id, $task_name);
+    }
+
+
+    /**
+     * Getting page of task nodes with workers, nodes are ordered by node id
+     * Return example:
+     * [
+     *  'nodes' => [node_id1=>[..], node_id2=>..], // same as get-nodes-workers-by-task
+     *  'next'  => (node id to request next page after, null on last page)
+     *  'total' => (node count of task, first page only)
+     * ]
+     *
+     * @param string $schedule_id
+     * @param string $task_name
+     * @param int    $after - last node id of previous page
+     * @param int    $limit - page size
+     * @return array
+     */
+    public function actionGetNodesWorkersPage($schedule_id, $task_name, $after = 0, $limit = 1000)
+    {
+        $limit = (int)$limit;
+
+        if(empty($task_name) || $limit < 1) {
+            Yii::$app->response->statusCode = 422;
+            return ApiHelper::getResponseBodyByCode(422);
+        }
+
+        $nodes = TasksHasNodes::getTaskNodes($task_name, (int)$after, $limit);
+
+        $page = [
+            'nodes' => $this->getNodesWorkers(array_unique($nodes), $schedule_id, $task_name),
+            'next'  => (count($nodes) < $limit) ? null : end($nodes),
+        ];
+
+        if((int)$after === 0) {
+            $page['total'] = ($page['next'] === null) ? count($nodes) : TasksHasNodes::countTaskNodes($task_name);
+        }
+
+        return $page;
+    }
+
+
+    /**
+     * Getting workers of nodes
+     *
+     * @param array  $nodes
+     * @param string $schedule_id
+     * @param string $task_name
+     * @return array
+     */
+    private function getNodesWorkers(array $nodes, $schedule_id, $task_name): array
+    {
+        $result = [];
 
         foreach($nodes as $node_id) {
 
@@ -77,11 +77,16 @@ class CoreCest
         /** Check json type if response is not empty */
         if ($I->grabResponse() != '[]') {
             $I->seeResponseMatchesJsonType([
-                'id'           => 'string',
-                'snmp_read'    => 'string|null',
-                'snmp_set'     => 'string|null',
-                'snmp_version' => 'string',
-                'port_snmp'    => 'string',
+                'id'                    => 'string',
+                'snmp_read'             => 'string|null',
+                'snmp_set'              => 'string|null',
+                'snmp_version'          => 'string',
+                'port_snmp'             => 'string',
+                'snmp_v3_user'          => 'string|null',
+                'snmp_v3_auth_protocol' => 'string|null',
+                'snmp_v3_auth_password' => 'string|null',
+                'snmp_v3_priv_protocol' => 'string|null',
+                'snmp_v3_priv_password' => 'string|null',
             ], '$.[*]');
         }
     }
@@ -172,21 +177,26 @@ class CoreCest
         /** Check json type if response is not empty */
         if ($I->grabResponse() != '[]') {
             $I->seeResponseMatchesJsonType([
-                'id'              => 'string',
-                'name'            => 'string',
-                'telnet_login'    => 'string|null',
-                'telnet_password' => 'string|null',
-                'ssh_login'       => 'string|null',
-                'ssh_password'    => 'string|null',
-                'snmp_read'       => 'string|null',
-                'snmp_set'        => 'string|null',
-                'snmp_version'    => 'string|null',
-                'snmp_encryption' => 'string|null',
-                'enable_password' => 'string|null',
-                'port_telnet'     => 'string|null',
-                'port_ssh'        => 'string|null',
-                'port_snmp'       => 'string|null',
-                'auth_sequence'   => 'string'
+                'id'                    => 'string',
+                'name'                  => 'string',
+                'telnet_login'          => 'string|null',
+                'telnet_password'       => 'string|null',
+                'ssh_login'             => 'string|null',
+                'ssh_password'          => 'string|null',
+                'snmp_read'             => 'string|null',
+                'snmp_set'              => 'string|null',
+                'snmp_version'          => 'string|null',
+                'snmp_encryption'       => 'string|null',
+                'snmp_v3_user'          => 'string|null',
+                'snmp_v3_auth_protocol' => 'string|null',
+                'snmp_v3_auth_password' => 'string|null',
+                'snmp_v3_priv_protocol' => 'string|null',
+                'snmp_v3_priv_password' => 'string|null',
+                'enable_password'       => 'string|null',
+                'port_telnet'           => 'string|null',
+                'port_ssh'              => 'string|null',
+                'port_snmp'             => 'string|null',
+                'auth_sequence'         => 'string'
             ]);
         }
     }
@@ -668,6 +668,269 @@ $this->registerJsFile('@web/js/config/script.js', ['depends' => \app\assets\Alph
                     </div>
                 </div>
 
+<!--------------------------------------------- WORKER TUNING SETTINGS BOX -------------------------------------------->
+                <div class="box box-default">
+                    <div class="box-header with-border">
+                        <i class="fa fa-sliders"></i>
+                        <h3 class="box-title"><?= Yii::t('config', 'Worker tuning settings') ?></h3>
+                    </div>
+                    <div class="box-body">
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('snmpTransports', $errors, [
+                                            'label'       => Yii::t('config', 'SNMP transports'),
+                                            'description' => Yii::t('config', 'Number of UDP sockets shared by all SNMP requests of worker'),
+                                            'input'       => Html::textInput('Config[snmpTransports]', $data['snmpTransports'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('snmpMaxInFlight', $errors, [
+                                            'label'       => Yii::t('config', 'SNMP requests in flight'),
+                                            'description' => Yii::t('config', 'Max number of SNMP requests waiting for response at once'),
+                                            'input'       => Html::textInput('Config[snmpMaxInFlight]', $data['snmpMaxInFlight'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('snmpMaxVarbinds', $errors, [
+                                            'label'       => Yii::t('config', 'SNMP OIDs per request'),
+                                            'description' => Yii::t('config', 'Max number of OIDs packed into one SNMP GET request. 1: one OID per request'),
+                                            'input'       => Html::textInput('Config[snmpMaxVarbinds]', $data['snmpMaxVarbinds'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('snmpMaxRepetitions', $errors, [
+                                            'label'       => Yii::t('config', 'SNMP max repetitions'),
+                                            'description' => Yii::t('config', 'Number of rows requested by one GETBULK request of SNMP walk'),
+                                            'input'       => Html::textInput('Config[snmpMaxRepetitions]', $data['snmpMaxRepetitions'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryConcurrency', $errors, [
+                                            'label'       => Yii::t('config', 'Discovery concurrency'),
+                                            'description' => Yii::t('config', 'Max number of hosts discovered at once'),
+                                            'input'       => Html::textInput('Config[discoveryConcurrency]', $data['discoveryConcurrency'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryMode', $errors, [
+                                            'label'       => Yii::t('config', 'Discovery mode'),
+                                            'description' => Yii::t('config', 'Incremental mode sends only new or changed hosts to core'),
+                                            'input'       => Html::dropDownList('Config[discoveryMode]', $data['discoveryMode'], ['full' => Yii::t('config', 'Full'), 'incremental' => Yii::t('config', 'Incremental')], ['class' => 'select2']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryFullRescanInterval', $errors, [
+                                            'label'       => Yii::t('config', 'Full rescan interval'),
+                                            'description' => Yii::t('config', 'Number of hours between full rescans in incremental mode. 0: every run is full rescan'),
+                                            'input'       => Html::textInput('Config[discoveryFullRescanInterval]', $data['discoveryFullRescanInterval'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryBatchSize', $errors, [
+                                            'label'       => Yii::t('config', 'Discovery batch size'),
+                                            'description' => Yii::t('config', 'Number of discovery results sent to core in one request'),
+                                            'input'       => Html::textInput('Config[discoveryBatchSize]', $data['discoveryBatchSize'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryPrefilter', $errors, [
+                                            'label'       => Yii::t('config', 'Discovery pre-filter'),
+                                            'description' => Yii::t('config', 'Liveness check of subnet hosts before discovery, hosts without response are skipped'),
+                                            'input'       => Html::dropDownList('Config[discoveryPrefilter]', $data['discoveryPrefilter'], ['none' => Yii::t('config', 'Disabled'), 'snmp' => 'SNMP', 'tcp' => 'TCP'], ['class' => 'select2']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryPrefilterTimeout', $errors, [
+                                            'label'       => Yii::t('config', 'Pre-filter timeout'),
+                                            'description' => Yii::t('config', 'The number of milliseconds to wait for liveness check response'),
+                                            'input'       => Html::textInput('Config[discoveryPrefilterTimeout]', $data['discoveryPrefilterTimeout'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryPrefilterConcurrency', $errors, [
+                                            'label'       => Yii::t('config', 'Pre-filter concurrency'),
+                                            'description' => Yii::t('config', 'Max number of liveness checks at once'),
+                                            'input'       => Html::textInput('Config[discoveryPrefilterConcurrency]', $data['discoveryPrefilterConcurrency'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('discoveryPrefilterPorts', $errors, [
+                                            'label'       => Yii::t('config', 'Pre-filter TCP ports'),
+                                            'description' => Yii::t('config', 'Comma separated ports for TCP liveness check, refused connection also means host is alive'),
+                                            'input'       => Html::textInput('Config[discoveryPrefilterPorts]', $data['discoveryPrefilterPorts'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('nodeQueueSize', $errors, [
+                                            'label'       => Yii::t('config', 'Node queue size'),
+                                            'description' => Yii::t('config', 'Max number of node workers waiting for a free thread'),
+                                            'input'       => Html::textInput('Config[nodeQueueSize]', $data['nodeQueueSize'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('nodePageSize', $errors, [
+                                            'label'       => Yii::t('config', 'Node page size'),
+                                            'description' => Yii::t('config', 'Number of task nodes received from core in one request. 0: all nodes in one request'),
+                                            'input'       => Html::textInput('Config[nodePageSize]', $data['nodePageSize'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('nodeSpreadWindow', $errors, [
+                                            'label'       => Yii::t('config', 'Node spread window'),
+                                            'description' => Yii::t('config', 'Number of seconds to spread start of task node workers over. 0: start without delay'),
+                                            'input'       => Html::textInput('Config[nodeSpreadWindow]', $data['nodeSpreadWindow'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('taskJitter', $errors, [
+                                            'label'       => Yii::t('config', 'Task start jitter'),
+                                            'description' => Yii::t('config', 'Max random delay in seconds before scheduled task start. 0: no delay'),
+                                            'input'       => Html::textInput('Config[taskJitter]', $data['taskJitter'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('taskOverlap', $errors, [
+                                            'label'       => Yii::t('config', 'Task overlap policy'),
+                                            'description' => Yii::t('config', 'Action when scheduled task is started while its previous run is still running'),
+                                            'input'       => Html::dropDownList('Config[taskOverlap]', $data['taskOverlap'], ['skip' => Yii::t('config', 'Skip new run'), 'queue-one' => Yii::t('config', 'Queue one run'), 'cancel-previous' => Yii::t('config', 'Cancel previous run')], ['class' => 'select2']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('outputSpillThreshold', $errors, [
+                                            'label'       => Yii::t('config', 'Output spill threshold'),
+                                            'description' => Yii::t('config', 'SSH and Telnet output size in chars, from which output is kept on disk. 0: always in memory'),
+                                            'input'       => Html::textInput('Config[outputSpillThreshold]', $data['outputSpillThreshold'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('sshTransport', $errors, [
+                                            'label'       => Yii::t('config', 'SSH transport'),
+                                            'description' => Yii::t('config', 'SSH library used for all nodes'),
+                                            'input'       => Html::dropDownList('Config[sshTransport]', $data['sshTransport'], ['jsch' => 'JSch', 'sshd' => 'Apache SSHD'], ['class' => 'select2']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('sshdModels', $errors, [
+                                            'label'       => Yii::t('config', 'SSHD models'),
+                                            'description' => Yii::t('config', 'Comma separated list of "Vendor" or "Vendor/Model" using Apache SSHD transport'),
+                                            'input'       => Html::textInput('Config[sshdModels]', $data['sshdModels'], ['class' => 'form-control']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                        <div class="row">
+                            <div class="col-lg-6">
+                                <div class="row">
+                                    <?=
+                                        ConfigHelper::formGroup('telnetEngine', $errors, [
+                                            'label'       => Yii::t('config', 'Telnet engine'),
+                                            'description' => Yii::t('config', 'Blocking: thread per session, NIO: one selector thread for all sessions'),
+                                            'input'       => Html::dropDownList('Config[telnetEngine]', $data['telnetEngine'], ['blocking' => Yii::t('config', 'Blocking'), 'nio' => 'NIO'], ['class' => 'select2']),
+                                        ])
+                                    ?>
+                                </div>
+                            </div>
+                        </div>
+                    </div>
+                </div>
+
 <!----------------------------------------------- SERVER CREDENTIALS BOX ---------------------------------------------->
                 <div class="box box-default">
                     <div class="box-header with-border">
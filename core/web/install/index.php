@@ -139,12 +139,32 @@ if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_POST['action'])) {
                     `snmp_set` VARCHAR(128) DEFAULT NULL,
                     `snmp_version` INT(11) DEFAULT NULL,
                     `snmp_encryption` VARCHAR(128) DEFAULT NULL,
+                    `snmp_v3_user` VARCHAR(128) DEFAULT NULL,
+                    `snmp_v3_auth_protocol` VARCHAR(16) DEFAULT NULL,
+                    `snmp_v3_auth_password` VARCHAR(128) DEFAULT NULL,
+                    `snmp_v3_priv_protocol` VARCHAR(16) DEFAULT NULL,
+                    `snmp_v3_priv_password` VARCHAR(128) DEFAULT NULL,
                     `enable_password` VARCHAR(128) DEFAULT NULL,
                     `port_telnet` INT(11) DEFAULT NULL,
                     `port_ssh` INT(11) DEFAULT NULL,
                     `port_snmp` INT(11) DEFAULT NULL
                 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
                 
+                // Add SNMPv3 columns to existing credential table
+                $snmpV3Columns = [
+                    'snmp_v3_user'          => "VARCHAR(128) DEFAULT NULL AFTER `snmp_encryption`",
+                    'snmp_v3_auth_protocol' => "VARCHAR(16) DEFAULT NULL AFTER `snmp_v3_user`",
+                    'snmp_v3_auth_password' => "VARCHAR(128) DEFAULT NULL AFTER `snmp_v3_auth_protocol`",
+                    'snmp_v3_priv_protocol' => "VARCHAR(16) DEFAULT NULL AFTER `snmp_v3_auth_password`",
+                    'snmp_v3_priv_password' => "VARCHAR(128) DEFAULT NULL AFTER `snmp_v3_priv_protocol`",
+                ];
+                foreach ($snmpV3Columns as $column => $definition) {
+                    $stmt = $pdo->query("SHOW COLUMNS FROM `credential` LIKE '{$column}'");
+                    if ($stmt->rowCount() == 0) {
+                        $pdo->exec("ALTER TABLE `credential` ADD COLUMN `{$column}` {$definition}");
+                    }
+                }
+                
                 // Create network table
                 $pdo->exec("CREATE TABLE IF NOT EXISTS `network` (
                     `id` INT(11) NOT NULL AUTO_INCREMENT PRIMARY KEY,
@@ -316,7 +336,28 @@ if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_POST['action'])) {
                     ('javaServerPassword', ''),
                     ('javaSchedulerUsername', ''),
                     ('javaSchedulerPort', '8437'),
-                    ('javaSchedulerPassword', '')");
+                    ('javaSchedulerPassword', ''),
+                    ('snmpTransports', '4'),
+                    ('snmpMaxInFlight', '512'),
+                    ('snmpMaxVarbinds', '10'),
+                    ('snmpMaxRepetitions', '20'),
+                    ('discoveryConcurrency', '512'),
+                    ('discoveryPrefilter', 'none'),
+                    ('discoveryPrefilterTimeout', '300'),
+                    ('discoveryPrefilterConcurrency', '1024'),
+                    ('discoveryPrefilterPorts', '22,23'),
+                    ('discoveryMode', 'full'),
+                    ('discoveryFullRescanInterval', '24'),
+                    ('discoveryBatchSize', '100'),
+                    ('nodeQueueSize', '10000'),
+                    ('nodePageSize', '1000'),
+                    ('nodeSpreadWindow', '0'),
+                    ('taskJitter', '0'),
+                    ('taskOverlap', 'skip'),
+                    ('sshTransport', 'jsch'),
+                    ('sshdModels', ''),
+                    ('telnetEngine', 'blocking'),
+                    ('outputSpillThreshold', '4194304')");
                 
                 // Create out_backup table for storing backup configurations
                 $pdo->exec("CREATE TABLE IF NOT EXISTS `out_backup` (
@@ -649,6 +690,7 @@ if ($_SERVER['REQUEST_METHOD'] === 'POST' && isset($_POST['action'])) {
                 $pdo->exec("CREATE TABLE IF NOT EXISTS `job_snmp_request_types` (
                     `name` VARCHAR(32) NOT NULL PRIMARY KEY
                 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+                $pdo->exec("INSERT IGNORE INTO `job_snmp_request_types` (`name`) VALUES ('get'), ('set'), ('walk')");
                 
                 // Add foreign keys for log tables if user table exists
                 try {
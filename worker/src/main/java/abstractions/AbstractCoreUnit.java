@@ -44,6 +44,20 @@ public abstract class AbstractCoreUnit {
         logLevels.put("EMERG", 7);
     }
 
+    /**
+     * Use shared coordinates and settings
+     * Values put by unit go to own overlay, shared maps are not copied
+     *
+     * @param coordinates - schedule, task, node, etc..
+     * @param settings    - app settings
+     */
+    protected final void setContext(Map<String, String> coordinates, Map<String, String> settings)
+    {
+        this.coordinates = ContextMap.over(coordinates);
+        this.settings    = ContextMap.over(settings);
+    }
+
+
     /**
      * Is message level sufficient for logging
      * Message with unknown log level ALWAYS going to log
@@ -17,6 +17,12 @@
  */
 package abstractions;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
@@ -35,6 +41,45 @@ public abstract class AbstractProtocol extends AbstractCoreUnit {
     protected Map<String, Map<String, String>> jobs           = new TreeMap<>();
     // Class work result
     protected DTOProtocolResult result                        = new DTOProtocolResult();
+    // Task execution plans, null if not shared
+    protected ExecutionPlans plans                            = null;
+    // Version of jobs, job plan key
+    protected String jobsVersion                              = null;
+
+    // Default size of result value in chars, which is spilled to disk
+    private static final long DEFAULT_SPILL_THRESHOLD = 4L * 1024 * 1024;
+
+    /**
+     * Use worker context, nothing is copied
+     *
+     * @param coordinates  - schedule, task, node, etc..
+     * @param settings     - app settings
+     * @param credentials  - credentials
+     * @param jobs         - sorted jobs
+     * @param variables    - variable list
+     */
+    protected final void setContext(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials,
+                                    Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables)
+    {
+        this.setContext(coordinates, settings);
+        this.credentials = ContextMap.over(credentials);
+        this.jobs        = ContextMap.over(jobs);
+        this.variables   = ContextMap.over(variables);
+    }
+
+
+    /**
+     * Use execution plans shared by task
+     *
+     * @param plans       - task execution plans
+     * @param jobsVersion - version of jobs, see ExecutionPlans.version()
+     */
+    public final void setPlans(ExecutionPlans plans, String jobsVersion)
+    {
+        this.plans       = plans;
+        this.jobsVersion = jobsVersion;
+    }
+
 
     /**
      * Executing all commands(this.jobs). Returning DTO with results.
@@ -87,4 +132,127 @@ public abstract class AbstractProtocol extends AbstractCoreUnit {
     }
 
 
+    /**
+     * Saving result value
+     * Values bigger than outputSpillThreshold setting are written to temp file
+     * in dataPath and only file reference is kept in result
+     *
+     * @param tableField - result table field
+     * @param value      - result value
+     */
+    protected void putResult(String tableField, String value) {
+
+        this.removeSpilledResult(tableField);
+
+        long threshold = this.getSpillThreshold();
+
+        if(value == null || threshold <= 0 || value.length() < threshold) {
+            this.result.data.put(tableField, value);
+            return;
+        }
+
+        try {
+
+            Path file = Files.createTempFile(this.getSpillDirectory(), "cbackup-", ".tmp");
+
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writer.write(value);
+            }
+            catch (IOException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+
+            this.result.data.remove(tableField);
+            this.result.files.put(tableField, file);
+
+        }
+        catch (IOException e) {
+            String spillMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                    ": can't spill result of " + tableField + " to disk, keeping it in memory.";
+            this.logException("WARNING", "NODE REQUEST", spillMessage, e);
+            this.result.data.put(tableField, value);
+        }
+    }
+
+
+    /**
+     * Saving result value already written to temp file, file is owned by result
+     *
+     * @param tableField - result table field
+     * @param file       - temp file in spill directory
+     */
+    protected void putResultFile(String tableField, Path file) {
+
+        this.removeSpilledResult(tableField);
+
+        this.result.data.remove(tableField);
+        this.result.files.put(tableField, file);
+    }
+
+
+    /**
+     * Result size in chars, from which value is kept on disk
+     *
+     * @return long - outputSpillThreshold setting, 0 if spilling is disabled
+     */
+    protected long getSpillThreshold() {
+
+        String thresholdSetting = this.settings.get("outputSpillThreshold");
+
+        if(thresholdSetting != null) {
+            try {
+                return Long.parseLong(thresholdSetting);
+            }
+            catch (NumberFormatException e) {
+                return DEFAULT_SPILL_THRESHOLD;
+            }
+        }
+
+        return DEFAULT_SPILL_THRESHOLD;
+    }
+
+
+    /**
+     * Removing previously spilled value of table field
+     *
+     * @param tableField - result table field
+     */
+    private void removeSpilledResult(String tableField) {
+
+        Path file = this.result.files.remove(tableField);
+
+        if(file != null) {
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException ignored) {
+                // temp file, removed by OS later
+            }
+        }
+    }
+
+
+    /**
+     * Directory for spilled results
+     * dataPath/.spool or system temp directory if dataPath is not available
+     *
+     * @return Path - existing directory
+     */
+    protected Path getSpillDirectory() {
+
+        String dataPath = this.settings.get("dataPath");
+
+        if(dataPath != null && dataPath.length() > 0) {
+            try {
+                return Files.createDirectories(Paths.get(dataPath, ".spool"));
+            }
+            catch (IOException | RuntimeException e) {
+                // falling back to system temp
+            }
+        }
+
+        return Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
 }
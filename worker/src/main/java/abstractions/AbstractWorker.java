@@ -18,16 +18,17 @@
 package abstractions;
 
 import api.ApiCaller;
+import api.ApiPostBodyWriter;
 import api.ApiRequest;
 import api.ApiRequestMethods;
 import api.ApiResponse;
+import api.ApiJson;
 
 /*
  * gson
  */
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 
 /*
  * md5
@@ -36,6 +37,14 @@ import java.lang.reflect.Type;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import java.util.*;
 import java.util.concurrent.Callable;
 
@@ -49,13 +58,50 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
     protected Map<String, String> credentials;
     protected Map<String, Map<String, String>> jobs;
     protected Map<String, DTOVariableConvertResult> variables = new HashMap<>();
-    protected Gson gson = new Gson();
+    protected final Gson gson = ApiJson.GSON;
 
     /*
      * Worker result DTO
      */
     protected DTOWorkerResult workerResult = new DTOWorkerResult();
 
+    /*
+     * Task execution plans, passed to protocol object
+     */
+    protected ExecutionPlans plans = null;
+
+    /*
+     * Version of received jobs, job plan key
+     */
+    protected String jobsVersion = null;
+
+
+    /**
+     * Use shared task context
+     *
+     * @param coordinates - schedule, task, node, etc..
+     * @param settings    - app settings
+     * @param variables   - app variables
+     */
+    protected final void setContext(Map<String, String> coordinates, Map<String, String> settings, Map<String, DTOVariableConvertResult> variables)
+    {
+        this.setContext(coordinates, settings);
+        this.variables = ContextMap.over(variables);
+    }
+
+
+    /**
+     * Use execution plans shared by task
+     *
+     * @param plans - task execution plans
+     * @return AbstractWorker
+     */
+    public final AbstractWorker setPlans(ExecutionPlans plans)
+    {
+        this.plans = plans;
+        return this;
+    }
+
 
     /**
      * Main worker thread-callable method
@@ -63,6 +109,22 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
      * @return Boolean - returns true|false for Task stats
      */
     public Boolean call()
+    {
+        try {
+            return this.run();
+        }
+        finally {
+            this.removeSpilledFiles();
+        }
+    }
+
+
+    /**
+     * Worker steps
+     *
+     * @return Boolean - returns true|false for Task stats
+     */
+    private Boolean run()
     {
 
         /*if(!this.isActionRequired()) {
@@ -166,7 +228,7 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
          */
         String credentialsJson = credentialsResponse.response;
 
-        Type credentialsType = new TypeToken<HashMap<String, String>>(){}.getType();
+        Type credentialsType = ApiJson.STRING_MAP;
 
         try {
 
@@ -222,7 +284,12 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
          */
         String jobsJson = jobsResponse.response;
 
-        Type jobsType = new TypeToken<TreeMap<String, HashMap<String, String>>>(){}.getType();
+        Type jobsType = ApiJson.STRING_MAP_TREE;
+
+        // Nodes of worker share job plan while version is the same
+        if(this.plans != null && jobsJson != null) {
+            this.jobsVersion = ExecutionPlans.version(jobsJson);
+        }
 
         try {
 
@@ -260,7 +327,6 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
         // noinspection UnusedAssignment
         Boolean required = true;
         String oldHash;
-        String allData   = "";
         // noinspection UnusedAssignment
         String newHash   = "";
 
@@ -301,8 +367,7 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
              */
             String hashJson = hashResponse.response;
 
-            Type hashType = new TypeToken<String>() {
-            }.getType();
+            Type hashType = String.class;
 
             try {
 
@@ -314,25 +379,32 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
                 return false;
             }
 
-            // Calculating new hash
-            // Get a set of the entries
-            Set<Map.Entry<String, String>> resultDataSet = this.workerResult.data.entrySet();
-
-            // Get an iterator
-            Iterator<Map.Entry<String, String>> it = resultDataSet.iterator();
-
-            // Concatenating all new data
-            // noinspection WhileLoopReplaceableByForEach
-            while (it.hasNext()) {
-                Map.Entry<String, String> result = it.next();
-                allData += result.getValue();
-            }
-
             // Getting new hash
+            // All new data in table field order, spilled data is streamed from disk
             try {
 
                 MessageDigest md = MessageDigest.getInstance("MD5");
-                md.update(allData.getBytes()); // todo test getBytes("UTF-8")
+
+                for (String tableField : this.getResultFields()) {
+
+                    Path file = this.workerResult.files.get(tableField);
+
+                    if(file != null) {
+                        try (InputStream in = Files.newInputStream(file)) {
+                            byte[] buffer = new byte[8192];
+                            for (int read; (read = in.read(buffer)) > 0; ) {
+                                md.update(buffer, 0, read);
+                            }
+                        }
+                    }
+                    else {
+                        String value = this.workerResult.data.get(tableField);
+                        if(value != null) {
+                            md.update(value.getBytes()); // todo test getBytes("UTF-8")
+                        }
+                    }
+                }
+
                 byte[] digest = md.digest();
                 // Convert byte array to hex string (Java 8+ compatible)
                 StringBuilder hexString = new StringBuilder();
@@ -345,7 +417,7 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
                 }
                 newHash = hexString.toString().toUpperCase();
 
-            } catch (NoSuchAlgorithmException e) {
+            } catch (NoSuchAlgorithmException | IOException e) {
                 String parseCredMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't get new md5 hash from result.";
                 this.logException("ERROR", "WORKER SEND RESULT", parseCredMessage, e);
                 return false;
@@ -400,8 +472,15 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
          */
         ApiRequest log = new ApiRequest(this.coordinates)
                 .setRequestMethod(ApiRequestMethods.POST)
-                .setApiMethod("v1/core/set-worker-result")
-                .setPostJson(this.gson.toJson(this.workerResult));
+                .setApiMethod("v1/core/set-worker-result");
+
+        if(this.workerResult.files.isEmpty()) {
+            log.setPostJson(this.gson.toJson(this.workerResult));
+        }
+        else {
+            // Spilled data is streamed from disk without loading it to memory
+            log.setPostBody(this::writeResult);
+        }
 
         ApiResponse setResultResponse = ApiCaller.request(log);
 
@@ -432,4 +511,144 @@ public abstract class AbstractWorker extends AbstractCoreUnit implements Callabl
     protected abstract Boolean executeJobs();
 
 
+    /**
+     * All result table fields in order, both in memory and spilled to disk
+     *
+     * @return Set - sorted table fields
+     */
+    private Set<String> getResultFields()
+    {
+        Set<String> fields = new TreeSet<>(this.workerResult.data.keySet());
+        fields.addAll(this.workerResult.files.keySet());
+        return fields;
+    }
+
+
+    /**
+     * Writing worker result JSON, same as gson serialization of this.workerResult
+     *
+     * @param writer - request body writer
+     * @throws IOException on read|write errors
+     */
+    private void writeResult(Writer writer) throws IOException
+    {
+        writer.write('{');
+        this.writeJsonField(writer, "put", this.workerResult.put);
+        this.writeJsonField(writer, "table", this.workerResult.table);
+        this.writeJsonField(writer, "dataPath", this.workerResult.dataPath);
+        this.writeJsonField(writer, "taskName", this.workerResult.taskName);
+        this.writeJsonField(writer, "nodeId", this.workerResult.nodeId);
+        this.writeJsonField(writer, "hash", this.workerResult.hash);
+        writer.write("\"data\":{");
+
+        boolean first = true;
+
+        for (String tableField : this.getResultFields()) {
+
+            if(!first) {
+                writer.write(',');
+            }
+            first = false;
+
+            writer.write(this.gson.toJson(tableField));
+            writer.write(':');
+
+            Path file = this.workerResult.files.get(tableField);
+
+            if(file != null) {
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    writer.write('"');
+                    char[] buffer = new char[8192];
+                    for (int read; (read = reader.read(buffer)) > 0; ) {
+                        for (int i = 0; i < read; i++) {
+                            AbstractWorker.writeJsonChar(writer, buffer[i]);
+                        }
+                    }
+                    writer.write('"');
+                }
+            }
+            else {
+                writer.write(this.gson.toJson(this.workerResult.data.get(tableField)));
+            }
+        }
+
+        writer.write("}}");
+    }
+
+
+    /**
+     * Writing not null string field with trailing comma
+     *
+     * @param writer - request body writer
+     * @param name   - field name
+     * @param value  - field value
+     * @throws IOException on write errors
+     */
+    private void writeJsonField(Writer writer, String name, String value) throws IOException
+    {
+        if(value == null) {
+            return;
+        }
+
+        writer.write(this.gson.toJson(name));
+        writer.write(':');
+        writer.write(this.gson.toJson(value));
+        writer.write(',');
+    }
+
+
+    /**
+     * Writing JSON string char with escaping
+     *
+     * @param writer - request body writer
+     * @param c      - char to write
+     * @throws IOException on write errors
+     */
+    private static void writeJsonChar(Writer writer, char c) throws IOException
+    {
+        switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if(c < 0x20 || c == 0x2028 || c == 0x2029) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                }
+                else {
+                    writer.write(c);
+                }
+        }
+    }
+
+
+    /**
+     * Removing spilled result files
+     */
+    private void removeSpilledFiles()
+    {
+        for (Path file : this.workerResult.files.values()) {
+            try {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException e) {
+                String removeMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't remove temp file " + file + ".";
+                this.logException("WARNING", "WORKER SEND RESULT", removeMessage, e);
+            }
+        }
+
+        this.workerResult.files.clear();
+    }
+
 }
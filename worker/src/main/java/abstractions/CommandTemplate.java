@@ -0,0 +1,157 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package abstractions;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Job command compiled to literal and variable segments
+ *
+ * Command is parsed once and shared by all nodes, variables (%%NAME%%, NAME is word characters)
+ * are injected with single pass. Variable values are inserted as is, '$' and '\' have no special meaning.
+ */
+public final class CommandTemplate {
+
+    // Compiled templates are kept while cache is below this size
+    private static final int CACHE_LIMIT = 10000;
+
+    private static final Map<String, CommandTemplate> cache = new ConcurrentHashMap<>();
+
+    /*
+     * literals[0] names[0] literals[1] names[1] ... literals[n]
+     */
+    private final String[] literals;
+    private final String[] names;
+
+    private final String       command;
+    private final List<String> variables;
+
+
+    /**
+     * Constructor
+     *
+     * @param command - job command
+     */
+    private CommandTemplate(String command) {
+
+        List<String> literalList = new ArrayList<>();
+        List<String> nameList    = new ArrayList<>();
+
+        int literalStart = 0;
+        int position     = command.indexOf("%%");
+
+        while (position >= 0) {
+
+            int nameEnd = position + 2;
+            while (nameEnd < command.length() && isWordChar(command.charAt(nameEnd))) {
+                nameEnd++;
+            }
+
+            if (nameEnd > position + 2 && command.startsWith("%%", nameEnd)) {
+                literalList.add(command.substring(literalStart, position));
+                nameList.add(command.substring(position, nameEnd + 2));
+                literalStart = nameEnd + 2;
+                position     = command.indexOf("%%", literalStart);
+            }
+            else {
+                // not a variable, closing %% may open next variable
+                position = command.indexOf("%%", position + 1);
+            }
+        }
+
+        literalList.add(command.substring(literalStart));
+
+        this.command   = command;
+        this.literals  = literalList.toArray(new String[0]);
+        this.names     = nameList.toArray(new String[0]);
+        this.variables = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(nameList)));
+    }
+
+
+    /**
+     * Compiled template of command, cached
+     *
+     * @param command - job command
+     * @return CommandTemplate
+     */
+    public static CommandTemplate compile(String command) {
+
+        CommandTemplate template = cache.get(command);
+
+        if (template == null) {
+            template = new CommandTemplate(command);
+            if (cache.size() < CACHE_LIMIT) {
+                cache.putIfAbsent(command, template);
+            }
+        }
+
+        return template;
+    }
+
+
+    /**
+     * @return boolean - command has variables
+     */
+    public boolean hasVariables() {
+        return this.names.length > 0;
+    }
+
+
+    /**
+     * @return List - referenced variable names with %%, in order of first use
+     */
+    public List<String> getVariables() {
+        return this.variables;
+    }
+
+
+    /**
+     * Command with injected variables
+     *
+     * @param values - variable name => value, variables without value are left as is
+     * @return String
+     */
+    public String render(Map<String, String> values) {
+
+        if (this.names.length == 0) {
+            return this.command;
+        }
+
+        StringBuilder result = new StringBuilder(this.command.length() + 16 * this.names.length);
+
+        for (int i = 0; i < this.names.length; i++) {
+            result.append(this.literals[i]);
+            String value = values.get(this.names[i]);
+            result.append(value != null ? value : this.names[i]);
+        }
+
+        return result.append(this.literals[this.names.length]).toString();
+    }
+
+
+    /**
+     * @param c - character
+     * @return boolean - character is \w
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package abstractions;
+
+import java.util.*;
+
+
+/**
+ * Flyweight context map - shared base map plus own overlay
+ *
+ * Task coordinates, settings and variables are shared by all node workers and their protocol objects
+ * instead of being copied for each of them. Values put to the context go to the small overlay
+ * (nodeId, nodeIp, vendor, model, ...), base map is never changed through the context.
+ * Removing a shared value hides it in this context only.
+ * Base map must not be changed by its owner while contexts over it are in use.
+ *
+ * @param <V> value type
+ */
+public final class ContextMap<V> extends AbstractMap<String, V> {
+
+    private final Map<String, V> base;
+    private Map<String, V> overlay;
+    // Shared keys removed in this context
+    private Set<String> removed;
+
+
+    /**
+     * Constructor
+     *
+     * @param base - shared map
+     */
+    private ContextMap(Map<String, V> base) {
+        this.base = base;
+    }
+
+
+    /**
+     * Create context over shared map
+     *
+     * @param base - shared map, null for empty context
+     * @param <V>  - value type
+     * @return ContextMap
+     */
+    public static <V> ContextMap<V> over(Map<String, V> base) {
+        return new ContextMap<>(base == null ? Collections.emptyMap() : base);
+    }
+
+
+    /**
+     * Immutable snapshot, which can be used as shared base
+     *
+     * @param map - map to freeze
+     * @param <V> - value type
+     * @return Map
+     */
+    public static <V> Map<String, V> freeze(Map<String, V> map) {
+        return Collections.unmodifiableMap(new HashMap<>(map));
+    }
+
+
+    @Override
+    public V get(Object key) {
+        if (this.overlay != null && this.overlay.containsKey(key)) {
+            return this.overlay.get(key);
+        }
+        if (this.isRemoved(key)) {
+            return null;
+        }
+        return this.base.get(key);
+    }
+
+
+    @Override
+    public boolean containsKey(Object key) {
+        return (this.overlay != null && this.overlay.containsKey(key)) || (!this.isRemoved(key) && this.base.containsKey(key));
+    }
+
+
+    @Override
+    public V put(String key, V value) {
+
+        V previous = this.get(key);
+
+        if (this.overlay == null) {
+            this.overlay = new HashMap<>(8);
+        }
+
+        if (this.removed != null) {
+            this.removed.remove(key);
+        }
+
+        this.overlay.put(key, value);
+        return previous;
+    }
+
+
+    /**
+     * Own value is removed, shared value is hidden in this context, base map is not changed
+     */
+    @Override
+    public V remove(Object key) {
+
+        V previous = this.get(key);
+
+        if (this.overlay != null) {
+            this.overlay.remove(key);
+        }
+
+        if (key instanceof String && this.base.containsKey(key)) {
+            if (this.removed == null) {
+                this.removed = new HashSet<>(4);
+            }
+            this.removed.add((String) key);
+        }
+
+        return previous;
+    }
+
+
+    /**
+     * @param key - map key
+     * @return boolean - shared key is removed in this context
+     */
+    private boolean isRemoved(Object key) {
+        return this.removed != null && this.removed.contains(key);
+    }
+
+
+    @Override
+    public int size() {
+
+        if (this.overlay == null && this.removed == null) {
+            return this.base.size();
+        }
+
+        int size = this.overlay == null ? 0 : this.overlay.size();
+        for (String key : this.base.keySet()) {
+            if ((this.overlay == null || !this.overlay.containsKey(key)) && !this.isRemoved(key)) {
+                size++;
+            }
+        }
+
+        return size;
+    }
+
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+
+        return new AbstractSet<Entry<String, V>>() {
+
+            @Override
+            public int size() {
+                return ContextMap.this.size();
+            }
+
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+
+                Map<String, V> own = overlay == null ? Collections.emptyMap() : overlay;
+
+                Iterator<Entry<String, V>> ownEntries  = own.entrySet().iterator();
+                Iterator<Entry<String, V>> baseEntries = base.entrySet().iterator();
+
+                return new Iterator<Entry<String, V>>() {
+
+                    private Entry<String, V> nextBase;
+
+                    @Override
+                    public boolean hasNext() {
+
+                        if (ownEntries.hasNext()) {
+                            return true;
+                        }
+
+                        // skip shadowed and removed base entries
+                        while (this.nextBase == null && baseEntries.hasNext()) {
+                            Entry<String, V> entry = baseEntries.next();
+                            if (!own.containsKey(entry.getKey()) && !isRemoved(entry.getKey())) {
+                                this.nextBase = new SimpleImmutableEntry<>(entry);
+                            }
+                        }
+
+                        return this.nextBase != null;
+                    }
+
+                    @Override
+                    public Entry<String, V> next() {
+
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+
+                        if (ownEntries.hasNext()) {
+                            return ownEntries.next();
+                        }
+
+                        Entry<String, V> entry = this.nextBase;
+                        this.nextBase = null;
+
+                        return entry;
+                    }
+                };
+            }
+        };
+    }
+
+}
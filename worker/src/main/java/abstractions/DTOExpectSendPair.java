@@ -17,6 +17,8 @@
  */
 package abstractions;
 
+import java.util.regex.Pattern;
+
 /**
  * DTO class for store Expect4j expect-send pair values
  * Need for telnet-ssh auth
@@ -24,6 +26,7 @@ package abstractions;
 public class DTOExpectSendPair {
 
     private final String expect;
+    private final Pattern expectPattern;
     private final String send;
 
     /**
@@ -33,8 +36,20 @@ public class DTOExpectSendPair {
      * @param send   String - answer
      */
     public DTOExpectSendPair(String expect, String send) {
-        this.expect  = expect;
-        this.send    = send;
+        this(expect, null, send);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expect        String  - expected Expect4j string
+     * @param expectPattern Pattern - precompiled expect, null to compile on expect
+     * @param send          String  - answer
+     */
+    public DTOExpectSendPair(String expect, Pattern expectPattern, String send) {
+        this.expect        = expect;
+        this.expectPattern = expectPattern;
+        this.send          = send;
     }
 
     /**
@@ -44,6 +59,13 @@ public class DTOExpectSendPair {
         return this.expect;
     }
 
+    /**
+     * @return Pattern - precompiled expect, null if not compiled
+     */
+    public Pattern getExpectPattern() {
+        return this.expectPattern;
+    }
+
     /**
      * @return String
      */
@@ -0,0 +1,37 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package abstractions;
+
+
+/**
+ * Data Object of task node with worker, received from API (v1/core/get-nodes-workers-by-task)
+ * Parsed by api.ApiJson, unused fields of response are skipped
+ * @noinspection WeakerAccess
+ */
+public class DTONode
+{
+    // worker id
+    public String id;
+    // worker name
+    public String name;
+    // protocol: snmp|ssh|telnet
+    public String get;
+    public String ip;
+    public String vendor;
+    public String model;
+}
@@ -17,6 +17,7 @@
  */
 package abstractions;
 
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -36,4 +37,10 @@ public class DTOProtocolResult {
      * [table_field -> value]
      */
     public Map<String, String> data = new TreeMap<>();
+
+    /*
+     * Result data spilled to disk, too big to be kept in heap
+     * [table_field -> temp file]
+     */
+    public transient Map<String, Path> files = new TreeMap<>();
 }
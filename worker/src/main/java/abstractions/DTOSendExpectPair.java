@@ -25,6 +25,7 @@ public class DTOSendExpectPair {
 
     private final String expect;
     private String send;
+    private final CommandTemplate template;
     private final String tableField;
     private final Integer timeout;
     private final String variable;
@@ -39,8 +40,23 @@ public class DTOSendExpectPair {
      * @param variable      String  - variable for response saving
      */
     public DTOSendExpectPair(String expect, String send, String tableField, Integer timeout, String variable) {
+        this(expect, send, null, tableField, timeout, variable);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expect        String          - expected Expect4j string
+     * @param send          String          - answer
+     * @param template      CommandTemplate - compiled answer, null to compile on send
+     * @param tableField    String          - database table field
+     * @param timeout       Integer         - request timeout
+     * @param variable      String          - variable for response saving
+     */
+    public DTOSendExpectPair(String expect, String send, CommandTemplate template, String tableField, Integer timeout, String variable) {
         this.expect     = expect;
         this.send       = send;
+        this.template   = template;
         this.tableField = tableField;
         this.timeout    = timeout;
         this.variable   = variable;
@@ -56,6 +72,11 @@ public class DTOSendExpectPair {
         return this.send;
     }
 
+    /**
+     * @return CommandTemplate - compiled answer, null if not compiled
+     */
+    public CommandTemplate getTemplate() { return this.template; }
+
     public String getTableField() { return this.tableField; }
 
     public Integer getTimeout() { return this.timeout; }
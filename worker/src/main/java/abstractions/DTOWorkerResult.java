@@ -17,6 +17,7 @@
  */
 package abstractions;
 
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -34,4 +35,5 @@ public class DTOWorkerResult
     public String nodeId;
     public String hash;
     public Map<String, String> data = new TreeMap<>();
+    public transient Map<String, Path> files = new TreeMap<>();
 }
@@ -0,0 +1,345 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package abstractions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+
+/**
+ * Execution plans of task run, shared read-only by all SSH/Telnet protocol objects
+ *
+ * Auth sequence of device model and jobs of worker are parsed once per task run,
+ * nodes bind only own credentials and device prompt.
+ * Auth plans are keyed by auth sequence text (same for all nodes of vendor/model),
+ * job plans by worker ID, checked against version of jobs received by node.
+ */
+public final class ExecutionPlans {
+
+    private final Map<String, AuthPlan> authPlans = new ConcurrentHashMap<>();
+    private final Map<String, JobPlan>  jobPlans  = new ConcurrentHashMap<>();
+
+
+    /**
+     * Parsed auth sequence
+     * Odd lines are expected prompts, even lines are responses, last line is device prompt char
+     */
+    public static final class AuthPlan {
+
+        private final List<AuthStep> steps;
+        private final String promptChar;
+        private final String error;
+
+        private AuthPlan(List<AuthStep> steps, String promptChar, String error) {
+            this.steps      = steps;
+            this.promptChar = promptChar;
+            this.error      = error;
+        }
+
+        /**
+         * @return List - expect-response steps, last step is device prompt char without response
+         */
+        public List<AuthStep> getSteps() { return this.steps; }
+
+        /**
+         * @return String - device prompt char
+         */
+        public String getPromptChar() { return this.promptChar; }
+
+        /**
+         * @return String - parse error for log, null if sequence is valid
+         */
+        public String getError() { return this.error; }
+    }
+
+
+    /**
+     * Auth sequence step
+     */
+    public static final class AuthStep {
+
+        private final String expect;
+        private final Pattern expectPattern;
+        private final String response;
+        private final boolean template;
+
+        private AuthStep(String expect, Pattern expectPattern, String response, boolean template) {
+            this.expect        = expect;
+            this.expectPattern = expectPattern;
+            this.response      = response;
+            this.template      = template;
+        }
+
+        public String getExpect() { return this.expect; }
+
+        /**
+         * @return Pattern - compiled expect, null if expect is empty
+         */
+        public Pattern getExpectPattern() { return this.expectPattern; }
+
+        /**
+         * @return String - response, template variable name like {{enable_password}}, null for last step
+         */
+        public String getResponse() { return this.response; }
+
+        /**
+         * @return boolean - response is template variable, bound to node credentials
+         */
+        public boolean isTemplate() { return this.template; }
+    }
+
+
+    /**
+     * Parsed jobs of worker, in execution order
+     */
+    public static final class JobPlan {
+
+        private final String version;
+        private final List<JobStep> steps;
+
+        private JobPlan(String version, List<JobStep> steps) {
+            this.version = version;
+            this.steps   = steps;
+        }
+
+        public List<JobStep> getSteps() { return this.steps; }
+    }
+
+
+    /**
+     * Job step
+     */
+    public static final class JobStep {
+
+        private final String command;
+        private final CommandTemplate template;
+        private final String tableField;
+        private final String variable;
+        private final Integer timeout;
+        private final NumberFormatException timeoutError;
+
+        private JobStep(String command, CommandTemplate template, String tableField, String variable, Integer timeout, NumberFormatException timeoutError) {
+            this.command      = command;
+            this.template     = template;
+            this.tableField   = tableField;
+            this.variable     = variable;
+            this.timeout      = timeout;
+            this.timeoutError = timeoutError;
+        }
+
+        public String getCommand() { return this.command; }
+
+        /**
+         * @return CommandTemplate - compiled command, null if command is null
+         */
+        public CommandTemplate getTemplate() { return this.template; }
+
+        public String getTableField() { return this.tableField; }
+
+        public String getVariable() { return this.variable; }
+
+        /**
+         * @return Integer - job timeout, null for protocol default
+         */
+        public Integer getTimeout() { return this.timeout; }
+
+        /**
+         * @return NumberFormatException - timeout parse error, null if none
+         */
+        public NumberFormatException getTimeoutError() { return this.timeoutError; }
+    }
+
+
+    /**
+     * Cached auth plan
+     *
+     * @param authSequence - model auth sequence
+     * @return AuthPlan
+     */
+    public AuthPlan getAuthPlan(String authSequence) {
+        return this.authPlans.computeIfAbsent(authSequence, ExecutionPlans::parseAuthSequence);
+    }
+
+
+    /**
+     * Cached job plan
+     * Only versions are compared, plan is parsed again when jobs of worker are changed during task run
+     *
+     * @param workerId    - worker of jobs
+     * @param jobsVersion - version of jobs received by node, see version()
+     * @param jobs        - jobs received by node
+     * @return JobPlan
+     */
+    public JobPlan getJobPlan(String workerId, String jobsVersion, Map<String, Map<String, String>> jobs) {
+
+        if (workerId == null || jobsVersion == null) {
+            return parseJobs(jobs);
+        }
+
+        JobPlan plan = this.jobPlans.get(workerId);
+
+        if (plan == null || !plan.version.equals(jobsVersion)) {
+            plan = parseJobs(jobsVersion, jobs);
+            this.jobPlans.put(workerId, plan);
+        }
+
+        return plan;
+    }
+
+
+    /**
+     * Version of jobs
+     *
+     * @param jobsJson - jobs JSON as received from API
+     * @return String - 64-bit digest of JSON
+     */
+    public static String version(String jobsJson) {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required on every Java platform
+            throw new IllegalStateException(e);
+        }
+
+        return Long.toHexString(ByteBuffer.wrap(digest.digest(jobsJson.getBytes(StandardCharsets.UTF_8))).getLong());
+    }
+
+
+    /**
+     * Parse auth sequence
+     *
+     * @param authSequence - model auth sequence, not empty
+     * @return AuthPlan
+     */
+    public static AuthPlan parseAuthSequence(String authSequence) {
+
+        String[] splitAuthSequence = authSequence.split("\n");
+        int sequenceCount          = splitAuthSequence.length;
+
+        if (sequenceCount % 2 != 1) {
+            return new AuthPlan(Collections.emptyList(), null, "model auth sequence error. Wrong elements count.");
+        }
+
+        List<AuthStep> steps = new ArrayList<>(sequenceCount / 2 + 1);
+        String promptChar    = null;
+
+        for (int i = 0; i < sequenceCount; i++) {
+
+            String currentExpect = splitAuthSequence[i].trim();
+            String currentResponse;
+            boolean template     = false;
+
+            i++;
+
+            if (i >= sequenceCount) {
+                promptChar      = currentExpect;
+                currentResponse = null;
+            } else {
+                currentResponse = splitAuthSequence[i].trim();
+                // if template variable
+                if (currentResponse.contains("{{") && currentResponse.contains("}}")) {
+                    switch (currentResponse) {
+                        case "{{telnet_login}}":
+                        case "{{telnet_password}}":
+                        case "{{enable_password}}":
+                            template = true;
+                            break;
+                        default:
+                            return new AuthPlan(Collections.emptyList(), null, "model auth sequence error. Unknown type of template variable.");
+                    }
+                }
+            }
+
+            // compiled once, shared by nodes
+            Pattern expectPattern = null;
+
+            if (!currentExpect.isEmpty()) {
+                try {
+                    expectPattern = Pattern.compile(currentExpect);
+                }
+                catch (PatternSyntaxException e) {
+                    return new AuthPlan(Collections.emptyList(), null, "model auth sequence error. Wrong expect pattern: " + currentExpect);
+                }
+            }
+
+            steps.add(new AuthStep(currentExpect, expectPattern, currentResponse, template));
+        }
+
+        return new AuthPlan(Collections.unmodifiableList(steps), promptChar, null);
+    }
+
+
+    /**
+     * Parse jobs
+     *
+     * @param jobs - jobs sorted in execution order
+     * @return JobPlan
+     */
+    public static JobPlan parseJobs(Map<String, Map<String, String>> jobs) {
+        return parseJobs(null, jobs);
+    }
+
+
+    /**
+     * Parse jobs
+     *
+     * @param version - jobs version, null if not cached
+     * @param jobs    - jobs sorted in execution order
+     * @return JobPlan
+     */
+    private static JobPlan parseJobs(String version, Map<String, Map<String, String>> jobs) {
+
+        List<JobStep> steps = new ArrayList<>(jobs.size());
+
+        for (Map<String, String> jobInfo : jobs.values()) {
+
+            String currentTimeout = jobInfo.get("timeout");
+            Integer timeout       = null;
+            NumberFormatException timeoutError = null;
+
+            if (currentTimeout != null && currentTimeout.length() > 0) {
+                try {
+                    timeout = Integer.parseInt(currentTimeout);
+                }
+                catch (NumberFormatException e) {
+                    timeoutError = e;
+                }
+            }
+
+            String command = jobInfo.get("command_value");
+
+            // compiled once, shared by nodes
+            CommandTemplate template = (command != null) ? CommandTemplate.compile(command) : null;
+
+            steps.add(new JobStep(command, template, jobInfo.get("table_field"), jobInfo.get("command_var"), timeout, timeoutError));
+        }
+
+        return new JobPlan(version, Collections.unmodifiableList(steps));
+    }
+
+}
@@ -0,0 +1,298 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package abstractions;
+
+import api.ApiLogHelper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Vendor/model protocol classes of one protocol
+ *
+ * Classes are registered by ProtocolProvider implementations found by ServiceLoader.
+ * Not registered vendor/model is looked up once by naming convention (_VENDOR_MODEL_Protocol,
+ * then _VENDOR_Protocol in protocol package) and falls back to general class.
+ * Every vendor/model is resolved once, failed lookups included.
+ *
+ * @param <T> general protocol class
+ */
+public final class ProtocolRegistry<T extends AbstractProtocol> {
+
+    /**
+     * Protocol class constructor
+     *
+     * @param <T> protocol class
+     */
+    @FunctionalInterface
+    public interface ProtocolConstructor<T> {
+        T create(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials,
+                 Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables);
+    }
+
+    /*
+     * Resolved vendor/model
+     */
+    private static final class Resolved<T> {
+
+        final ProtocolConstructor<? extends T> constructor;
+        final String className;
+
+        Resolved(ProtocolConstructor<? extends T> constructor, String className) {
+            this.constructor = constructor;
+            this.className   = className;
+        }
+    }
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class, Map.class, Map.class, Map.class, Map.class, Map.class);
+
+    private final String   protocol;
+    private final String   suffix;
+    private final Class<T> generalClass;
+    private final ProtocolConstructor<T> general;
+
+    private final Map<String, Resolved<T>> registered = new ConcurrentHashMap<>();
+    private final Map<String, Resolved<T>> resolved   = new ConcurrentHashMap<>();
+
+    private final List<Throwable> providerErrors = Collections.synchronizedList(new ArrayList<>());
+
+
+    /**
+     * Constructor, registers classes of all providers
+     *
+     * @param protocol     - protocol name, e.g. ssh
+     * @param generalClass - general protocol class
+     * @param general      - general protocol class constructor
+     */
+    public ProtocolRegistry(String protocol, Class<T> generalClass, ProtocolConstructor<T> general) {
+
+        this.protocol     = protocol;
+        this.suffix       = Character.toUpperCase(protocol.charAt(0)) + protocol.substring(1);
+        this.generalClass = generalClass;
+        this.general      = general;
+
+        Iterator<ProtocolProvider> providers = ServiceLoader.load(ProtocolProvider.class, ProtocolProvider.class.getClassLoader()).iterator();
+
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    break;
+                }
+                providers.next().register(this);
+            }
+            catch (ServiceConfigurationError | RuntimeException e) {
+                // logged by first node
+                this.providerErrors.add(e);
+            }
+        }
+    }
+
+
+    /**
+     * @return String - protocol name
+     */
+    public String getProtocol() {
+        return this.protocol;
+    }
+
+
+    /**
+     * Register vendor or vendor/model class
+     *
+     * @param vendor      - node vendor
+     * @param model       - node model, null for all models of vendor
+     * @param type        - protocol class, must extend general class
+     * @param constructor - protocol class constructor
+     * @param <C>         - protocol class
+     * @throws IllegalArgumentException if class is not of this protocol
+     */
+    public <C extends AbstractProtocol> void register(String vendor, String model, Class<C> type, ProtocolConstructor<C> constructor) {
+
+        if (!this.generalClass.isAssignableFrom(type)) {
+            throw new IllegalArgumentException(type.getName() + " is not " + this.protocol + " protocol class");
+        }
+
+        @SuppressWarnings("unchecked")
+        ProtocolConstructor<? extends T> typed = (ProtocolConstructor<? extends T>) constructor;
+
+        this.registered.put(key(vendor, model), new Resolved<>(typed, type.getSimpleName()));
+    }
+
+
+    /**
+     * Create protocol object of node vendor/model
+     *
+     * @param coordinates - schedule, task, node, etc..
+     * @param settings    - app settings
+     * @param credentials - credentials
+     * @param jobs        - sorted jobs
+     * @param variables   - variable list
+     * @return T|null if class can't be created
+     */
+    public T create(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials,
+                    Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables) {
+
+        if (!this.providerErrors.isEmpty()) {
+            this.logProviderErrors(coordinates);
+        }
+
+        String vendor = coordinates.get("nodeVendor");
+        String model  = coordinates.get("nodeModel");
+
+        Resolved<T> current = this.resolved.computeIfAbsent(key(vendor, model), key -> this.resolve(vendor, model, coordinates));
+
+        if (current.constructor == null) {
+            return null;
+        }
+
+        try {
+            return current.constructor.create(coordinates, settings, credentials, jobs, variables);
+        }
+        catch (RuntimeException e) {
+            String createMessage = "Task " + coordinates.get("taskName") + ", node " + coordinates.get("nodeId") +
+                    ": " + this.protocol.toUpperCase() + " factory exception. Can't create object " + current.className + ".";
+            ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", createMessage, coordinates, e);
+            return null;
+        }
+    }
+
+
+    /**
+     * Registered, convention or general class
+     *
+     * @param vendor      - node vendor
+     * @param model       - node model
+     * @param coordinates - coordinates of first node, for failure log
+     * @return Resolved, constructor is null if lookup failed
+     */
+    private Resolved<T> resolve(String vendor, String model, Map<String, String> coordinates) {
+
+        if (vendor == null || vendor.length() == 0) {
+            return new Resolved<>(this.general, this.generalClass.getSimpleName());
+        }
+
+        Resolved<T> found = this.registered.get(key(vendor, model));
+        if (found == null) {
+            found = this.registered.get(key(vendor, null));
+        }
+        if (found != null) {
+            return found;
+        }
+
+        String packageName = this.generalClass.getPackageName();
+        List<String> classNames = new ArrayList<>(2);
+
+        if (model != null && model.length() > 0) {
+            classNames.add("_" + vendor + "_" + model + "_" + this.suffix);
+        }
+        classNames.add("_" + vendor + "_" + this.suffix);
+
+        for (String className : classNames) {
+
+            Class<? extends T> type;
+
+            try {
+                type = Class.forName(packageName + "." + className).asSubclass(this.generalClass);
+            }
+            catch (ClassNotFoundException | NoClassDefFoundError e) {
+                continue;
+            }
+            catch (RuntimeException | LinkageError e) {
+                this.logLookupFailure(className, coordinates, e);
+                return new Resolved<>(null, className);
+            }
+
+            try {
+                MethodHandle handle = MethodHandles.publicLookup().findConstructor(type, CONSTRUCTOR_TYPE);
+                return new Resolved<>(this.toConstructor(handle), className);
+            }
+            catch (ReflectiveOperationException | RuntimeException e) {
+                this.logLookupFailure(className, coordinates, e);
+                return new Resolved<>(null, className);
+            }
+        }
+
+        return new Resolved<>(this.general, this.generalClass.getSimpleName());
+    }
+
+
+    /**
+     * @param handle - public constructor handle
+     * @return ProtocolConstructor
+     */
+    private ProtocolConstructor<T> toConstructor(MethodHandle handle) {
+
+        MethodHandle typed = handle.asType(handle.type().changeReturnType(AbstractProtocol.class));
+
+        return (coordinates, settings, credentials, jobs, variables) -> {
+            try {
+                return this.generalClass.cast((AbstractProtocol) typed.invokeExact(coordinates, settings, credentials, jobs, variables));
+            }
+            catch (RuntimeException | Error e) {
+                throw e;
+            }
+            catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+
+    /**
+     * Class lookup failure, logged once per vendor/model
+     */
+    private void logLookupFailure(String className, Map<String, String> coordinates, Throwable e) {
+        String lookupMessage = "Task " + coordinates.get("taskName") + ", node " + coordinates.get("nodeId") +
+                ": " + this.protocol.toUpperCase() + " factory exception. Can't create object " + className + ".";
+        ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", lookupMessage, coordinates, e instanceof Exception ? (Exception) e : new Exception(e));
+    }
+
+
+    /**
+     * Provider failures, logged once
+     */
+    private void logProviderErrors(Map<String, String> coordinates) {
+
+        List<Throwable> errors;
+
+        synchronized (this.providerErrors) {
+            errors = new ArrayList<>(this.providerErrors);
+            this.providerErrors.clear();
+        }
+
+        for (Throwable e : errors) {
+            String providerMessage = "Task " + coordinates.get("taskName") + ": can't load " + this.protocol.toUpperCase() + " protocol classes provider.";
+            ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", providerMessage, coordinates, e instanceof Exception ? (Exception) e : new Exception(e));
+        }
+    }
+
+
+    /**
+     * @param vendor - node vendor
+     * @param model  - node model, null for vendor
+     * @return String
+     */
+    private static String key(String vendor, String model) {
+        return vendor + "/" + (model == null ? "" : model);
+    }
+
+}
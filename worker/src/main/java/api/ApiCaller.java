@@ -20,7 +20,10 @@ package api;
 import org.apache.http.client.utils.URIBuilder;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URL;
 
@@ -200,6 +203,19 @@ public final class ApiCaller {
 
             response.setResponseCode(connect.getResponseCode());
 
+            /*
+             * Streaming success response, body is processed while it is received
+             */
+            if (response.responseCode == 200 && request.responseReader != null) {
+
+                try (BufferedReader responseBuffer = new BufferedReader(new InputStreamReader(connect.getInputStream(), "UTF-8"))) {
+                    request.responseReader.read(responseBuffer);
+                }
+
+                response.setSuccess(true);
+                return response;
+            }
+
             BufferedReader responseBuffer;
 
             if (response.responseCode >= 400) {
@@ -281,16 +297,31 @@ public final class ApiCaller {
              */
             URL url = uribuilder.build().toURL();
 
-            byte[] postDataBytes = request.postJson.getBytes("UTF-8");
-
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
             conn.setRequestMethod("POST");
             conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
             conn.setRequestProperty("Accept", "text/html,application/json");
             conn.setRequestProperty("Authorization", "Bearer " + request.coordinates.get("token"));
-            conn.setRequestProperty("Content-Length", String.valueOf(postDataBytes.length));
             conn.setDoOutput(true);
-            conn.getOutputStream().write(postDataBytes);
+
+            if(request.postBody != null) {
+
+                /*
+                 * Streaming body, size is unknown - chunked transfer
+                 */
+                conn.setChunkedStreamingMode(8192);
+
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(conn.getOutputStream(), "UTF-8"))) {
+                    request.postBody.write(writer);
+                }
+            }
+            else {
+
+                byte[] postDataBytes = request.postJson.getBytes("UTF-8");
+
+                conn.setRequestProperty("Content-Length", String.valueOf(postDataBytes.length));
+                conn.getOutputStream().write(postDataBytes);
+            }
 
             response.setResponseCode(conn.getResponseCode());
 
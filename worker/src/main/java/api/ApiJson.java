@@ -0,0 +1,226 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package api;
+
+import abstractions.DTONode;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.*;
+
+
+/**
+ * Shared Gson of API payloads
+ *
+ * Gson is thread safe and caches type adapters, so one instance is used by all units.
+ * Flat string maps (credentials, settings, jobs, networks, tasks) and nodes are parsed
+ * with hand-written streaming adapters, nested maps and lists reuse them for values.
+ */
+public final class ApiJson {
+
+    /*
+     * Payload types
+     */
+    public static final Type STRING_MAP      = TypeToken.getParameterized(HashMap.class, String.class, String.class).getType();
+    public static final Type STRING_MAP_MAP  = TypeToken.getParameterized(HashMap.class, String.class, STRING_MAP).getType();
+    public static final Type STRING_MAP_TREE = TypeToken.getParameterized(TreeMap.class, String.class, STRING_MAP).getType();
+    public static final Type STRING_MAP_LIST = TypeToken.getParameterized(ArrayList.class, STRING_MAP).getType();
+    public static final Type STRING_LIST     = TypeToken.getParameterized(ArrayList.class, String.class).getType();
+    public static final Type NODE_MAP        = TypeToken.getParameterized(HashMap.class, String.class, DTONode.class).getType();
+
+    public static final Gson GSON = new GsonBuilder()
+        .registerTypeAdapter(STRING_MAP, new StringMapAdapter().nullSafe())
+        .registerTypeAdapter(DTONode.class, new NodeAdapter().nullSafe())
+        .create();
+
+    /*
+     * Instances not allowed
+     */
+    private ApiJson() {}
+
+
+    /**
+     * Consumer of streamed object entry
+     *
+     * @param <T> entry value type
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<T> {
+        void accept(String name, T value) throws IOException;
+    }
+
+
+    /**
+     * Streaming read of JSON object, each entry is passed to consumer as soon as it is parsed
+     * Empty array is read as empty object (empty PHP array)
+     *
+     * @param reader   - response body reader
+     * @param type     - entry value type
+     * @param consumer - entry consumer
+     * @param <T>      - entry value type
+     * @throws IOException on read or consumer error
+     * @throws JsonSyntaxException on malformed JSON
+     */
+    public static <T> void readEntries(Reader reader, Class<T> type, EntryConsumer<T> consumer) throws IOException {
+
+        TypeAdapter<T> adapter = GSON.getAdapter(type);
+        JsonReader in          = GSON.newJsonReader(reader);
+
+        try {
+            if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                readEmptyArray(in);
+                return;
+            }
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                consumer.accept(name, adapter.read(in));
+            }
+            in.endObject();
+        }
+        catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+
+    /**
+     * Object of scalar values, scalars are read as strings like default Gson map adapter
+     * Empty array is read as empty map (empty PHP array)
+     */
+    private static final class StringMapAdapter extends TypeAdapter<Map<String, String>> {
+
+        @Override
+        public void write(JsonWriter out, Map<String, String> map) throws IOException {
+            out.beginObject();
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                out.name(entry.getKey()).value(entry.getValue());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Map<String, String> read(JsonReader in) throws IOException {
+
+            HashMap<String, String> map = new HashMap<>();
+
+            if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                readEmptyArray(in);
+                return map;
+            }
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (map.put(name, readString(in)) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + name);
+                }
+            }
+            in.endObject();
+
+            return map;
+        }
+    }
+
+
+    /**
+     * Task node, unknown fields are skipped
+     */
+    private static final class NodeAdapter extends TypeAdapter<DTONode> {
+
+        @Override
+        public void write(JsonWriter out, DTONode node) throws IOException {
+            out.beginObject();
+            out.name("id").value(node.id);
+            out.name("name").value(node.name);
+            out.name("get").value(node.get);
+            out.name("ip").value(node.ip);
+            out.name("vendor").value(node.vendor);
+            out.name("model").value(node.model);
+            out.endObject();
+        }
+
+        @Override
+        public DTONode read(JsonReader in) throws IOException {
+
+            DTONode node = new DTONode();
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id":     node.id     = readString(in); break;
+                    case "name":   node.name   = readString(in); break;
+                    case "get":    node.get    = readString(in); break;
+                    case "ip":     node.ip     = readString(in); break;
+                    case "vendor": node.vendor = readString(in); break;
+                    case "model":  node.model  = readString(in); break;
+                    default:       in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return node;
+        }
+    }
+
+
+    /**
+     * @param in - reader at scalar value
+     * @return String|null
+     * @throws IOException on read error
+     */
+    private static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            case STRING:
+            case NUMBER:
+                return in.nextString();
+            default:
+                throw new JsonSyntaxException("Expected a string but was " + in.peek() + " at path " + in.getPath());
+        }
+    }
+
+
+    /**
+     * @param in - reader at array
+     * @throws IOException on read error
+     */
+    private static void readEmptyArray(JsonReader in) throws IOException {
+        in.beginArray();
+        if (in.hasNext()) {
+            throw new JsonSyntaxException("Expected an object but was non empty array at path " + in.getPath());
+        }
+        in.endArray();
+    }
+
+}
@@ -21,7 +21,6 @@ package api;
  * Google gson
  */
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 
 import java.util.HashMap;
@@ -222,7 +221,7 @@ public class ApiLogHelper {
      */
     private static void sendLog(Map<String, String> dto, Map<String, String> coordinates)
     {
-        Gson gson = new Gson();
+        Gson gson = ApiJson.GSON;
 
         ApiRequest log = new ApiRequest(coordinates)
                 .setRequestMethod(ApiRequestMethods.POST)
@@ -241,7 +240,7 @@ public class ApiLogHelper {
      */
     private static void sendSystemLog(Map<String, String> dto, Map<String, String> coordinates)
     {
-        Gson gson = new Gson();
+        Gson gson = ApiJson.GSON;
 
         ApiRequest log = new ApiRequest(coordinates)
                 .setRequestMethod(ApiRequestMethods.POST)
@@ -333,8 +332,8 @@ public class ApiLogHelper {
              * Trying to get message from bad API response
              */
             try {
-                Gson gson = new Gson();
-                Type responseType = new TypeToken<HashMap<String, String>>(){}.getType();
+                Gson gson = ApiJson.GSON;
+                Type responseType = ApiJson.STRING_MAP;
                 Map<String, String> responseBody;
                 responseBody = gson.fromJson(response.response, responseType);
                 if(responseBody.get("message") != null) {
@@ -0,0 +1,38 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package api;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/**
+ * Streaming POST body writer
+ * Used instead of postJson for big request bodies, which are not materialized in memory
+ */
+@FunctionalInterface
+public interface ApiPostBodyWriter {
+
+    /**
+     * Writing request body
+     *
+     * @param writer - UTF-8 writer of http request body
+     * @throws IOException on write errors
+     */
+    void write(Writer writer) throws IOException;
+}
@@ -30,6 +30,12 @@ public class ApiRequest {
     public String apiMethod     = null;
     public String postJson      = null;
 
+    // Streaming post body, used instead of postJson
+    public ApiPostBodyWriter postBody = null;
+
+    // Streaming GET response reader, response body is not stored
+    public ApiResponseReader responseReader = null;
+
     // Request coordinates - schedule, task, node, etc...
     public Map<String, String> coordinates = new HashMap<>();
 
@@ -77,6 +83,26 @@ public class ApiRequest {
         return this;
     }
 
+    /**
+     * @param postBody Api streaming post body setter
+     * @return         Returns this context
+     */
+    public ApiRequest setPostBody(ApiPostBodyWriter postBody)
+    {
+        this.postBody = postBody;
+        return this;
+    }
+
+    /**
+     * @param responseReader Api streaming GET response reader setter
+     * @return               Returns this context
+     */
+    public ApiRequest setResponseReader(ApiResponseReader responseReader)
+    {
+        this.responseReader = responseReader;
+        return this;
+    }
+
     /**
      * @param params Api request GET params HashMap setter
      * @return       Returns this context
@@ -98,7 +124,7 @@ public class ApiRequest {
             toReturn = false;
         }
         else {
-            if (this.requestMethod.toString().equals("POST") && this.postJson == null) {
+            if (this.requestMethod.toString().equals("POST") && this.postJson == null && this.postBody == null) {
                 toReturn = false;
             }
         }
@@ -20,7 +20,6 @@ package core;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.CommandLineRunner;
-import it.sauronsoftware.cron4j.Scheduler;
 import java.util.Date;
 
 
@@ -31,7 +30,7 @@ import java.util.Date;
 @SpringBootApplication
 public class Cbackup implements CommandLineRunner {
 
-    private Scheduler pulseScheduler = new Scheduler();
+    private CronScheduler pulseScheduler = new CronScheduler("pulse");
     public static Date startTime;
     public static String packageVersion = "unknown";
 
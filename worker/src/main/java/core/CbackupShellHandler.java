@@ -230,6 +230,9 @@ public class CbackupShellHandler implements Command {
                 case "restart":
                     result = scheduler.shellCommandRestart(returnJson ? "-json" : "");
                     break;
+                case "reload":
+                    result = scheduler.shellCommandReload(returnJson ? "-json" : "");
+                    break;
                 case "stop":
                     result = scheduler.shellCommandStop(returnJson ? "-json" : "");
                     break;
@@ -242,6 +245,9 @@ public class CbackupShellHandler implements Command {
                 case "status":
                     result = scheduler.shellCommandStatus(returnJson ? "-json" : "");
                     break;
+                case "schedule":
+                    result = scheduler.shellCommandSchedule(returnJson ? "-json" : "");
+                    break;
                 case "version":
                     result = scheduler.shellCommandVersion(returnJson ? "-json" : "");
                     break;
@@ -249,7 +255,7 @@ public class CbackupShellHandler implements Command {
                     result = getHelpText();
                     break;
                 default:
-                    System.out.println("Unknown command: " + command + ". Available commands: start, restart, stop, backup, runtask, status, version, help");
+                    System.out.println("Unknown command: " + command + ". Available commands: start, restart, reload, stop, backup, runtask, status, schedule, version, help");
                     System.err.println("Unknown command: " + command + " (stderr)");
                     errorWriter.println("Unknown command: " + command + ". Type 'help' for available commands.");
                     errorWriter.flush();
@@ -266,10 +272,12 @@ public class CbackupShellHandler implements Command {
         return "Available commands:\n" +
                "  start              - Start scheduler\n" +
                "  restart            - Restart scheduler\n" +
+               "  reload             - Apply changed schedules without restart\n" +
                "  stop               - Stop scheduler\n" +
                "  backup <NODE ID>   - Single node backup\n" +
                "  runtask <TASK>     - Run task by name\n" +
                "  status             - Get scheduler status\n" +
+               "  schedule           - Get upcoming schedule of next 24 hours\n" +
                "  version            - Get scheduler version\n" +
                "  help               - Show this help\n" +
                "\n" +
@@ -17,16 +17,14 @@
  */
 package core;
 
-import it.sauronsoftware.cron4j.TaskExecutionContext;
-
 import java.util.HashMap;
 import java.util.Map;
 
 
 /*
- * Task class for Cron4j
+ * Task class for cron scheduler
  */
-public class CronMailer extends it.sauronsoftware.cron4j.Task  {
+public class CronMailer implements Runnable {
 
     private Map<String, String> settings    = new HashMap<>();
     private Map<String, String> coordinates = new HashMap<>();
@@ -46,7 +44,7 @@ public class CronMailer extends it.sauronsoftware.cron4j.Task  {
      * Execution
      */
     @Override
-    public void execute(TaskExecutionContext context) throws RuntimeException
+    public void run()
     {
         Mailer currentMail = new Mailer(this.coordinates, this.settings);
         currentMail.run();
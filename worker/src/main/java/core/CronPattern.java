@@ -0,0 +1,304 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Cron pattern with optional seconds field
+ *
+ * Same syntax as cron4j: 'minute hour day-of-month month day-of-week', values, ranges (wrapping, e.g. 22-2),
+ * steps, lists, month and day names, L - last day of month, alternatives separated by '|'.
+ * Six fields pattern has seconds first: 'second minute hour day-of-month month day-of-week'.
+ * All fields must match, five fields pattern fires at second 0.
+ */
+final class CronPattern {
+
+    // Next fire is searched within this many years
+    private static final int SEARCH_YEARS = 30;
+
+    private static final String[] MONTHS = {"jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+    private static final String[] DAYS   = {"sun", "mon", "tue", "wed", "thu", "fri", "sat"};
+
+    private final String pattern;
+    private final List<Fields> alternatives;
+
+
+    /*
+     * Allowed values of one alternative, bit per value
+     */
+    private static final class Fields {
+        long seconds;
+        long minutes;
+        long hours;
+        long daysOfMonth;
+        boolean lastDayOfMonth;
+        long months;
+        long daysOfWeek;
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param pattern      - source pattern
+     * @param alternatives - parsed alternatives
+     */
+    private CronPattern(String pattern, List<Fields> alternatives) {
+        this.pattern      = pattern;
+        this.alternatives = alternatives;
+    }
+
+
+    /**
+     * Parse cron pattern
+     *
+     * @param pattern - cron pattern
+     * @return CronPattern
+     * @throws IllegalArgumentException on malformed pattern
+     */
+    static CronPattern parse(String pattern) {
+
+        if (pattern == null || pattern.trim().isEmpty()) {
+            throw new IllegalArgumentException("empty cron pattern");
+        }
+
+        List<Fields> alternatives = new ArrayList<>();
+
+        for (String alternative : pattern.split("\\|")) {
+
+            String[] tokens = alternative.trim().toLowerCase(Locale.ROOT).split("\\s+");
+            int offset;
+            Fields fields = new Fields();
+
+            if (tokens.length == 5) {
+                fields.seconds = 1L;
+                offset = 0;
+            }
+            else if (tokens.length == 6) {
+                fields.seconds = parseField(tokens[0], 0, 59, null, pattern);
+                offset = 1;
+            }
+            else {
+                throw new IllegalArgumentException("cron pattern must have 5 or 6 fields: " + pattern);
+            }
+
+            fields.minutes = parseField(tokens[offset], 0, 59, null, pattern);
+            fields.hours   = parseField(tokens[offset + 1], 0, 23, null, pattern);
+
+            List<String> daysOfMonth = new ArrayList<>(Arrays.asList(tokens[offset + 2].split(",")));
+            fields.lastDayOfMonth    = daysOfMonth.remove("l");
+            fields.daysOfMonth       = daysOfMonth.isEmpty() ? 0 : parseField(String.join(",", daysOfMonth), 1, 31, null, pattern);
+
+            fields.months     = parseField(tokens[offset + 3], 1, 12, MONTHS, pattern);
+            fields.daysOfWeek = parseField(tokens[offset + 4], 0, 7, DAYS, pattern);
+
+            // 7 is sunday
+            if ((fields.daysOfWeek & (1L << 7)) != 0) {
+                fields.daysOfWeek = (fields.daysOfWeek & ~(1L << 7)) | 1L;
+            }
+
+            alternatives.add(fields);
+        }
+
+        return new CronPattern(pattern, alternatives);
+    }
+
+
+    /**
+     * @return String - source pattern
+     */
+    String getPattern() {
+        return this.pattern;
+    }
+
+
+    /**
+     * Next fire time
+     *
+     * @param after - epoch ms, result is strictly after it
+     * @param zone  - time zone of pattern
+     * @return long - epoch ms of next fire, -1 if pattern never fires
+     */
+    long next(long after, ZoneId zone) {
+
+        long result = -1;
+
+        for (Fields fields : this.alternatives) {
+            long candidate = next(fields, after, zone);
+            if (candidate >= 0 && (result < 0 || candidate < result)) {
+                result = candidate;
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Next fire time of one alternative
+     */
+    private static long next(Fields fields, long after, ZoneId zone) {
+
+        ZonedDateTime start = ZonedDateTime.ofInstant(Instant.ofEpochMilli(after), zone);
+        LocalDateTime time  = start.toLocalDateTime().withNano(0).plusSeconds(1);
+        int lastYear        = time.getYear() + SEARCH_YEARS;
+
+        while (time.getYear() <= lastYear) {
+
+            if (!has(fields.months, time.getMonthValue())) {
+                time = time.withDayOfMonth(1).toLocalDate().plusMonths(1).atStartOfDay();
+                continue;
+            }
+            if (!matchesDay(fields, time.toLocalDate())) {
+                time = time.toLocalDate().plusDays(1).atStartOfDay();
+                continue;
+            }
+            if (!has(fields.hours, time.getHour())) {
+                time = time.withMinute(0).withSecond(0).plusHours(1);
+                continue;
+            }
+            if (!has(fields.minutes, time.getMinute())) {
+                time = time.withSecond(0).plusMinutes(1);
+                continue;
+            }
+            if (!has(fields.seconds, time.getSecond())) {
+                time = time.plusSeconds(1);
+                continue;
+            }
+
+            // local time in DST gap is moved forward, repeated local time fires once
+            long result = time.atZone(zone).toInstant().toEpochMilli();
+            if (result > after) {
+                return result;
+            }
+            time = time.plusSeconds(1);
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Day of month and day of week match
+     */
+    private static boolean matchesDay(Fields fields, LocalDate date) {
+
+        boolean dayOfMonth = has(fields.daysOfMonth, date.getDayOfMonth())
+            || (fields.lastDayOfMonth && date.getDayOfMonth() == date.lengthOfMonth());
+
+        return dayOfMonth && has(fields.daysOfWeek, date.getDayOfWeek().getValue() % 7);
+    }
+
+
+    private static boolean has(long bits, int value) {
+        return (bits & (1L << value)) != 0;
+    }
+
+
+    /**
+     * Parse field list: *, value, range, wrapping range, step
+     *
+     * @return long - bit per allowed value
+     */
+    private static long parseField(String field, int min, int max, String[] names, String pattern) {
+
+        long bits = 0;
+
+        for (String element : field.split(",")) {
+
+            int step = 1;
+            String range = element;
+
+            int slash = element.indexOf('/');
+            if (slash >= 0) {
+                step  = parseValue(element.substring(slash + 1), 1, max, null, pattern);
+                range = element.substring(0, slash);
+            }
+
+            int from;
+            int to;
+
+            if (range.equals("*")) {
+                from = min;
+                to   = max;
+            }
+            else {
+                int dash = range.indexOf('-');
+                if (dash >= 0) {
+                    from = parseValue(range.substring(0, dash), min, max, names, pattern);
+                    to   = parseValue(range.substring(dash + 1), min, max, names, pattern);
+                }
+                else {
+                    from = parseValue(range, min, max, names, pattern);
+                    to   = (slash >= 0) ? max : from;
+                }
+            }
+
+            // wrapping range, e.g. 22-2
+            int count = (to >= from) ? to - from + 1 : (max - from + 1) + (to - min + 1);
+
+            for (int i = 0; i < count; i += step) {
+                int value = from + i;
+                if (value > max) {
+                    value = value - max - 1 + min;
+                }
+                bits |= 1L << value;
+            }
+        }
+
+        return bits;
+    }
+
+
+    private static int parseValue(String value, int min, int max, String[] names, String pattern) {
+
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(value)) {
+                    return i + min;
+                }
+            }
+        }
+
+        int result;
+
+        try {
+            result = Integer.parseInt(value);
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid value '" + value + "' in cron pattern: " + pattern);
+        }
+
+        if (result < min || result > max) {
+            throw new IllegalArgumentException("value " + result + " is out of range " + min + "-" + max + " in cron pattern: " + pattern);
+        }
+
+        return result;
+    }
+
+}
@@ -0,0 +1,578 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Cron scheduler on hierarchical timing wheel, replacement of cron4j scheduler
+ *
+ * Next fire time of every schedule is precomputed and kept in wheel of 1 second ticks.
+ * Upper wheels of minute, hour and day ticks hold far fires and cascade them down when their tick comes,
+ * fires beyond upper wheel go round it. Ticker thread wakes once per second and touches only due schedules.
+ * Patterns have second precision (see CronPattern), fires missed because of clock jump are coalesced into one.
+ */
+public final class CronScheduler {
+
+    private static final long TICK = 1000;
+
+    // Wheel levels: tick length, slots. Each level tick is whole lower wheel
+    private static final long[] LEVEL_TICKS = {TICK, 60 * TICK, 3600 * TICK, 86400 * TICK};
+    private static final int[]  LEVEL_SLOTS = {60, 60, 24, 64};
+
+    // Clock jump after which wheels are rebuilt instead of ticking through
+    private static final long MAX_CATCH_UP = 60 * TICK;
+
+    private final String name;
+    private final Object lock = new Object();
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final List<List<List<Entry>>> wheels = new ArrayList<>();
+
+    // Last processed tick, ms
+    private long currentTick;
+
+    private volatile boolean started = false;
+    private Thread ticker;
+    private ExecutorService executor;
+
+
+    /*
+     * Scheduled runnable
+     */
+    private static final class Entry {
+
+        final String id;
+        final String name;
+        final CronPattern pattern;
+        final Runnable task;
+        final ZoneId zone = ZoneId.systemDefault();
+
+        long nextFire = -1;
+        boolean cancelled = false;
+
+        Entry(String id, String name, CronPattern pattern, Runnable task) {
+            this.id      = id;
+            this.name    = name;
+            this.pattern = pattern;
+            this.task    = task;
+        }
+    }
+
+
+    /**
+     * Upcoming fire
+     * @noinspection WeakerAccess
+     */
+    public static final class Fire {
+
+        public final String id;
+        public final String name;
+        public final String pattern;
+        public final long   time;
+
+        private Fire(Entry entry, long time) {
+            this.id      = entry.id;
+            this.name    = entry.name;
+            this.pattern = entry.pattern.getPattern();
+            this.time    = time;
+        }
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param name - scheduler name, used in thread names
+     */
+    public CronScheduler(String name) {
+
+        this.name = name;
+
+        for (int slots : LEVEL_SLOTS) {
+            List<List<Entry>> wheel = new ArrayList<>(slots);
+            for (int i = 0; i < slots; i++) {
+                wheel.add(new ArrayList<>());
+            }
+            this.wheels.add(wheel);
+        }
+    }
+
+
+    /**
+     * Schedule runnable
+     *
+     * @param pattern - cron pattern
+     * @param task    - runnable
+     * @return String - schedule id
+     * @throws IllegalArgumentException on malformed pattern
+     */
+    public String schedule(String pattern, Runnable task) {
+        return this.schedule(pattern, task, null);
+    }
+
+
+    /**
+     * Schedule runnable
+     *
+     * @param pattern - cron pattern
+     * @param task    - runnable
+     * @param name    - schedule name for upcoming schedule, may be null
+     * @return String - schedule id
+     * @throws IllegalArgumentException on malformed pattern
+     */
+    public String schedule(String pattern, Runnable task, String name) {
+
+        Entry entry = new Entry(UUID.randomUUID().toString(), name, CronPattern.parse(pattern), task);
+
+        synchronized (this.lock) {
+            this.entries.put(entry.id, entry);
+            if (this.started) {
+                this.setNextFire(entry, System.currentTimeMillis());
+            }
+        }
+
+        return entry.id;
+    }
+
+
+    /**
+     * Change pattern of schedule
+     *
+     * @param id      - schedule id
+     * @param pattern - new cron pattern
+     * @return boolean - false if schedule doesn't exist
+     * @throws IllegalArgumentException on malformed pattern
+     */
+    public boolean reschedule(String id, String pattern) {
+        return this.reschedule(id, pattern, null);
+    }
+
+
+    /**
+     * Change pattern and runnable of schedule, fire in progress keeps previous runnable
+     *
+     * @param id      - schedule id
+     * @param pattern - new cron pattern
+     * @param task    - new runnable, null to keep current
+     * @return boolean - false if schedule doesn't exist
+     * @throws IllegalArgumentException on malformed pattern
+     */
+    public boolean reschedule(String id, String pattern, Runnable task) {
+
+        CronPattern parsed = CronPattern.parse(pattern);
+
+        synchronized (this.lock) {
+
+            Entry current = this.entries.get(id);
+
+            if (current == null) {
+                return false;
+            }
+
+            current.cancelled = true;
+
+            Entry entry = new Entry(id, current.name, parsed, (task != null) ? task : current.task);
+            this.entries.put(id, entry);
+
+            if (this.started) {
+                this.setNextFire(entry, System.currentTimeMillis());
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Apply several schedule changes at once, no schedule fires between them
+     *
+     * @param changes - schedule, reschedule and deschedule calls
+     */
+    public void batch(Runnable changes) {
+
+        synchronized (this.lock) {
+            changes.run();
+        }
+    }
+
+
+    /**
+     * Remove schedule
+     *
+     * @param id - schedule id
+     */
+    public void deschedule(String id) {
+
+        synchronized (this.lock) {
+            Entry entry = this.entries.remove(id);
+            if (entry != null) {
+                entry.cancelled = true;
+            }
+        }
+    }
+
+
+    /**
+     * Run runnable now
+     *
+     * @param task - runnable
+     * @throws IllegalStateException if scheduler is not started
+     */
+    public void launch(Runnable task) {
+
+        synchronized (this.lock) {
+            if (!this.started) {
+                throw new IllegalStateException("Scheduler not started");
+            }
+            this.executor.execute(task);
+        }
+    }
+
+
+    /**
+     * @return boolean
+     */
+    public boolean isStarted() {
+        return this.started;
+    }
+
+
+    /**
+     * Start ticker, fires missed while scheduler was stopped are skipped
+     *
+     * @throws IllegalStateException if scheduler is already started
+     */
+    public void start() {
+
+        synchronized (this.lock) {
+
+            if (this.started) {
+                throw new IllegalStateException("Scheduler already started");
+            }
+
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, this.name + "-task-" + threadNumber.incrementAndGet()));
+
+            this.rebuild(System.currentTimeMillis(), false);
+
+            this.started = true;
+            this.ticker  = new Thread(this::tick, this.name + "-ticker");
+            this.ticker.start();
+        }
+    }
+
+
+    /**
+     * Stop ticker, running tasks are not interrupted
+     *
+     * @throws IllegalStateException if scheduler is not started
+     */
+    public void stop() {
+
+        Thread stopped;
+
+        synchronized (this.lock) {
+
+            if (!this.started) {
+                throw new IllegalStateException("Scheduler not started");
+            }
+
+            this.started = false;
+            this.executor.shutdown();
+            this.clearWheels();
+
+            stopped = this.ticker;
+            this.ticker = null;
+        }
+
+        stopped.interrupt();
+
+        if (stopped != Thread.currentThread()) {
+            try {
+                stopped.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+
+    /**
+     * Upcoming fires, ordered by time
+     *
+     * @param until - epoch ms, fires up to this time
+     * @param limit - max fires
+     * @return List
+     */
+    public List<Fire> getUpcoming(long until, int limit) {
+
+        List<Fire> fires = new ArrayList<>();
+
+        synchronized (this.lock) {
+
+            long now = System.currentTimeMillis();
+
+            for (Entry entry : this.entries.values()) {
+
+                long time = this.started ? entry.nextFire : entry.pattern.next(now, entry.zone);
+
+                for (int i = 0; time >= 0 && time <= until && i < limit; i++) {
+                    fires.add(new Fire(entry, time));
+                    time = entry.pattern.next(time, entry.zone);
+                }
+            }
+        }
+
+        fires.sort(Comparator.comparingLong(fire -> fire.time));
+
+        return fires.size() > limit ? new ArrayList<>(fires.subList(0, limit)) : fires;
+    }
+
+
+    /*
+     * Ticker thread
+     */
+    private void tick() {
+
+        while (this.started) {
+
+            List<Entry> due;
+            long nextTick;
+
+            synchronized (this.lock) {
+                if (!this.started) {
+                    return;
+                }
+                due      = this.advance(System.currentTimeMillis());
+                nextTick = this.currentTick + TICK;
+            }
+
+            for (Entry entry : due) {
+                try {
+                    this.executor.execute(entry.task);
+                } catch (RejectedExecutionException e) {
+                    // scheduler is stopped
+                    return;
+                }
+            }
+
+            long sleep = nextTick - System.currentTimeMillis();
+
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Put entries to wheels at given time without ticker thread, used by tests
+     *
+     * @param now - time, ms
+     */
+    void rebuildAt(long now) {
+
+        synchronized (this.lock) {
+            this.rebuild(now, false);
+        }
+    }
+
+
+    /**
+     * Advance wheels to given time without ticker thread, used by tests
+     *
+     * @param now - time, ms
+     * @return List - ids of due schedules in fire order
+     */
+    List<String> advanceTo(long now) {
+
+        List<String> due = new ArrayList<>();
+
+        synchronized (this.lock) {
+            for (Entry entry : this.advance(now)) {
+                due.add(entry.id);
+            }
+        }
+
+        return due;
+    }
+
+
+    /**
+     * Advance wheels to current time
+     *
+     * @param now - current time, ms
+     * @return List - due entries, next fire is already set
+     */
+    private List<Entry> advance(long now) {
+
+        List<Entry> due = new ArrayList<>();
+
+        // clock jump, including wall clock set back
+        if (now - this.currentTick > MAX_CATCH_UP || this.currentTick - now > MAX_CATCH_UP) {
+            return this.rebuild(now, true);
+        }
+
+        while (this.currentTick + TICK <= now) {
+
+            this.currentTick += TICK;
+
+            // cascade from upper levels
+            for (int level = LEVEL_TICKS.length - 1; level >= 0; level--) {
+
+                if (this.currentTick % LEVEL_TICKS[level] != 0) {
+                    continue;
+                }
+
+                List<Entry> slot = this.takeSlot(level, this.currentTick);
+
+                for (Entry entry : slot) {
+                    if (!entry.cancelled) {
+                        this.place(entry, due);
+                    }
+                }
+            }
+        }
+
+        // one fire per entry, next fire is after current time
+        for (Entry entry : due) {
+            this.setNextFire(entry, Math.max(now, entry.nextFire));
+        }
+
+        return due;
+    }
+
+
+    /**
+     * Put all entries to wheels from scratch
+     *
+     * @param now     - current time, ms
+     * @param fireDue - return entries which fire time is passed
+     * @return List - due entries, next fire is already set
+     */
+    private List<Entry> rebuild(long now, boolean fireDue) {
+
+        List<Entry> due = new ArrayList<>();
+
+        this.clearWheels();
+        this.currentTick = now - now % TICK;
+
+        for (Entry entry : this.entries.values()) {
+            if (fireDue && entry.nextFire >= 0 && entry.nextFire <= now) {
+                due.add(entry);
+            }
+            this.setNextFire(entry, now);
+        }
+
+        return due;
+    }
+
+
+    /**
+     * Compute next fire and put entry to wheels
+     *
+     * @param entry - entry
+     * @param after - next fire is strictly after this time, ms
+     */
+    private void setNextFire(Entry entry, long after) {
+
+        // second of current tick is already processed
+        entry.nextFire = entry.pattern.next(Math.max(after, this.currentTick + TICK - 1), entry.zone);
+
+        if (entry.nextFire >= 0) {
+            this.place(entry, Collections.emptyList());
+        }
+    }
+
+
+    /**
+     * Put entry to lowest wheel, which window covers its fire time
+     *
+     * @param entry - entry with next fire
+     * @param due   - entry is added here if its fire time is already reached
+     */
+    private void place(Entry entry, List<Entry> due) {
+
+        if (entry.nextFire <= this.currentTick) {
+            due.add(entry);
+            return;
+        }
+
+        int top = LEVEL_TICKS.length - 1;
+
+        for (int level = 0; level <= top; level++) {
+
+            long ticks = entry.nextFire / LEVEL_TICKS[level] - this.currentTick / LEVEL_TICKS[level];
+
+            // beyond top wheel fire goes round it
+            if (ticks < LEVEL_SLOTS[level] || level == top) {
+                if (ticks == 0) {
+                    // same second as current tick
+                    due.add(entry);
+                    return;
+                }
+                this.wheels.get(level).get(slot(level, entry.nextFire)).add(entry);
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Detach slot of time
+     */
+    private List<Entry> takeSlot(int level, long time) {
+
+        List<List<Entry>> wheel = this.wheels.get(level);
+        int index               = slot(level, time);
+        List<Entry> slot        = wheel.get(index);
+
+        if (slot.isEmpty()) {
+            return slot;
+        }
+
+        wheel.set(index, new ArrayList<>());
+        return slot;
+    }
+
+
+    private static int slot(int level, long time) {
+        return (int) ((time / LEVEL_TICKS[level]) % LEVEL_SLOTS[level]);
+    }
+
+
+    private void clearWheels() {
+        for (List<List<Entry>> wheel : this.wheels) {
+            for (List<Entry> slot : wheel) {
+                slot.clear();
+            }
+        }
+    }
+
+}
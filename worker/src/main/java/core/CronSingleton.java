@@ -17,11 +17,11 @@
  */
 package core;
 
-import it.sauronsoftware.cron4j.Scheduler;
+import java.util.List;
 
 
 /**
- * Logic to interact with the Cron4j library.
+ * Logic to interact with the cron scheduler.
  * Implemented using the singleton pattern.
  */
 public class CronSingleton {
@@ -30,14 +30,14 @@ public class CronSingleton {
     private static CronSingleton _instance = null;
 
     // Static instance for the shared scheduler. Initialized when singleton is created.
-    private static Scheduler _scheduler = null;
+    private static CronScheduler _scheduler = null;
 
     /**
      * Default constructor
      * Defined as protected to prevent instantiation
      */
     private CronSingleton() {
-        _scheduler = new Scheduler();
+        _scheduler = new CronScheduler("cron");
     }
 
     /**
@@ -56,7 +56,7 @@ public class CronSingleton {
      * @noinspection WeakerAccess
      * @return initialized scheduler
      */
-    public Scheduler getScheduler() {
+    public CronScheduler getScheduler() {
         return _scheduler;
     }
 
@@ -94,13 +94,24 @@ public class CronSingleton {
     }
 
     /**
-     * Schedule a task
+     * Schedule a named job
      * @param cronSchedule the cron based schedule for the job
-     * @param task the task to be scheduled
+     * @param job the job to be scheduled
+     * @param name the job name shown in upcoming schedule
      */
-    String scheduleJob(String cronSchedule, it.sauronsoftware.cron4j.Task task) {
+    String scheduleJob(String cronSchedule, Runnable job, String name) {
         // Schedule a job based on the schedule provided.
-        return _scheduler.schedule(cronSchedule, task);
+        return _scheduler.schedule(cronSchedule, job, name);
+    }
+
+    /**
+     * Upcoming fires of all jobs
+     * @param until epoch ms, fires up to this time
+     * @param limit max fires
+     * @return fires ordered by time
+     */
+    List<CronScheduler.Fire> getUpcoming(long until, int limit) {
+        return _scheduler.getUpcoming(until, limit);
     }
 
 }
@@ -17,19 +17,39 @@
  */
 package core;
 
-import it.sauronsoftware.cron4j.TaskExecutionContext;
+import abstractions.AbstractCoreUnit;
 
 import java.util.HashMap;
 import java.util.Map;
 
 
 /*
- * Task class for Cron4j
+ * Task class for cron scheduler
+ *
+ * Runs of same task don't overlap, fire of running task is handled by overlap policy
+ * (setting taskOverlap, or taskOverlap.<task name> for single task):
+ *  skip            - fire is skipped (default)
+ *  queue-one       - one run is queued after current run, further fires are coalesced into it
+ *  cancel-previous - current run is cancelled, new run is started when it is stopped
+ * Single node runs are not tracked.
  */
-public class CronTask extends it.sauronsoftware.cron4j.Task  {
+public class CronTask extends AbstractCoreUnit implements Runnable {
+
+    private enum OverlapPolicy { SKIP, QUEUE_ONE, CANCEL_PREVIOUS }
+
+    /*
+     * Current run of task, next run is queued by queue-one and cancel-previous
+     */
+    private static final class RunState {
+        Task current;
+        CronTask next;
+    }
 
-    private Map<String, String> settings    = new HashMap<>();
-    private Map<String, String> coordinates = new HashMap<>();
+    // Running tasks by task name
+    private static final Map<String, RunState> runs = new HashMap<>();
+
+    // Scheduled runs are delayed by start jitter, manual runs start at once
+    private boolean startJitter = false;
 
     /**
      * Constructor
@@ -42,13 +62,136 @@ public class CronTask extends it.sauronsoftware.cron4j.Task  {
         this.coordinates = coordinates;
     }
 
+    /**
+     * Delay runs by task start jitter
+     *
+     * @param startJitter - true for scheduled task
+     * @return CronTask
+     */
+    CronTask setStartJitter(boolean startJitter) {
+        this.startJitter = startJitter;
+        return this;
+    }
+
     /**
      * Execution
      */
     @Override
-    public void execute(TaskExecutionContext context) throws RuntimeException
+    public void run()
     {
-        Task currentTask = new Task(this.coordinates, this.settings);
-        currentTask.run();
+        String taskName = this.coordinates.get("taskName");
+
+        if (taskName == null || this.coordinates.get("runOnNode") != null) {
+            new Task(this.coordinates, this.settings).setStartJitter(this.startJitter).run();
+            return;
+        }
+
+        RunState state;
+        Task currentTask     = new Task(this.coordinates, this.settings).setStartJitter(this.startJitter);
+        OverlapPolicy policy = this.getOverlapPolicy();
+        String overlapMessage;
+
+        synchronized (runs) {
+
+            state = runs.get(taskName);
+
+            if (state == null) {
+                state = new RunState();
+                state.current = currentTask;
+                runs.put(taskName, state);
+                overlapMessage = null;
+            }
+            else {
+                overlapMessage = this.overlap(state, policy);
+            }
+        }
+
+        if (overlapMessage != null) {
+            this.logMessage(policy == OverlapPolicy.QUEUE_ONE ? "INFO" : "WARNING", "TASK SKIP", overlapMessage);
+            return;
+        }
+
+        while (currentTask != null) {
+
+            try {
+                currentTask.run();
+            }
+            finally {
+                synchronized (runs) {
+                    if (state.next != null) {
+                        // queued run starts right after previous one, without jitter
+                        currentTask   = new Task(state.next.coordinates, state.next.settings);
+                        state.current = currentTask;
+                        state.next    = null;
+                    }
+                    else {
+                        currentTask = null;
+                        runs.remove(taskName);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Fire of running task, called under runs lock
+     *
+     * @param state  - current run of task
+     * @param policy - overlap policy of task
+     * @return String - log message
+     */
+    private String overlap(RunState state, OverlapPolicy policy) {
+
+        String taskName = this.coordinates.get("taskName");
+        String progress = state.current.getProgress();
+        String message;
+
+        switch (policy) {
+            case QUEUE_ONE:
+                message = (state.next != null)
+                        ? "Task " + taskName + " is already queued, run is coalesced. Current run: " + progress
+                        : "Task " + taskName + " is still running, run is queued. Current run: " + progress;
+                state.next = this;
+                break;
+            case CANCEL_PREVIOUS:
+                message = (state.next != null)
+                        ? "Task " + taskName + " run is already cancelled, run is coalesced. Current run: " + progress
+                        : "Task " + taskName + " is still running, current run is cancelled. Current run: " + progress;
+                state.next = this;
+                state.current.cancel();
+                break;
+            default:
+                message = "Task " + taskName + " is still running, run is skipped. Current run: " + progress;
+        }
+
+        return message;
+    }
+
+    /**
+     * @return OverlapPolicy - task or app overlap policy, skip if not set
+     */
+    private OverlapPolicy getOverlapPolicy() {
+
+        String policy = this.settings.get("taskOverlap." + this.coordinates.get("taskName"));
+
+        if (policy == null || policy.length() == 0) {
+            policy = this.settings.get("taskOverlap");
+        }
+
+        if (policy == null || policy.length() == 0) {
+            return OverlapPolicy.SKIP;
+        }
+
+        switch (policy.trim().toLowerCase()) {
+            case "skip":
+                return OverlapPolicy.SKIP;
+            case "queue-one":
+                return OverlapPolicy.QUEUE_ONE;
+            case "cancel-previous":
+                return OverlapPolicy.CANCEL_PREVIOUS;
+            default:
+                this.logMessage("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + ": unknown overlap policy " + policy + ". Using default policy: skip.");
+                return OverlapPolicy.SKIP;
+        }
     }
 }
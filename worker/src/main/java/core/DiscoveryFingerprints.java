@@ -0,0 +1,151 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Fingerprints of discovery results sent to core, kept between task runs
+ *
+ * Incremental discovery sends result only for new or changed hosts.
+ * Fingerprint is forgotten when host fails discovery, so returning host is sent again.
+ * Periodic full rescan sends all results, core can detect removed hosts.
+ */
+final class DiscoveryFingerprints {
+
+    // Singleton static instance for the class
+    private static DiscoveryFingerprints _instance = null;
+
+    /*
+     * Network ID + IP => result fingerprint
+     */
+    private final Map<String, Long> fingerprints = new ConcurrentHashMap<>();
+
+    /*
+     * Task name => last full rescan start, ms
+     */
+    private final Map<String, Long> lastFullRescan = new ConcurrentHashMap<>();
+
+
+    /**
+     * Private constructor
+     */
+    private DiscoveryFingerprints() {
+    }
+
+
+    /**
+     * @return DiscoveryFingerprints
+     */
+    static synchronized DiscoveryFingerprints getInstance() {
+
+        if (_instance == null) {
+            _instance = new DiscoveryFingerprints();
+        }
+
+        return _instance;
+    }
+
+
+    /**
+     * Start discovery run
+     *
+     * @param taskName - discovery task
+     * @param interval - full rescan interval, ms
+     * @return boolean - run is full rescan
+     */
+    boolean beginRun(String taskName, long interval) {
+
+        long now  = System.currentTimeMillis();
+        Long last = this.lastFullRescan.get(taskName);
+
+        if (last != null && now - last < interval) {
+            return false;
+        }
+
+        this.lastFullRescan.put(taskName, now);
+        return true;
+    }
+
+
+    /**
+     * @param key         - network ID + IP
+     * @param fingerprint - current result fingerprint
+     * @return boolean - same result was sent before
+     */
+    boolean isKnown(String key, long fingerprint) {
+        Long known = this.fingerprints.get(key);
+        return known != null && known == fingerprint;
+    }
+
+
+    /**
+     * @param key         - network ID + IP
+     * @param fingerprint - sent result fingerprint
+     */
+    void remember(String key, long fingerprint) {
+        this.fingerprints.put(key, fingerprint);
+    }
+
+
+    /**
+     * @param key - network ID + IP
+     */
+    void forget(String key) {
+        this.fingerprints.remove(key);
+    }
+
+
+    /**
+     * Order independent 64-bit fingerprint of result
+     *
+     * @param result - discovery result
+     * @return long
+     */
+    static long fingerprint(Map<String, String> result) {
+
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required on every Java platform
+            throw new IllegalStateException(e);
+        }
+
+        for (Map.Entry<String, String> entry : new TreeMap<>(result).entrySet()) {
+            digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (entry.getValue() != null) {
+                digest.update(entry.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+}
@@ -0,0 +1,303 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import abstractions.AbstractCoreUnit;
+import api.ApiCaller;
+import api.ApiRequest;
+import api.ApiRequestMethods;
+import api.ApiResponse;
+import api.ApiJson;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+
+/**
+ * Discovery results of task run, sent to core in batches
+ *
+ * Results are collected from all discovery workers and sent via v1/core/set-discovery-results
+ * when batch is full and at the end of run. Rows rejected by core are logged one by one,
+ * totals are available for task summary.
+ * Core without bulk endpoint gets results one by one via v1/core/set-discovery-result.
+ */
+final class DiscoveryResults extends AbstractCoreUnit {
+
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    private final Gson gson = ApiJson.GSON;
+    private final int  batchSize;
+
+    private List<Row> batch;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger sent     = new AtomicInteger();
+    private final AtomicInteger failed   = new AtomicInteger();
+
+    // Core has no bulk endpoint
+    private final AtomicBoolean singleRows = new AtomicBoolean(false);
+
+
+    /**
+     * Queued result
+     */
+    private static final class Row {
+
+        final Map<String, String> result;
+        final Consumer<Boolean>   callback;
+
+        Row(Map<String, String> result, Consumer<Boolean> callback) {
+            this.result   = result;
+            this.callback = callback;
+        }
+    }
+
+
+    /**
+     * Core bulk endpoint response
+     */
+    private static final class BulkResponse {
+        int success;
+        int failed;
+        List<RowError> errors;
+    }
+
+    private static final class RowError {
+        int    index;
+        String ip;
+        int    status;
+        String message;
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param coordinates - schedule, task, etc..
+     * @param settings    - app settings
+     * @param batchSize   - results per request
+     */
+    DiscoveryResults(Map<String, String> coordinates, Map<String, String> settings, int batchSize) {
+        this.setContext(coordinates, settings);
+        this.batchSize = batchSize;
+        this.batch     = new ArrayList<>(batchSize);
+    }
+
+
+    /**
+     * Queue result, full batch is sent by calling thread
+     *
+     * @param result   - discovery result
+     * @param callback - called with true when result is accepted by core, false otherwise
+     */
+    void add(Map<String, String> result, Consumer<Boolean> callback) {
+
+        List<Row> full = null;
+
+        synchronized (this) {
+            this.batch.add(new Row(result, callback));
+            if (this.batch.size() >= this.batchSize) {
+                full       = this.batch;
+                this.batch = new ArrayList<>(this.batchSize);
+            }
+        }
+
+        if (full != null) {
+            this.send(full);
+        }
+    }
+
+
+    /**
+     * Send queued results, called at the end of run
+     */
+    void flush() {
+
+        List<Row> rest;
+
+        synchronized (this) {
+            rest       = this.batch;
+            this.batch = new ArrayList<>(this.batchSize);
+        }
+
+        if (!rest.isEmpty()) {
+            this.send(rest);
+        }
+    }
+
+
+    /**
+     * @return int - results accepted by core
+     */
+    int getSent() {
+        return this.sent.get();
+    }
+
+
+    /**
+     * @return int - results rejected by core or not delivered
+     */
+    int getFailed() {
+        return this.failed.get();
+    }
+
+
+    /**
+     * @return int - API requests made
+     */
+    int getRequests() {
+        return this.requests.get();
+    }
+
+
+    /**
+     * Send batch via bulk endpoint
+     *
+     * @param rows - results
+     */
+    private void send(List<Row> rows) {
+
+        if (this.singleRows.get()) {
+            rows.forEach(this::sendSingle);
+            return;
+        }
+
+        List<Map<String, String>> results = new ArrayList<>(rows.size());
+        rows.forEach(row -> results.add(row.result));
+
+        ApiRequest discoveryPost = new ApiRequest(this.coordinates)
+            .setRequestMethod(ApiRequestMethods.POST)
+            .setApiMethod("v1/core/set-discovery-results")
+            .setPostBody(writer -> this.gson.toJson(results, ApiJson.STRING_MAP_LIST, writer));
+
+        this.requests.incrementAndGet();
+        ApiResponse response = ApiCaller.request(discoveryPost);
+
+        /*
+         * All rows accepted
+         */
+        if (response.success) {
+            this.complete(rows, null);
+            return;
+        }
+
+        /*
+         * Old core, bulk endpoint is not found
+         */
+        if (response.responseCode == 404) {
+            this.singleRows.set(true);
+            this.logMessage("WARNING", "DISCOVERY", "Task " + this.coordinates.get("taskName") + ": core has no bulk discovery endpoint, results are sent one by one.");
+            rows.forEach(this::sendSingle);
+            return;
+        }
+
+        /*
+         * Some rows rejected
+         */
+        if (response.responseCode == 207) {
+            try {
+                BulkResponse bulkResponse = this.gson.fromJson(response.response, BulkResponse.class);
+                if (bulkResponse != null) {
+                    this.complete(rows, bulkResponse.errors);
+                    return;
+                }
+            }
+            catch (JsonSyntaxException e) {
+                this.logException("ERROR", "DISCOVERY", "Task " + this.coordinates.get("taskName") + ": can't parse bulk discovery response.", e);
+            }
+        }
+
+        String setDiscoveryMessage = "Task " + this.coordinates.get("taskName") + ": failed to set " + rows.size() + " discovery results via API.";
+        this.logBadResponse("ERROR", "DISCOVERY", setDiscoveryMessage, response);
+
+        for (Row row : rows) {
+            this.failed.incrementAndGet();
+            row.callback.accept(false);
+        }
+    }
+
+
+    /**
+     * Fallback for core without bulk endpoint
+     *
+     * @param row - result
+     */
+    private void sendSingle(Row row) {
+
+        ApiRequest discoveryPost = new ApiRequest(this.coordinates)
+            .setRequestMethod(ApiRequestMethods.POST)
+            .setApiMethod("v1/core/set-discovery-result")
+            .setPostJson(this.gson.toJson(row.result, ApiJson.STRING_MAP));
+
+        this.requests.incrementAndGet();
+        ApiResponse response = ApiCaller.request(discoveryPost);
+
+        if (response.success) {
+            this.sent.incrementAndGet();
+        }
+        else {
+            this.failed.incrementAndGet();
+            String setDiscoveryMessage = "Task " + this.coordinates.get("taskName") + ", node " + row.result.get("ip") + ": failed to set result via API.";
+            this.logBadResponse("ERROR", "DISCOVERY", setDiscoveryMessage, response);
+        }
+
+        row.callback.accept(response.success);
+    }
+
+
+    /**
+     * Count and report rows of answered bulk request
+     *
+     * @param rows   - sent rows
+     * @param errors - rejected rows, null if none
+     */
+    private void complete(List<Row> rows, List<RowError> errors) {
+
+        boolean[] rejected = new boolean[rows.size()];
+
+        if (errors != null) {
+            for (RowError error : errors) {
+
+                if (error.index >= 0 && error.index < rejected.length) {
+                    rejected[error.index] = true;
+                }
+
+                String rowMessage = "Task " + this.coordinates.get("taskName") + ", node " + error.ip +
+                        ": discovery result rejected by core with status " + error.status + ". " + error.message;
+                this.logMessage("ERROR", "DISCOVERY", rowMessage);
+            }
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            if (rejected[i]) {
+                this.failed.incrementAndGet();
+            }
+            else {
+                this.sent.incrementAndGet();
+            }
+            rows.get(i).callback.accept(!rejected[i]);
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import org.apache.commons.net.util.SubnetUtils;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+
+/**
+ * Host addresses of IPv4 subnet as int range
+ * Network and broadcast addresses are not included.
+ * Excluded addresses are kept in bitset, one bit per subnet address.
+ */
+final class Ipv4Range {
+
+    private final SubnetUtils.SubnetInfo info;
+    private final int    low;
+    private final int    count;
+    private final BitSet excluded;
+
+
+    /**
+     * Constructor
+     *
+     * @param cidr - subnet, e.g. 192.168.1.0/24
+     * @throws IllegalArgumentException on wrong subnet
+     */
+    Ipv4Range(String cidr) {
+
+        this.info  = new SubnetUtils(cidr).getInfo();
+        this.count = (int) this.info.getAddressCountLong();
+        this.low   = this.count > 0 ? this.info.asInteger(this.info.getLowAddress()) : 0;
+
+        this.excluded = new BitSet(this.count);
+    }
+
+
+    /**
+     * Exclude address if it is in range
+     *
+     * @param ip - address
+     * @return boolean - address is in range
+     * @throws IllegalArgumentException on wrong address
+     */
+    boolean exclude(String ip) {
+        return this.exclude(this.info.asInteger(ip));
+    }
+
+
+    /**
+     * Exclude address if it is in range
+     *
+     * @param ip - address as int
+     * @return boolean - address is in range
+     */
+    boolean exclude(int ip) {
+
+        int offset = this.offsetOf(ip);
+
+        if (offset < 0) {
+            return false;
+        }
+
+        this.excluded.set(offset);
+        return true;
+    }
+
+
+    /**
+     * @param ip - address as int
+     * @return boolean - address is in range and not excluded
+     */
+    boolean contains(int ip) {
+        int offset = this.offsetOf(ip);
+        return offset >= 0 && !this.excluded.get(offset);
+    }
+
+
+    /**
+     * @return int - number of addresses left after exclusions
+     */
+    int size() {
+        return this.count - this.excluded.cardinality();
+    }
+
+
+    /**
+     * Addresses left after exclusions, in ascending order
+     *
+     * @return PrimitiveIterator.OfInt
+     */
+    PrimitiveIterator.OfInt iterator() {
+
+        return new PrimitiveIterator.OfInt() {
+
+            private int offset = excluded.nextClearBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.offset < count;
+            }
+
+            @Override
+            public int nextInt() {
+
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                int ip = low + this.offset;
+                this.offset = excluded.nextClearBit(this.offset + 1);
+
+                return ip;
+            }
+        };
+    }
+
+
+    /**
+     * Dotted quad notation
+     *
+     * @param ip - address as int
+     * @return String
+     */
+    static String toString(int ip) {
+        return ((ip >>> 24) & 0xFF) + "." + ((ip >>> 16) & 0xFF) + "." + ((ip >>> 8) & 0xFF) + "." + (ip & 0xFF);
+    }
+
+
+    /**
+     * @param ip - address as int
+     * @return int - offset in range, -1 if out of range
+     */
+    private int offsetOf(int ip) {
+        long offset = (ip & 0xFFFFFFFFL) - (this.low & 0xFFFFFFFFL);
+        return (this.count > 0 && offset >= 0 && offset < this.count) ? (int) offset : -1;
+    }
+
+}
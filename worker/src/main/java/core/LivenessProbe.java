@@ -0,0 +1,273 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import org.snmp4j.CommunityTarget;
+import org.snmp4j.PDU;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.*;
+import snmp.SnmpSingleton;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Lightweight liveness check before full discovery
+ *
+ * SNMP - single GET of sysUpTime.0 without retries, for SNMPv3 agent engine discovery without retries.
+ * TCP  - connect to management ports, refused connection also means host is alive.
+ *
+ * Local failures (e.g. no free sockets) report host as alive,
+ * probe must never hide a host from full discovery.
+ */
+final class LivenessProbe {
+
+    static final int    DEFAULT_TIMEOUT = 300;
+    static final String DEFAULT_PORTS   = "22,23";
+
+    private static final OID sysUpTimeOid = new OID("1.3.6.1.2.1.1.3.0");
+
+    enum Method { SNMP, TCP }
+
+    private final Method   method;
+    private final int      timeout;
+    private final int[]    tcpPorts;
+    private final Executor executor;
+
+    /*
+     * SNMP network parameters
+     */
+    private SnmpSingleton       snmp;
+    private Integer             snmpVer;
+    private String              snmpRead;
+    private Integer             snmpPort;
+    private Map<String, String> credentials;
+
+
+    /**
+     * Constructor
+     *
+     * @param method   - probe method
+     * @param timeout  - probe timeout, ms
+     * @param tcpPorts - ports for TCP probe
+     * @param executor - executor for blocking SNMPv3 engine discovery
+     */
+    LivenessProbe(Method method, int timeout, int[] tcpPorts, Executor executor) {
+        this.method   = method;
+        this.timeout  = timeout;
+        this.tcpPorts = tcpPorts;
+        this.executor = executor;
+    }
+
+
+    /**
+     * Network SNMP parameters, used by SNMP probe
+     *
+     * @param snmp        - shared SNMP session
+     * @param snmpVer     - 0 - v1, 1 - v2c, 2 - v3
+     * @param snmpRead    - read community
+     * @param snmpPort    - agent port
+     * @param credentials - network credentials, snmp_v3_* keys
+     * @return LivenessProbe
+     */
+    LivenessProbe setNetwork(SnmpSingleton snmp, Integer snmpVer, String snmpRead, Integer snmpPort, Map<String, String> credentials) {
+        this.snmp        = snmp;
+        this.snmpVer     = snmpVer;
+        this.snmpRead    = snmpRead;
+        this.snmpPort    = snmpPort;
+        this.credentials = credentials;
+        return this;
+    }
+
+
+    /**
+     * Parse probe method
+     *
+     * @param name - setting value
+     * @return Method, null if probe is disabled
+     * @throws IllegalArgumentException on unknown method
+     */
+    static Method parseMethod(String name) {
+
+        if (name == null || name.length() == 0 || name.equalsIgnoreCase("none")) {
+            return null;
+        }
+
+        return Method.valueOf(name.toUpperCase());
+    }
+
+
+    /**
+     * Parse comma separated port list
+     *
+     * @param ports - e.g. 22,23
+     * @return int[]
+     * @throws IllegalArgumentException on wrong port
+     */
+    static int[] parsePorts(String ports) {
+
+        String[] parts  = ports.split(",");
+        int[]    result = new int[parts.length];
+
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+            if (result[i] < 1 || result[i] > 65535) {
+                throw new IllegalArgumentException("wrong port " + result[i]);
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Probe host
+     *
+     * @param ip - address as int
+     * @return CompletableFuture - host is alive
+     */
+    CompletableFuture<Boolean> probe(int ip) {
+
+        String address = Ipv4Range.toString(ip);
+
+        return this.method == Method.SNMP ? this.probeSnmp(address) : this.probeTcp(address);
+    }
+
+
+    /**
+     * Single GET without retries, any response means alive
+     *
+     * @param ip - address
+     * @return CompletableFuture
+     */
+    private CompletableFuture<Boolean> probeSnmp(String ip) {
+
+        Address address = new UdpAddress(ip + "/" + this.snmpPort.toString());
+
+        // SNMPv3 engine discovery blocks, done by executor. Engine ID is cached for full discovery.
+        if (this.snmpVer == 2) {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return this.snmp.createUserTarget(address, this.credentials, this.timeout, 0) != null;
+                }
+                catch (IllegalArgumentException e) {
+                    // wrong credentials are reported by full discovery
+                    return true;
+                }
+            }, this.executor);
+        }
+
+        CommunityTarget<Address> target = new CommunityTarget<>();
+        target.setAddress(address);
+        target.setTimeout(this.timeout);
+        target.setRetries(0);
+        target.setCommunity(new OctetString(this.snmpRead));
+        target.setVersion(this.snmpVer == 0 ? SnmpConstants.version1 : SnmpConstants.version2c);
+
+        PDU requestPDU = new PDU();
+        requestPDU.setType(PDU.GET);
+        requestPDU.add(new VariableBinding(sysUpTimeOid));
+
+        return this.snmp.sendAsync(requestPDU, target)
+            .handle((responseEvent, e) -> e != null || (responseEvent != null && responseEvent.getResponse() != null));
+    }
+
+
+    /**
+     * Connect to each port, first connected or refused port means alive
+     *
+     * @param ip - address
+     * @return CompletableFuture
+     */
+    private CompletableFuture<Boolean> probeTcp(String ip) {
+
+        CompletableFuture<Boolean> alive = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(this.tcpPorts.length);
+
+        for (int port : this.tcpPorts) {
+            this.connect(ip, port).whenComplete((connected, e) -> {
+                if (connected != null && connected) {
+                    alive.complete(true);
+                }
+                else if (remaining.decrementAndGet() == 0) {
+                    alive.complete(false);
+                }
+            });
+        }
+
+        return alive;
+    }
+
+
+    /**
+     * Asynchronous connect with timeout
+     *
+     * @param ip   - address
+     * @param port - port
+     * @return CompletableFuture - false on timeout or unreachable host, otherwise true
+     */
+    private CompletableFuture<Boolean> connect(String ip, int port) {
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        AsynchronousSocketChannel channel;
+
+        try {
+            channel = AsynchronousSocketChannel.open();
+        }
+        catch (IOException e) {
+            // local failure says nothing about host
+            result.complete(true);
+            return result;
+        }
+
+        channel.connect(new InetSocketAddress(ip, port), null, new CompletionHandler<Void, Void>() {
+            @Override
+            public void completed(Void ignored, Void attachment) {
+                result.complete(true);
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                // refused - RST from host, host is up but port closed
+                // only no route to host means not alive, local errors (e.g. no free descriptors) say nothing about host
+                result.complete(!(e instanceof NoRouteToHostException));
+            }
+        });
+
+        return result
+            .completeOnTimeout(false, this.timeout, TimeUnit.MILLISECONDS)
+            .whenComplete((connected, e) -> {
+                try {
+                    channel.close();
+                }
+                catch (IOException ignored) {
+                    // nothing to do
+                }
+            });
+    }
+
+}
@@ -21,6 +21,7 @@ import api.ApiRequest;
 import api.ApiResponse;
 import api.ApiCaller;
 import api.ApiRequestMethods;
+import api.ApiJson;
 import abstractions.AbstractCoreUnit;
 
 import java.util.*;
@@ -30,7 +31,6 @@ import java.lang.reflect.Type;
  * Google gson
  */
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -38,7 +38,7 @@ import com.google.gson.reflect.TypeToken;
  */
 public class Mailer extends AbstractCoreUnit implements Runnable {
 
-    private Gson gson = new Gson();
+    private final Gson gson = ApiJson.GSON;
 
     /**
      * Constructor
@@ -83,8 +83,7 @@ public class Mailer extends AbstractCoreUnit implements Runnable {
 
             String mailerEventJson = mailerEventResponse.response;
 
-            Type settingsType = new TypeToken<Boolean>() {
-            }.getType();
+            Type settingsType = Boolean.class;
 
             try {
                 mailerEventSuccess = gson.fromJson(mailerEventJson, settingsType);
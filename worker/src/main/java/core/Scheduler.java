@@ -23,9 +23,11 @@ import api.ApiCaller;
 import api.ApiRequest;
 import api.ApiRequestMethods;
 import api.ApiResponse;
+import api.ApiJson;
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
 import java.util.*;
 import org.springframework.stereotype.Component;
 // import sshd.shell.springboot.autoconfiguration.SshdShellCommand; // Temporarily disabled - library not available
@@ -41,8 +43,49 @@ import javax.annotation.PostConstruct;
 // @SshdShellCommand(value = "cbackup", description = "Type 'cbackup' for supported subcommands") // Temporarily disabled
 public class Scheduler extends AbstractCoreUnit {
 
-    private List<String> scheduleIds = new ArrayList<>();
-    private Gson gson = new Gson();
+    // Upcoming schedule of 'cbackup schedule'
+    private static final long UPCOMING_PERIOD = 24 * 3600 * 1000L;
+    private static final int  UPCOMING_LIMIT  = 50;
+
+    // Scheduled tasks and mailer events by schedule key ("task <schedule id>", "mail <schedule id>")
+    private final Map<String, ScheduledJob> schedules = new LinkedHashMap<>();
+    private final Gson gson = ApiJson.GSON;
+
+    /*
+     * Scheduled task or mailer event, source is row received from API
+     */
+    private static final class ScheduledJob {
+
+        String id;
+        final String name;
+        final String pattern;
+        final Map<String, String> source;
+        final Map<String, String> settings;
+        final Runnable task;
+
+        ScheduledJob(String name, String pattern, Map<String, String> source, Map<String, String> settings, Runnable task) {
+            this.name     = name;
+            this.pattern  = pattern;
+            this.source   = source;
+            this.settings = settings;
+            this.task     = task;
+        }
+
+        /**
+         * @param other - scheduled job
+         * @return boolean - same task data and settings, cron string is not compared
+         */
+        boolean isSameTask(ScheduledJob other) {
+
+            Map<String, String> source      = new HashMap<>(this.source);
+            Map<String, String> otherSource = new HashMap<>(other.source);
+
+            source.remove("scheduleCron");
+            otherSource.remove("scheduleCron");
+
+            return source.equals(otherSource) && this.settings.equals(other.settings);
+        }
+    }
 
     /* Bind cbackup properties from application.properties */
     @Value("${cbackup.scheme}")
@@ -120,6 +163,35 @@ public class Scheduler extends AbstractCoreUnit {
     }
 
 
+    /**
+     * Shell command 'cbackup reload'
+     *
+     * @param arg String - command argument
+     * @return String    - command result
+     */
+    // @SshdShellCommand(value = "reload", description = "Apply changed schedules without restart. Usage: 'cbackup reload [-json]'") // Temporarily disabled
+    public String shellCommandReload(String arg) {
+
+        Boolean returnJson = false;
+        DTOShellResponse response;
+
+        if( arg != null && arg.contains("-json")) {
+            returnJson = true;
+            arg = arg.replace("-json", "");
+        }
+
+        if(arg != null && arg.trim().length() > 0) {
+            response = new DTOShellResponse();
+            response.message = "Command 'cbackup reload' has no valid arguments. Use command 'cbackup reload [-json]' instead.";
+        }
+        else {
+            response = this.reload();
+        }
+
+        return (returnJson)? this.gson.toJson(response) : response.message;
+    }
+
+
     /**
      * Shell command 'cbackup stop'
      *
@@ -243,6 +315,35 @@ public class Scheduler extends AbstractCoreUnit {
     }
 
 
+    /**
+     * Shell command 'cbackup schedule'
+     *
+     * @param arg String - command argument
+     * @return String    - command result
+     */
+    // @SshdShellCommand(value = "schedule", description = "Get upcoming schedule. Usage: 'cbackup schedule [-json]'") // Temporarily disabled
+    public String shellCommandSchedule(String arg) {
+
+        Boolean returnJson = false;
+        DTOShellResponse response;
+
+        if( arg != null && arg.contains("-json")) {
+            returnJson = true;
+            arg = arg.replace("-json", "");
+        }
+
+        if(arg != null && arg.trim().length() > 0) {
+            response = new DTOShellResponse();
+            response.message = "Command 'cbackup schedule' has no valid arguments. Use command 'cbackup schedule [-json]' instead.";
+        }
+        else {
+            response  = this.schedule();
+        }
+
+        return (returnJson)? this.gson.toJson(response) : response.message;
+    }
+
+
     /**
      * Shell command 'cbackup version'
      *
@@ -278,7 +379,7 @@ public class Scheduler extends AbstractCoreUnit {
      *
      * @return DTOShellResponse
      */
-    private DTOShellResponse start() {
+    private synchronized DTOShellResponse start() {
 
         DTOShellResponse response = new DTOShellResponse();
 
@@ -295,11 +396,11 @@ public class Scheduler extends AbstractCoreUnit {
             /* Get settings from API */
             this.init();
 
-            /* Create task schedules */
-            this.createTaskSchedule();
+            /* Create task and mail schedules */
+            Map<String, ScheduledJob> jobs = this.getTaskJobs();
+            jobs.putAll(this.getMailJobs());
 
-            /* Create mail schedules */
-            this.createMailSchedule();
+            this.applySchedules(jobs);
 
             /* Start scheduler */
             try {
@@ -370,12 +471,60 @@ public class Scheduler extends AbstractCoreUnit {
     }
 
 
+    /**
+     * Reload settings, tasks and mailer events, apply only changed schedules
+     * Scheduler keeps running, current schedules are kept if anything can't be received
+     *
+     * @return DTOShellResponse
+     */
+    private synchronized DTOShellResponse reload() {
+
+        DTOShellResponse response = new DTOShellResponse();
+
+        /* Stop executing if Scheduler is not started */
+        if (!CronSingleton.getInstance().isStarted()) {
+            response.message = "Scheduler is not started yet. Please use command 'cbackup start' to start scheduler";
+            response.success = true;
+            response.object  = false;
+            return response;
+        }
+
+        Map<String, String> currentSettings = this.settings;
+        Map<String, ScheduledJob> jobs;
+
+        try {
+            /* Get settings, tasks and events from API */
+            this.init();
+
+            jobs = this.getTaskJobs();
+            jobs.putAll(this.getMailJobs());
+        }
+        catch (Exception e) {
+            this.settings = currentSettings;
+            this.logSystemMessage("ERROR", "SCHEDULER RELOAD", "Can't reload schedules, current schedules are kept.");
+            response.message   = "Can't reload schedules, current schedules are kept.";
+            response.exception = e.getMessage();
+            return response;
+        }
+
+        int[] changes = this.applySchedules(jobs);
+
+        String reloadMessage = "Scheduler reloaded. Added: " + changes[0] + ". Changed: " + changes[1] + ". Removed: " + changes[2] + ".";
+        this.logSystemMessage("INFO", "SCHEDULER RELOAD", reloadMessage);
+
+        response.message = reloadMessage;
+        response.success = true;
+        response.object  = true;
+        return response;
+    }
+
+
     /**
      * Stop scheduler
      *
      * @return DTOShellResponse
      */
-    private DTOShellResponse stop() {
+    private synchronized DTOShellResponse stop() {
 
         DTOShellResponse response = new DTOShellResponse();
 
@@ -462,7 +611,7 @@ public class Scheduler extends AbstractCoreUnit {
 
             String taskJson = taskBackupResponse.response;
 
-            Type tasksType = new TypeToken<ArrayList<HashMap<String, String>>>(){}.getType();
+            Type tasksType = ApiJson.STRING_MAP_LIST;
 
             try {
                 task = this.gson.fromJson(taskJson, tasksType);
@@ -598,7 +747,7 @@ public class Scheduler extends AbstractCoreUnit {
 
             String taskJson = taskResponse.response;
 
-            Type tasksType = new TypeToken<ArrayList<HashMap<String, String>>>(){}.getType();
+            Type tasksType = ApiJson.STRING_MAP_LIST;
 
             try {
                 task = this.gson.fromJson(taskJson, tasksType);
@@ -699,6 +848,42 @@ public class Scheduler extends AbstractCoreUnit {
     }
 
 
+    /**
+     * Show upcoming task and mailer fires of next 24 hours
+     *
+     * @return DTOShellResponse
+     */
+    private DTOShellResponse schedule() {
+
+        DTOShellResponse response = new DTOShellResponse();
+
+        try {
+            long until = System.currentTimeMillis() + UPCOMING_PERIOD;
+            List<CronScheduler.Fire> fires = CronSingleton.getInstance().getUpcoming(until, UPCOMING_LIMIT);
+
+            DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+            StringBuilder message = new StringBuilder();
+
+            for (CronScheduler.Fire fire : fires) {
+                message.append(dateFormat.format(new Date(fire.time))).append("  ")
+                    .append(fire.name).append(" (").append(fire.pattern).append(")\n");
+            }
+
+            response.message = (fires.isEmpty()) ? "No scheduled tasks in next 24 hours" : message.toString().trim();
+            response.object  = fires;
+            response.success = true;
+            return response;
+        }
+        catch (Exception e) {
+            this.logSystemMessage("ERROR", "SCHEDULER STATUS", "Can't get upcoming schedule.");
+            response.message   = "Can't get upcoming schedule";
+            response.exception = e.getMessage();
+            return response;
+        }
+
+    }
+
+
     /**
      * Get setting from API
      *
@@ -760,7 +945,7 @@ public class Scheduler extends AbstractCoreUnit {
 
             String settingsJson = settingsResponse.response;
 
-            Type settingsType = new TypeToken<HashMap<String, String>>() {}.getType();
+            Type settingsType = ApiJson.STRING_MAP;
 
             try {
                 this.settings = this.gson.fromJson(settingsJson, settingsType);
@@ -785,13 +970,15 @@ public class Scheduler extends AbstractCoreUnit {
 
 
     /**
-     * Add tasks to schedule
+     * Get tasks from API
      *
+     * @return Map - schedule key => job
      * @throws Exception if a error occurs.
      */
-    private void createTaskSchedule() throws Exception {
+    private Map<String, ScheduledJob> getTaskJobs() throws Exception {
 
         ArrayList<Map<String, String>> tasks;
+        Map<String, ScheduledJob> jobs = new LinkedHashMap<>();
 
         /*
          * Getting tasks
@@ -821,7 +1008,7 @@ public class Scheduler extends AbstractCoreUnit {
 
         String tasksJson = tasksResponse.response;
 
-        Type tasksType = new TypeToken<ArrayList<HashMap<String, String>>>(){}.getType();
+        Type tasksType = ApiJson.STRING_MAP_LIST;
 
         try {
             tasks = this.gson.fromJson(tasksJson, tasksType);
@@ -834,7 +1021,6 @@ public class Scheduler extends AbstractCoreUnit {
         /*
          * Task list verification
          * Creating this.coordinates for every task
-         * Adding tasks to scheduler
          *
          * this.coordinates keys:
          * - scheduleId
@@ -884,6 +1070,14 @@ public class Scheduler extends AbstractCoreUnit {
                 continue;
             }
 
+            try {
+                CronPattern.parse(curScheduleCron);
+            }
+            catch (IllegalArgumentException e) {
+                this.logSystemMessage("ERROR", "SCHEDULER TASK INIT", "Can't add task " + curTaskName + ": malformed cron string.");
+                continue;
+            }
+
             /*
              * Creating coordinates for every task
              */
@@ -891,29 +1085,25 @@ public class Scheduler extends AbstractCoreUnit {
             currentCoordinates.putAll(currentTask);
             currentCoordinates.putAll(this.coordinates);
 
-            CronTask taskObject = new CronTask(this.settings, currentCoordinates);
-
-            try {
-                String taskScheduleId = CronSingleton.getInstance().scheduleJob(curScheduleCron, taskObject);
-                this.scheduleIds.add(taskScheduleId);
-            }
-            catch (Exception e) {
-                this.logSystemMessage("ERROR", "SCHEDULER TASK INIT", "Can't add task " + curTaskName + ": malformed cron string.");
-            }
+            CronTask taskObject = new CronTask(this.settings, currentCoordinates).setStartJitter(true);
 
+            jobs.put("task " + curScheduleId, new ScheduledJob(curTaskName, curScheduleCron, currentTask, this.settings, taskObject));
         }
 
+        return jobs;
     }
 
 
     /**
-     * Add mailer tasks to schedule
+     * Get mailer events from API
      *
+     * @return Map - schedule key => job
      * @throws Exception if a error occurs.
      */
-    private void createMailSchedule() throws Exception {
+    private Map<String, ScheduledJob> getMailJobs() throws Exception {
 
         ArrayList<Map<String, String>> events;
+        Map<String, ScheduledJob> jobs = new LinkedHashMap<>();
 
         /*
          * Getting mail tasks
@@ -941,7 +1131,7 @@ public class Scheduler extends AbstractCoreUnit {
 
         String eventsJson = eventsResponse.response;
 
-        Type eventsType = new TypeToken<ArrayList<HashMap<String, String>>>(){}.getType();
+        Type eventsType = ApiJson.STRING_MAP_LIST;
 
         try {
             events = this.gson.fromJson(eventsJson, eventsType);
@@ -970,6 +1160,14 @@ public class Scheduler extends AbstractCoreUnit {
                 continue;
             }
 
+            try {
+                CronPattern.parse(curEventScheduleCron);
+            }
+            catch (IllegalArgumentException e) {
+                this.logSystemMessage("ERROR", "SCHEDULER MAILER INIT", "Can't add event " + curEventName + ": malformed cron string.");
+                continue;
+            }
+
             /*
              * Creating coordinates for every event
              */
@@ -979,16 +1177,66 @@ public class Scheduler extends AbstractCoreUnit {
 
             CronMailer eventObject = new CronMailer(this.settings, currentEventCoordinates);
 
-            try {
-                String mailScheduleId = CronSingleton.getInstance().scheduleJob(curEventScheduleCron, eventObject);
-                this.scheduleIds.add(mailScheduleId);
-            }
-            catch (Exception e) {
-                this.logSystemMessage("ERROR", "SCHEDULER MAILER INIT", "Can't add event " + curEventName + ": malformed cron string.");
+            jobs.put("mail " + curEventScheduleId, new ScheduledJob("mail " + curEventName, curEventScheduleCron, currentEvent, this.settings, eventObject));
+        }
+
+        return jobs;
+    }
+
+
+    /**
+     * Bring schedules to received tasks and events, all changes are applied at once
+     * Unchanged schedules are kept, changed cron string is rescheduled, changed task or settings replace runnable
+     *
+     * @param jobs - schedule key => job
+     * @return int[] - added, changed, removed schedules count
+     */
+    private int[] applySchedules(Map<String, ScheduledJob> jobs) {
+
+        CronScheduler scheduler = CronSingleton.getInstance().getScheduler();
+        int[] changes = new int[3];
+
+        scheduler.batch(() -> {
+
+            Iterator<Map.Entry<String, ScheduledJob>> current = this.schedules.entrySet().iterator();
+
+            while (current.hasNext()) {
+                Map.Entry<String, ScheduledJob> schedule = current.next();
+                if (!jobs.containsKey(schedule.getKey())) {
+                    scheduler.deschedule(schedule.getValue().id);
+                    current.remove();
+                    changes[2]++;
+                }
             }
 
-        }
+            for (Map.Entry<String, ScheduledJob> job : jobs.entrySet()) {
+
+                ScheduledJob received = job.getValue();
+                ScheduledJob existing = this.schedules.get(job.getKey());
+
+                if (existing == null) {
+                    received.id = CronSingleton.getInstance().scheduleJob(received.pattern, received.task, received.name);
+                    changes[0]++;
+                }
+                else if (!received.isSameTask(existing)) {
+                    scheduler.reschedule(existing.id, received.pattern, received.task);
+                    received.id = existing.id;
+                    changes[1]++;
+                }
+                else if (!received.pattern.equals(existing.pattern)) {
+                    scheduler.reschedule(existing.id, received.pattern);
+                    received.id = existing.id;
+                    changes[1]++;
+                }
+                else {
+                    continue;
+                }
+
+                this.schedules.put(job.getKey(), received);
+            }
+        });
 
+        return changes;
     }
 
 
@@ -1002,12 +1250,12 @@ public class Scheduler extends AbstractCoreUnit {
         }
 
         /* Deschedule all tasks */
-        for (String ids : this.scheduleIds){
-            CronSingleton.getInstance().getScheduler().deschedule(ids);
+        for (ScheduledJob schedule : this.schedules.values()){
+            CronSingleton.getInstance().getScheduler().deschedule(schedule.id);
         }
 
-        /* Clear scheduleIds ArrayList */
-        this.scheduleIds.clear();
+        /* Clear schedules */
+        this.schedules.clear();
     }
 
 }
@@ -21,9 +21,17 @@ import api.ApiRequest;
 import api.ApiResponse;
 import api.ApiCaller;
 import api.ApiRequestMethods;
+import api.ApiJson;
 import abstractions.AbstractCoreUnit;
+import abstractions.AbstractWorker;
+import abstractions.ContextMap;
+import abstractions.DTONode;
 import abstractions.DTOVariableConvertResult;
+import abstractions.ExecutionPlans;
+import snmp.SnmpSingleton;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
@@ -33,20 +41,23 @@ import java.util.*;
  */
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 
 /*
  * Threads executor
  */
 import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-/*
- * Networks
- */
-import org.apache.commons.net.util.SubnetUtils;
 
 
 /**
@@ -58,12 +69,56 @@ public class Task extends AbstractCoreUnit implements Runnable
 
     private int threadCount = 10;
 
+    // Max discovery workers started but not finished
+    private static final int DEFAULT_DISCOVERY_CONCURRENCY = 512;
+
+    // Max liveness probes in flight
+    private static final int DEFAULT_PREFILTER_CONCURRENCY = 1024;
+
+    // Hours between full discovery rescans in incremental mode
+    private static final int DEFAULT_FULL_RESCAN_INTERVAL = 24;
+
+    // Max node workers waiting in executor queue
+    private static final int DEFAULT_NODE_QUEUE_SIZE = 10000;
+
+    // Nodes per page of task node list
+    private static final int DEFAULT_NODE_PAGE_SIZE = 1000;
+
     // Worker's success-fail counters for output
     private int success = 0;
     private int failed  = 0;
 
-    private Gson gson = new Gson();
-    private Map<String, Map<String, String>> nodes;
+    // Nodes received by node task, node workers finished
+    private volatile int nodeCount = 0;
+    private final AtomicInteger finishedCount = new AtomicInteger();
+
+    // Run state for overlap handling, see cancel() and getProgress()
+    private volatile long startedAt = 0;
+    private volatile boolean cancelled = false;
+    private Thread runThread;
+    private volatile ExecutorService executor;
+
+    // Node count of last run by task name, expected node count of spread mode
+    private static final Map<String, Integer> lastNodeCount = new ConcurrentHashMap<>();
+
+    // Node workers are started evenly over spread window, 0 - all at once
+    private long spreadWindow   = 0;
+    private long spreadStart    = 0;
+    private int  spreadExpected = 0;
+
+    // Scheduled run is delayed by start jitter of task
+    private boolean startJitter = false;
+
+    private final Gson gson = ApiJson.GSON;
+
+    /*
+     * Page of task node list
+     */
+    private static final class NodePage {
+        Map<String, DTONode> nodes;
+        String next;
+        Integer total;
+    }
 
     private Map<String, DTOVariableConvertResult> variables = new HashMap<>();
 
@@ -81,9 +136,133 @@ public class Task extends AbstractCoreUnit implements Runnable
     }
 
 
+    /**
+     * Delay scheduled run by start jitter of task, see getStartJitter()
+     *
+     * @param startJitter - true for scheduled runs
+     * @return Task
+     */
+    Task setStartJitter(boolean startJitter) {
+        this.startJitter = startJitter;
+        return this;
+    }
+
+
+    /**
+     * Deterministic start delay of task within jitter window
+     * Same task always starts with same offset, tasks of same cron string are spread over window
+     *
+     * @param taskName - task name
+     * @param window   - jitter window in milliseconds
+     * @return long    - delay in milliseconds, 0 if window is empty
+     */
+    static long getStartJitter(String taskName, long window) {
+
+        if (window <= 0 || taskName == null) {
+            return 0;
+        }
+
+        // String.hashCode() is stable between runs, mixed to spread similar names
+        long hash = taskName.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= (hash >>> 32);
+
+        return Math.floorMod(hash, window);
+    }
+
+
+    /**
+     * Cancel run, workers not yet started are dropped, running workers are interrupted
+     */
+    synchronized void cancel() {
+
+        this.cancelled = true;
+
+        if (this.runThread != null) {
+            this.runThread.interrupt();
+        }
+
+        ExecutorService currentExecutor = this.executor;
+        if (currentExecutor != null) {
+            currentExecutor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * @return String - progress of current run for log
+     */
+    String getProgress() {
+
+        if (this.startedAt == 0) {
+            return "waiting for start.";
+        }
+
+        long runningFor = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - this.startedAt);
+
+        return "running for " + runningFor + " s. Nodes: " + this.nodeCount + ". Finished: " + this.finishedCount.get() + ".";
+    }
+
+
     @Override
     public void run() {
 
+        synchronized (this) {
+            if (this.cancelled) {
+                return;
+            }
+            this.runThread = Thread.currentThread();
+        }
+
+        try {
+            this.runTask();
+        }
+        finally {
+            synchronized (this) {
+                this.runThread = null;
+            }
+            // cancel interrupt is not passed to next run of thread
+            if (this.cancelled) {
+                Thread.interrupted();
+            }
+        }
+    }
+
+
+    /**
+     * Task execution
+     */
+    private void runTask() {
+
+        /*
+         * Start jitter, tasks of same schedule don't hit devices and core at same instant
+         */
+        if (this.startJitter) {
+
+            long jitterWindow = 0;
+
+            try {
+                if(this.settings.get("taskJitter") != null) {
+                    jitterWindow = TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(this.settings.get("taskJitter"))));
+                }
+            } catch (NumberFormatException e) {
+                this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read task jitter from settings.", e);
+            }
+
+            long jitter = getStartJitter(this.coordinates.get("taskName"), jitterWindow);
+
+            if (jitter > 0) {
+                try {
+                    Thread.sleep(jitter);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.logMessage("WARNING", "TASK START", "Task " + this.coordinates.get("taskName") + " was interrupted before start.");
+                    return;
+                }
+            }
+        }
+
+        this.startedAt = System.currentTimeMillis();
+
         /*
          * Task start log
          */
@@ -158,8 +337,7 @@ public class Task extends AbstractCoreUnit implements Runnable
 
             String systemTaskJson = systemTaskResponse.response;
 
-            Type settingsType = new TypeToken<Boolean>() {
-            }.getType();
+            Type settingsType = Boolean.class;
 
             try {
                 systemTaskSuccess = gson.fromJson(systemTaskJson, settingsType);
@@ -210,8 +388,7 @@ public class Task extends AbstractCoreUnit implements Runnable
 
         String networksJson = networksResponse.response;
 
-        Type networksType = new TypeToken<HashMap<String, HashMap<String, String>>>() {
-        }.getType();
+        Type networksType = ApiJson.STRING_MAP_MAP;
 
         try {
             networks = gson.fromJson(networksJson, networksType);
@@ -243,7 +420,7 @@ public class Task extends AbstractCoreUnit implements Runnable
 
         String exclusionsJson = exclusionsResponse.response;
 
-        Type exclusionsType = new TypeToken<ArrayList<String>>(){}.getType();
+        Type exclusionsType = ApiJson.STRING_LIST;
 
         try {
             exclusions = gson.fromJson(exclusionsJson, exclusionsType);
@@ -257,20 +434,118 @@ public class Task extends AbstractCoreUnit implements Runnable
          * Thread executor init
          */
         ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadCount); // number of threads
+        this.executor = executor;
 
         /*
-         * Futures for workers results return
+         * Workers are started lazily, only when one of running workers is finished
          */
-        List<Future<Boolean>> results = new ArrayList<>();
+        int discoveryConcurrency = DEFAULT_DISCOVERY_CONCURRENCY;
+
+        try {
+            if(this.settings.get("discoveryConcurrency") != null) {
+                discoveryConcurrency = Math.max(1, Integer.parseInt(this.settings.get("discoveryConcurrency")));
+            }
+        } catch (NumberFormatException e) {
+            this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read discovery concurrency from settings.", e);
+        }
+
+        /*
+         * Optional liveness pre-filter, only responsive hosts go to full discovery
+         */
+        LivenessProbe.Method prefilterMethod = null;
+        int prefilterTimeout     = LivenessProbe.DEFAULT_TIMEOUT;
+        int prefilterConcurrency = DEFAULT_PREFILTER_CONCURRENCY;
+        int[] prefilterPorts     = null;
+        SnmpSingleton snmp       = null;
 
-        // Adding discovery workers to executor
+        try {
+            prefilterMethod = LivenessProbe.parseMethod(this.settings.get("discoveryPrefilter"));
+
+            if(this.settings.get("discoveryPrefilterTimeout") != null) {
+                prefilterTimeout = Math.max(1, Integer.parseInt(this.settings.get("discoveryPrefilterTimeout")));
+            }
+            if(this.settings.get("discoveryPrefilterConcurrency") != null) {
+                prefilterConcurrency = Math.max(1, Integer.parseInt(this.settings.get("discoveryPrefilterConcurrency")));
+            }
+
+            String ports   = this.settings.get("discoveryPrefilterPorts");
+            prefilterPorts = LivenessProbe.parsePorts(ports == null || ports.length() == 0 ? LivenessProbe.DEFAULT_PORTS : ports);
+
+            if(prefilterMethod == LivenessProbe.Method.SNMP) {
+                snmp = SnmpSingleton.getInstance(this.settings);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            prefilterMethod = null;
+            this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read discovery pre-filter settings, pre-filter is disabled.", e);
+        }
+
+        final LivenessProbe.Method probeMethod = prefilterMethod;
+        final int probeTimeout                 = prefilterTimeout;
+        final int probeConcurrency             = prefilterConcurrency;
+        final int[] probePorts                 = prefilterPorts;
+        final SnmpSingleton probeSnmp          = snmp;
+
+        /*
+         * Incremental discovery, only new or changed hosts are sent to core
+         * All hosts are sent on full rescan, once per discoveryFullRescanInterval hours
+         */
+        DiscoveryFingerprints fingerprints = null;
+        boolean fullRescan = true;
+
+        if("incremental".equalsIgnoreCase(this.settings.get("discoveryMode"))) {
+
+            long fullRescanInterval = DEFAULT_FULL_RESCAN_INTERVAL;
+
+            try {
+                if(this.settings.get("discoveryFullRescanInterval") != null) {
+                    fullRescanInterval = Math.max(0, Long.parseLong(this.settings.get("discoveryFullRescanInterval")));
+                }
+            } catch (NumberFormatException e) {
+                this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read discovery full rescan interval from settings.", e);
+            }
+
+            fingerprints = DiscoveryFingerprints.getInstance();
+            fullRescan   = fingerprints.beginRun(this.coordinates.get("taskName"), TimeUnit.HOURS.toMillis(fullRescanInterval));
+        }
+
+        final DiscoveryFingerprints discoveryFingerprints = fingerprints;
+        final boolean discoveryFullRescan                 = fullRescan;
+
+        /*
+         * Results of all workers are sent in batches
+         */
+        int batchSize = DiscoveryResults.DEFAULT_BATCH_SIZE;
+
+        try {
+            if(this.settings.get("discoveryBatchSize") != null) {
+                batchSize = Math.min(1000, Math.max(1, Integer.parseInt(this.settings.get("discoveryBatchSize"))));
+            }
+        } catch (NumberFormatException e) {
+            this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read discovery batch size from settings.", e);
+        }
+
+        DiscoveryResults discoveryResults = new DiscoveryResults(this.coordinates, this.settings, batchSize);
+
+        Semaphore running           = new Semaphore(discoveryConcurrency);
+        AtomicInteger successCount  = new AtomicInteger();
+        AtomicInteger failedCount   = new AtomicInteger();
+        AtomicBoolean interrupted   = new AtomicBoolean(false);
+
+        // Shared by all discovery workers, each worker keeps only own nodeIp
+        Map<String, String> taskCoordinates = ContextMap.freeze(this.coordinates);
+        Map<String, String> taskSettings    = ContextMap.freeze(this.settings);
+
+        // Starting asynchronous discovery workers
         // noinspection Java8MapForEach
         networks.entrySet().forEach(node -> {
 
+            if(interrupted.get()) {
+                return;
+            }
+
             Boolean dataValid = true;
 
-            String[] allIps = {};
-            List<String> allExclusions = new ArrayList<>();
+            Ipv4Range range = null;
 
             String snmpRead  = node.getValue().get("snmp_read");
             String version   = node.getValue().get("snmp_version");
@@ -280,7 +555,8 @@ public class Task extends AbstractCoreUnit implements Runnable
             Integer snmpVer  = 1;
             Integer snmpPort = 161;
 
-            if(snmpRead == null || snmpRead.length() == 0) {
+            // SNMPv3 networks use USM user instead of community
+            if(!"2".equals(version) && (snmpRead == null || snmpRead.length() == 0)) {
                 dataValid = false;
                 String unknownTaskMessage = "Task " + this.coordinates.get("taskName") + ". Network " + node.getKey() +
                         ": empty SNMP read community.";
@@ -329,24 +605,20 @@ public class Task extends AbstractCoreUnit implements Runnable
              */
             if(dataValid) {
                 try {
-                    SubnetUtils subnet = new SubnetUtils(node.getKey());
+                    range = new Ipv4Range(node.getKey());
 
                     /*
-                     * If exclusions ip is in subnet range, add it to exclusuins list
+                     * If exclusions ip is in subnet range, exclude it
                      */
                     for (String exclusionIp : exclusions) {
                         try {
-                            if (subnet.getInfo().isInRange(exclusionIp)) {
-                                allExclusions.add(exclusionIp);
-                            }
+                            range.exclude(exclusionIp);
                         } catch(IllegalArgumentException e){
                             dataValid = false;
                             String validateExclusionsMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": wrong exclusion ip " + exclusionIp;
                             this.logException("WARNING", "TASK EXECUTE", validateExclusionsMessage, e);
                         }
                     }
-
-                    allIps = subnet.getInfo().getAllAddresses();
                 } catch (Exception e) {
                     dataValid = false;
                     String extractIpsMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't extract IPs from subnet.";
@@ -354,49 +626,153 @@ public class Task extends AbstractCoreUnit implements Runnable
                 }
             }
 
-            if(dataValid) {
-                for (String ip : allIps) {
-                    if(!allExclusions.contains(ip)) {
-                        Map<String, String> currentCoord = new HashMap<>();
-                        currentCoord.putAll(this.coordinates);
-                        currentCoord.put("nodeIp", ip);
-                        results.add(executor.submit(new WorkerDiscovery(currentCoord, this.settings, networkId, snmpVer, snmpRead, snmpPort)));
-                    }
+            /*
+             * Sweep subnet with lightweight probe, non-responsive hosts are excluded from range
+             */
+            if(dataValid && probeMethod != null) {
+
+                LivenessProbe probe = new LivenessProbe(probeMethod, probeTimeout, probePorts, executor)
+                    .setNetwork(probeSnmp, snmpVer, snmpRead, snmpPort, node.getValue());
+
+                int offline = this.sweep(range, probe, probeConcurrency);
+
+                if(offline < 0) {
+                    interrupted.set(true);
+                    return;
                 }
+
+                failedCount.addAndGet(offline);
+
+                String sweepMessage = "Task " + this.coordinates.get("taskName") + ". Network " + node.getKey() +
+                        ": " + range.size() + " hosts responded to " + probeMethod.name() + " liveness probe, " + offline + " offline.";
+                this.logMessage("INFO", "TASK EXECUTE", sweepMessage);
             }
-        });
 
-        for (Future<Boolean> result : results) {
+            if(dataValid) {
+                PrimitiveIterator.OfInt ips = range.iterator();
 
-            Boolean currentResult;
+                while (ips.hasNext()) {
 
-            try {
-                currentResult = result.get();
+                    try {
+                        running.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        interrupted.set(true);
+                        return;
+                    }
 
-                if (currentResult) {
-                    this.success++;
-                } else {
-                    this.failed++;
+                    Map<String, String> currentCoord = ContextMap.over(taskCoordinates);
+                    currentCoord.put("nodeIp", Ipv4Range.toString(ips.nextInt()));
+
+                    // GET requests are in flight without holding executor threads, walk and POST run on executor
+                    new WorkerDiscovery(currentCoord, taskSettings, networkId, snmpVer, snmpRead, snmpPort, node.getValue())
+                        .setIncremental(discoveryFingerprints, discoveryFullRescan)
+                        .setResults(discoveryResults)
+                        .callAsync(executor)
+                        .whenComplete((currentResult, e) -> {
+                            if (currentResult != null && currentResult) {
+                                successCount.incrementAndGet();
+                            } else {
+                                failedCount.incrementAndGet();
+                            }
+                            running.release();
+                        });
                 }
+            }
+        });
 
-            } catch (Exception e) {
-                this.logException("ERROR", "TASK GET WORKER RESPONSE", "Task " + this.coordinates.get("taskName") + " was interrupted while waiting for discovery worker result.", e);
+        /*
+         * Waiting for all running workers
+         */
+        try {
+            if(interrupted.get()) {
+                throw new InterruptedException("discovery workers start interrupted");
+            }
+            running.acquire(discoveryConcurrency);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            if (this.cancelled) {
+                String cancelMessage = "Task " + this.coordinates.get("taskName") + " has been cancelled. " +
+                        "Finished addresses: " + (successCount.get() + failedCount.get()) + ". Success: " + successCount.get() + ". Failed or offline: " + failedCount.get() + ".";
+                this.logMessage("WARNING", "TASK FINISH", cancelMessage);
                 return;
             }
+            this.logException("ERROR", "TASK GET WORKER RESPONSE", "Task " + this.coordinates.get("taskName") + " was interrupted while waiting for discovery worker result.", e);
+            return;
         }
 
         executor.shutdown();
 
+        /*
+         * Sending rest of results, rows rejected by core are counted as failed
+         */
+        discoveryResults.flush();
+
+        this.success += successCount.get() - discoveryResults.getFailed();
+        this.failed  += failedCount.get() + discoveryResults.getFailed();
+
         /*
          * Task finish log
          */
         String finalMessage = "Task " + this.coordinates.get("taskName") + " has been finished. " +
-                " Success: " + this.success + ". Failed or offline: " + this.failed + ".";
+                " Success: " + this.success + ". Failed or offline: " + this.failed + "." +
+                " Results sent: " + discoveryResults.getSent() + " in " + discoveryResults.getRequests() + " requests.";
         this.logMessage("INFO", "TASK FINISH", finalMessage);
 
     }
 
 
+    /**
+     * Probe all addresses of range, non-responsive addresses are excluded from range
+     *
+     * @param range       - subnet addresses
+     * @param probe       - liveness probe
+     * @param concurrency - max probes in flight
+     * @return int - number of offline addresses, -1 if interrupted
+     */
+    private int sweep(Ipv4Range range, LivenessProbe probe, int concurrency) {
+
+        Semaphore probing           = new Semaphore(concurrency);
+        AtomicInteger offline       = new AtomicInteger();
+        PrimitiveIterator.OfInt ips = range.iterator();
+
+        try {
+            while (true) {
+
+                int ip;
+
+                // range is changed by probe callbacks
+                synchronized (range) {
+                    if (!ips.hasNext()) {
+                        break;
+                    }
+                    ip = ips.nextInt();
+                }
+
+                probing.acquire();
+
+                probe.probe(ip).whenComplete((alive, e) -> {
+                    if (alive != null && !alive) {
+                        synchronized (range) {
+                            range.exclude(ip);
+                        }
+                        offline.incrementAndGet();
+                    }
+                    probing.release();
+                });
+            }
+
+            probing.acquire(concurrency);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+
+        return offline.get();
+    }
+
+
     /*
      * ---------------------
      * Executing node tasks
@@ -427,7 +803,7 @@ public class Task extends AbstractCoreUnit implements Runnable
 
         String variablesJson = variablesResponse.response;
 
-        Type variablesType = new TypeToken<HashMap<String, String>>(){}.getType();
+        Type variablesType = ApiJson.STRING_MAP;
         Map<String, String> customVariables;
 
         try {
@@ -472,45 +848,186 @@ public class Task extends AbstractCoreUnit implements Runnable
             return;
         }
 
+        /*
+         * Thread executor init
+         */
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadCount); // number of threads
+        this.executor = executor;
+
+        /*
+         * Futures for workers results return
+         */
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        /*
+         * Task context shared by all workers, each worker keeps only own node coordinates
+         */
+        Map<String, String> taskCoordinates                 = ContextMap.freeze(this.coordinates);
+        Map<String, String> taskSettings                    = ContextMap.freeze(this.settings);
+        Map<String, DTOVariableConvertResult> taskVariables = ContextMap.freeze(this.variables);
+        ExecutionPlans taskPlans                            = new ExecutionPlans();
+
+        /*
+         * Workers waiting in executor queue are limited, node list is read further when workers are finished
+         */
+        int queueSize = DEFAULT_NODE_QUEUE_SIZE;
+
+        try {
+            if(this.settings.get("nodeQueueSize") != null) {
+                queueSize = Math.max(1, Integer.parseInt(this.settings.get("nodeQueueSize")));
+            }
+        } catch (NumberFormatException e) {
+            this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read node queue size from settings.", e);
+        }
+
+        Semaphore queued = new Semaphore(threadCount + queueSize);
+
+        /*
+         * Spread mode, node workers are started at even rate to finish starting within window
+         * Expected node count is taken from core or from last run of task
+         */
+        try {
+            if(this.settings.get("nodeSpreadWindow") != null) {
+                this.spreadWindow = TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(this.settings.get("nodeSpreadWindow"))));
+            }
+        } catch (NumberFormatException e) {
+            this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read node spread window from settings.", e);
+        }
+
+        if (runOnNode != null) {
+            this.spreadWindow = 0;
+        }
+
+        this.spreadStart    = System.currentTimeMillis();
+        this.spreadExpected = lastNodeCount.getOrDefault(this.coordinates.get("taskName"), 0);
+
+        // Add Workers to Executor, called for each node as soon as it is parsed
+        ApiJson.EntryConsumer<DTONode> spawn = (nodeId, node) -> {
+
+            this.nodeCount++;
+
+            String nodeIp = node.ip;
+            if (nodeIp == null || nodeIp.isEmpty()) {
+                String emptyIpMessage = "Task " + this.coordinates.get("taskName") + ", node " + nodeId + ": IP address is empty or null.";
+                this.logMessage("ERROR", "WORKER SPAWN", emptyIpMessage);
+                return; // Skip this node
+            }
+
+            Map<String, String> currentCoord = ContextMap.over(taskCoordinates);
+            currentCoord.put("nodeId", nodeId);
+            currentCoord.put("workerId", node.id);
+            currentCoord.put("nodeIp", nodeIp);
+
+            currentCoord.put("nodeVendor", node.vendor);
+            currentCoord.put("nodeModel", node.model);
+
+            long startAt = this.getSpreadStart(this.nodeCount - 1);
+
+            AbstractWorker worker;
+
+            switch (node.get) {
+                case "snmp":
+                    worker = new WorkerSnmp(currentCoord, taskSettings, taskVariables);
+                    break;
+                case "telnet":
+                    worker = new WorkerTelnet(currentCoord, taskSettings, taskVariables).setPlans(taskPlans);
+                    break;
+                case "ssh":
+                    worker = new WorkerSsh(currentCoord, taskSettings, taskVariables).setPlans(taskPlans);
+                    break;
+                default:
+                    String unknownProtocol = "Task " + this.coordinates.get("taskName") + " has unknown protocol " + node.get +
+                            ". Node id: " + nodeId;
+                    this.logMessage("ERROR", "WORKER SPAWN", unknownProtocol);
+                    return;
+            }
+
+            try {
+                queued.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("node workers start interrupted");
+            }
+
+            if (this.cancelled) {
+                queued.release();
+                throw new InterruptedIOException("task cancelled");
+            }
+
+            try {
+                results.add(executor.submit(() -> {
+                    try {
+                        // workers are queued in start order, only next ones wait
+                        long wait = startAt - System.currentTimeMillis();
+                        if (wait > 0) {
+                            Thread.sleep(wait);
+                        }
+                        return worker.call();
+                    } finally {
+                        this.finishedCount.incrementAndGet();
+                        queued.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // executor is stopped by cancel
+                queued.release();
+                throw new InterruptedIOException("task cancelled");
+            }
+        };
+
         /*
          * Run node task on nodes scope
          */
         if(runOnNode == null) {
 
             /*
-             * Get nodes with workers by task
+             * Get nodes with workers by task pages, page size 0 - whole list in one request
              */
-            Map<String, String> params = new HashMap<>();
-            params.put("schedule_id", this.coordinates.get("scheduleId"));
-            params.put("task_name", this.coordinates.get("taskName"));
+            int pageSize = DEFAULT_NODE_PAGE_SIZE;
 
-            ApiRequest request = new ApiRequest(this.coordinates)
-                    .setRequestMethod(ApiRequestMethods.GET)
-                    .setApiMethod("v1/core/get-nodes-workers-by-task")
-                    .setParams(params);
+            try {
+                if(this.settings.get("nodePageSize") != null) {
+                    pageSize = Math.max(0, Integer.parseInt(this.settings.get("nodePageSize")));
+                }
+            } catch (NumberFormatException e) {
+                this.logException("WARNING", "TASK INIT", "Task " + this.coordinates.get("taskName") + " can't read node page size from settings.", e);
+            }
+
+            Boolean nodesReceived = (pageSize > 0) ? this.getNodePages(pageSize, spawn) : null;
 
-            ApiResponse nodesResponse = ApiCaller.request(request);
+            // Paging is disabled or not supported by core
+            if (nodesReceived == null) {
 
-            if (!nodesResponse.success) {
                 /*
-                 * Log record
-                 * Can't get node list
+                 * Get nodes with workers by task
+                 * Nodes are streamed, workers are started while node list is received
                  */
-                this.logBadResponse("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't get node list from API.", nodesResponse);
-                return;
-            }
+                Map<String, String> params = new HashMap<>();
+                params.put("schedule_id", this.coordinates.get("scheduleId"));
+                params.put("task_name", this.coordinates.get("taskName"));
 
-            String nodesJson = nodesResponse.response;
+                ApiRequest request = new ApiRequest(this.coordinates)
+                        .setRequestMethod(ApiRequestMethods.GET)
+                        .setApiMethod("v1/core/get-nodes-workers-by-task")
+                        .setParams(params)
+                        .setResponseReader(reader -> ApiJson.readEntries(reader, DTONode.class, spawn));
 
-            Type nodesType = new TypeToken<HashMap<String, HashMap<String, String>>>() {
-            }.getType();
+                ApiResponse nodesResponse = ApiCaller.request(request);
 
-            try {
+                if (!nodesResponse.success && !this.cancelled) {
+                    /*
+                     * Log record
+                     * Can't get or parse node list
+                     */
+                    this.logBadResponse("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't get node list from API.", nodesResponse);
+                }
 
-                this.nodes = gson.fromJson(nodesJson, nodesType);
+                nodesReceived = nodesResponse.success;
+            }
 
-            } catch (JsonSyntaxException e) {
-                this.logException("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't parse nodes list from json.", e);
+            // workers of already received nodes are finished
+            if (!nodesReceived && results.isEmpty()) {
+                executor.shutdown();
                 return;
             }
         }
@@ -537,69 +1054,30 @@ public class Task extends AbstractCoreUnit implements Runnable
                  * Can't get node list
                  */
                 this.logBadResponse("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't get node list from API.", nodeResponse);
+                executor.shutdown();
                 return;
             }
 
             String nodeJson = nodeResponse.response;
 
-            Type nodeType = new TypeToken<HashMap<String, HashMap<String, String>>>(){}.getType();
+            Type nodeType = ApiJson.NODE_MAP;
+            Map<String, DTONode> nodes;
 
             try {
 
-                this.nodes = gson.fromJson(nodeJson, nodeType);
+                nodes = gson.fromJson(nodeJson, nodeType);
+
+                for (Map.Entry<String, DTONode> node : nodes.entrySet()) {
+                    spawn.accept(node.getKey(), node.getValue());
+                }
 
-            } catch (JsonSyntaxException e) {
+            } catch (JsonSyntaxException | IOException e) {
                 this.logException("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't parse nodes list from json.", e);
+                executor.shutdown();
                 return;
             }
         }
 
-        /*
-         * Thread executor init
-         */
-        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadCount); // number of threads
-
-        /*
-         * Futures for workers results return
-         */
-        List<Future<Boolean>> results = new ArrayList<>();
-
-        // Add Workers to Executor
-        // noinspection Java8MapForEach
-        this.nodes.entrySet().forEach(node -> {
-            String nodeIp = node.getValue().get("ip");
-            if (nodeIp == null || nodeIp.isEmpty()) {
-                String emptyIpMessage = "Task " + this.coordinates.get("taskName") + ", node " + node.getKey() + ": IP address is empty or null.";
-                this.logMessage("ERROR", "WORKER SPAWN", emptyIpMessage);
-                return; // Skip this node
-            }
-
-            Map<String, String> currentCoord = new HashMap<>();
-            currentCoord.putAll(this.coordinates);
-            currentCoord.put("nodeId", node.getKey());
-            currentCoord.put("workerId", node.getValue().get("id"));
-            currentCoord.put("nodeIp", nodeIp);
-
-            currentCoord.put("nodeVendor", node.getValue().get("vendor"));
-            currentCoord.put("nodeModel", node.getValue().get("model"));
-
-            switch (node.getValue().get("get")) {
-                case "snmp":
-                    results.add(executor.submit(new WorkerSnmp(currentCoord, this.settings, this.variables)));
-                    break;
-                case "telnet":
-                    results.add(executor.submit(new WorkerTelnet(currentCoord, this.settings, this.variables)));
-                    break;
-                case "ssh":
-                    results.add(executor.submit(new WorkerSsh(currentCoord, this.settings, this.variables)));
-                    break;
-                default:
-                    String unknownProtocol = "Task " + this.coordinates.get("taskName") + " has unknown protocol " + node.getValue().get("get") +
-                            ". Node id: " + node.getKey();
-                    this.logMessage("ERROR", "WORKER SPAWN", unknownProtocol);
-            }
-        });
-
         for (Future<Boolean> result : results) {
 
             Boolean currentResult;
@@ -614,6 +1092,9 @@ public class Task extends AbstractCoreUnit implements Runnable
                 }
 
             } catch (Exception e) {
+                if (this.cancelled) {
+                    break;
+                }
                 this.logException("ERROR", "TASK GET WORKER RESPONSE", "Task " + this.coordinates.get("taskName") + " was interrupted while waiting for worker result.", e);
                 return;
             }
@@ -621,16 +1102,146 @@ public class Task extends AbstractCoreUnit implements Runnable
 
         executor.shutdown();
 
+        if (this.cancelled) {
+            String cancelMessage = "Task " + this.coordinates.get("taskName") + " has been cancelled. " +
+                    "Nodes: " + this.nodeCount + ". Finished: " + this.finishedCount.get() + ". Success: " + this.success + ". Failed: " + this.failed + ".";
+            this.logMessage("WARNING", "TASK FINISH", cancelMessage);
+            return;
+        }
+
+        if (runOnNode == null) {
+            lastNodeCount.put(this.coordinates.get("taskName"), this.nodeCount);
+        }
+
         /*
          * Task finish log
          */
         String finalMessage = "Task " + this.coordinates.get("taskName") + " has been finished. " +
-                "Nodes: " + this.nodes.size() + ". Success: " + this.success + ". Failed: " + this.failed + ".";
+                "Nodes: " + this.nodeCount + ". Success: " + this.success + ". Failed: " + this.failed + ".";
         this.logMessage("INFO", "TASK FINISH", finalMessage);
 
     }
 
 
+    /**
+     * Start time of node worker in spread mode
+     * Nodes beyond expected count are started without delay
+     *
+     * @param index - node index in node list
+     * @return long - start time in milliseconds, 0 - start at once
+     */
+    private long getSpreadStart(int index) {
+
+        if (this.spreadWindow <= 0 || this.spreadExpected <= 0 || index >= this.spreadExpected) {
+            return 0;
+        }
+
+        return this.spreadStart + this.spreadWindow * index / this.spreadExpected;
+    }
+
+
+    /**
+     * Get task nodes by pages and start workers
+     * Next page is requested while workers of current page are started
+     *
+     * @param pageSize - nodes per page
+     * @param spawn    - node worker starter
+     * @return Boolean - true if all pages are received, false on error, null if core has no paged node list
+     */
+    private Boolean getNodePages(int pageSize, ApiJson.EntryConsumer<DTONode> spawn) {
+
+        ExecutorService pageFetcher = Executors.newSingleThreadExecutor();
+
+        try {
+            CompletableFuture<ApiResponse> pending = CompletableFuture.supplyAsync(() -> this.getNodePage("0", pageSize), pageFetcher);
+            boolean firstPage = true;
+
+            while (pending != null) {
+
+                ApiResponse pageResponse = pending.join();
+                pending = null;
+
+                if (firstPage && pageResponse.responseCode == 404) {
+                    return null;
+                }
+
+                if (!pageResponse.success) {
+                    /*
+                     * Log record
+                     * Can't get node list page
+                     */
+                    this.logBadResponse("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't get node list page from API.", pageResponse);
+                    return false;
+                }
+
+                NodePage page;
+
+                try {
+                    page = gson.fromJson(pageResponse.response, NodePage.class);
+                } catch (JsonSyntaxException e) {
+                    this.logException("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " can't parse node list page from json.", e);
+                    return false;
+                }
+
+                if (page == null) {
+                    this.logMessage("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " received empty node list page.");
+                    return false;
+                }
+
+                // node count of task is sent with first page
+                if (firstPage && page.total != null) {
+                    this.spreadExpected = page.total;
+                }
+
+                firstPage = false;
+
+                if (page.next != null) {
+                    String after = page.next;
+                    pending      = CompletableFuture.supplyAsync(() -> this.getNodePage(after, pageSize), pageFetcher);
+                }
+
+                if (page.nodes != null) {
+                    for (Map.Entry<String, DTONode> node : page.nodes.entrySet()) {
+                        spawn.accept(node.getKey(), node.getValue());
+                    }
+                }
+            }
+
+            return true;
+
+        } catch (IOException e) {
+            if (!this.cancelled) {
+                this.logException("ERROR", "TASK GET NODES", "Task " + this.coordinates.get("taskName") + " was interrupted while starting node workers.", e);
+            }
+            return false;
+        } finally {
+            pageFetcher.shutdown();
+        }
+    }
+
+
+    /**
+     * @param after    - last node id of previous page
+     * @param pageSize - nodes per page
+     * @return ApiResponse
+     */
+    private ApiResponse getNodePage(String after, int pageSize) {
+
+        Map<String, String> params = new HashMap<>();
+        params.put("schedule_id", this.coordinates.get("scheduleId"));
+        params.put("task_name", this.coordinates.get("taskName"));
+        params.put("after", after);
+        params.put("limit", String.valueOf(pageSize));
+
+        ApiRequest pageRequest = new ApiRequest(this.coordinates)
+                .setRequestMethod(ApiRequestMethods.GET)
+                .setApiMethod("v1/core/get-nodes-workers-page")
+                .setParams(params);
+
+        return ApiCaller.request(pageRequest);
+    }
+
+
     /**
      * Executing yii command task
      */
@@ -26,25 +26,26 @@ import api.ApiCaller;
 import api.ApiRequest;
 import api.ApiRequestMethods;
 import api.ApiResponse;
+import api.ApiJson;
 import org.snmp4j.CommunityTarget;
 import org.snmp4j.PDU;
-import org.snmp4j.Snmp;
+import org.snmp4j.Target;
 import org.snmp4j.event.ResponseEvent;
 import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.smi.*;
-import org.snmp4j.transport.DefaultUdpTransportMapping;
-import org.snmp4j.util.DefaultPDUFactory;
-import org.snmp4j.util.TreeEvent;
-import org.snmp4j.util.TreeUtils;
+import snmp.SnmpSingleton;
+import snmp.CallerRunsExecutor;
+import snmp.SnmpWalker;
 
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /*
  * gson
  */
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 
 
@@ -54,7 +55,7 @@ import java.lang.reflect.Type;
 public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolean>
 {
 
-    private Gson gson = new Gson();
+    private final Gson gson = ApiJson.GSON;
 
     private Integer snmpVer;
     private Integer snmpPort;
@@ -62,16 +63,28 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
 
     private Integer snmpRetries;
     private Integer snmpTimeout;
+    private Integer snmpMaxRepetitions = SnmpWalker.DEFAULT_MAX_REPETITIONS;
 
     private String networkId;
+    private Map<String, String> credentials;
     private Boolean allResponsesEmpty = true;
 
+    /*
+     * Incremental discovery, null if results are always sent
+     */
+    private DiscoveryFingerprints fingerprints = null;
+    private Boolean fullRescan = true;
+
+    /*
+     * Task results aggregator, null if result is sent by worker
+     */
+    private DiscoveryResults results = null;
+
     /*
      * SNMP objects
      */
-    private Snmp snmp;
-    private CommunityTarget<Address> target;
-    private PDU requestPDU;
+    private SnmpSingleton snmp;
+    private Target<Address> target;
 
     private static final Map<String, String> discoveryOids = createMap();
 
@@ -121,11 +134,12 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
      *
      * @param coordinates  - schedule, task, node, etc..
      * @param settings     - app settings
+     * @param credentials  - network credentials, snmp_v3_* keys are used for SNMPv3
      */
-    WorkerDiscovery(Map<String, String> coordinates, Map<String, String> settings, String networkId, Integer snmpVer, String snmpRead, Integer snmpPort)
+    WorkerDiscovery(Map<String, String> coordinates, Map<String, String> settings, String networkId, Integer snmpVer, String snmpRead, Integer snmpPort, Map<String, String> credentials)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
+        this.setContext(coordinates, settings);
+        this.credentials = credentials;
 
         this.snmpVer   = snmpVer;
         this.snmpPort  = snmpPort;
@@ -134,27 +148,86 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
     }
 
 
+    /**
+     * Send result only if host is new or changed since last sent result
+     *
+     * @param fingerprints - fingerprints of sent results
+     * @param fullRescan   - send result anyway, fingerprint is refreshed
+     * @return WorkerDiscovery
+     */
+    WorkerDiscovery setIncremental(DiscoveryFingerprints fingerprints, Boolean fullRescan)
+    {
+        this.fingerprints = fingerprints;
+        this.fullRescan   = fullRescan;
+        return this;
+    }
+
+
+    /**
+     * Queue result to task aggregator instead of sending it
+     *
+     * @param results - task discovery results
+     * @return WorkerDiscovery
+     */
+    WorkerDiscovery setResults(DiscoveryResults results)
+    {
+        this.results = results;
+        return this;
+    }
+
+
     /**
      * Main worker thread-callable method
+     * Blocking stages are run by calling thread
      *
      * @return Boolean - returns true|false for Discovery stats
      */
     public Boolean call()
     {
-        // parse snmpRetries, snmpTimeout
-        if(!this.extractSettings()) {
+        CallerRunsExecutor executor = new CallerRunsExecutor();
+
+        try {
+            return executor.join(this.callAsync(executor));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
         }
+    }
 
-        // executing
-        if(!this.getDiscovery()) {
-            this.closeSnmp();
-            return false;
+
+    /**
+     * Asynchronous discovery
+     * GET and walk requests are sent via shared SNMP session without holding a thread while waiting for response,
+     * responses and result POST are processed by executor
+     *
+     * @param executor - executor for blocking stages
+     * @return CompletableFuture - completed with true|false for Discovery stats
+     */
+    public CompletableFuture<Boolean> callAsync(Executor executor)
+    {
+        // parse snmpRetries, snmpTimeout
+        if(!this.extractSettings()) {
+            return CompletableFuture.completedFuture(false);
         }
 
-        // success
-        this.closeSnmp();
-        return true;
+        // SNMPv3 engine discovery blocks, done by executor
+        CompletableFuture<Boolean> init = this.snmpVer == 2
+            ? CompletableFuture.supplyAsync(this::initTarget, executor)
+            : CompletableFuture.completedFuture(this.initTarget());
+
+        // executing
+        return init
+            .thenCompose(initSuccess -> initSuccess ? this.sendProbe(executor) : CompletableFuture.completedFuture(false))
+            .thenCompose(success -> success && this.prepareDiscovery() ? this.sendWalk(executor) : CompletableFuture.completedFuture(false))
+            .thenApplyAsync(success -> {
+                boolean discovered = success && this.getDiscovery();
+                // offline or failed host is sent again when it comes back
+                if(!discovered && this.fingerprints != null) {
+                    this.fingerprints.forget(this.getFingerprintKey());
+                }
+                return discovered;
+            }, executor);
     }
 
 
@@ -221,17 +294,38 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
             }
         }
 
+        /*
+         * Rows per GETBULK response
+         */
+        String maxRepetitions = this.settings.get("snmpMaxRepetitions");
+
+        if(maxRepetitions != null && maxRepetitions.length() > 0) {
+            try {
+                this.snmpMaxRepetitions = Integer.parseInt(maxRepetitions);
+            }
+            catch(NumberFormatException e) {
+                String snmpMaxRepetitionsParseMessage = "Task " + this.coordinates.get("taskName") + ": can't parse SNMP max repetitions setting to integer.";
+                this.logException("ERROR", "DISCOVERY PARSE SETTINGS", snmpMaxRepetitionsParseMessage, e);
+                return false;
+            }
+
+            if(this.snmpMaxRepetitions < 1 || this.snmpMaxRepetitions > 100) {
+                String snmpMaxRepetitionsFailMessage = "Task " + this.coordinates.get("taskName") + ": SNMP max repetitions must be between 1 and 100.";
+                this.logMessage("ERROR", "DISCOVERY PARSE SETTINGS", snmpMaxRepetitionsFailMessage);
+                return false;
+            }
+        }
+
         return true;
     }
 
 
     /**
      * SNMP4J init
-     * Send all snmp requests
      *
-     * @return perform jobs success
+     * @return target init success
      */
-    private Boolean getDiscovery() {
+    private Boolean initTarget() {
 
         /*
          * SNMP object init
@@ -245,27 +339,25 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
                 return false;
             }
 
-            this.snmp = new Snmp(new DefaultUdpTransportMapping());
-            this.snmp.listen();
+            // shared session, not closed by worker
+            this.snmp = SnmpSingleton.getInstance(this.settings);
 
             Address address = new UdpAddress(nodeIp + "/" + this.snmpPort.toString());
 
-            this.target = new CommunityTarget<>();
-            this.target.setAddress(address);
-            this.target.setTimeout(this.snmpTimeout);
-            this.target.setRetries(this.snmpRetries);
-            this.target.setCommunity(new OctetString(this.snmpRead));
-
-            this.requestPDU = new PDU();
-            this.requestPDU.setType(PDU.GET);
             switch (this.snmpVer) {
                 case 0:
-                    target.setVersion(SnmpConstants.version1);
+                    this.target = this.createCommunityTarget(address, SnmpConstants.version1);
                     break;
                 case 1:
-                    target.setVersion(SnmpConstants.version2c);
+                    this.target = this.createCommunityTarget(address, SnmpConstants.version2c);
+                    break;
+                case 2:
+                    // null on engine discovery timeout, node offline
+                    this.target = this.snmp.createUserTarget(address, this.credentials, this.snmpTimeout, this.snmpRetries);
+                    if (this.target == null) {
+                        return false;
+                    }
                     break;
-                // ver 3 is not supported yet
                 default:
                     String credentialsMessage = "Task " + this.coordinates.get("taskName") + ": wrong SNMP version.";
                     this.logMessage("ERROR", "DISCOVERY", credentialsMessage);
@@ -278,35 +370,142 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
             return false;
         }
 
+        return true;
+    }
+
+
+    /**
+     * SNMPv1/v2c target
+     *
+     * @param address - agent address
+     * @param version - SNMP version
+     * @return CommunityTarget
+     */
+    private CommunityTarget<Address> createCommunityTarget(Address address, Integer version) {
+
+        CommunityTarget<Address> communityTarget = new CommunityTarget<>();
+        communityTarget.setAddress(address);
+        communityTarget.setTimeout(this.snmpTimeout);
+        communityTarget.setRetries(this.snmpRetries);
+        communityTarget.setCommunity(new OctetString(this.snmpRead));
+        communityTarget.setVersion(version);
+
+        return communityTarget;
+    }
+
+
+    /**
+     * Send all discovery OIDs in one GET request
+     * Dead node costs single timeout, remaining OIDs are not requested.
+     * If agent can't answer whole PDU (tooBig, v1 noSuchName) OIDs are requested one by one.
+     *
+     * @param executor - executor for fallback requests
+     * @return CompletableFuture - probe success
+     */
+    private CompletableFuture<Boolean> sendProbe(Executor executor) {
+
         /*
          * Add GET-oids to PDU
          */
-        for(Map.Entry<String, String> entry : discoveryOids.entrySet()) {
-
-            String currentOID = entry.getKey();
+        PDU requestPDU = SnmpSingleton.createPdu(this.target);
+        requestPDU.setType(PDU.GET);
 
-            try {
-                OID oid = new OID(currentOID);
-                this.requestPDU.add(new VariableBinding(oid));
-            }
-            catch (Exception e) {
-                String addGetToPduMessage = "Task " + this.coordinates.get("taskName") +
-                        ": can't add SNMP OID to PDU. Please check discovery SNMP OIDs.";
-                this.logException("ERROR", "DISCOVERY", addGetToPduMessage, e);
-                return false;
+        try {
+            for(String oid : discoveryOids.keySet()) {
+                requestPDU.add(new VariableBinding(new OID(oid)));
             }
+        }
+        catch (Exception e) {
+            String addGetToPduMessage = "Task " + this.coordinates.get("taskName") +
+                    ": can't add SNMP OID to PDU. Please check discovery SNMP OIDs.";
+            this.logException("ERROR", "DISCOVERY", addGetToPduMessage, e);
+            return CompletableFuture.completedFuture(false);
+        }
 
-            /*
-             * Discovery GET request
-             */
-            if(!this.sendRequest()) {
-                return false;
-            }
+        /*
+         * Discovery GET request
+         */
+        return this.snmp.sendAsync(requestPDU, this.target)
+            .handle((responseEvent, e) -> {
+                if(e != null) {
+                    String snmpSendGetMessage = "Task " + this.coordinates.get("taskName") + ": can't send snmpget() request.";
+                    this.logException("WARNING", "DISCOVERY", snmpSendGetMessage, e instanceof Exception ? (Exception) e : new Exception(e));
+                }
+                return e == null ? responseEvent : null;
+            })
+            .thenComposeAsync(responseEvent -> {
+
+                // Agent timeout. Node offline or wrong community.
+                if(responseEvent == null || responseEvent.getResponse() == null) {
+                    if(this.snmpVer == 2) {
+                        this.snmp.forgetEngine(this.target.getAddress());
+                    }
+                    return CompletableFuture.completedFuture(false);
+                }
+
+                if(responseEvent.getResponse().getErrorStatus() != PDU.noError) {
+                    return this.sendRequests(discoveryOids.keySet().iterator(), executor);
+                }
 
-            this.requestPDU.clear();
+                return CompletableFuture.completedFuture(this.processResponse(responseEvent));
 
+            }, executor);
+    }
+
+
+    /**
+     * Send discovery GET requests one after another
+     * Fallback for agents which can't answer multi-OID probe
+     * Next request is sent from executor, never from SNMP dispatcher thread
+     *
+     * @param oids     - remaining discovery OIDs
+     * @param executor - executor for next request
+     * @return CompletableFuture - false on first failed request
+     */
+    private CompletableFuture<Boolean> sendRequests(Iterator<String> oids, Executor executor) {
+
+        if(!oids.hasNext()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        /*
+         * Add GET-oid to PDU
+         */
+        PDU requestPDU = SnmpSingleton.createPdu(this.target);
+        requestPDU.setType(PDU.GET);
+
+        try {
+            requestPDU.add(new VariableBinding(new OID(oids.next())));
         }
+        catch (Exception e) {
+            String addGetToPduMessage = "Task " + this.coordinates.get("taskName") +
+                    ": can't add SNMP OID to PDU. Please check discovery SNMP OIDs.";
+            this.logException("ERROR", "DISCOVERY", addGetToPduMessage, e);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        /*
+         * Discovery GET request
+         */
+        return this.snmp.sendAsync(requestPDU, this.target)
+            .handle((responseEvent, e) -> {
+                if(e != null) {
+                    String snmpSendGetMessage = "Task " + this.coordinates.get("taskName") + ": can't send snmpget() request.";
+                    this.logException("WARNING", "DISCOVERY", snmpSendGetMessage, e instanceof Exception ? (Exception) e : new Exception(e));
+                    return false;
+                }
+                return this.processResponse(responseEvent);
+            })
+            .thenComposeAsync(success -> success ? this.sendRequests(oids, executor) : CompletableFuture.completedFuture(false), executor);
+    }
+
 
+    /**
+     * Check collected GET responses before ip interfaces walk
+     *
+     * @return Boolean - host answered and walk OID is valid
+     */
+    private Boolean prepareDiscovery() {
 
         /*
          * No NULL's in result
@@ -331,12 +530,6 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
         }
 
 
-        /*
-         * Clearing PDU before IP interface walk
-         */
-        this.requestPDU.clear();
-
-
         /*
          * Adding ipAdEntAddr OID to PDU
          */
@@ -350,16 +543,55 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
             return false;
         }
 
-        /*
-         * Get all ip interfaces from walk
-         */
-        this.sendWalk();
+        return true;
+    }
+
+
+    /**
+     * Collect discovery result with walked ip interfaces and send result
+     *
+     * @return perform jobs success
+     */
+    private Boolean getDiscovery() {
 
         this.result.put("ip_interfaces", this.gson.toJson(this.ips));
         this.result.put("ip", this.coordinates.get("nodeIp"));
         this.result.put("network_id", this.networkId);
 
-        Type resultType = new TypeToken<HashMap<String, String>>(){}.getType();
+        /*
+         * Incremental discovery, unchanged host is not sent
+         */
+        long fingerprint = 0;
+
+        if(this.fingerprints != null) {
+            fingerprint = DiscoveryFingerprints.fingerprint(this.result);
+            if(!this.fullRescan && this.fingerprints.isKnown(this.getFingerprintKey(), fingerprint)) {
+                return true;
+            }
+        }
+
+        /*
+         * Sent by task in batches, fingerprint is known after core answer
+         */
+        if(this.results != null) {
+
+            final long resultFingerprint = fingerprint;
+
+            this.results.add(this.result, sent -> {
+                if(this.fingerprints == null) {
+                    return;
+                }
+                if(sent) {
+                    this.fingerprints.remember(this.getFingerprintKey(), resultFingerprint);
+                } else {
+                    this.fingerprints.forget(this.getFingerprintKey());
+                }
+            });
+
+            return true;
+        }
+
+        Type resultType = ApiJson.STRING_MAP;
 
         /*
          * Sending worker result POST
@@ -380,105 +612,79 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
             return false;
         }
 
+        if(this.fingerprints != null) {
+            this.fingerprints.remember(this.getFingerprintKey(), fingerprint);
+        }
+
         return true;
     }
 
 
     /**
-     * Sending SNMP-WALK
-     *
-     * @noinspection UnusedReturnValue
-     * @return  Boolean SNMP walk success
+     * @return String - network ID + node IP
      */
-    private Boolean sendWalk()
+    private String getFingerprintKey()
     {
+        return this.networkId + "/" + this.coordinates.get("nodeIp");
+    }
 
-        try {
-            TreeUtils treeUtils = new TreeUtils(this.snmp, new DefaultPDUFactory());
-            List<TreeEvent> events = treeUtils.getSubtree(this.target, this.ipInterfacesOid);
-
-            if (events == null || events.size() == 0) {
-                return false;
-            }
-
-            /*
-             * Handle the snmpwalk result.
-             */
-            for (TreeEvent event : events) {
-                if (event == null) {
-                    continue;
-                }
-                if (event.isError()) {
-                    // error in request
-                    continue;
-                }
-
-                VariableBinding[] varBindings = event.getVariableBindings();
-
-                if (varBindings == null || varBindings.length == 0) {
-                    continue;
-                }
-
-                for (VariableBinding varBinding : varBindings) {
-                    if (varBinding == null) {
-                        continue;
-                    }
 
-                    String currentIp = varBinding.getVariable().toString();
+    /**
+     * Sending SNMP-WALK
+     * Walk failure is logged only, host is discovered with ip interfaces collected so far
+     *
+     * @param executor - executor for rows handling and next request
+     * @return CompletableFuture - completed with true when walk is over
+     */
+    private CompletableFuture<Boolean> sendWalk(Executor executor)
+    {
+        SnmpWalker walker = new SnmpWalker(this.snmp, this.target, this.snmpMaxRepetitions);
 
-                    if (currentIp.length() < 7) {
-                        continue;
-                    }
+        /*
+         * Handle the snmpwalk result row by row
+         */
+        return walker.walkAsync(this.ipInterfacesOid, varBinding -> {
 
-                    if (currentIp.equals("0.0.0.0")) {
-                        continue;
-                    }
+            String currentIp = varBinding.getVariable().toString();
 
-                    if (currentIp.substring(0, 3).equals("127")) {
-                        continue;
-                    }
+            if (currentIp.length() < 7) {
+                return true;
+            }
 
-                    if (currentIp.length() > 7 && currentIp.substring(0, 7).equals("169.245")) {
-                        continue;
-                    }
+            if (currentIp.equals("0.0.0.0")) {
+                return true;
+            }
 
-                    this.ips.add(currentIp);
-                }
+            if (currentIp.substring(0, 3).equals("127")) {
+                return true;
+            }
 
+            if (currentIp.length() > 7 && currentIp.substring(0, 7).equals("169.245")) {
+                return true;
             }
-        }
-        catch(Exception e) {
-            String snmpWalkMessage = "Task " + this.coordinates.get("taskName") + ": can't perform snmpwalk() operation.";
-            this.logException("ERROR", "DISCOVERY", snmpWalkMessage, e);
-            return false;
-        }
 
-        return true;
+            this.ips.add(currentIp);
+            return true;
+        }, executor).handle((walkSuccess, e) -> {
+            if(e != null) {
+                String snmpWalkMessage = "Task " + this.coordinates.get("taskName") + ": can't perform snmpwalk() operation.";
+                this.logException("ERROR", "DISCOVERY", snmpWalkMessage, e instanceof Exception ? (Exception) e : new Exception(e));
+            }
+            return true;
+        });
     }
 
 
     /**
-     * Sending get request
+     * Processing get response
      *
-     * @return Boolean SNMP GET send success
+     * @param responseEvent - response event, response is null on timeout
+     * @return Boolean SNMP GET success
      */
-    private Boolean sendRequest()
+    private Boolean processResponse(ResponseEvent<?> responseEvent)
     {
 
         PDU responsePDU;
-        ResponseEvent<?> responseEvent;
-
-        /*
-         * Sending request
-         */
-        try {
-            responseEvent = this.snmp.send(this.requestPDU, this.target);
-        }
-        catch (Exception e) {
-            String snmpSendGetMessage = "Task " + this.coordinates.get("taskName") + ": can't send snmpget() request.";
-            this.logException("WARNING", "DISCOVERY", snmpSendGetMessage, e);
-            return false;
-        }
 
         /*
          * Response processing
@@ -544,21 +750,4 @@ public class WorkerDiscovery extends AbstractCoreUnit implements Callable<Boolea
 
         return true;
     }
-
-
-    /**
-     * Trying to close snmp session
-     */
-    private void closeSnmp()
-    {
-        try {
-            if(this.snmp != null) {
-                this.snmp.close();
-            }
-        }
-        catch (Exception e) {
-            String snmpCloseMessage = "Task " + this.coordinates.get("taskName") + ": can't close SNMP session.";
-            this.logException("ERROR", "DISCOVERY", snmpCloseMessage, e);
-        }
-    }
 }
@@ -42,9 +42,7 @@ public final class WorkerSnmp extends AbstractWorker
      */
     public WorkerSnmp(Map<String, String> coordinates, Map<String, String> settings, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.variables.putAll(variables);
+        this.setContext(coordinates, settings, variables);
 
         /*
          * Setting first data for result map
@@ -75,6 +73,9 @@ public final class WorkerSnmp extends AbstractWorker
 
             DTOProtocolResult protocolResult = snmpExecutor.execute();
 
+            // Spilled files are taken over by worker even on failure, to be removed after call
+            this.workerResult.files.putAll(protocolResult.files);
+
             if(!protocolResult.success) {
                 return false;
             }
@@ -42,9 +42,7 @@ public final class WorkerSsh extends AbstractWorker
      */
     public WorkerSsh(Map<String, String> coordinates, Map<String, String> settings, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.variables.putAll(variables);
+        this.setContext(coordinates, settings, variables);
 
         /*
          * Setting first data for result map
@@ -71,8 +69,13 @@ public final class WorkerSsh extends AbstractWorker
 
         if(sshExecutor !=null) {
 
+            sshExecutor.setPlans(this.plans, this.jobsVersion);
+
             DTOProtocolResult protocolResult = sshExecutor.execute();
 
+            // Spilled files are taken over by worker even on failure, to be removed after call
+            this.workerResult.files.putAll(protocolResult.files);
+
             if(!protocolResult.success) {
                 return false;
             }
@@ -42,9 +42,7 @@ public final class WorkerTelnet extends AbstractWorker
      */
     public WorkerTelnet(Map<String, String> coordinates, Map<String, String> settings, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.variables.putAll(variables);
+        this.setContext(coordinates, settings, variables);
 
         /*
          * Setting first data for result map
@@ -71,8 +69,13 @@ public final class WorkerTelnet extends AbstractWorker
 
         if(telnetExecutor !=null) {
 
+            telnetExecutor.setPlans(this.plans, this.jobsVersion);
+
             DTOProtocolResult protocolResult = telnetExecutor.execute();
 
+            // Spilled files are taken over by worker even on failure, to be removed after call
+            this.workerResult.files.putAll(protocolResult.files);
+
             if(!protocolResult.success) {
                 return false;
             }
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -34,11 +35,11 @@ import java.util.regex.Pattern;
  * Expect4j compatibility wrapper using expectit-core
  * This class provides the same API as Expect4j but uses expectit-core internally
  */
-public class Expect4j {
+public class Expect4j implements ExpectSession {
     private Expect expect;
     private LastState lastState;
     private int defaultTimeout = 30000; // 30 seconds default
-    private String lastBuffer = "";
+    private final SpooledOutput output = new SpooledOutput();
     private InputStream inputStream;
     private OutputStream outputStream;
 
@@ -66,38 +67,38 @@ public class Expect4j {
      * @param pattern Pattern to expect (regex string)
      * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise other value
      */
+    @Override
     public int expect(String pattern) {
+        return this.expect(pattern == null || pattern.isEmpty() ? null : ExpectUtils.compile(pattern));
+    }
+
+    /**
+     * Expect a precompiled pattern
+     *
+     * @param pattern Pattern to expect, null to wait for any output
+     * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise other value
+     */
+    @Override
+    public int expect(Pattern pattern) {
         try {
-            if (pattern == null || pattern.isEmpty()) {
+            if (pattern == null) {
                 // Just wait for any output or timeout
                 try {
                     Result result = expect.expect(Matchers.anyString());
-                    lastBuffer = result.getInput();
-                    lastState.setBuffer(lastBuffer);
+                    lastState.setBuffer(result.getInput());
                     return COMMAND_EXECUTION_SUCCESS_OPCODE;
                 } catch (IOException e) {
                     return -1; // Timeout or failure
                 }
             }
 
-            Matcher<Result> matcher = Matchers.regexp(Pattern.compile(pattern));
+            Matcher<Result> matcher = Matchers.regexp(pattern);
             Result result = expect.expect(matcher);
-            
-            // Get the full input - expectit returns the complete input
-            String input = result.getInput();
-            
-            // Accumulate to existing buffer
-            if (input != null && !input.isEmpty()) {
-                if (!lastBuffer.isEmpty() && !input.startsWith(lastBuffer)) {
-                    // New data, append it
-                    lastBuffer += input.substring(lastBuffer.length());
-                } else if (lastBuffer.isEmpty() || input.length() > lastBuffer.length()) {
-                    // New or longer data
-                    lastBuffer = input;
-                }
-            }
-            
-            lastState.setBuffer(lastBuffer);
+
+            // expectit consumes input up to match end, rest of input is left for next expect
+            appendBuffer(result.getBefore());
+            appendBuffer(result.group());
+
             return COMMAND_EXECUTION_SUCCESS_OPCODE;
         } catch (IOException e) {
             return -1; // Failure
@@ -109,6 +110,7 @@ public class Expect4j {
      *
      * @param text Text to send
      */
+    @Override
     public void send(String text) {
         try {
             expect.send(text);
@@ -123,6 +125,7 @@ public class Expect4j {
      *
      * @param timeout Timeout in milliseconds
      */
+    @Override
     public void setDefaultTimeout(int timeout) {
         this.defaultTimeout = timeout;
         // Rebuild expectit with new timeout
@@ -151,14 +154,28 @@ public class Expect4j {
      *
      * @return LastState object
      */
+    @Override
     public LastState getLastState() {
         return lastState;
     }
 
+    /**
+     * Append received output to buffer
+     *
+     * @param chunk New output
+     */
+    private void appendBuffer(String chunk) {
+        if (chunk != null && !chunk.isEmpty()) {
+            output.append(chunk);
+        }
+    }
+
     /**
      * Close the expect connection
      */
+    @Override
     public void close() throws IOException {
+        output.close();
         if (expect != null) {
             expect.close();
         }
@@ -167,14 +184,25 @@ public class Expect4j {
     /**
      * Last state class for buffer management
      */
-    public class LastState {
+    public class LastState implements ExpectSession.State {
         /**
          * Get buffer
          *
          * @return String buffer
          */
+        @Override
         public String getBuffer() {
-            return lastBuffer;
+            return output.getRaw();
+        }
+
+        /**
+         * Get buffer without terminal control sequences and pager prompts
+         *
+         * @return String sanitized buffer
+         */
+        @Override
+        public String getSanitizedBuffer() {
+            return output.getSanitized();
         }
 
         /**
@@ -182,8 +210,33 @@ public class Expect4j {
          *
          * @param buffer Buffer content
          */
+        @Override
         public void setBuffer(String buffer) {
-            lastBuffer = buffer != null ? buffer : "";
+            output.reset(buffer);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setSpool(Path directory, long threshold) {
+            output.setSpool(directory, threshold);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isSpooled() {
+            return output.isSpooled();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Path exportSanitizedBuffer(Path directory, String... removals) throws IOException {
+            return output.export(directory, removals);
         }
     }
 
@@ -0,0 +1,318 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Expect state of push based sessions
+ * Received data is pushed by I/O thread, expected pattern is matched as data arrives
+ * and waiting worker thread is released on match, failure or timeout
+ */
+public final class ExpectInputBuffer implements ExpectSession.State {
+
+    private static final int COMMAND_EXECUTION_SUCCESS_OPCODE = -2;
+
+    // Expected patterns are prompt sized, match is looked for in new input and this much of already scanned input
+    private static final int MATCH_LOOKBACK = 1024;
+
+    private final CharsetDecoder decoder;
+    private final CharBuffer chars = CharBuffer.allocate(8192);
+
+    // Received, not consumed by expect input
+    private final StringBuilder input = new StringBuilder();
+    // Input length already scanned by pending pattern without match
+    private int scanned = 0;
+    // Consumed by expect, guarded by own lock
+    private final SpooledOutput output = new SpooledOutput();
+    private Pending pending = null;
+    private IOException failure = null;
+
+    /**
+     * Expected pattern waiting for input
+     */
+    private static final class Pending {
+
+        final Pattern pattern;
+        final CompletableFuture<Void> matched = new CompletableFuture<>();
+
+        Pending(Pattern pattern) {
+            this.pattern = pattern;
+        }
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param charset Charset - device output charset
+     */
+    public ExpectInputBuffer(Charset charset) {
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+
+    /**
+     * Push received bytes, I/O thread
+     * Incomplete multibyte char is left in buffer, so buffer must be compacted by caller
+     *
+     * @param bytes ByteBuffer - received data in read mode
+     */
+    public void push(ByteBuffer bytes) {
+
+        CoderResult result;
+
+        do {
+            synchronized (this) {
+                result = this.decoder.decode(bytes, this.chars, false);
+                this.chars.flip();
+                if(this.chars.hasRemaining()) {
+                    this.input.append(this.chars);
+                    this.matchPending();
+                }
+                this.chars.clear();
+            }
+        } while (result.isOverflow());
+    }
+
+
+    /**
+     * Session failure or close, waiting expect is released
+     *
+     * @param e IOException
+     */
+    public synchronized void fail(IOException e) {
+
+        if(this.failure == null) {
+            this.failure = e;
+        }
+
+        if(this.pending != null) {
+            this.pending.matched.completeExceptionally(e);
+            this.pending = null;
+        }
+    }
+
+
+    /**
+     * @return IOException - session failure, null if session is alive
+     */
+    public synchronized IOException getFailure() {
+        return this.failure;
+    }
+
+
+    /**
+     * Expect a pattern, worker thread
+     *
+     * @param pattern Pattern to expect (regex string), empty to wait for any output
+     * @param timeout Timeout in milliseconds
+     * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise -1
+     */
+    public int expect(String pattern, int timeout) {
+        return this.expect(pattern == null || pattern.isEmpty() ? null : ExpectUtils.compile(pattern), timeout);
+    }
+
+
+    /**
+     * Expect a precompiled pattern, worker thread
+     *
+     * @param pattern Pattern to expect, null to wait for any output
+     * @param timeout Timeout in milliseconds
+     * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise -1
+     */
+    public int expect(Pattern pattern, int timeout) {
+
+        Pending current;
+
+        synchronized (this) {
+
+            current      = new Pending(pattern);
+            this.pending = current;
+            this.scanned = 0;
+            this.matchPending();
+
+            if(current.matched.isDone()) {
+                return COMMAND_EXECUTION_SUCCESS_OPCODE;
+            }
+
+            if(this.failure != null) {
+                this.pending = null;
+                return -1;
+            }
+        }
+
+        try {
+            current.matched.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException | TimeoutException e) {
+            // checked below
+        }
+
+        synchronized (this) {
+            if(this.pending == current) {
+                this.pending = null;
+            }
+        }
+
+        return current.matched.isDone() && !current.matched.isCompletedExceptionally() ? COMMAND_EXECUTION_SUCCESS_OPCODE : -1;
+    }
+
+
+    /**
+     * Matching pending pattern against not consumed input
+     * Only input received since last scan and MATCH_LOOKBACK chars before it are matched,
+     * so every char is scanned a bounded number of times
+     * Input up to match end is consumed and appended to buffer
+     */
+    private void matchPending() {
+
+        if(this.pending == null || this.input.length() == 0) {
+            return;
+        }
+
+        int end;
+
+        if(this.pending.pattern == null) {
+            end = this.input.length();
+        }
+        else {
+            Matcher matcher = this.pending.pattern.matcher(this.input);
+            matcher.region(Math.max(0, this.scanned - MATCH_LOOKBACK), this.input.length());
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+
+            if(!matcher.find()) {
+                this.scanned = this.input.length();
+                this.drainScanned();
+                return;
+            }
+            end = matcher.end();
+        }
+
+        this.output.append(this.input.subSequence(0, end));
+        this.input.delete(0, end);
+        this.scanned = 0;
+
+        Pending matched = this.pending;
+        this.pending    = null;
+        matched.matched.complete(null);
+    }
+
+
+    /**
+     * Scanned input which can't be part of a match anymore is moved to buffer while pattern is pending,
+     * so long output does not pile up in input and is spooled as it arrives
+     */
+    private void drainScanned() {
+
+        int cut = this.scanned - MATCH_LOOKBACK;
+
+        if(cut < MATCH_LOOKBACK) {
+            return;
+        }
+
+        this.output.append(this.input.subSequence(0, cut));
+        this.input.delete(0, cut);
+        this.scanned -= cut;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getBuffer() {
+        return this.output.getRaw();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSanitizedBuffer() {
+        return this.output.getSanitized();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBuffer(String buffer) {
+        this.output.reset(buffer);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSpool(Path directory, long threshold) {
+        this.output.setSpool(directory, threshold);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSpooled() {
+        return this.output.isSpooled();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Path exportSanitizedBuffer(Path directory, String... removals) throws IOException {
+        return this.output.export(directory, removals);
+    }
+
+
+    /**
+     * Mark buffer closed
+     */
+    public void close() {
+        this.fail(new EOFException("Session is closed"));
+        this.output.close();
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.regex.Pattern;
+
+
+/**
+ * Expect session of one device connection
+ * Implemented by stream based Expect4j and by selector based telnet sessions
+ */
+public interface ExpectSession {
+
+    /**
+     * Expect a pattern
+     *
+     * @param pattern Pattern to expect (regex string), empty to wait for any output
+     * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise other value
+     */
+    int expect(String pattern);
+
+    /**
+     * Expect a precompiled pattern
+     *
+     * @param pattern Pattern to expect, null to wait for any output
+     * @return int - COMMAND_EXECUTION_SUCCESS_OPCODE (-2) on success, otherwise other value
+     */
+    int expect(Pattern pattern);
+
+    /**
+     * Send text
+     *
+     * @param text Text to send
+     */
+    void send(String text);
+
+    /**
+     * Set default timeout
+     *
+     * @param timeout Timeout in milliseconds
+     */
+    void setDefaultTimeout(int timeout);
+
+    /**
+     * Get last state
+     *
+     * @return State object
+     */
+    State getLastState();
+
+    /**
+     * Close the connection
+     */
+    void close() throws IOException;
+
+    /**
+     * Buffer of received output
+     */
+    interface State {
+
+        /**
+         * @return String raw buffer
+         */
+        String getBuffer();
+
+        /**
+         * @return String buffer without terminal control sequences and pager prompts
+         */
+        String getSanitizedBuffer();
+
+        /**
+         * @param buffer Buffer content
+         */
+        void setBuffer(String buffer);
+
+        /**
+         * Spool sanitized output to temp file as it arrives, see SpooledOutput
+         *
+         * @param directory Temp file directory
+         * @param threshold Sanitized output size in chars, 0 to keep output in memory
+         */
+        void setSpool(Path directory, long threshold);
+
+        /**
+         * @return boolean - part of output is spooled to disk
+         */
+        boolean isSpooled();
+
+        /**
+         * Write sanitized buffer to new temp file without removed strings, trimmed
+         *
+         * @param directory Temp file directory
+         * @param removals  Strings removed from output, in order
+         * @return Path - created file, owned by caller
+         * @throws IOException if file can't be written
+         */
+        Path exportSanitizedBuffer(Path directory, String... removals) throws IOException;
+    }
+}
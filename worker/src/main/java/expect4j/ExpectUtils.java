@@ -22,12 +22,43 @@ import org.apache.commons.net.telnet.TelnetClient;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for creating Expect4j instances with different connection types
  */
 public class ExpectUtils {
 
+    // Compiled patterns are kept while cache is below this size
+    private static final int PATTERN_CACHE_LIMIT = 10000;
+
+    private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+
+    /**
+     * Compiled expect pattern, cached
+     * Auth sequence prompts are the same for all nodes of a model and command prompts for all jobs of a node
+     *
+     * @param pattern Pattern (regex string)
+     * @return Pattern
+     */
+    public static Pattern compile(String pattern) {
+
+        Pattern compiled = patterns.get(pattern);
+
+        if (compiled == null) {
+            compiled = Pattern.compile(pattern);
+            if (patterns.size() < PATTERN_CACHE_LIMIT) {
+                patterns.putIfAbsent(pattern, compiled);
+            }
+        }
+
+        return compiled;
+    }
+
+
     /**
      * Create an Expect4j instance using Telnet connection
      *
@@ -0,0 +1,365 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * Received output of expect session, raw and sanitized
+ *
+ * When spool is set and sanitized output reaches threshold, completed lines are written
+ * to temp file as output arrives, only the current line stays in memory.
+ * Raw output is then kept as a bounded tail, it is used for empty response checks only.
+ */
+public final class SpooledOutput implements Closeable {
+
+    // Raw output tail kept in memory once output is spooled
+    private static final int RAW_TAIL = 64 * 1024;
+
+    // Chars per read of spool file
+    private static final int READ_CHUNK = 8192;
+
+    private final StringBuilder raw = new StringBuilder();
+    private final TerminalSanitizer sanitizer = new TerminalSanitizer();
+
+    private Path   directory = null;
+    private long   threshold = 0;
+    private Path   file      = null;
+    private Writer writer    = null;
+
+    // Chars written to spool file, spool failure stops spooling
+    private long spooledChars = 0;
+    private IOException spoolFailure = null;
+
+
+    /**
+     * Spool sanitized output to temp file above threshold
+     *
+     * @param directory Path - temp file directory
+     * @param threshold long - sanitized output size in chars, 0 to keep output in memory
+     */
+    public synchronized void setSpool(Path directory, long threshold) {
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+
+    /**
+     * Append received output
+     *
+     * @param chunk CharSequence - raw output
+     */
+    public synchronized void append(CharSequence chunk) {
+
+        this.raw.append(chunk);
+        this.sanitizer.append(chunk);
+
+        if (this.directory != null && this.threshold > 0 && this.spoolFailure == null && this.sanitizer.length() >= this.threshold) {
+            try {
+                if (this.writer == null) {
+                    this.file   = Files.createTempFile(this.directory, "cbackup-", ".spool");
+                    this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8);
+                }
+                this.spooledChars += this.sanitizer.flushLines(this.writer);
+            }
+            catch (IOException e) {
+                // output stays in memory
+                this.spoolFailure = e;
+            }
+        }
+
+        if (this.file != null && this.raw.length() > 2 * RAW_TAIL) {
+            this.raw.delete(0, this.raw.length() - RAW_TAIL);
+        }
+    }
+
+
+    /**
+     * @return boolean - part of output is in spool file
+     */
+    public synchronized boolean isSpooled() {
+        return this.spooledChars > 0;
+    }
+
+
+    /**
+     * @return String - raw output, tail only if output is spooled
+     */
+    public synchronized String getRaw() {
+        return this.raw.toString();
+    }
+
+
+    /**
+     * Whole sanitized output, spooled part is read back to memory
+     *
+     * @return String
+     */
+    public synchronized String getSanitized() {
+
+        if (this.spooledChars == 0) {
+            return this.sanitizer.toString();
+        }
+
+        StringBuilder result = new StringBuilder();
+
+        try {
+            this.copySpool(result::append);
+        }
+        catch (IOException e) {
+            // spooled part is lost, tail is returned
+        }
+
+        return result.append(this.sanitizer).toString();
+    }
+
+
+    /**
+     * Write whole sanitized output to new temp file, without removed strings and trimmed
+     * Same as getSanitized().replace(removals[0], "").replace(removals[1], "")...trim(), in bounded memory
+     *
+     * @param target   Path     - temp file directory
+     * @param removals String[] - strings removed from output, in order
+     * @return Path    - created file, owned by caller
+     * @throws IOException if spool or target file fails
+     */
+    public synchronized Path export(Path target, String... removals) throws IOException {
+
+        if (this.spoolFailure != null) {
+            throw this.spoolFailure;
+        }
+
+        Path exported = Files.createTempFile(target, "cbackup-", ".tmp");
+
+        try (Writer out = Files.newBufferedWriter(exported, StandardCharsets.UTF_8)) {
+
+            Sink sink = new TrimSink(out);
+            for (int i = removals.length - 1; i >= 0; i--) {
+                if (removals[i] != null && removals[i].length() > 0) {
+                    sink = new RemoveSink(removals[i], sink);
+                }
+            }
+
+            this.copySpool(sink);
+
+            sink.write(this.sanitizer.toString());
+            sink.finish();
+        }
+        catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(exported);
+            throw e;
+        }
+
+        return exported;
+    }
+
+
+    /**
+     * Drop output and spool file, start with given output
+     *
+     * @param buffer String - new raw output
+     */
+    public synchronized void reset(String buffer) {
+        this.deleteSpool();
+        this.raw.setLength(0);
+        this.sanitizer.reset();
+        this.append(buffer != null ? buffer : "");
+    }
+
+
+    /**
+     * Remove spool file
+     */
+    @Override
+    public synchronized void close() {
+        this.deleteSpool();
+    }
+
+
+    /**
+     * Copy spooled chars
+     *
+     * @param out Sink - destination
+     * @throws IOException if spool file can't be read
+     */
+    private void copySpool(Sink out) throws IOException {
+
+        if (this.spooledChars == 0) {
+            return;
+        }
+
+        this.writer.flush();
+
+        try (Reader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+
+            char[] chunk = new char[READ_CHUNK];
+            long left    = this.spooledChars;
+
+            while (left > 0) {
+                int read = reader.read(chunk, 0, (int) Math.min(chunk.length, left));
+                if (read < 0) {
+                    break;
+                }
+                out.write(CharBuffer.wrap(chunk, 0, read));
+                left -= read;
+            }
+        }
+    }
+
+
+    /**
+     * Close and remove spool file
+     */
+    private void deleteSpool() {
+
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            }
+            catch (IOException ignored) {
+                // file is removed anyway
+            }
+        }
+
+        if (this.file != null) {
+            try {
+                Files.deleteIfExists(this.file);
+            }
+            catch (IOException ignored) {
+                // temp file, removed by OS later
+            }
+        }
+
+        this.writer       = null;
+        this.file         = null;
+        this.spooledChars = 0;
+        this.spoolFailure = null;
+    }
+
+
+    /*
+     * Export stage
+     */
+    @FunctionalInterface
+    private interface Sink {
+        void write(CharSequence chunk) throws IOException;
+        default void finish() throws IOException {}
+    }
+
+
+    /*
+     * Removes all occurrences of string left to right, same as String.replace(needle, "")
+     * Text left after removal is not searched again, last chars that may start a match are held back until next chunk
+     */
+    private static final class RemoveSink implements Sink {
+
+        private final String needle;
+        private final Sink next;
+        private final StringBuilder pending = new StringBuilder();
+
+        RemoveSink(String needle, Sink next) {
+            this.needle = needle;
+            this.next   = next;
+        }
+
+        @Override
+        public void write(CharSequence chunk) throws IOException {
+
+            this.pending.append(chunk);
+
+            int from = 0;
+            int at;
+
+            while ((at = this.pending.indexOf(this.needle, from)) >= 0) {
+                if (at > from) {
+                    this.next.write(this.pending.substring(from, at));
+                }
+                from = at + this.needle.length();
+            }
+
+            int keep = Math.min(this.pending.length() - from, this.needle.length() - 1);
+            int end  = this.pending.length() - keep;
+
+            if (end > from) {
+                this.next.write(this.pending.substring(from, end));
+            }
+
+            this.pending.delete(0, end);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            this.next.write(this.pending);
+            this.pending.setLength(0);
+            this.next.finish();
+        }
+    }
+
+
+    /*
+     * Drops leading and trailing chars up to space, same as String.trim()
+     */
+    private static final class TrimSink implements Sink {
+
+        private final Writer out;
+        private final StringBuilder spaces = new StringBuilder();
+        private boolean started = false;
+
+        TrimSink(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(CharSequence chunk) throws IOException {
+
+            for (int i = 0; i < chunk.length(); i++) {
+
+                char c = chunk.charAt(i);
+
+                if (c <= ' ') {
+                    if (this.started) {
+                        this.spaces.append(c);
+                    }
+                    continue;
+                }
+
+                if (this.spaces.length() > 0) {
+                    this.out.append(this.spaces);
+                    this.spaces.setLength(0);
+                }
+
+                this.out.append(c);
+                this.started = true;
+            }
+        }
+
+        @Override
+        public void finish() {
+            this.spaces.setLength(0);
+        }
+    }
+
+}
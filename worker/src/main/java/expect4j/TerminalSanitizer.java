@@ -0,0 +1,401 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import java.io.IOException;
+
+
+/**
+ * Streaming ANSI/VT100 sanitizer for device output
+ *
+ * Single pass state machine, fed chunk by chunk as output arrives.
+ * Strips:
+ * - CSI sequences (ESC [ ... final), cursor-back (CSI n D) erases back on the current line
+ * - OSC sequences (ESC ] ... BEL | ESC \)
+ * - other two/three char escapes (ESC 7, ESC ( B, ...)
+ * - backspace overstrikes
+ * - lone carriage returns (line is redrawn from the beginning)
+ * - pager prompts like --More-- alone on a line
+ * - other C0 control chars except \t, \r\n and \n
+ */
+public class TerminalSanitizer {
+
+    private static final char ESC = '\u001B';
+    private static final char BEL = '\u0007';
+    private static final char BS  = '\b';
+    private static final char CR  = '\r';
+    private static final char LF  = '\n';
+
+    /*
+     * Parser states
+     */
+    private static final int STATE_TEXT             = 0;
+    private static final int STATE_ESC              = 1;
+    private static final int STATE_ESC_INTERMEDIATE = 2;
+    private static final int STATE_CSI              = 3;
+    private static final int STATE_OSC              = 4;
+    private static final int STATE_OSC_ESC          = 5;
+    private static final int STATE_CR               = 6;
+
+    /*
+     * Pager prompts, removed when they are the only thing on the line (leading and trailing spaces allowed)
+     * Longest first, prompt which starts with a shorter one is completed after the shorter one is removed
+     */
+    private static final String[] PAGER_PROMPTS = {
+        "Press any key to continue (Q to quit)",
+        "Press any key to continue",
+        "Press SPACE to continue",
+        "--More or (q)uit--",
+        "<--- More --->",
+        "---- More ----",
+        "--- More ---",
+        "-- More --",
+        "--More--",
+    };
+
+    private final StringBuilder output;
+
+    private int state     = STATE_TEXT;
+    private int csiParam  = 0;
+    private int lineStart = 0;
+
+    // Pager prompt removed from the current line and text removed with it,
+    // restored if the line goes on with other text instead of being erased or ended
+    private String removedPrompt = null;
+    private String removedText   = null;
+
+
+    /**
+     * Constructor
+     */
+    public TerminalSanitizer() {
+        this.output = new StringBuilder();
+    }
+
+
+    /**
+     * Sanitize whole string at once
+     *
+     * @param input String - raw device output
+     * @return String      - sanitized output
+     */
+    public static String sanitize(CharSequence input) {
+        if (input == null) {
+            return "";
+        }
+        return new TerminalSanitizer().append(input).toString();
+    }
+
+
+    /**
+     * Feed next chunk of raw output
+     *
+     * @param input CharSequence - raw output chunk
+     * @return TerminalSanitizer - this context
+     */
+    public TerminalSanitizer append(CharSequence input) {
+        return this.append(input, 0, input.length());
+    }
+
+
+    /**
+     * Feed part of raw output
+     *
+     * @param input CharSequence - raw output
+     * @param start int          - start index, inclusive
+     * @param end   int          - end index, exclusive
+     * @return TerminalSanitizer - this context
+     */
+    public TerminalSanitizer append(CharSequence input, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+            this.feed(input.charAt(i));
+        }
+
+        return this;
+    }
+
+
+    /**
+     * Drop all collected output and parser state
+     */
+    public void reset() {
+        this.output.setLength(0);
+        this.state     = STATE_TEXT;
+        this.csiParam  = 0;
+        this.lineStart = 0;
+        this.confirmPagerPrompt();
+    }
+
+
+    /**
+     * Move completed lines out of sanitizer
+     * Completed lines are final, only the current line can still be erased or redrawn
+     *
+     * @param out Appendable - destination of completed lines
+     * @return int           - chars moved
+     * @throws IOException if destination fails, sanitizer is not changed then
+     */
+    public int flushLines(Appendable out) throws IOException {
+
+        int completed = this.lineStart;
+
+        if (completed > 0) {
+            out.append(this.output, 0, completed);
+            this.output.delete(0, completed);
+            this.lineStart = 0;
+        }
+
+        return completed;
+    }
+
+
+    /**
+     * @return int - sanitized output length
+     */
+    public int length() {
+        return this.output.length();
+    }
+
+
+    /**
+     * @return String - sanitized output
+     */
+    @Override
+    public String toString() {
+        return this.output.toString();
+    }
+
+
+    /**
+     * Process single char
+     *
+     * @param c char
+     */
+    private void feed(char c) {
+
+        switch (this.state) {
+
+            case STATE_ESC:
+                if (c == '[') {
+                    this.csiParam = 0;
+                    this.state    = STATE_CSI;
+                }
+                else if (c == ']') {
+                    this.state = STATE_OSC;
+                }
+                else if (c >= 0x20 && c <= 0x2F) {
+                    this.state = STATE_ESC_INTERMEDIATE;
+                }
+                else {
+                    this.state = STATE_TEXT;
+                }
+                return;
+
+            case STATE_ESC_INTERMEDIATE:
+                if (c < 0x20 || c > 0x2F) {
+                    this.state = STATE_TEXT;
+                }
+                return;
+
+            case STATE_CSI:
+                if (c >= '0' && c <= '9') {
+                    if (this.csiParam < 10000) {
+                        this.csiParam = this.csiParam * 10 + (c - '0');
+                    }
+                }
+                else if (c == ';') {
+                    this.csiParam = 0;
+                }
+                else if (c >= 0x40 && c <= 0x7E) {
+                    if (c == 'D') {
+                        this.eraseBack(Math.max(this.csiParam, 1));
+                    }
+                    this.state = STATE_TEXT;
+                }
+                else if (c < 0x20 || c > 0x3F) {
+                    // Broken sequence, drop it
+                    this.state = STATE_TEXT;
+                }
+                return;
+
+            case STATE_OSC:
+                if (c == BEL) {
+                    this.state = STATE_TEXT;
+                }
+                else if (c == ESC) {
+                    this.state = STATE_OSC_ESC;
+                }
+                return;
+
+            case STATE_OSC_ESC:
+                this.state = (c == '\\') ? STATE_TEXT : STATE_OSC;
+                return;
+
+            case STATE_CR:
+                if (c == CR) {
+                    return;
+                }
+                this.state = STATE_TEXT;
+                this.confirmPagerPrompt();
+                if (c == LF) {
+                    this.output.append(CR).append(LF);
+                    this.lineStart = this.output.length();
+                    return;
+                }
+                // Lone carriage return, line is redrawn from the start
+                this.output.setLength(this.lineStart);
+                break;
+        }
+
+        /*
+         * Plain text
+         */
+        switch (c) {
+            case ESC:
+                this.confirmPagerPrompt();
+                this.state = STATE_ESC;
+                break;
+            case CR:
+                this.state = STATE_CR;
+                break;
+            case LF:
+                this.confirmPagerPrompt();
+                this.output.append(LF);
+                this.lineStart = this.output.length();
+                break;
+            case BS:
+                this.confirmPagerPrompt();
+                this.eraseBack(1);
+                break;
+            case '\t':
+                this.output.append(c);
+                break;
+            default:
+                if (c < 0x20 || c == 0x7F) {
+                    break;
+                }
+                this.output.append(c);
+                this.removePagerPrompt(c);
+        }
+    }
+
+
+    /**
+     * Erase chars back, never crossing beginning of the current line
+     *
+     * @param count int - chars to erase
+     */
+    private void eraseBack(int count) {
+        this.output.setLength(Math.max(this.lineStart, this.output.length() - count));
+    }
+
+
+    /**
+     * Remove pager prompt if it has just been completed
+     *
+     * @param last char - last appended char
+     */
+    private void removePagerPrompt(char last) {
+
+        if (this.removedPrompt != null && this.continuePagerPrompt(last)) {
+            return;
+        }
+
+        // Prompt must start the line, only spaces before it
+        int start  = this.lineStart;
+        int length = this.output.length();
+
+        while (start < length && this.output.charAt(start) == ' ') {
+            start++;
+        }
+
+        for (String prompt : PAGER_PROMPTS) {
+
+            int promptLength = prompt.length();
+
+            if (prompt.charAt(promptLength - 1) != last || length - start != promptLength) {
+                continue;
+            }
+
+            boolean matches = true;
+            for (int i = 0; i < promptLength; i++) {
+                if (this.output.charAt(start + i) != prompt.charAt(i)) {
+                    matches = false;
+                    break;
+                }
+            }
+
+            if (matches) {
+                this.removedPrompt = prompt;
+                this.removedText   = this.output.substring(this.lineStart);
+                this.output.setLength(this.lineStart);
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Text after removed pager prompt, e.g. " (Q to quit)" after "Press any key to continue"
+     * Spaces and start of a longer prompt are kept pending, longer prompt is removed when completed,
+     * any other text means it was not a prompt and removed text is restored
+     *
+     * @param last char - last appended char
+     * @return boolean  - true if prompt is still pending
+     */
+    private boolean continuePagerPrompt(char last) {
+
+        String tail = this.output.substring(this.lineStart);
+        String line = this.removedPrompt + tail;
+
+        for (String prompt : PAGER_PROMPTS) {
+
+            if (prompt.length() <= this.removedPrompt.length() || !prompt.startsWith(line)) {
+                continue;
+            }
+
+            if (prompt.length() == line.length()) {
+                this.removedPrompt = prompt;
+                this.removedText   = this.removedText + tail;
+                this.output.setLength(this.lineStart);
+            }
+
+            return true;
+        }
+
+        if (last == ' ' && tail.trim().isEmpty()) {
+            return true;
+        }
+
+        this.output.insert(this.lineStart, this.removedText);
+        this.confirmPagerPrompt();
+
+        return false;
+    }
+
+
+    /**
+     * Line with removed pager prompt is erased or ended, prompt stays removed
+     */
+    private void confirmPagerPrompt() {
+        this.removedPrompt = null;
+        this.removedText   = null;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+/**
+ * Executor for callers which wait for asynchronous SNMP chain anyway
+ * Stages are queued and run by waiting thread, so no pool thread is taken
+ * and next request is never sent from SNMP dispatcher thread
+ */
+public final class CallerRunsExecutor implements Executor {
+
+    private final BlockingQueue<Runnable> stages = new LinkedBlockingQueue<>();
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(Runnable stage) {
+        this.stages.add(stage);
+    }
+
+
+    /**
+     * Run queued stages until future is completed
+     *
+     * @param future CompletableFuture - chain using this executor
+     * @param <T>    result type
+     * @return T - future result
+     * @throws InterruptedException if waiting thread is interrupted
+     * @throws CompletionException  if chain failed
+     */
+    public <T> T join(CompletableFuture<T> future) throws InterruptedException {
+
+        // wake up waiting thread when last stage completes on other thread
+        future.whenComplete((result, e) -> this.stages.add(() -> {}));
+
+        while (!future.isDone()) {
+            this.stages.take().run();
+        }
+
+        return future.join();
+    }
+
+}
@@ -17,36 +17,19 @@
  */
 package snmp;
 
-import java.util.Map;
 import abstractions.DTOVariableConvertResult;
-import api.ApiLogHelper;
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
+import abstractions.ProtocolRegistry;
+
+import java.util.Map;
 
 
 /**
  * Factory class to return snmp protocol classes
- * Usage:
- * 1) How to add main vendor class
- * - add 'put("VENDOR", null);' to static map $models
- * - create class _VENDOR_Snmp(extends GeneralSnmp)
- * 2) How to add model realization class
- * - create vendor models map
- * example:
- * private static final Map<String, String> MAP_VENDOR_MODELS = new HashMap<String, String>() {{
- * put("RB750", "RB750"); // this one for model RB750 protocol realization
- * put("RB960",   null);  // this one will use GeneralSnmp class
- * }};
- * - create class _VENDOR_RB750_Snmp(extends GeneralSnmp)
- * - add 'put("VENDOR", MAP_VENDOR_MODELS);' to static map $models
- *
+ * Vendor/model classes are registered in SnmpVendors, see ProtocolRegistry
  */
 public class FactoryMethodSnmp {
 
-    private static final Map<String, Map<String, String>> models = new HashMap<String, Map<String, String>>() {{
-        put("Dlink", null);
-        put("Zyxel", null);
-    }};
+    private static final ProtocolRegistry<GeneralSnmp> registry = new ProtocolRegistry<>("snmp", GeneralSnmp.class, GeneralSnmp::new);
 
     /**
      * Factory
@@ -59,52 +42,7 @@ public class FactoryMethodSnmp {
      * @return GeneralSnmp|null
      */
     public GeneralSnmp getProtocolObject(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables) {
-
-        //noinspection UnusedAssignment
-        GeneralSnmp toReturn = null;
-        String className     = null;
-
-        String vendor = coordinates.get("nodeVendor");
-        String model  = coordinates.get("nodeModel");
-
-        if(models.get(vendor) == null) {
-            if(models.containsKey(vendor)) {
-                className = "_" + vendor + "_Snmp";
-            }
-        }
-        else {
-            Map<String, String> currentVendor = models.get(vendor);
-
-            if(currentVendor.get(model) == null) {
-                if(!currentVendor.containsKey(model)) {
-                    className = "_" + vendor + "_Snmp";
-                }
-            }
-            else {
-                className = "_" + models.get(vendor) + "_" + currentVendor.get(model) + "_Snmp";
-            }
-        }
-
-        if(className == null) {
-            toReturn = new GeneralSnmp(coordinates, settings, credentials, jobs, variables);
-        }
-        else {
-
-            try {
-                Class<? extends GeneralSnmp> currentSnmpClass = Class.forName("snmp."+className).asSubclass(GeneralSnmp.class);
-                Constructor<? extends GeneralSnmp> snmpConstructor = currentSnmpClass.getConstructor(Map.class, Map.class, Map.class, Map.class, Map.class);
-                Object snmpObject           = snmpConstructor.newInstance(coordinates, settings, credentials, jobs, variables );
-                toReturn                    = (GeneralSnmp)snmpObject;
-            }
-            catch(Exception e) {
-                String portParseMessage = "Task " + coordinates.get("taskName") + ", node " + coordinates.get("nodeId") +
-                        ": SNMP factory exception. Can't create object " + className + ".";
-                ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", portParseMessage, coordinates, e);
-                return null;
-            }
-        }
-
-        return toReturn;
+        return registry.create(coordinates, settings, credentials, jobs, variables);
     }
 
 }
@@ -18,24 +18,27 @@
 package snmp;
 
 import abstractions.AbstractProtocol;
+import abstractions.CommandTemplate;
 import abstractions.DTOProtocolResult;
 import abstractions.DTOVariableConvertResult;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
 /*
  * SNMP
  */
-import java.io.IOException;
-
 import org.snmp4j.CommunityTarget;
 import org.snmp4j.PDU;
-import org.snmp4j.Snmp;
+import org.snmp4j.Target;
 import org.snmp4j.event.ResponseEvent;
 import org.snmp4j.mp.SnmpConstants;
 import org.snmp4j.smi.*;
-import org.snmp4j.transport.DefaultUdpTransportMapping;
 
 
 /**
@@ -50,14 +53,39 @@ public class GeneralSnmp extends AbstractProtocol {
 
     private Integer snmpRetries;
     private Integer snmpTimeout;
+    private Integer snmpMaxVarbinds = 10;
+    private Integer snmpMaxRepetitions = SnmpWalker.DEFAULT_MAX_REPETITIONS;
 
     /*
      * SNMP objects
      */
-    private Snmp snmp;
-    private CommunityTarget<Address> target;
+    private SnmpSingleton snmp;
+    private Target<Address> target;
     private PDU requestPDU;
 
+    /*
+     * Consecutive GET jobs waiting to be sent in one PDU
+     */
+    private final List<BatchedGet> batchedGets = new ArrayList<>();
+    private Integer batchTimeout;
+
+
+    /**
+     * GET job packed into multi-OID PDU
+     */
+    private static final class BatchedGet {
+
+        private final OID    oid;
+        private final String variable;
+        private final String tableField;
+
+        private BatchedGet(OID oid, String variable, String tableField) {
+            this.oid        = oid;
+            this.variable   = variable;
+            this.tableField = tableField;
+        }
+    }
+
 
     /**
      * Constructor
@@ -70,11 +98,7 @@ public class GeneralSnmp extends AbstractProtocol {
      */
     GeneralSnmp(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.credentials.putAll(credentials);
-        this.jobs.putAll(jobs);
-        this.variables.putAll(variables);
+        this.setContext(coordinates, settings, credentials, jobs, variables);
     }
 
 
@@ -96,12 +120,10 @@ public class GeneralSnmp extends AbstractProtocol {
 
         // executing all jobs, saving results to this.result.data
         if(!this.performJobs()) {
-            this.closeSnmp();
             return this.result;
         }
 
         // success
-        this.closeSnmp();
         this.result.success = true;
         return this.result;
     }
@@ -195,6 +217,54 @@ public class GeneralSnmp extends AbstractProtocol {
             }
         }
 
+        /*
+         * Max OIDs per GET request, 1 disables batching
+         */
+        String maxVarbinds = this.settings.get("snmpMaxVarbinds");
+
+        if(maxVarbinds != null && maxVarbinds.length() > 0) {
+            try {
+                this.snmpMaxVarbinds = Integer.parseInt(maxVarbinds);
+            }
+            catch(NumberFormatException e) {
+                String snmpMaxVarbindsParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": can't parse SNMP max varbinds setting to integer.";
+                this.logException("ERROR", "NODE PARSE SETTINGS", snmpMaxVarbindsParseMessage, e);
+                return false;
+            }
+
+            if(this.snmpMaxVarbinds < 1 || this.snmpMaxVarbinds > 100) {
+                String snmpMaxVarbindsFailMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": SNMP max varbinds must be between 1 and 100.";
+                this.logMessage("ERROR", "NODE PARSE SETTINGS", snmpMaxVarbindsFailMessage);
+                return false;
+            }
+        }
+
+        /*
+         * Rows per GETBULK response
+         */
+        String maxRepetitions = this.settings.get("snmpMaxRepetitions");
+
+        if(maxRepetitions != null && maxRepetitions.length() > 0) {
+            try {
+                this.snmpMaxRepetitions = Integer.parseInt(maxRepetitions);
+            }
+            catch(NumberFormatException e) {
+                String snmpMaxRepetitionsParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": can't parse SNMP max repetitions setting to integer.";
+                this.logException("ERROR", "NODE PARSE SETTINGS", snmpMaxRepetitionsParseMessage, e);
+                return false;
+            }
+
+            if(this.snmpMaxRepetitions < 1 || this.snmpMaxRepetitions > 100) {
+                String snmpMaxRepetitionsFailMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": SNMP max repetitions must be between 1 and 100.";
+                this.logMessage("ERROR", "NODE PARSE SETTINGS", snmpMaxRepetitionsFailMessage);
+                return false;
+            }
+        }
+
         return true;
     }
 
@@ -212,7 +282,10 @@ public class GeneralSnmp extends AbstractProtocol {
         String version            = this.credentials.get("snmp_version");
         String port               = this.credentials.get("port_snmp");
 
-        if(this.snmpRead == null || this.snmpRead.length() == 0) {
+        // SNMPv3 uses USM user instead of communities
+        Boolean communityRequired = !"2".equals(version);
+
+        if(communityRequired && (this.snmpRead == null || this.snmpRead.length() == 0)) {
             String noReadCommunityMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": SNMP read community is not set.";
             this.logMessage("ERROR", "NODE PARSE CREDENTIALS", noReadCommunityMessage);
             return false;
@@ -231,7 +304,7 @@ public class GeneralSnmp extends AbstractProtocol {
         }
 
         // SNMP write community is required but not set
-        if(this.snmpSet == null || this.snmpSet.length() == 0) {
+        if(communityRequired && (this.snmpSet == null || this.snmpSet.length() == 0)) {
 
             for(Map.Entry<String, Map<String, String>> entry : this.jobs.entrySet()) {
 
@@ -298,34 +371,37 @@ public class GeneralSnmp extends AbstractProtocol {
                 return false;
             }
 
-            this.snmp = new Snmp(new DefaultUdpTransportMapping());
-            this.snmp.listen();
+            // shared session, not closed by worker
+            this.snmp = SnmpSingleton.getInstance(this.settings);
 
             Address address = new UdpAddress(nodeIp + "/" + this.snmpPort.toString());
 
-            this.target = new CommunityTarget<Address>();
-            this.target.setAddress(address);
-            this.target.setTimeout(this.snmpTimeout);
-            this.target.setRetries(this.snmpRetries);
-            this.target.setCommunity(new OctetString(this.snmpRead));
-
-            this.requestPDU = new PDU();
-            this.requestPDU.setType(PDU.GET);
-
             switch (this.snmpVer) {
                 case 0:
-                    this.target.setVersion(SnmpConstants.version1);
+                    this.target = this.createCommunityTarget(address, SnmpConstants.version1);
                     break;
                 case 1:
-                    this.target.setVersion(SnmpConstants.version2c);
+                    this.target = this.createCommunityTarget(address, SnmpConstants.version2c);
+                    break;
+                case 2:
+                    // engine ID discovery on first contact, cached by shared session
+                    this.target = this.snmp.createUserTarget(address, this.credentials, this.snmpTimeout, this.snmpRetries);
+                    if (this.target == null) {
+                        String engineTimeoutMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                ": agent timeout. SNMPv3 engine discovery failed.";
+                        this.logMessage("ERROR", "NODE REQUEST", engineTimeoutMessage);
+                        return false;
+                    }
                     break;
-                // ver 3 is not supported yet
                 default:
                     String credentialsMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": wrong SNMP version.";
                     this.logMessage("ERROR", "NODE REQUEST", credentialsMessage);
                     return false;
             }
 
+            this.requestPDU = SnmpSingleton.createPdu(this.target);
+            this.requestPDU.setType(PDU.GET);
+
         }
         catch (Exception e) {
             String snmpObjectInitMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't create SNMP object.";
@@ -351,6 +427,15 @@ public class GeneralSnmp extends AbstractProtocol {
             String tableField       = jobInfo.get("table_field");
             String currentVariable  = jobInfo.get("command_var");
 
+            /*
+             * SET jobs and jobs depending on batched GET results wait for the batch
+             */
+            if(!snmpRequestType.equals("get") || this.dependsOnBatch(command, currentVariable)) {
+                if(!this.sendBatch()) {
+                    return false;
+                }
+            }
+
             /*
              * Put empty variable to map
              */
@@ -361,46 +446,56 @@ public class GeneralSnmp extends AbstractProtocol {
             /*
              * Injecting variables to commands
              */
-            if(command.contains("%%")) {
-
-                // Searching variable in command
-                for(Map.Entry<String, DTOVariableConvertResult> varEntry : this.variables.entrySet()) {
-                    if( command.contains(varEntry.getKey())) {
-                        // Variable found
-                        // If variable is converted, sending command with injected variable
-                        if(varEntry.getValue().getAction().equals("process")) {
-                            // check if empty
-                            if(entry.getValue() != null && varEntry.getValue().getResult() != null && varEntry.getValue().getResult().length() > 0) {
-                                command = command.replaceAll(varEntry.getKey(), varEntry.getValue().getResult());
-                            }
-                            else {
-                                String snmpSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                        ": empty variable value returned. Command: " + command + ". Variable:" + varEntry.getValue().getVariableName() + ".  SNMP request: set custom variable failed. Check your command.";
-                                this.logMessage("ERROR", "NODE REQUEST", snmpSetVarFailedMessage);
-                                return false;
-                            }
+            CommandTemplate template = CommandTemplate.compile(command);
+
+            if(template.hasVariables()) {
+
+                Map<String, String> values = new HashMap<>();
+
+                // Only variables referenced by command are looked up
+                for(String variableName : template.getVariables()) {
+
+                    if(!this.variables.containsKey(variableName)) {
+                        continue;
+                    }
+
+                    DTOVariableConvertResult variable = this.variables.get(variableName);
+
+                    // If variable is converted, sending command with injected variable
+                    if(variable == null || variable.getAction().equals("process")) {
+                        // check if empty
+                        if(variable != null && variable.getResult() != null && variable.getResult().length() > 0) {
+                            values.put(variableName, variable.getResult());
                         }
                         else {
-                            switch (varEntry.getValue().getStatus()) {
-                                // If variable converted with error, sending exception log
-                                case "exception":
-                                    String variableConvertMessageError = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": variable convertion error. Variable: " + varEntry.getValue().getVariableName() + ". Message: " + varEntry.getValue().getMessage();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertMessageError);
-                                    return false;
-                                // If variable converted successfully, but action is restrict, skip command and use variable convert result as command result
-                                case "success":
-                                    skipCommand = true;
-                                    break;
-                                default:
-                                    String variableConvertStatusUnknown = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": unknown status of variable convertion. Variable: " + varEntry.getValue().getVariableName() + ". Status: " + varEntry.getValue().getStatus();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertStatusUnknown);
-                                    return false;
-                            }
+                            String snmpSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                    ": empty variable value returned. Command: " + command + ". Variable:" + variableName + ".  SNMP request: set custom variable failed. Check your command.";
+                            this.logMessage("ERROR", "NODE REQUEST", snmpSetVarFailedMessage);
+                            return false;
+                        }
+                    }
+                    else {
+                        switch (variable.getStatus()) {
+                            // If variable converted with error, sending exception log
+                            case "exception":
+                                String variableConvertMessageError = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": variable convertion error. Variable: " + variable.getVariableName() + ". Message: " + variable.getMessage();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertMessageError);
+                                return false;
+                            // If variable converted successfully, but action is restrict, skip command and use variable convert result as command result
+                            case "success":
+                                skipCommand = true;
+                                break;
+                            default:
+                                String variableConvertStatusUnknown = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": unknown status of variable convertion. Variable: " + variable.getVariableName() + ". Status: " + variable.getStatus();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertStatusUnknown);
+                                return false;
                         }
                     }
                 }
+
+                command = template.render(values);
             }
 
             /*
@@ -418,6 +513,15 @@ public class GeneralSnmp extends AbstractProtocol {
                 }
             }
 
+            /*
+             * Batch is sent with single timeout
+             */
+            if(skipCommand || !timeoutInt.equals(this.batchTimeout)) {
+                if(!this.sendBatch()) {
+                    return false;
+                }
+            }
+
             if(snmpRequestType.equals("set")) {
                 /*
                  * --------SNMP SET CASE----------
@@ -440,7 +544,7 @@ public class GeneralSnmp extends AbstractProtocol {
                     /*
                      * Change community to SNMP-write community
                      */
-                    this.target.setCommunity(new OctetString(this.snmpSet));
+                    this.setCommunity(this.snmpSet);
 
                     // Change PDU type to SET
                     this.requestPDU.setType(PDU.SET);
@@ -509,9 +613,9 @@ public class GeneralSnmp extends AbstractProtocol {
                 this.requestPDU.clear(); // clear PDU
 
             }
-            else {
+            else if(snmpRequestType.equals("walk")) {
                 /*
-                 * --------SNMP GET CASE----------
+                 * --------SNMP WALK CASE----------
                  */
 
                 // adding keys to result, adding data to temp map
@@ -520,14 +624,43 @@ public class GeneralSnmp extends AbstractProtocol {
                 }
 
                 if(!skipCommand) {
+                    OID oid;
+
                     /*
-                     * set PDU-type to GET
+                     * Trying convert text to OID
                      */
-                    this.requestPDU.setType(PDU.GET);
+                    try {
+                        oid = new OID(command);
+                    } catch (Exception e) {
+                        String snmpWalkOidConvertMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": " + command +
+                                " can't convert to SNMP OID.";
+                        this.logException("ERROR", "NODE REQUEST", snmpWalkOidConvertMessage, e);
+                        return false;
+                    }
+
                     /*
-                     * set read-community
+                     * SNMP-walk send requests
                      */
-                    this.target.setCommunity(new OctetString(this.snmpRead));
+                    if(!this.sendWalk(timeoutInt, oid, currentVariable, tableField)) {
+                        return false;
+                    }
+                }
+                else if(!this.sendRequest(timeoutInt, currentVariable, tableField, true)) {
+                    return false;
+                }
+
+            }
+            else {
+                /*
+                 * --------SNMP GET CASE----------
+                 */
+
+                // adding keys to result, adding data to temp map
+                if (tableField != null && tableField.length() > 0) {
+                    this.result.data.put(tableField, "");
+                }
+
+                if(!skipCommand) {
                     OID oid;
 
 
@@ -544,27 +677,134 @@ public class GeneralSnmp extends AbstractProtocol {
                     }
 
                     /*
-                     * Add GET-oids to PDU
+                     * Add GET-oid to batch, batch is sent when full
                      */
-                    try {
-                        this.requestPDU.add(new VariableBinding(oid));
-                    } catch (Exception e) {
-                        String snmpAddGetToPduMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                ": can't add SNMP OID to PDU. Please check SNMP OID.";
-                        this.logException("WARNING", "NODE REQUEST", snmpAddGetToPduMessage, e);
+                    this.batchedGets.add(new BatchedGet(oid, currentVariable, tableField));
+                    this.batchTimeout = timeoutInt;
+
+                    if(this.batchedGets.size() >= this.snmpMaxVarbinds && !this.sendBatch()) {
                         return false;
                     }
+
+                    continue;
                 }
 
                 /*
-                 * SNMP-get send request
+                 * SNMP-get skipped command
                  */
                 if(!this.sendRequest(timeoutInt, currentVariable, tableField, skipCommand)) {
                     return false;
                 }
 
-                this.requestPDU.clear(); // clear PDU
+            }
+        }
+
+        /*
+         * Remaining batched GET jobs
+         */
+        return this.sendBatch();
+    }
+
+
+    /**
+     * SNMPv1/v2c target
+     *
+     * @param address - agent address
+     * @param version - SNMP version
+     * @return CommunityTarget
+     */
+    private CommunityTarget<Address> createCommunityTarget(Address address, Integer version)
+    {
+        CommunityTarget<Address> communityTarget = new CommunityTarget<>();
+        communityTarget.setAddress(address);
+        communityTarget.setTimeout(this.snmpTimeout);
+        communityTarget.setRetries(this.snmpRetries);
+        communityTarget.setCommunity(new OctetString(this.snmpRead));
+        communityTarget.setVersion(version);
+
+        return communityTarget;
+    }
+
+
+    /**
+     * Set request community, SNMPv3 target is not changed
+     *
+     * @param community - read or write community
+     */
+    @SuppressWarnings("unchecked")
+    private void setCommunity(String community)
+    {
+        if (this.target instanceof CommunityTarget) {
+            ((CommunityTarget<Address>) this.target).setCommunity(new OctetString(community));
+        }
+    }
+
+
+    /**
+     * Walk subtree, rows are saved as "OID = value" lines
+     * Rows of table field without variable are written to temp file as they arrive,
+     * when they reach outputSpillThreshold setting, and are saved as file, without converting
+     *
+     * @param timeout           - request timeout
+     * @param root              - subtree root
+     * @param currentVariable   - job variable
+     * @param currentTableField - job table field
+     * @return Boolean SNMP walk success
+     */
+    private Boolean sendWalk(Integer timeout, OID root, String currentVariable, String currentTableField)
+    {
+        Boolean spillAllowed = currentTableField != null && currentTableField.length() > 0 && (currentVariable == null || currentVariable.length() == 0);
+        SnmpWalker walker    = new SnmpWalker(this.snmp, this.target, this.snmpMaxRepetitions);
+
+        /*
+         * set read-community, custom timeout
+         */
+        this.setCommunity(this.snmpRead);
+        this.target.setTimeout(timeout);
+
+        try (WalkRows rows = new WalkRows(spillAllowed ? this.getSpillDirectory() : null, this.getSpillThreshold())) {
+
+            boolean walkSuccess;
+
+            try {
+                walkSuccess = walker.walk(root, rows::add);
+            }
+            catch (Exception e) {
+                String snmpWalkMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't perform snmpwalk() operation.";
+                this.logException("WARNING", "NODE REQUEST", snmpWalkMessage, e);
+                return false;
+            }
+            finally {
+                this.target.setTimeout(this.snmpTimeout);
+            }
+
+            if(rows.getFailure() != null) {
+                String spillMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": can't spill walk result of " + currentTableField + " to disk.";
+                this.logException("WARNING", "NODE REQUEST", spillMessage, rows.getFailure());
+                return false;
+            }
+
+            if(!walkSuccess) {
+                String snmpWalkErrorMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": SNMP walk error - " + walker.getError() + ".";
+                this.logMessage("ERROR", "NODE REQUEST", snmpWalkErrorMessage);
+                return false;
+            }
 
+            if(rows.isSpilled()) {
+                try {
+                    this.putResultFile(currentTableField, rows.release());
+                }
+                catch (IOException e) {
+                    String spillMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                            ": can't spill walk result of " + currentTableField + " to disk.";
+                    this.logException("WARNING", "NODE REQUEST", spillMessage, e);
+                    return false;
+                }
+            }
+            else {
+                this.saveResult(currentVariable, currentTableField, rows.toString());
             }
         }
 
@@ -573,58 +813,156 @@ public class GeneralSnmp extends AbstractProtocol {
 
 
     /**
-     * Sending get request
+     * Check if job can't be batched with pending GET jobs
+     * Job depends on batch if it uses or overwrites variable of batched job
      *
-     * @return Boolean SNMP GET-SET send success
+     * @param command         - raw job command
+     * @param currentVariable - job variable
+     * @return Boolean
      */
-    private Boolean sendRequest(Integer timeout, String currentVariable, String currentTableField, Boolean skipCommand)
+    private Boolean dependsOnBatch(String command, String currentVariable)
     {
+        for(BatchedGet batchedGet : this.batchedGets) {
 
-        Boolean saveRequired   = currentTableField != null && currentTableField.length() > 0;
-        Boolean putVarRequired = currentVariable != null && currentVariable.length() > 0;
+            if(batchedGet.variable == null || batchedGet.variable.length() == 0) {
+                continue;
+            }
 
-        String valueToSave;
+            if((command != null && command.contains(batchedGet.variable)) || batchedGet.variable.equals(currentVariable)) {
+                return true;
+            }
+        }
 
-        if(!skipCommand) {
-            // set custom timeout
-            if (!timeout.equals(this.snmpTimeout)) {
-                this.target.setTimeout(timeout);
+        return false;
+    }
+
+
+    /**
+     * Send batched GET jobs in one PDU
+     * Falls back to single OID requests if agent can't answer the whole PDU
+     *
+     * @return Boolean SNMP GET send success
+     */
+    private Boolean sendBatch()
+    {
+
+        if(this.batchedGets.isEmpty()) {
+            return true;
+        }
+
+        List<BatchedGet> batch = new ArrayList<>(this.batchedGets);
+        Integer timeout        = this.batchTimeout;
+
+        this.batchedGets.clear();
+        this.batchTimeout = null;
+
+        if(batch.size() > 1) {
+
+            this.setGetRequest(batch);
+
+            PDU responsePDU = this.getResponse(timeout);
+            this.requestPDU.clear();
+
+            if (responsePDU == null) {
+                return false;
             }
 
-            PDU responsePDU;
-            ResponseEvent<Address> responseEvent;
+            List<? extends VariableBinding> varBindings = responsePDU.getVariableBindings();
 
             /*
-             * Sending request
+             * tooBig, noSuchName(v1) or any other error - retry OIDs one by one to get exact result per job
              */
-            try {
-                responseEvent = this.snmp.send(this.requestPDU, this.target);
-                // unset custom timeout
-                if (!timeout.equals(this.snmpTimeout)) {
-                    this.target.setTimeout(this.snmpTimeout);
+            if (responsePDU.getErrorStatus() != PDU.noError || varBindings == null || varBindings.size() != batch.size()) {
+                String batchFallbackMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": multi-OID request failed - " + responsePDU.getErrorStatusText() + ". Sending OIDs one by one.";
+                this.logMessage("DEBUG", "NODE REQUEST", batchFallbackMessage);
+            }
+            else {
+                for (int i = 0; i < batch.size(); i++) {
+
+                    BatchedGet batchedGet = batch.get(i);
+                    VariableBinding vb    = varBindings.get(i);
+
+                    // exception varbind is requested again, single request reports exact error
+                    if (vb.isException() || !vb.getOid().equals(batchedGet.oid)) {
+                        if (!this.sendSingleGet(batchedGet, timeout)) {
+                            return false;
+                        }
+                        continue;
+                    }
+
+                    String sVar = vb.getVariable().toString();
+                    this.saveResult(batchedGet.variable, batchedGet.tableField, sVar == null ? "" : sVar);
                 }
-            } catch (Exception e) {
-                String snmpSendGetMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't send snmpget() request.";
-                this.logException("WARNING", "NODE REQUEST", snmpSendGetMessage, e);
-                return false;
+
+                return true;
             }
+        }
 
-            /*
-             * Response processing
-             */
-            if (responseEvent == null) {
-                String responseEventMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                        ": agent timeout. Node offline or wrong community.";
-                this.logMessage("ERROR", "NODE REQUEST", responseEventMessage);
+        for (BatchedGet batchedGet : batch) {
+            if (!this.sendSingleGet(batchedGet, timeout)) {
                 return false;
             }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Send single batched GET job
+     *
+     * @param batchedGet - GET job
+     * @param timeout    - job timeout
+     * @return Boolean SNMP GET send success
+     */
+    private Boolean sendSingleGet(BatchedGet batchedGet, Integer timeout)
+    {
+        this.setGetRequest(Collections.singletonList(batchedGet));
+
+        Boolean success = this.sendRequest(timeout, batchedGet.variable, batchedGet.tableField, false);
+        this.requestPDU.clear(); // clear PDU
+
+        return success;
+    }
+
 
-            responsePDU = responseEvent.getResponse();
+    /**
+     * Prepare GET PDU with read community
+     *
+     * @param batch - GET jobs
+     */
+    private void setGetRequest(List<BatchedGet> batch)
+    {
+        /*
+         * set PDU-type to GET
+         */
+        this.requestPDU.setType(PDU.GET);
+        /*
+         * set read-community
+         */
+        this.setCommunity(this.snmpRead);
+
+        for (BatchedGet batchedGet : batch) {
+            this.requestPDU.add(new VariableBinding(batchedGet.oid));
+        }
+    }
+
+
+    /**
+     * Sending get request
+     *
+     * @return Boolean SNMP GET-SET send success
+     */
+    private Boolean sendRequest(Integer timeout, String currentVariable, String currentTableField, Boolean skipCommand)
+    {
+
+        String valueToSave;
+
+        if(!skipCommand) {
+            PDU responsePDU = this.getResponse(timeout);
 
             if (responsePDU == null) {
-                String responsePduMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                        ": empty response PDU. Node offline or wrong community.";
-                this.logMessage("ERROR", "NODE REQUEST", responsePduMessage);
                 return false;
             }
 
@@ -696,38 +1034,99 @@ public class GeneralSnmp extends AbstractProtocol {
             valueToSave = "";
         }
 
-        if (saveRequired || putVarRequired) {
+        this.saveResult(currentVariable, currentTableField, valueToSave);
 
-            /*
-            * Converting variable, if necessary
-            */
-            DTOVariableConvertResult currentResultDTO = this.convertVariable(this.coordinates.get("taskName"), currentTableField, currentVariable, valueToSave);
+        return true;
+    }
 
 
-            if (saveRequired) {
-                this.result.data.put(currentTableField, currentResultDTO.getResult());
+    /**
+     * Send request PDU and wait for response
+     *
+     * @param timeout - request timeout
+     * @return PDU - response PDU, null on failure
+     */
+    private PDU getResponse(Integer timeout)
+    {
+        // set custom timeout
+        if (!timeout.equals(this.snmpTimeout)) {
+            this.target.setTimeout(timeout);
+        }
+
+        PDU responsePDU;
+        ResponseEvent<Address> responseEvent;
+
+        /*
+         * Sending request
+         * Shared session limits requests in flight. Node jobs are sequential and run on task's bounded node pool,
+         * so node thread waits for its own GET response only, walks are chained without waiting per request
+         */
+        try {
+            responseEvent = this.snmp.sendAsync(this.requestPDU, this.target).get();
+            // unset custom timeout
+            if (!timeout.equals(this.snmpTimeout)) {
+                this.target.setTimeout(this.snmpTimeout);
             }
+        } catch (Exception e) {
+            String snmpSendGetMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't send snmpget() request.";
+            this.logException("WARNING", "NODE REQUEST", snmpSendGetMessage, e);
+            return null;
+        }
 
-            if (putVarRequired) {
-                this.variables.put(currentVariable, currentResultDTO);
+        /*
+         * Response processing
+         */
+        if (responseEvent == null) {
+            String responseEventMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                    ": agent timeout. Node offline or wrong community.";
+            this.logMessage("ERROR", "NODE REQUEST", responseEventMessage);
+            return null;
+        }
+
+        responsePDU = responseEvent.getResponse();
+
+        if (responsePDU == null) {
+            // engine may have changed, SNMPv3 engine is discovered again next time
+            if (this.target.getVersion() == SnmpConstants.version3) {
+                this.snmp.forgetEngine(this.target.getAddress());
             }
+            String responsePduMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                    ": empty response PDU. Node offline or wrong community.";
+            this.logMessage("ERROR", "NODE REQUEST", responsePduMessage);
+            return null;
         }
 
-        return true;
+        return responsePDU;
     }
 
 
     /**
-     * Trying to close SNMP session
+     * Save job result and variable
+     *
+     * @param currentVariable   - job variable
+     * @param currentTableField - job table field
+     * @param valueToSave       - response value
      */
-    private void closeSnmp()
+    private void saveResult(String currentVariable, String currentTableField, String valueToSave)
     {
-        try {
-            this.snmp.close();
-        }
-        catch (IOException e) {
-            String snmpCloseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't close SNMP session.";
-            this.logException("ERROR", "NODE REQUEST", snmpCloseMessage, e);
+        Boolean saveRequired   = currentTableField != null && currentTableField.length() > 0;
+        Boolean putVarRequired = currentVariable != null && currentVariable.length() > 0;
+
+        if (saveRequired || putVarRequired) {
+
+            /*
+            * Converting variable, if necessary
+            */
+            DTOVariableConvertResult currentResultDTO = this.convertVariable(this.coordinates.get("taskName"), currentTableField, currentVariable, valueToSave);
+
+
+            if (saveRequired) {
+                this.putResult(currentTableField, currentResultDTO.getResult());
+            }
+
+            if (putVarRequired) {
+                this.variables.put(currentVariable, currentResultDTO);
+            }
         }
     }
 
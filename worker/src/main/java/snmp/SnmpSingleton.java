@@ -0,0 +1,290 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import org.snmp4j.MessageDispatcherImpl;
+import org.snmp4j.PDU;
+import org.snmp4j.ScopedPDU;
+import org.snmp4j.Snmp;
+import org.snmp4j.Target;
+import org.snmp4j.TransportMapping;
+import org.snmp4j.UserTarget;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.event.ResponseListener;
+import org.snmp4j.mp.MPv1;
+import org.snmp4j.mp.MPv2c;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.security.USM;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.UdpAddress;
+import org.snmp4j.transport.DefaultUdpTransportMapping;
+import org.snmp4j.util.MultiThreadedMessageDispatcher;
+import org.snmp4j.util.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Process-wide SNMP session shared by all SNMP workers and discovery
+ * Small pool of UDP transports, requests are spread between them round-robin,
+ * responses are matched to requests by request id.
+ * Requests are sent asynchronously, number of requests in flight is bounded.
+ * SNMPv3 engine IDs and localized keys are shared between workers.
+ * Implemented using the singleton pattern.
+ */
+public final class SnmpSingleton {
+
+    private static final int DEFAULT_TRANSPORTS = 4;
+    private static final int DEFAULT_IN_FLIGHT  = 512;
+
+    // Singleton static instance for the class
+    private static SnmpSingleton _instance = null;
+
+    private final Snmp snmp;
+    private final List<TransportMapping<UdpAddress>> transports = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Semaphore inFlight;
+    private final SnmpV3Security v3Security;
+
+
+    /**
+     * Constructor
+     * Defined as private to prevent instantiation
+     *
+     * @param transportCount int - UDP transport count
+     * @param maxInFlight    int - max requests waiting for response
+     * @throws IOException on socket bind failure
+     */
+    private SnmpSingleton(int transportCount, int maxInFlight) throws IOException {
+
+        this.inFlight = new Semaphore(maxInFlight);
+
+        MultiThreadedMessageDispatcher dispatcher = new MultiThreadedMessageDispatcher(
+                ThreadPool.create("snmp-dispatcher", transportCount), new MessageDispatcherImpl());
+
+        dispatcher.addMessageProcessingModel(new MPv1());
+        dispatcher.addMessageProcessingModel(new MPv2c());
+
+        USM usm   = SnmpV3Security.createUsm();
+        MPv3 mpv3 = new MPv3(usm);
+        dispatcher.addMessageProcessingModel(mpv3);
+
+        this.snmp       = new Snmp(dispatcher);
+        this.v3Security = new SnmpV3Security(this.snmp, mpv3, usm);
+
+        for (int i = 0; i < transportCount; i++) {
+            DefaultUdpTransportMapping transport = new DefaultUdpTransportMapping();
+            this.snmp.addTransportMapping(transport);
+            this.transports.add(transport);
+        }
+
+        this.snmp.listen();
+    }
+
+
+    /**
+     * Get the instance of the singleton
+     * Transport count and in-flight limit are taken from snmpTransports, snmpMaxInFlight settings on first call
+     *
+     * @param settings - app settings
+     * @return instance of the singleton
+     * @throws IOException on socket bind failure
+     */
+    public static synchronized SnmpSingleton getInstance(Map<String, String> settings) throws IOException {
+
+        if (_instance == null) {
+
+            int transportCount = getIntSetting(settings, "snmpTransports", DEFAULT_TRANSPORTS, 1, 64);
+            int maxInFlight    = getIntSetting(settings, "snmpMaxInFlight", DEFAULT_IN_FLIGHT, 1, 65535);
+
+            _instance = new SnmpSingleton(transportCount, maxInFlight);
+        }
+
+        return _instance;
+    }
+
+
+    /**
+     * Parse integer setting
+     *
+     * @param settings     - app settings
+     * @param name         - setting name
+     * @param defaultValue - value if setting is not set or invalid
+     * @param min          - min value
+     * @param max          - max value
+     * @return int
+     */
+    private static int getIntSetting(Map<String, String> settings, String name, int defaultValue, int min, int max) {
+
+        String value = settings.get(name);
+
+        if(value == null || value.length() == 0) {
+            return defaultValue;
+        }
+
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        }
+        catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+
+    /**
+     * Shared session, must not be closed by workers
+     *
+     * @return Snmp
+     */
+    public Snmp getSnmp() {
+        return this.snmp;
+    }
+
+
+    /**
+     * Next transport, round-robin
+     *
+     * @return TransportMapping
+     */
+    TransportMapping<UdpAddress> nextTransport() {
+        return this.transports.get(Math.floorMod(this.next.getAndIncrement(), this.transports.size()));
+    }
+
+
+    /**
+     * Create SNMPv3 target
+     * Agent engine ID is discovered with one round trip on first use and cached,
+     * USM keys are localized once per agent engine.
+     *
+     * @param address     - agent address
+     * @param credentials - node credentials, snmp_v3_* keys
+     * @param timeout     - request timeout
+     * @param retries     - request retries
+     * @return UserTarget, null if agent did not answer engine discovery
+     * @throws IllegalArgumentException on wrong credentials
+     */
+    public UserTarget<Address> createUserTarget(Address address, Map<String, String> credentials, long timeout, int retries) {
+        return this.v3Security.createTarget(address, credentials, timeout, retries);
+    }
+
+
+    /**
+     * Create empty request PDU for target version
+     *
+     * @param target - agent target
+     * @return PDU, ScopedPDU for SNMPv3
+     */
+    public static PDU createPdu(Target<?> target) {
+        return target.getVersion() == SnmpConstants.version3 ? new ScopedPDU() : new PDU();
+    }
+
+
+    /**
+     * Forget cached SNMPv3 agent engine
+     * Should be called when agent stops responding, engine ID may change after device replacement
+     *
+     * @param address - agent address
+     */
+    public void forgetEngine(Address address) {
+        this.v3Security.forgetEngine(address);
+    }
+
+
+    /**
+     * Synchronous request via next transport
+     *
+     * @param pdu    PDU    - request PDU
+     * @param target Target - agent target
+     * @return ResponseEvent, response is null on timeout
+     * @throws IOException on send failure
+     */
+    public ResponseEvent<Address> send(PDU pdu, Target<Address> target) throws IOException {
+        return this.snmp.send(pdu, target, this.nextAddressTransport());
+    }
+
+
+    /**
+     * Asynchronous request via next transport
+     * Blocks caller only while in-flight limit is reached.
+     * Future is completed on SNMP dispatcher or timer thread, so dependent stages
+     * which send further requests or block must run on own executor.
+     *
+     * @param pdu    PDU    - request PDU, must not be changed until completion
+     * @param target Target - agent target, must not be changed until completion
+     * @return CompletableFuture of ResponseEvent, response is null on timeout
+     */
+    public CompletableFuture<ResponseEvent<Address>> sendAsync(PDU pdu, Target<Address> target) {
+
+        CompletableFuture<ResponseEvent<Address>> future = new CompletableFuture<>();
+        AtomicBoolean released = new AtomicBoolean(false);
+
+        try {
+            this.inFlight.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        ResponseListener listener = new ResponseListener() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <A extends Address> void onResponse(ResponseEvent<A> event) {
+                // stop retransmissions and free request slot
+                ((Snmp) event.getSource()).cancel(event.getRequest(), this);
+                if(released.compareAndSet(false, true)) {
+                    inFlight.release();
+                }
+                future.complete((ResponseEvent<Address>) event);
+            }
+        };
+
+        try {
+            this.snmp.send(pdu, target, this.nextAddressTransport(), null, listener);
+        }
+        catch (IOException | RuntimeException e) {
+            if(released.compareAndSet(false, true)) {
+                this.inFlight.release();
+            }
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+
+    /**
+     * Next transport typed for Address targets
+     *
+     * @return TransportMapping
+     */
+    @SuppressWarnings("unchecked")
+    private TransportMapping<? super Address> nextAddressTransport() {
+        return (TransportMapping<? super Address>) (TransportMapping<?>) this.nextTransport();
+    }
+
+}
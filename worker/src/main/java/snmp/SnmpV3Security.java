@@ -0,0 +1,273 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import org.snmp4j.Snmp;
+import org.snmp4j.UserTarget;
+import org.snmp4j.mp.MPv3;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.security.*;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * SNMPv3 USM state shared by all SNMP workers
+ *
+ * Engine ID of each agent is discovered once, boots/time are kept by USM,
+ * keys are localized once per agent engine and user. After first contact
+ * v3 request costs the same round trips as v2c request.
+ *
+ * Credentials keys:
+ * snmp_v3_user, snmp_v3_auth_protocol (md5|sha|sha224|sha256|sha384|sha512), snmp_v3_auth_password,
+ * snmp_v3_priv_protocol (des|3des|aes|aes128|aes192|aes256), snmp_v3_priv_password
+ */
+final class SnmpV3Security {
+
+    private static final Map<String, OID> AUTH_PROTOCOLS = new HashMap<>();
+    private static final Map<String, OID> PRIV_PROTOCOLS = new HashMap<>();
+    static {
+        AUTH_PROTOCOLS.put("md5", AuthMD5.ID);
+        AUTH_PROTOCOLS.put("sha", AuthSHA.ID);
+        AUTH_PROTOCOLS.put("sha224", AuthHMAC128SHA224.ID);
+        AUTH_PROTOCOLS.put("sha256", AuthHMAC192SHA256.ID);
+        AUTH_PROTOCOLS.put("sha384", AuthHMAC256SHA384.ID);
+        AUTH_PROTOCOLS.put("sha512", AuthHMAC384SHA512.ID);
+
+        PRIV_PROTOCOLS.put("des", PrivDES.ID);
+        PRIV_PROTOCOLS.put("3des", Priv3DES.ID);
+        PRIV_PROTOCOLS.put("aes", PrivAES128.ID);
+        PRIV_PROTOCOLS.put("aes128", PrivAES128.ID);
+        PRIV_PROTOCOLS.put("aes192", PrivAES192.ID);
+        PRIV_PROTOCOLS.put("aes256", PrivAES256.ID);
+    }
+
+    private final Snmp  snmp;
+    private final MPv3  mpv3;
+    private final USM   usm;
+
+    /*
+     * Agent address => authoritative engine ID
+     */
+    private final Map<Address, OctetString> engineIds = new ConcurrentHashMap<>();
+
+    /*
+     * Engine ID + user => credentials the localized keys were made from
+     */
+    private final Map<String, UsmUser> localizedUsers = new ConcurrentHashMap<>();
+
+
+    /**
+     * Constructor
+     *
+     * @param snmp - shared session
+     * @param mpv3 - message processing model registered in session
+     * @param usm  - security model used by mpv3
+     */
+    SnmpV3Security(Snmp snmp, MPv3 mpv3, USM usm) {
+        this.snmp = snmp;
+        this.mpv3 = mpv3;
+        this.usm  = usm;
+    }
+
+
+    /**
+     * Create USM with all supported protocols
+     *
+     * @return USM
+     */
+    static USM createUsm() {
+
+        SecurityProtocols protocols = SecurityProtocols.getInstance().addDefaultProtocols();
+        protocols.addPrivacyProtocol(new PrivDES());
+        protocols.addPrivacyProtocol(new Priv3DES());
+
+        return new USM(protocols, new OctetString(MPv3.createLocalEngineID()), 0);
+    }
+
+
+    /**
+     * Create v3 target, agent engine is discovered on first call
+     *
+     * @param address     - agent address
+     * @param credentials - node credentials
+     * @param timeout     - request timeout
+     * @param retries     - request retries
+     * @return UserTarget, null if agent did not answer engine discovery
+     * @throws IllegalArgumentException on wrong credentials
+     */
+    UserTarget<Address> createTarget(Address address, Map<String, String> credentials, long timeout, int retries) {
+
+        String userName     = credentials.get("snmp_v3_user");
+        String authProtocol = credentials.get("snmp_v3_auth_protocol");
+        String authPassword = credentials.get("snmp_v3_auth_password");
+        String privProtocol = credentials.get("snmp_v3_priv_protocol");
+        String privPassword = credentials.get("snmp_v3_priv_password");
+
+        if (userName == null || userName.length() == 0) {
+            throw new IllegalArgumentException("SNMPv3 user is not set");
+        }
+
+        OID authId = this.getProtocol(AUTH_PROTOCOLS, authProtocol, "authentication");
+        OID privId = this.getProtocol(PRIV_PROTOCOLS, privProtocol, "privacy");
+
+        if (authId == null && privId != null) {
+            throw new IllegalArgumentException("SNMPv3 privacy requires authentication");
+        }
+        if (authId != null && (authPassword == null || authPassword.length() < 8)) {
+            throw new IllegalArgumentException("SNMPv3 authentication password must be at least 8 characters");
+        }
+        if (privId != null && (privPassword == null || privPassword.length() < 8)) {
+            throw new IllegalArgumentException("SNMPv3 privacy password must be at least 8 characters");
+        }
+
+        OctetString engineId = this.getEngineId(address, timeout);
+
+        if (engineId == null) {
+            return null;
+        }
+
+        OctetString securityName = new OctetString(userName);
+        UsmUser user = new UsmUser(
+                securityName,
+                authId, authId == null ? null : new OctetString(authPassword),
+                privId, privId == null ? null : new OctetString(privPassword)
+        );
+
+        /*
+         * Localize keys only for new or changed credentials
+         */
+        String userKey = engineId.toHexString() + "/" + userName;
+        UsmUser known  = this.localizedUsers.get(userKey);
+
+        if (!this.isSameUser(known, user)) {
+            this.usm.addUser(securityName, engineId, user);
+            this.localizedUsers.put(userKey, user);
+        }
+
+        int securityLevel = SecurityLevel.NOAUTH_NOPRIV;
+        if (privId != null) {
+            securityLevel = SecurityLevel.AUTH_PRIV;
+        }
+        else if (authId != null) {
+            securityLevel = SecurityLevel.AUTH_NOPRIV;
+        }
+
+        UserTarget<Address> target = new UserTarget<>();
+        target.setAddress(address);
+        target.setVersion(SnmpConstants.version3);
+        target.setSecurityModel(SecurityModel.SECURITY_MODEL_USM);
+        target.setSecurityName(securityName);
+        target.setSecurityLevel(securityLevel);
+        target.setAuthoritativeEngineID(engineId.getValue());
+        target.setTimeout(timeout);
+        target.setRetries(retries);
+
+        return target;
+    }
+
+
+    /**
+     * Forget agent engine, e.g. after timeout, it is discovered again on next request
+     *
+     * @param address - agent address
+     */
+    void forgetEngine(Address address) {
+        OctetString engineId = this.engineIds.remove(address);
+        if (engineId != null) {
+            this.mpv3.removeEngineID(address);
+            this.usm.removeEngineTime(engineId);
+        }
+    }
+
+
+    /**
+     * Cached or discovered engine ID
+     *
+     * @param address - agent address
+     * @param timeout - discovery timeout
+     * @return OctetString, null on timeout
+     */
+    private OctetString getEngineId(Address address, long timeout) {
+
+        OctetString engineId = this.engineIds.get(address);
+
+        if (engineId != null) {
+            return engineId;
+        }
+
+        byte[] discovered = this.snmp.discoverAuthoritativeEngineID(address, timeout);
+
+        if (discovered == null || discovered.length == 0) {
+            return null;
+        }
+
+        engineId = new OctetString(discovered);
+        this.mpv3.addEngineID(address, engineId);
+        this.engineIds.put(address, engineId);
+
+        return engineId;
+    }
+
+
+    /**
+     * Compare protocols and passphrases
+     *
+     * @param known - user with localized keys
+     * @param user  - requested user
+     * @return boolean
+     */
+    private boolean isSameUser(UsmUser known, UsmUser user) {
+        return known != null
+            && Objects.equals(known.getAuthenticationProtocol(), user.getAuthenticationProtocol())
+            && Objects.equals(known.getAuthenticationPassphrase(), user.getAuthenticationPassphrase())
+            && Objects.equals(known.getPrivacyProtocol(), user.getPrivacyProtocol())
+            && Objects.equals(known.getPrivacyPassphrase(), user.getPrivacyPassphrase());
+    }
+
+
+    /**
+     * Protocol OID by name
+     *
+     * @param protocols - supported protocols
+     * @param name      - protocol name, empty or none for no protocol
+     * @param type      - protocol type for error message
+     * @return OID, null if not used
+     */
+    private OID getProtocol(Map<String, OID> protocols, String name, String type) {
+
+        if (name == null || name.length() == 0 || name.equalsIgnoreCase("none")) {
+            return null;
+        }
+
+        OID id = protocols.get(name.toLowerCase());
+
+        if (id == null) {
+            throw new IllegalArgumentException("unknown SNMPv3 " + type + " protocol " + name);
+        }
+
+        return id;
+    }
+
+}
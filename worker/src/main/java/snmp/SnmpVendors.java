@@ -0,0 +1,48 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import abstractions.ProtocolProvider;
+import abstractions.ProtocolRegistry;
+
+
+/**
+ * Vendor/model SNMP protocol classes
+ * How to add vendor class:
+ * - create class _VENDOR_Snmp(extends GeneralSnmp)
+ * - add 'registry.register("VENDOR", null, _VENDOR_Snmp.class, _VENDOR_Snmp::new);'
+ * How to add model class:
+ * - create class _VENDOR_MODEL_Snmp(extends GeneralSnmp)
+ * - add 'registry.register("VENDOR", "MODEL", _VENDOR_MODEL_Snmp.class, _VENDOR_MODEL_Snmp::new);'
+ *
+ * Provider is listed in META-INF/services/abstractions.ProtocolProvider
+ */
+public class SnmpVendors implements ProtocolProvider {
+
+    @Override
+    public void register(ProtocolRegistry<?> registry) {
+
+        if (!"snmp".equals(registry.getProtocol())) {
+            return;
+        }
+
+        registry.register("Dlink", null, _Dlink_Snmp.class, _Dlink_Snmp::new);
+        registry.register("Zyxel", null, _Zyxel_Snmp.class, _Zyxel_Snmp::new);
+    }
+
+}
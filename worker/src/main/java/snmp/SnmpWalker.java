@@ -0,0 +1,225 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import org.snmp4j.PDU;
+import org.snmp4j.Target;
+import org.snmp4j.event.ResponseEvent;
+import org.snmp4j.mp.SnmpConstants;
+import org.snmp4j.smi.Address;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+
+/**
+ * SNMP subtree walker
+ *
+ * GETBULK for v2c/v3 agents, GETNEXT for v1 agents.
+ * Rows are passed to handler as soon as each response arrives,
+ * nothing is collected in memory.
+ */
+public final class SnmpWalker {
+
+    public static final int DEFAULT_MAX_REPETITIONS = 20;
+
+    private final SnmpSingleton   snmp;
+    private final Target<Address> target;
+    private final int             maxRepetitions;
+
+    private volatile String error;
+
+
+    /**
+     * Row handler
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+
+        /**
+         * @param row VariableBinding - subtree row
+         * @return boolean - false stops walk
+         */
+        boolean row(VariableBinding row);
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param snmp           - shared SNMP session
+     * @param target         - agent target
+     * @param maxRepetitions - rows per GETBULK response
+     */
+    public SnmpWalker(SnmpSingleton snmp, Target<Address> target, int maxRepetitions) {
+        this.snmp           = snmp;
+        this.target         = target;
+        this.maxRepetitions = maxRepetitions;
+    }
+
+
+    /**
+     * Walk subtree, waiting thread sends requests and handles rows itself
+     *
+     * @param root    OID        - subtree root
+     * @param handler RowHandler - row consumer
+     * @return boolean - walk finished without agent error or timeout, see getError()
+     * @throws IOException on send failure
+     */
+    public boolean walk(OID root, RowHandler handler) throws IOException {
+
+        CallerRunsExecutor executor = new CallerRunsExecutor();
+
+        try {
+            return executor.join(this.walkAsync(root, handler, executor));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("SNMP walk interrupted");
+        }
+        catch (CompletionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+
+    /**
+     * Walk subtree asynchronously
+     * Next request is sent when response arrives, no thread waits for response.
+     * Rows are handled and next request is sent by executor, never by SNMP dispatcher thread
+     *
+     * @param root     OID        - subtree root
+     * @param handler  RowHandler - row consumer
+     * @param executor Executor   - executor for row handling and next request
+     * @return CompletableFuture - completed with walk success, see getError(), or exceptionally on send failure
+     */
+    public CompletableFuture<Boolean> walkAsync(OID root, RowHandler handler, Executor executor) {
+        this.error = null;
+        return this.walkFrom(root, root, handler, executor);
+    }
+
+
+    /**
+     * Request rows after current OID and continue with the next ones
+     *
+     * @param root     OID        - subtree root
+     * @param current  OID        - last received OID
+     * @param handler  RowHandler - row consumer
+     * @param executor Executor   - executor for row handling and next request
+     * @return CompletableFuture - walk success
+     */
+    private CompletableFuture<Boolean> walkFrom(OID root, OID current, RowHandler handler, Executor executor) {
+
+        boolean bulk   = this.target.getVersion() != SnmpConstants.version1;
+        PDU requestPDU = SnmpSingleton.createPdu(this.target);
+        requestPDU.add(new VariableBinding(current));
+
+        if (bulk) {
+            requestPDU.setType(PDU.GETBULK);
+            requestPDU.setNonRepeaters(0);
+            requestPDU.setMaxRepetitions(this.maxRepetitions);
+        }
+        else {
+            requestPDU.setType(PDU.GETNEXT);
+        }
+
+        return this.snmp.sendAsync(requestPDU, this.target).thenComposeAsync(responseEvent -> {
+
+            OID next = this.rows(root, current, bulk, responseEvent == null ? null : responseEvent.getResponse(), handler);
+
+            if (next == null) {
+                return CompletableFuture.completedFuture(this.error == null);
+            }
+
+            return this.walkFrom(root, next, handler, executor);
+
+        }, executor);
+    }
+
+
+    /**
+     * Pass response rows to handler
+     *
+     * @param root        OID        - subtree root
+     * @param current     OID        - requested OID
+     * @param bulk        boolean    - GETBULK request
+     * @param responsePDU PDU        - response, null on timeout
+     * @param handler     RowHandler - row consumer
+     * @return OID - last row OID to continue from, null if walk is finished or failed
+     */
+    private OID rows(OID root, OID current, boolean bulk, PDU responsePDU, RowHandler handler) {
+
+        if (responsePDU == null) {
+            this.error = "agent timeout";
+            return null;
+        }
+
+        if (responsePDU.getErrorStatus() != PDU.noError) {
+            // v1 agent reports end of MIB view with noSuchName
+            if (!bulk && responsePDU.getErrorStatus() == PDU.noSuchName) {
+                return null;
+            }
+            this.error = responsePDU.getErrorStatusText();
+            return null;
+        }
+
+        List<? extends VariableBinding> varBindings = responsePDU.getVariableBindings();
+
+        if (varBindings == null || varBindings.isEmpty()) {
+            return null;
+        }
+
+        for (VariableBinding varBinding : varBindings) {
+
+            OID oid = varBinding.getOid();
+
+            // endOfMibView or next subtree reached
+            if (varBinding.isException() || oid == null || !oid.startsWith(root)) {
+                return null;
+            }
+
+            if (oid.compareTo(current) <= 0) {
+                this.error = "OID not increasing - " + oid;
+                return null;
+            }
+
+            current = oid;
+
+            if (!handler.row(varBinding)) {
+                return null;
+            }
+        }
+
+        return current;
+    }
+
+
+    /**
+     * @return String - last walk error, null if none
+     */
+    public String getError() {
+        return this.error;
+    }
+
+}
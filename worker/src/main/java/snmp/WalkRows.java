@@ -0,0 +1,167 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+/**
+ * SNMP walk rows, saved as "OID = value" lines
+ *
+ * Rows are kept in memory until they reach threshold, then they are written
+ * to temp file and every next row goes straight to file as it arrives.
+ */
+final class WalkRows implements Closeable {
+
+    private final StringBuilder rows = new StringBuilder();
+
+    private final Path directory;
+    private final long threshold;
+
+    private Path   file   = null;
+    private Writer writer = null;
+
+    private IOException failure = null;
+
+
+    /**
+     * Constructor
+     *
+     * @param directory - temp file directory, null to keep rows in memory
+     * @param threshold - rows size in chars, from which rows are written to file, 0 to keep rows in memory
+     */
+    WalkRows(Path directory, long threshold) {
+        this.directory = directory;
+        this.threshold = threshold;
+    }
+
+
+    /**
+     * Add walk row
+     *
+     * @param row VariableBinding - subtree row
+     * @return boolean - false if temp file can't be written, see getFailure()
+     */
+    boolean add(VariableBinding row) {
+
+        if (this.failure != null) {
+            return false;
+        }
+
+        this.rows.append(row.getOid()).append(" = ").append(row.getVariable()).append('\n');
+
+        if (this.directory == null || this.threshold <= 0 || (this.writer == null && this.rows.length() < this.threshold)) {
+            return true;
+        }
+
+        try {
+            if (this.writer == null) {
+                this.file   = Files.createTempFile(this.directory, "cbackup-", ".tmp");
+                this.writer = Files.newBufferedWriter(this.file, StandardCharsets.UTF_8);
+            }
+            this.writer.append(this.rows);
+            this.rows.setLength(0);
+        }
+        catch (IOException e) {
+            this.failure = e;
+            return false;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * @return boolean - rows are written to temp file
+     */
+    boolean isSpilled() {
+        return this.file != null;
+    }
+
+
+    /**
+     * @return IOException - temp file failure, null if none
+     */
+    IOException getFailure() {
+        return this.failure;
+    }
+
+
+    /**
+     * Close temp file and pass it to caller
+     *
+     * @return Path - temp file with all rows, owned by caller
+     * @throws IOException if file can't be written
+     */
+    Path release() throws IOException {
+
+        this.writer.close();
+
+        Path released = this.file;
+        this.writer   = null;
+        this.file     = null;
+
+        return released;
+    }
+
+
+    /**
+     * @return String - rows kept in memory
+     */
+    @Override
+    public String toString() {
+        return this.rows.toString();
+    }
+
+
+    /**
+     * Remove temp file, if it was not released
+     */
+    @Override
+    public void close() {
+
+        if (this.writer != null) {
+            try {
+                this.writer.close();
+            }
+            catch (IOException ignored) {
+                // file is removed anyway
+            }
+        }
+
+        if (this.file != null) {
+            try {
+                Files.deleteIfExists(this.file);
+            }
+            catch (IOException ignored) {
+                // temp file, removed by OS later
+            }
+        }
+
+        this.writer = null;
+        this.file   = null;
+    }
+
+}
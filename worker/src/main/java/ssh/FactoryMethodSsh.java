@@ -17,37 +17,19 @@
  */
 package ssh;
 
-import api.ApiLogHelper;
 import abstractions.DTOVariableConvertResult;
+import abstractions.ProtocolRegistry;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
 import java.util.Map;
 
 
 /**
  * Factory class to return SSH protocol classes
- * Usage:
- * 1) How to add main vendor class
- * - add 'put("VENDOR", null);' to static map $models
- * - create class _VENDOR_Ssh(extends GeneralSsh)
- * 2) How to add model realization class
- * - create vendor models map
- * example:
- * private static final Map<String, String> MAP_VENDOR_MODELS = new HashMap<String, String>() {{
- * put("RB750", "RB750"); // this one for model RB750 protocol realization
- * put("RB960",   null);  // this one will use GeneralTSsh class
- * }};
- * - create class _VENDOR_RB750_Ssh(extends GeneralSsh)
- * - add 'put("VENDOR", MAP_VENDOR_MODELS);' to static map $models
- *
+ * Vendor/model classes are registered in SshVendors, see ProtocolRegistry
  */
 public class FactoryMethodSsh {
 
-    private static final Map<String, Map<String, String>> models = new HashMap<String, Map<String, String>>() {{
-        put("Mikrotik", null);
-        //put("Extream", null); todo implement
-    }};
+    private static final ProtocolRegistry<GeneralSsh> registry = new ProtocolRegistry<>("ssh", GeneralSsh.class, GeneralSsh::new);
 
     /**
      * Factory
@@ -60,52 +42,7 @@ public class FactoryMethodSsh {
      * @return GeneralSsh|null
      */
     public GeneralSsh getProtocolObject(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables) {
-
-        //noinspection UnusedAssignment
-        GeneralSsh toReturn = null;
-        String className    = null;
-
-        String vendor = coordinates.get("nodeVendor");
-        String model  = coordinates.get("nodeModel");
-
-        if(models.get(vendor) == null) {
-            if(models.containsKey(vendor)) {
-                className = "_" + vendor + "_Ssh";
-            }
-        }
-        else {
-            Map<String, String> currentVendor = models.get(vendor);
-
-            if(currentVendor.get(model) == null) {
-                if(!currentVendor.containsKey(model)) {
-                    className = "_" + vendor + "_Ssh";
-                }
-            }
-            else {
-                className = "_" + models.get(vendor) + "_" + currentVendor.get(model) + "_Ssh";
-            }
-        }
-
-        if(className == null) {
-            toReturn = new GeneralSsh(coordinates, settings, credentials, jobs, variables);
-        }
-        else {
-
-            try {
-                Class<? extends GeneralSsh> currentSshClass = Class.forName("ssh."+className).asSubclass(GeneralSsh.class);
-                Constructor<? extends GeneralSsh> sshConstructor = currentSshClass.getConstructor(Map.class, Map.class, Map.class, Map.class, Map.class);
-                Object sshObject              = sshConstructor.newInstance(coordinates, settings, credentials, jobs, variables );
-                toReturn                      = (GeneralSsh)sshObject;
-            }
-            catch(Exception e) {
-                String portParseMessage = "Task " + coordinates.get("taskName") + ", node " + coordinates.get("nodeId") +
-                        ": SSH factory exception. Can't create object " + className + ".";
-                ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", portParseMessage, coordinates, e);
-                return null;
-            }
-        }
-
-        return toReturn;
+        return registry.create(coordinates, settings, credentials, jobs, variables);
     }
 
 }
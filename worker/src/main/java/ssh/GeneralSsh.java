@@ -18,17 +18,25 @@
 package ssh;
 
 import abstractions.AbstractProtocol;
+import abstractions.CommandTemplate;
+import abstractions.ContextMap;
 import abstractions.DTOExpectSendPair;
 import abstractions.DTOSendExpectPair;
 import abstractions.DTOProtocolResult;
 import abstractions.DTOVariableConvertResult;
+import abstractions.ExecutionPlans;
 
 import com.jcraft.jsch.ChannelShell;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.Session;
 import expect4j.Expect4j;
+import expect4j.ExpectSession;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Map;
 
@@ -41,6 +49,16 @@ public class GeneralSsh extends AbstractProtocol {
     protected static final int COMMAND_EXECUTION_SUCCESS_OPCODE = -2;
     protected String ENTER_CHARACTER                            = "\n";
 
+    /*
+     * Algorithms for both transports, legacy ones first
+     * Order matters: list most compatible algorithms first
+     */
+    protected static final String KEX_ALGORITHMS      = "diffie-hellman-group-exchange-sha1,diffie-hellman-group14-sha1,diffie-hellman-group1-sha1,diffie-hellman-group-exchange-sha256,ecdh-sha2-nistp256,ecdh-sha2-nistp384,ecdh-sha2-nistp521";
+    protected static final String HOST_KEY_ALGORITHMS = "ssh-rsa,ssh-dss,ecdsa-sha2-nistp256,ecdsa-sha2-nistp384,ecdsa-sha2-nistp521";
+    protected static final String CIPHERS             = "aes128-ctr,aes192-ctr,aes256-ctr,aes128-cbc,3des-cbc,blowfish-cbc,aes192-cbc,aes256-cbc";
+    protected static final String MACS                = "hmac-md5,hmac-sha1,hmac-sha2-256,hmac-sha2-512,hmac-ripemd160";
+    protected static final int CONNECT_TIMEOUT        = 150000;
+
     protected String sshPromptChar;
     protected String sshRealPrompt;
     protected String sshEscapedRealPrompt;
@@ -58,9 +76,15 @@ public class GeneralSsh extends AbstractProtocol {
     protected ArrayList<DTOSendExpectPair> sshCommands     = new ArrayList<>();
 
     /*
-     * Expect4j object
+     * SSH transport: jsch - blocking JSch session, sshd - asynchronous Apache MINA SSHD session
+     * Vendor or model classes may change default in constructor
+     */
+    protected String sshTransport  = "jsch";
+
+    /*
+     * Expect session object
      */
-    protected Expect4j expect      = null;
+    protected ExpectSession expect = null;
     protected JSch jsch            = null;
     protected Session session      = null;
     protected ChannelShell channel = null;
@@ -77,11 +101,12 @@ public class GeneralSsh extends AbstractProtocol {
      */
     public GeneralSsh(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.credentials.putAll(credentials);
-        this.jobs.putAll(jobs);
-        this.variables.putAll(variables);
+        // assigned here, not via setContext, so no method is called on partly constructed object
+        this.coordinates = ContextMap.over(coordinates);
+        this.settings    = ContextMap.over(settings);
+        this.credentials = ContextMap.over(credentials);
+        this.jobs        = ContextMap.over(jobs);
+        this.variables   = ContextMap.over(variables);
     }
 
 
@@ -203,6 +228,38 @@ public class GeneralSsh extends AbstractProtocol {
             }
         }
 
+        /*
+         * SSH transport
+         * sshTransport - transport for all nodes, sshdModels - "Vendor" or "Vendor/Model" list, using sshd transport
+         */
+        String transport  = this.settings.get("sshTransport");
+        String sshdModels = this.settings.get("sshdModels");
+
+        if(transport != null && transport.length() > 0) {
+
+            if(!transport.equals("jsch") && !transport.equals("sshd")) {
+                String sshTransportFailMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": SSH transport must be jsch or sshd.";
+                this.logMessage("ERROR", "NODE PARSE SETTINGS", sshTransportFailMessage);
+                return false;
+            }
+
+            this.sshTransport = transport;
+        }
+
+        if(sshdModels != null && sshdModels.length() > 0) {
+
+            String vendor = this.coordinates.get("nodeVendor");
+            String model  = vendor + "/" + this.coordinates.get("nodeModel");
+
+            for (String entry : Arrays.asList(sshdModels.split(","))) {
+                if(entry.trim().equals(vendor) || entry.trim().equals(model)) {
+                    this.sshTransport = "sshd";
+                    break;
+                }
+            }
+        }
+
         return true;
     }
 
@@ -263,57 +320,34 @@ public class GeneralSsh extends AbstractProtocol {
             String sshAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": model auth sequence is not set.";
             this.logMessage("ERROR", "NODE PARSE CREDENTIALS", sshAuthSequenceMessage);
             return false;
-        } else {
-
-            String[] splitAuthSequence = authSequence.split("\n");
+        }
 
-            Integer sequenceCount = splitAuthSequence.length;
+        /*
+         * Parsed once per device model, credentials are bound by node
+         */
+        ExecutionPlans.AuthPlan authPlan = this.plans != null ? this.plans.getAuthPlan(authSequence) : ExecutionPlans.parseAuthSequence(authSequence);
 
-            if (sequenceCount % 2 != 1) {
-                String sshAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                        ": model auth sequence error. Wrong elements count.";
-                this.logMessage("ERROR", "NODE PARSE CREDENTIALS", sshAuthSequenceMessage);
-                return false;
-            }
+        if (authPlan.getError() != null) {
+            String sshAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": " + authPlan.getError();
+            this.logMessage("ERROR", "NODE PARSE CREDENTIALS", sshAuthSequenceMessage);
+            return false;
+        }
 
-            for (int i = 0; i < sequenceCount; i++) {
+        this.sshPromptChar = authPlan.getPromptChar();
 
-                String currentExpect = splitAuthSequence[i].trim();
-                String currentResponse;
+        for (ExecutionPlans.AuthStep step : authPlan.getSteps()) {
 
-                i++;
+            String currentResponse = step.getResponse();
 
-                if (i >= sequenceCount) {
-                    this.sshPromptChar = currentExpect;
-                    currentResponse = null;
-                } else {
-                    currentResponse = splitAuthSequence[i].trim();
-                    // if template variable
-                    if (currentResponse.contains("{{") && currentResponse.contains("}}")) {
-                        switch (currentResponse) {
-                            case "{{telnet_login}}":
-                                currentResponse = "{{SKIP}}";
-                                break;
-                            case "{{telnet_password}}":
-                                currentResponse = "{{SKIP}}";
-                                break;
-                            case "{{enable_password}}":
-                                currentResponse = this.sshEnablePassword;
-                                break;
-                            default:
-                                String sshAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                        ": model auth sequence error. Unknown type of template variable.";
-                                this.logMessage("ERROR", "NODE PARSE CREDENTIALS", sshAuthSequenceMessage);
-                                return false;
-                        }
-                    }
-                }
-
-                if (currentResponse == null || !currentResponse.equals("{{SKIP}}")) {
-                    DTOExpectSendPair currentPair = new DTOExpectSendPair(currentExpect, currentResponse);
-                    this.sshAuthSequence.add(currentPair);
+            if (step.isTemplate()) {
+                // telnet credentials are not used by SSH
+                if (!currentResponse.equals("{{enable_password}}")) {
+                    continue;
                 }
+                currentResponse = this.sshEnablePassword;
             }
+
+            this.sshAuthSequence.add(new DTOExpectSendPair(step.getExpect(), step.getExpectPattern(), currentResponse));
         }
 
         return true;
@@ -333,7 +367,7 @@ public class GeneralSsh extends AbstractProtocol {
     {
 
         /*
-         * Object Expect4j init
+         * Expect session init
          * SSH connect
          */
         try {
@@ -345,48 +379,21 @@ public class GeneralSsh extends AbstractProtocol {
                 return false;
             }
 
-            this.jsch = new JSch();
-            this.session = jsch.getSession(this.sshLogin, nodeIp, this.sshPort);
-            this.session.setPassword(this.sshPassword);
+            if(this.sshTransport.equals("sshd")) {
 
-            if (this.sshPassword != null) {
-                this.session.setPassword(this.sshPassword);
-            }
+                String connectionInfo = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                       ": Attempting SSH connection to " + nodeIp + ":" + this.sshPort + " via SSHD";
+                this.logMessage("INFO", "NODE REQUEST", connectionInfo);
+
+                this.expect = SshdShellSession.open(nodeIp, this.sshPort, this.sshLogin, this.sshPassword, CONNECT_TIMEOUT);
+                this.expect.setDefaultTimeout(this.sshTimeout);
+                this.expect.getLastState().setSpool(this.getSpillDirectory(), this.getSpillThreshold());
 
-            Hashtable<String,String> config = new Hashtable<>();
-            config.put("StrictHostKeyChecking", "no");
-            // Configure key exchange algorithms - prioritize older algorithms that legacy devices support
-            // Order matters: list most compatible algorithms first
-            config.put("kex", "diffie-hellman-group-exchange-sha1,diffie-hellman-group14-sha1,diffie-hellman-group1-sha1,diffie-hellman-group-exchange-sha256,ecdh-sha2-nistp256,ecdh-sha2-nistp384,ecdh-sha2-nistp521");
-            // Also configure server host key algorithms for compatibility
-            config.put("server_host_key", "ssh-rsa,ssh-dss,ecdsa-sha2-nistp256,ecdsa-sha2-nistp384,ecdsa-sha2-nistp521");
-            // Configure ciphers for compatibility
-            config.put("cipher.s2c", "aes128-ctr,aes192-ctr,aes256-ctr,aes128-cbc,3des-cbc,blowfish-cbc,aes192-cbc,aes256-cbc");
-            config.put("cipher.c2s", "aes128-ctr,aes192-ctr,aes256-ctr,aes128-cbc,3des-cbc,blowfish-cbc,aes192-cbc,aes256-cbc");
-            // Configure MAC algorithms
-            config.put("mac.s2c", "hmac-md5,hmac-sha1,hmac-sha2-256,hmac-sha2-512,hmac-ripemd160");
-            config.put("mac.c2s", "hmac-md5,hmac-sha1,hmac-sha2-256,hmac-sha2-512,hmac-ripemd160");
-
-            this.session.setConfig(config);
-            
-            // Log connection attempt for debugging
-            String connectionInfo = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + 
-                                   ": Attempting SSH connection to " + nodeIp + ":" + this.sshPort;
-            this.logMessage("INFO", "NODE REQUEST", connectionInfo);
-            
-            try {
-                this.session.connect(150000);
                 this.logMessage("INFO", "NODE REQUEST", "SSH connection established successfully");
-            } catch (Exception connectException) {
-                String errorMsg = "SSH connection failed: " + connectException.getMessage();
-                this.logException("ERROR", "NODE REQUEST", errorMsg, connectException);
-                throw connectException;
             }
-
-            this.channel = (ChannelShell) this.session.openChannel("shell");
-            this.expect  = new Expect4j(this.channel.getInputStream(), this.channel.getOutputStream());
-            this.expect.setDefaultTimeout(this.sshTimeout);
-            this.channel.connect();
+            else {
+                this.openJschShell(nodeIp);
+            }
 
         }
         catch (Exception e) {
@@ -414,44 +421,34 @@ public class GeneralSsh extends AbstractProtocol {
         /*
          * Setting jobs to expect-send pairs
          */
-        for(Map.Entry<String, Map<String, String>> entry : this.jobs.entrySet()) {
+        ExecutionPlans.JobPlan jobPlan = this.plans != null ? this.plans.getJobPlan(this.coordinates.get("workerId"), this.jobsVersion, this.jobs) : ExecutionPlans.parseJobs(this.jobs);
 
-            Map<String, String> jobInfo = entry.getValue();
+        for(ExecutionPlans.JobStep step : jobPlan.getSteps()) {
 
-            String currentCommand     = jobInfo.get("command_value");
-            String currentTableField  = jobInfo.get("table_field");
-            String currentTimeout     = jobInfo.get("timeout");
-            String currentVariable    = jobInfo.get("command_var");
+            String currentTableField  = step.getTableField();
+            String currentVariable    = step.getVariable();
 
             if(currentVariable != null && currentVariable.length() > 0) {
                 this.variables.put(currentVariable, null);
             }
 
-            Integer currentTimeoutInt;
-
             if (currentTableField != null && currentTableField.length() > 0) {
                 this.result.data.put(currentTableField, "");
             }
 
             /*
-             * Parsing command SSH timeout to integer
+             * Job SSH timeout
              */
-            if(currentTimeout != null && currentTimeout.length() > 0) {
-                try {
-                    currentTimeoutInt = Integer.parseInt(currentTimeout);
-                }
-                catch(NumberFormatException e) {
-                    String sshCurrentTimeoutParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                            ": can't parse job SSH timeout to integer.";
-                    this.logException("ERROR", "NODE REQUEST", sshCurrentTimeoutParseMessage, e);
-                    return false;
-                }
-            }
-            else {
-                currentTimeoutInt = this.sshTimeout;
+            if(step.getTimeoutError() != null) {
+                String sshCurrentTimeoutParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": can't parse job SSH timeout to integer.";
+                this.logException("ERROR", "NODE REQUEST", sshCurrentTimeoutParseMessage, step.getTimeoutError());
+                return false;
             }
 
-            DTOSendExpectPair currentPair = new DTOSendExpectPair(this.sshEscapedRealPrompt, currentCommand, currentTableField, currentTimeoutInt, currentVariable);
+            Integer currentTimeoutInt = step.getTimeout() != null ? step.getTimeout() : this.sshTimeout;
+
+            DTOSendExpectPair currentPair = new DTOSendExpectPair(this.sshEscapedRealPrompt, step.getCommand(), step.getTemplate(), currentTableField, currentTimeoutInt, currentVariable);
             this.sshCommands.add(currentPair);
 
         }
@@ -493,7 +490,8 @@ public class GeneralSsh extends AbstractProtocol {
 
         try{
 
-            boolean isFailed = checkResult(this.expect.expect(pair.getExpect()));
+            int expectResult = (pair.getExpectPattern() != null) ? this.expect.expect(pair.getExpectPattern()) : this.expect.expect(pair.getExpect());
+            boolean isFailed = checkResult(expectResult);
 
             if (!isFailed) {
 
@@ -528,6 +526,60 @@ public class GeneralSsh extends AbstractProtocol {
     }
 
 
+    /**
+     * JSch session and shell channel init
+     *
+     * @param nodeIp String - node address
+     * @throws Exception on connection failure
+     */
+    protected void openJschShell(String nodeIp) throws Exception {
+
+        this.jsch    = new JSch();
+        this.session = jsch.getSession(this.sshLogin, nodeIp, this.sshPort);
+        this.session.setPassword(this.sshPassword);
+
+        if (this.sshPassword != null) {
+            this.session.setPassword(this.sshPassword);
+        }
+
+        Hashtable<String,String> config = new Hashtable<>();
+        config.put("StrictHostKeyChecking", "no");
+        // Configure key exchange algorithms - prioritize older algorithms that legacy devices support
+        // Order matters: list most compatible algorithms first
+        config.put("kex", KEX_ALGORITHMS);
+        // Also configure server host key algorithms for compatibility
+        config.put("server_host_key", HOST_KEY_ALGORITHMS);
+        // Configure ciphers for compatibility
+        config.put("cipher.s2c", CIPHERS);
+        config.put("cipher.c2s", CIPHERS);
+        // Configure MAC algorithms
+        config.put("mac.s2c", MACS);
+        config.put("mac.c2s", MACS);
+
+        this.session.setConfig(config);
+        
+        // Log connection attempt for debugging
+        String connectionInfo = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + 
+                               ": Attempting SSH connection to " + nodeIp + ":" + this.sshPort;
+        this.logMessage("INFO", "NODE REQUEST", connectionInfo);
+        
+        try {
+            this.session.connect(CONNECT_TIMEOUT);
+            this.logMessage("INFO", "NODE REQUEST", "SSH connection established successfully");
+        } catch (Exception connectException) {
+            String errorMsg = "SSH connection failed: " + connectException.getMessage();
+            this.logException("ERROR", "NODE REQUEST", errorMsg, connectException);
+            throw connectException;
+        }
+
+        this.channel = (ChannelShell) this.session.openChannel("shell");
+        this.expect  = new Expect4j(this.channel.getInputStream(), this.channel.getOutputStream());
+        this.expect.setDefaultTimeout(this.sshTimeout);
+        this.expect.getLastState().setSpool(this.getSpillDirectory(), this.getSpillThreshold());
+        this.channel.connect();
+    }
+
+
     /**
      * Extract device prompt string
      *
@@ -559,9 +611,8 @@ public class GeneralSsh extends AbstractProtocol {
         }
         else {
 
-            this.sshEscapedRealPrompt = this.expect.getLastState().getBuffer().replace(this.currentCommand, "");
-            // replacing ANSI control chars
-            this.sshEscapedRealPrompt = this.sshEscapedRealPrompt.replaceAll("\u001B\\[[\\d;]*[^\\d;]|\u001B[\\d;]|\u001B\\[[^\\d;]","");
+            // ANSI control chars, overstrikes and pager prompts are already stripped
+            this.sshEscapedRealPrompt = this.expect.getLastState().getSanitizedBuffer().replace(this.currentCommand, "");
 
             this.sshRealPrompt = this.sshEscapedRealPrompt.trim();
             this.sshEscapedRealPrompt = this.sshEscapedRealPrompt.replace("[", "\\[").trim();
@@ -667,46 +718,56 @@ public class GeneralSsh extends AbstractProtocol {
             /*
              * Injecting variables to commands
              */
-            if(currentPair.getSend().contains("%%")) {
-
-                for(Map.Entry<String, DTOVariableConvertResult> entry : this.variables.entrySet()) {
-                    if( currentPair.getSend().contains(entry.getKey())) {
-                        // Variable found
-                        // If variable is converted, sending command with injected variable
-                        if(entry.getValue().getAction().equals("process")) {
-                            // check if empty
-                            if(entry.getValue() != null && entry.getValue().getResult() != null && entry.getValue().getResult().length() > 0) {
-                                String tempCommand = currentPair.getSend().replaceAll(entry.getKey(), entry.getValue().getResult());
-                                currentPair.setSend(tempCommand);
-                            }
-                            else {
-                                String sshSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                        ": empty variable value returned. Command: " + currentPair.getSend() + ". SSH request: set custom variable failed. Check your command.";
-                                this.logMessage("ERROR", "NODE REQUEST", sshSetVarFailedMessage);
-                                return false;
-                            }
+            CommandTemplate template = (currentPair.getTemplate() != null) ? currentPair.getTemplate() : CommandTemplate.compile(currentPair.getSend());
+
+            if(template.hasVariables()) {
+
+                Map<String, String> values = new HashMap<>();
+
+                // Only variables referenced by command are looked up
+                for(String variableName : template.getVariables()) {
+
+                    if(!this.variables.containsKey(variableName)) {
+                        continue;
+                    }
+
+                    DTOVariableConvertResult variable = this.variables.get(variableName);
+
+                    // If variable is converted, sending command with injected variable
+                    if(variable == null || variable.getAction().equals("process")) {
+                        // check if empty
+                        if(variable != null && variable.getResult() != null && variable.getResult().length() > 0) {
+                            values.put(variableName, variable.getResult());
                         }
                         else {
-                            switch (entry.getValue().getStatus()) {
-                                // If variable converted with error, sending exception log
-                                case "exception":
-                                    String variableConvertErrorMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": variable convertion error. Variable: " + entry.getValue().getVariableName() + ". Message: " + entry.getValue().getMessage();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertErrorMessage);
-                                    return false;
-                                // If variable converted successfully, but action is restrict, skip command and use empty string as command result
-                                case "success":
-                                    skipCommand = true;
-                                    break;
-                                default:
-                                    String variableConvertUnknownStatus = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": unknown status of variable convertion. Variable: " + entry.getValue().getVariableName() + ". Status: " + entry.getValue().getStatus();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertUnknownStatus);
-                                    return false;
-                            }
+                            String sshSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                    ": empty variable value returned. Command: " + currentPair.getSend() + ". SSH request: set custom variable failed. Check your command.";
+                            this.logMessage("ERROR", "NODE REQUEST", sshSetVarFailedMessage);
+                            return false;
+                        }
+                    }
+                    else {
+                        switch (variable.getStatus()) {
+                            // If variable converted with error, sending exception log
+                            case "exception":
+                                String variableConvertErrorMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": variable convertion error. Variable: " + variable.getVariableName() + ". Message: " + variable.getMessage();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertErrorMessage);
+                                return false;
+                            // If variable converted successfully, but action is restrict, skip command and use empty string as command result
+                            case "success":
+                                skipCommand = true;
+                                break;
+                            default:
+                                String variableConvertUnknownStatus = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": unknown status of variable convertion. Variable: " + variable.getVariableName() + ". Status: " + variable.getStatus();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertUnknownStatus);
+                                return false;
                         }
                     }
                 }
+
+                currentPair.setSend(template.render(values));
             }
 
             if(!skipCommand) {
@@ -742,6 +803,22 @@ public class GeneralSsh extends AbstractProtocol {
                 }
             }
 
+            /*
+             * Output spooled to disk is saved as file, without converting
+             */
+            if(saveRequired && !putVarRequired && !skipCommand && this.expect.getLastState().isSpooled()) {
+                try {
+                    Path file = this.expect.getLastState().exportSanitizedBuffer(this.getSpillDirectory(), this.currentCommand, this.sshRealPrompt);
+                    this.putResultFile(currentPair.getTableField(), file);
+                    continue;
+                }
+                catch (IOException e) {
+                    String spoolMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                            ": can't save spooled output of " + currentPair.getTableField() + ", reading it to memory.";
+                    this.logException("WARNING", "NODE REQUEST", spoolMessage, e);
+                }
+            }
+
             /*
              * Saving to result.data
              */
@@ -749,9 +826,8 @@ public class GeneralSsh extends AbstractProtocol {
 
                 String valueToSave;
                 if(!skipCommand) {
-                    valueToSave = this.expect.getLastState().getBuffer().replace(this.currentCommand, "")
-                        // replacing ANSI control chars
-                        .replaceAll("\u001B\\[[\\d;]*[^\\d;]|\u001B[\\d;]|\u001B\\[[^\\d;]", "")
+                    // ANSI control chars, overstrikes and pager prompts are already stripped
+                    valueToSave = this.expect.getLastState().getSanitizedBuffer().replace(this.currentCommand, "")
                         .replace(this.sshRealPrompt, "")
                         .trim();
                 }
@@ -765,7 +841,7 @@ public class GeneralSsh extends AbstractProtocol {
                 DTOVariableConvertResult currentResultDTO = this.convertVariable(this.coordinates.get("taskName"), currentPair.getTableField(), currentPair.getVariable(), valueToSave);
 
                 if(saveRequired) {
-                    this.result.data.put(currentPair.getTableField(), currentResultDTO.getResult());
+                    this.putResult(currentPair.getTableField(), currentResultDTO.getResult());
                 }
 
                 /*
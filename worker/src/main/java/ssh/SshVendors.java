@@ -0,0 +1,47 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ssh;
+
+import abstractions.ProtocolProvider;
+import abstractions.ProtocolRegistry;
+
+
+/**
+ * Vendor/model SSH protocol classes
+ * How to add vendor class:
+ * - create class _VENDOR_Ssh(extends GeneralSsh)
+ * - add 'registry.register("VENDOR", null, _VENDOR_Ssh.class, _VENDOR_Ssh::new);'
+ * How to add model class:
+ * - create class _VENDOR_MODEL_Ssh(extends GeneralSsh)
+ * - add 'registry.register("VENDOR", "MODEL", _VENDOR_MODEL_Ssh.class, _VENDOR_MODEL_Ssh::new);'
+ *
+ * Provider is listed in META-INF/services/abstractions.ProtocolProvider
+ */
+public class SshVendors implements ProtocolProvider {
+
+    @Override
+    public void register(ProtocolRegistry<?> registry) {
+
+        if (!"ssh".equals(registry.getProtocol())) {
+            return;
+        }
+
+        registry.register("Mikrotik", null, _Mikrotik_Ssh.class, _Mikrotik_Ssh::new);
+    }
+
+}
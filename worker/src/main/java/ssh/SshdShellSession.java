@@ -0,0 +1,323 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package ssh;
+
+import expect4j.ExpectInputBuffer;
+import expect4j.ExpectSession;
+
+import org.apache.sshd.client.ClientBuilder;
+import org.apache.sshd.client.SshClient;
+import org.apache.sshd.client.channel.ChannelShell;
+import org.apache.sshd.client.keyverifier.AcceptAllServerKeyVerifier;
+import org.apache.sshd.client.session.ClientSession;
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.channel.StreamingChannel;
+import org.apache.sshd.common.cipher.BuiltinCiphers;
+import org.apache.sshd.common.cipher.Cipher;
+import org.apache.sshd.common.io.IoInputStream;
+import org.apache.sshd.common.io.IoReadFuture;
+import org.apache.sshd.common.kex.BuiltinDHFactories;
+import org.apache.sshd.common.kex.KeyExchangeFactory;
+import org.apache.sshd.common.mac.BuiltinMacs;
+import org.apache.sshd.common.mac.Mac;
+import org.apache.sshd.common.signature.BuiltinSignatures;
+import org.apache.sshd.common.signature.Signature;
+import org.apache.sshd.common.util.buffer.Buffer;
+import org.apache.sshd.common.util.buffer.ByteArrayBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+
+/**
+ * SSH shell session on Apache MINA SSHD client
+ * All sessions share one NIO2 client, channel output is read asynchronously
+ * and expect patterns are matched on SSHD I/O threads as data arrives, only new data is scanned.
+ * Algorithm lists are the same as for JSch transport, names unknown to SSHD are skipped.
+ */
+public final class SshdShellSession implements ExpectSession {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static SshClient client = null;
+
+    private final ClientSession session;
+    private final ChannelShell channel;
+    private final Charset charset = Charset.defaultCharset();
+    private final ExpectInputBuffer buffer = new ExpectInputBuffer(this.charset);
+
+    // Read buffer, reused as only one read is outstanding at a time
+    private final Buffer chunk = new ByteArrayBuffer(BUFFER_SIZE);
+    // Received bytes, incomplete multibyte char is kept for the next read
+    private final ByteBuffer received = ByteBuffer.allocate(BUFFER_SIZE + 16);
+
+    private volatile int defaultTimeout = 30000;
+
+
+    /**
+     * Constructor
+     *
+     * @param session ClientSession - authenticated session
+     * @param channel ChannelShell  - opened shell channel
+     */
+    private SshdShellSession(ClientSession session, ChannelShell channel) {
+        this.session = session;
+        this.channel = channel;
+    }
+
+
+    /**
+     * Open SSH shell
+     *
+     * @param host     String - hostname or IP address
+     * @param port     int    - port number
+     * @param login    String - login
+     * @param password String - password
+     * @param timeout  int    - connect and auth timeout in milliseconds
+     * @return SshdShellSession
+     * @throws IOException if connection or authentication fails
+     */
+    public static SshdShellSession open(String host, int port, String login, String password, int timeout) throws IOException {
+
+        ClientSession session = getClient().connect(login, host, port).verify(timeout).getSession();
+
+        try {
+
+            if(password != null) {
+                session.addPasswordIdentity(password);
+            }
+
+            session.auth().verify(timeout);
+
+            ChannelShell channel = session.createShellChannel();
+            channel.setStreaming(StreamingChannel.Streaming.Async);
+            channel.setRedirectErrorStream(true);
+            channel.open().verify(timeout);
+
+            SshdShellSession shell = new SshdShellSession(session, channel);
+            shell.read(channel.getAsyncOut());
+
+            return shell;
+        }
+        catch (IOException | RuntimeException e) {
+            session.close(true);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Shared SSHD client
+     *
+     * @return SshClient
+     */
+    private static synchronized SshClient getClient() {
+
+        if(client == null) {
+
+            SshClient created = SshClient.setUpDefaultClient();
+
+            // same as StrictHostKeyChecking=no
+            created.setServerKeyVerifier(AcceptAllServerKeyVerifier.INSTANCE);
+
+            List<KeyExchangeFactory> kex = new ArrayList<>();
+            for (String name : GeneralSsh.KEX_ALGORITHMS.split(",")) {
+                BuiltinDHFactories factory = BuiltinDHFactories.fromFactoryName(name);
+                if(factory != null && factory.isSupported()) {
+                    kex.add(ClientBuilder.DH2KEX.apply(factory));
+                }
+            }
+
+            List<NamedFactory<Signature>> signatures = new ArrayList<>();
+            for (String name : GeneralSsh.HOST_KEY_ALGORITHMS.split(",")) {
+                BuiltinSignatures factory = BuiltinSignatures.fromFactoryName(name);
+                if(factory != null && factory.isSupported()) {
+                    signatures.add(factory);
+                }
+            }
+
+            List<NamedFactory<Cipher>> ciphers = new ArrayList<>();
+            for (String name : GeneralSsh.CIPHERS.split(",")) {
+                BuiltinCiphers factory = BuiltinCiphers.fromFactoryName(name);
+                if(factory != null && factory.isSupported()) {
+                    ciphers.add(factory);
+                }
+            }
+
+            List<NamedFactory<Mac>> macs = new ArrayList<>();
+            for (String name : GeneralSsh.MACS.split(",")) {
+                BuiltinMacs factory = BuiltinMacs.fromFactoryName(name);
+                if(factory != null && factory.isSupported()) {
+                    macs.add(factory);
+                }
+            }
+
+            created.setKeyExchangeFactories(kex);
+            created.setSignatureFactories(signatures);
+            created.setCipherFactories(ciphers);
+            created.setMacFactories(macs);
+            created.start();
+
+            client = created;
+        }
+
+        return client;
+    }
+
+
+    /**
+     * Reading channel output asynchronously
+     * Reads completed at once are handled in loop, listener is attached only to pending read,
+     * so stack doesn't grow with buffered output
+     *
+     * @param in IoInputStream - channel output
+     */
+    private void read(IoInputStream in) {
+
+        while (true) {
+
+            this.chunk.clear();
+            IoReadFuture future = in.read(this.chunk);
+
+            // pending read goes on in listener, read completed at once is handled in loop, not by recursion
+            if (!future.isDone()) {
+                future.addListener(completed -> {
+                    if (this.handleRead(completed)) {
+                        this.read(in);
+                    }
+                });
+                return;
+            }
+
+            if (!this.handleRead(future)) {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Push read data to expect buffer
+     *
+     * @param future - completed read
+     * @return boolean - next read is required, false on failure or end of stream
+     */
+    private boolean handleRead(IoReadFuture future) {
+
+        Throwable exception = future.getException();
+
+        if(exception != null) {
+            this.buffer.fail(exception instanceof IOException ? (IOException) exception : new IOException(exception));
+            return false;
+        }
+
+        if(future.getRead() < 0) {
+            this.buffer.fail(new EOFException("SSH channel is closed by remote host"));
+            return false;
+        }
+
+        Buffer data = future.getBuffer();
+
+        synchronized (this.received) {
+            while (data.available() > 0) {
+                int length = Math.min(data.available(), this.received.remaining());
+                this.received.put(data.array(), data.rpos(), length);
+                data.rpos(data.rpos() + length);
+                this.received.flip();
+                this.buffer.push(this.received);
+                this.received.compact();
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int expect(String pattern) {
+        return this.buffer.expect(pattern, this.defaultTimeout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int expect(Pattern pattern) {
+        return this.buffer.expect(pattern, this.defaultTimeout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void send(String text) {
+
+        IOException failure = this.buffer.getFailure();
+
+        if(failure != null) {
+            throw new RuntimeException("Failed to send text", failure);
+        }
+
+        try {
+            this.channel.getAsyncIn().writeBuffer(new ByteArrayBuffer(text.getBytes(this.charset))).verify(this.defaultTimeout);
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Failed to send text", e);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDefaultTimeout(int timeout) {
+        this.defaultTimeout = timeout;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExpectSession.State getLastState() {
+        return this.buffer;
+    }
+
+
+    /**
+     * Close channel and session, graceful close is not awaited
+     */
+    @Override
+    public void close() {
+        this.buffer.close();
+        this.channel.close(false);
+        this.session.close(false);
+    }
+
+}
@@ -17,95 +17,32 @@
  */
 package telnet;
 
-import api.ApiLogHelper;
 import abstractions.DTOVariableConvertResult;
+import abstractions.ProtocolRegistry;
 
-import java.lang.reflect.Constructor;
-import java.util.HashMap;
 import java.util.Map;
 
 
 /**
- * Factory class to return telnet protocol classes
- * Usage:
- * 1) How to add main vendor class
- * - add 'put("VENDOR", null);' to static map $models
- * - create class _VENDOR_Telnet(extends GeneralTelnet)
- * 2) How to add model realization class
- * - create vendor models map
- * example:
- * private static final Map<String, String> MAP_VENDOR_MODELS = new HashMap<String, String>() {{
- * put("RB750", "RB750"); // this one for model RB750 protocol realization
- * put("RB960",   null);  // this one will use GeneralTelnet class
- * }};
- * - create class _VENDOR_RB750_Telnet(extends GeneralTelnet)
- * - add 'put("VENDOR", MAP_VENDOR_MODELS);' to static map $models
- *
+ * Factory class to return Telnet protocol classes
+ * Vendor/model classes are registered in TelnetVendors, see ProtocolRegistry
  */
 public class FactoryMethodTelnet {
 
-    private static final Map<String, Map<String, String>> models = new HashMap<String, Map<String, String>>() {{
-        put("Mikrotik", null);
-        //put("Extream", null); todo implement
-    }};
+    private static final ProtocolRegistry<GeneralTelnet> registry = new ProtocolRegistry<>("telnet", GeneralTelnet.class, GeneralTelnet::new);
 
     /**
      * Factory
      *
-     * @param coordinates  - schedule, task, node, etc..
-     * @param settings     - app settings
-     * @param credentials  - credentials
-     * @param jobs         - sorted jobs
-     * @param variables    - variable list
+     * @param coordinates   - schedule, task, node, etc..
+     * @param settings      - app settings
+     * @param credentials   - credentials
+     * @param jobs          - sorted jobs
+     * @param variables     - variable list
      * @return GeneralTelnet|null
      */
     public GeneralTelnet getProtocolObject(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables) {
-
-        //noinspection UnusedAssignment
-        GeneralTelnet toReturn = null;
-        String className       = null;
-
-        String vendor = coordinates.get("nodeVendor");
-        String model  = coordinates.get("nodeModel");
-
-        if(models.get(vendor) == null) {
-            if(models.containsKey(vendor)) {
-                className = "_" + vendor + "_Telnet";
-            }
-        }
-        else {
-            Map<String, String> currentVendor = models.get(vendor);
-
-            if(currentVendor.get(model) == null) {
-                if(!currentVendor.containsKey(model)) {
-                    className = "_" + vendor + "_Telnet";
-                }
-            }
-            else {
-                className = "_" + models.get(vendor) + "_" + currentVendor.get(model) + "_Telnet";
-            }
-        }
-
-        if(className == null) {
-            toReturn = new GeneralTelnet(coordinates, settings, credentials, jobs, variables);
-        }
-        else {
-
-            try {
-                Class<? extends GeneralTelnet> currentTelnetClass = Class.forName("telnet."+className).asSubclass(GeneralTelnet.class);
-                //noinspection unchecked
-                Constructor<? extends GeneralTelnet> telnetConstructor = currentTelnetClass.getConstructor(Map.class, Map.class, Map.class, Map.class, Map.class);
-                toReturn = telnetConstructor.newInstance(coordinates, settings, credentials, jobs, variables);
-            }
-            catch(Exception e) {
-                String portParseMessage = "Task " + coordinates.get("taskName") + ", node " + coordinates.get("nodeId") +
-                        ": telnet factory exception. Can't create object " + className + ".";
-                ApiLogHelper.setLogException("ERROR", "WORKER PROTOCOL CLASS INIT", portParseMessage, coordinates, e);
-                return null;
-            }
-        }
-
-        return toReturn;
+        return registry.create(coordinates, settings, credentials, jobs, variables);
     }
 
 }
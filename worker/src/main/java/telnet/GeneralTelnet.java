@@ -21,15 +21,21 @@ import abstractions.DTOExpectSendPair;
 import abstractions.DTOSendExpectPair;
 import abstractions.DTOProtocolResult;
 import abstractions.DTOVariableConvertResult;
+import abstractions.ExecutionPlans;
 import abstractions.AbstractProtocol;
+import abstractions.CommandTemplate;
+import abstractions.ContextMap;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 
 /*
  * Expect4j
  */
-import expect4j.Expect4j;
+import expect4j.ExpectSession;
 import expect4j.ExpectUtils;
 
 
@@ -59,9 +65,14 @@ public class GeneralTelnet extends AbstractProtocol {
     protected ArrayList<DTOSendExpectPair> telnetCommands     = new ArrayList<>();
 
     /*
-     * Expect4j object
+     * Telnet engine: blocking - commons-net client with expectit, nio - selector based session
      */
-    protected Expect4j expect = null;
+    protected String telnetEngine = "blocking";
+
+    /*
+     * Expect session object
+     */
+    protected ExpectSession expect = null;
 
     /**
      * Constructor
@@ -74,11 +85,12 @@ public class GeneralTelnet extends AbstractProtocol {
      */
     public GeneralTelnet(Map<String, String> coordinates, Map<String, String> settings, Map<String, String> credentials, Map<String, Map<String, String>> jobs, Map<String, DTOVariableConvertResult> variables)
     {
-        this.coordinates.putAll(coordinates);
-        this.settings.putAll(settings);
-        this.credentials.putAll(credentials);
-        this.jobs.putAll(jobs);
-        this.variables.putAll(variables);
+        // assigned here, not via setContext, so no method is called on partly constructed object
+        this.coordinates = ContextMap.over(coordinates);
+        this.settings    = ContextMap.over(settings);
+        this.credentials = ContextMap.over(credentials);
+        this.jobs        = ContextMap.over(jobs);
+        this.variables   = ContextMap.over(variables);
     }
 
 
@@ -213,6 +225,23 @@ public class GeneralTelnet extends AbstractProtocol {
             return false;
         }
 
+        /*
+         * Telnet engine, blocking by default, nio is opt-in
+         */
+        String engine = this.settings.get("telnetEngine");
+
+        if(engine != null && engine.length() > 0) {
+
+            if(!engine.equals("nio") && !engine.equals("blocking")) {
+                String telnetEngineFailMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": telnet engine must be nio or blocking.";
+                this.logMessage("ERROR", "NODE PARSE SETTINGS", telnetEngineFailMessage);
+                return false;
+            }
+
+            this.telnetEngine = engine;
+        }
+
         return true;
     }
 
@@ -280,56 +309,39 @@ public class GeneralTelnet extends AbstractProtocol {
             this.logMessage("ERROR", "NODE PARSE CREDENTIALS", telnetAuthSequenceMessage);
             return false;
         }
-        else {
 
-            String[] splitAuthSequence = authSequence.split("\n");
-
-            Integer sequenceCount = splitAuthSequence.length;
+        /*
+         * Parsed once per device model, credentials are bound by node
+         */
+        ExecutionPlans.AuthPlan authPlan = this.plans != null ? this.plans.getAuthPlan(authSequence) : ExecutionPlans.parseAuthSequence(authSequence);
 
-            if(sequenceCount % 2 != 1) {
-                String telnetAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                        ": model auth sequence error. Wrong elements count.";
-                this.logMessage("ERROR", "NODE PARSE CREDENTIALS", telnetAuthSequenceMessage);
-                return false;
-            }
+        if(authPlan.getError() != null) {
+            String telnetAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": " + authPlan.getError();
+            this.logMessage("ERROR", "NODE PARSE CREDENTIALS", telnetAuthSequenceMessage);
+            return false;
+        }
 
-            for(int i=0; i<sequenceCount; i++) {
+        this.telnetPromptChar = authPlan.getPromptChar();
 
-                String currentExpect = splitAuthSequence[i].trim();
-                String currentResponse;
+        for(ExecutionPlans.AuthStep step : authPlan.getSteps()) {
 
-                i++;
+            String currentResponse = step.getResponse();
 
-                if(i >= sequenceCount) {
-                    this.telnetPromptChar = currentExpect;
-                    currentResponse = null;
-                }
-                else {
-                    currentResponse = splitAuthSequence[i].trim();
-                    // if template variable
-                    if(currentResponse.contains("{{") && currentResponse.contains("}}")) {
-                        switch(currentResponse) {
-                            case "{{telnet_login}}":
-                                currentResponse = this.telnetLogin;
-                                break;
-                            case "{{telnet_password}}":
-                                currentResponse = this.telnetPassword;
-                                break;
-                            case "{{enable_password}}":
-                                currentResponse = this.telnetEnablePassword;
-                                break;
-                            default:
-                                String telnetAuthSequenceMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                        ": model auth sequence error. Unknown type of template variable.";
-                                this.logMessage("ERROR", "NODE PARSE CREDENTIALS", telnetAuthSequenceMessage);
-                                return false;
-                        }
-                    }
+            if(step.isTemplate()) {
+                switch(currentResponse) {
+                    case "{{telnet_login}}":
+                        currentResponse = this.telnetLogin;
+                        break;
+                    case "{{telnet_password}}":
+                        currentResponse = this.telnetPassword;
+                        break;
+                    case "{{enable_password}}":
+                        currentResponse = this.telnetEnablePassword;
+                        break;
                 }
-
-                DTOExpectSendPair currentPair = new DTOExpectSendPair(currentExpect, currentResponse);
-                this.telnetAuthSequence.add(currentPair);
             }
+
+            this.telnetAuthSequence.add(new DTOExpectSendPair(step.getExpect(), step.getExpectPattern(), currentResponse));
         }
 
         return true;
@@ -349,7 +361,7 @@ public class GeneralTelnet extends AbstractProtocol {
     {
 
         /*
-         * Object Expect4j init
+         * Expect session init
          */
         try {
             String nodeIp = this.coordinates.get("nodeIp");
@@ -359,8 +371,14 @@ public class GeneralTelnet extends AbstractProtocol {
                 return false;
             }
 
-            this.expect = ExpectUtils.telnet(nodeIp, this.telnetPort);
+            if(this.telnetEngine.equals("nio")) {
+                this.expect = NioTelnetSession.connect(nodeIp, this.telnetPort, this.telnetTimeout);
+            }
+            else {
+                this.expect = ExpectUtils.telnet(nodeIp, this.telnetPort);
+            }
             this.expect.setDefaultTimeout(this.telnetTimeout);
+            this.expect.getLastState().setSpool(this.getSpillDirectory(), this.getSpillThreshold());
         }
         catch (Exception e) {
             String telnetObjectInitMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") + ": can't create telnet expect object.";
@@ -386,44 +404,34 @@ public class GeneralTelnet extends AbstractProtocol {
         /*
          * Setting jobs to expect-send pairs
          */
-        for(Map.Entry<String, Map<String, String>> entry : this.jobs.entrySet()) {
+        ExecutionPlans.JobPlan jobPlan = this.plans != null ? this.plans.getJobPlan(this.coordinates.get("workerId"), this.jobsVersion, this.jobs) : ExecutionPlans.parseJobs(this.jobs);
 
-            Map<String, String> jobInfo = entry.getValue();
+        for(ExecutionPlans.JobStep step : jobPlan.getSteps()) {
 
-            String currentCommand     = jobInfo.get("command_value");
-            String currentTableField  = jobInfo.get("table_field");
-            String currentTimeout     = jobInfo.get("timeout");
-            String currentVariable    = jobInfo.get("command_var");
+            String currentTableField  = step.getTableField();
+            String currentVariable    = step.getVariable();
 
             if(currentVariable != null && currentVariable.length() > 0) {
                 this.variables.put(currentVariable, null);
             }
 
-            Integer currentTimeoutInt;
-
             if (currentTableField != null && currentTableField.length() > 0) {
                 this.result.data.put(currentTableField, "");
             }
 
             /*
-             * Parsing command telnet timeout to integer
+             * Job telnet timeout
              */
-            if(currentTimeout != null && currentTimeout.length() > 0) {
-                try {
-                    currentTimeoutInt = Integer.parseInt(currentTimeout);
-                }
-                catch(NumberFormatException e) {
-                    String telnetCurrentTimeoutParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                            ": can't parse job telnet timeout to integer.";
-                    this.logException("ERROR", "NODE REQUEST", telnetCurrentTimeoutParseMessage, e);
-                    return false;
-                }
-            }
-            else {
-                currentTimeoutInt = this.telnetTimeout;
+            if(step.getTimeoutError() != null) {
+                String telnetCurrentTimeoutParseMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                        ": can't parse job telnet timeout to integer.";
+                this.logException("ERROR", "NODE REQUEST", telnetCurrentTimeoutParseMessage, step.getTimeoutError());
+                return false;
             }
 
-            DTOSendExpectPair currentPair = new DTOSendExpectPair(this.telnetEscapedRealPrompt, currentCommand, currentTableField, currentTimeoutInt, currentVariable);
+            Integer currentTimeoutInt = step.getTimeout() != null ? step.getTimeout() : this.telnetTimeout;
+
+            DTOSendExpectPair currentPair = new DTOSendExpectPair(this.telnetEscapedRealPrompt, step.getCommand(), step.getTemplate(), currentTableField, currentTimeoutInt, currentVariable);
             this.telnetCommands.add(currentPair);
 
         }
@@ -466,9 +474,8 @@ public class GeneralTelnet extends AbstractProtocol {
         }
         else {
 
-            this.telnetEscapedRealPrompt = this.expect.getLastState().getBuffer().replace(this.currentCommand, "");
-            // replacing ANSI control chars
-            this.telnetEscapedRealPrompt = this.telnetEscapedRealPrompt.replaceAll("\u001B\\[[\\d;]*[^\\d;]|\u001B[\\d;]|\u001B\\[[^\\d;]","");
+            // ANSI control chars, overstrikes and pager prompts are already stripped
+            this.telnetEscapedRealPrompt = this.expect.getLastState().getSanitizedBuffer().replace(this.currentCommand, "");
 
             this.telnetRealPrompt        = this.telnetEscapedRealPrompt.trim();
             this.telnetEscapedRealPrompt = this.telnetEscapedRealPrompt.replace("[", "\\[").trim();
@@ -516,47 +523,56 @@ public class GeneralTelnet extends AbstractProtocol {
             /*
              * Injecting variables to commands
              */
-            if(currentPair.getSend().contains("%%")) {
-
-                // Searching variable in command
-                for(Map.Entry<String, DTOVariableConvertResult> entry : this.variables.entrySet()) {
-                    if( currentPair.getSend().contains(entry.getKey())) {
-                        // Variable found
-                        // If variable is converted, sending command with injected variable
-                        if(entry.getValue().getAction().equals("process")) {
-                            // check if empty
-                            if(entry.getValue() != null && entry.getValue().getResult() != null && entry.getValue().getResult().length() > 0) {
-                                String tempCommand = currentPair.getSend().replaceAll(entry.getKey(), entry.getValue().getResult());
-                                currentPair.setSend(tempCommand);
-                            }
-                            else {
-                                String telnetSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                        ": empty variable value returned. Command: " + currentPair.getSend() + ". Variable:" + entry.getValue().getVariableName() + ". Telnet request: set custom variable failed. Check your command.";
-                                this.logMessage("ERROR", "NODE REQUEST", telnetSetVarFailedMessage);
-                                return false;
-                            }
+            CommandTemplate template = (currentPair.getTemplate() != null) ? currentPair.getTemplate() : CommandTemplate.compile(currentPair.getSend());
+
+            if(template.hasVariables()) {
+
+                Map<String, String> values = new HashMap<>();
+
+                // Only variables referenced by command are looked up
+                for(String variableName : template.getVariables()) {
+
+                    if(!this.variables.containsKey(variableName)) {
+                        continue;
+                    }
+
+                    DTOVariableConvertResult variable = this.variables.get(variableName);
+
+                    // If variable is converted, sending command with injected variable
+                    if(variable == null || variable.getAction().equals("process")) {
+                        // check if empty
+                        if(variable != null && variable.getResult() != null && variable.getResult().length() > 0) {
+                            values.put(variableName, variable.getResult());
                         }
                         else {
-                            switch (entry.getValue().getStatus()) {
-                                // If variable converted with error, sending exception log
-                                case "exception":
-                                    String variableConvertMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": variable convertion error. Variable: " + entry.getValue().getVariableName() + ". Message: " + entry.getValue().getMessage();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertMessage);
-                                    return false;
-                                // If variable converted successfully, but action is restrict, skip command and use empty string as command result
-                                case "success":
-                                    skipCommand = true;
-                                    break;
-                                default:
-                                    String variableConvertUnknownStatus = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
-                                            ": unknown status of variable convertion. Variable: " + entry.getValue().getVariableName() + ". Status: " + entry.getValue().getStatus();
-                                    this.logMessage("ERROR", "NODE REQUEST", variableConvertUnknownStatus);
-                                    return false;
-                            }
+                            String telnetSetVarFailedMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                    ": empty variable value returned. Command: " + currentPair.getSend() + ". Variable:" + variableName + ". Telnet request: set custom variable failed. Check your command.";
+                            this.logMessage("ERROR", "NODE REQUEST", telnetSetVarFailedMessage);
+                            return false;
+                        }
+                    }
+                    else {
+                        switch (variable.getStatus()) {
+                            // If variable converted with error, sending exception log
+                            case "exception":
+                                String variableConvertMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": variable convertion error. Variable: " + variable.getVariableName() + ". Message: " + variable.getMessage();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertMessage);
+                                return false;
+                            // If variable converted successfully, but action is restrict, skip command and use empty string as command result
+                            case "success":
+                                skipCommand = true;
+                                break;
+                            default:
+                                String variableConvertUnknownStatus = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                                        ": unknown status of variable convertion. Variable: " + variable.getVariableName() + ". Status: " + variable.getStatus();
+                                this.logMessage("ERROR", "NODE REQUEST", variableConvertUnknownStatus);
+                                return false;
                         }
                     }
                 }
+
+                currentPair.setSend(template.render(values));
             }
 
             if(!skipCommand) {
@@ -593,6 +609,22 @@ public class GeneralTelnet extends AbstractProtocol {
                 }
             }
 
+            /*
+             * Output spooled to disk is saved as file, without converting
+             */
+            if(saveRequired && !putVarRequired && !skipCommand && this.expect.getLastState().isSpooled()) {
+                try {
+                    Path file = this.expect.getLastState().exportSanitizedBuffer(this.getSpillDirectory(), this.currentCommand, this.telnetRealPrompt);
+                    this.putResultFile(currentPair.getTableField(), file);
+                    continue;
+                }
+                catch (IOException e) {
+                    String spoolMessage = "Task " + this.coordinates.get("taskName") + ", node " + this.coordinates.get("nodeId") +
+                            ": can't save spooled output of " + currentPair.getTableField() + ", reading it to memory.";
+                    this.logException("WARNING", "NODE REQUEST", spoolMessage, e);
+                }
+            }
+
             /*
              * Saving to result.data
              */
@@ -601,9 +633,8 @@ public class GeneralTelnet extends AbstractProtocol {
                 String valueToSave;
 
                 if(!skipCommand) {
-                    valueToSave = this.expect.getLastState().getBuffer().replace(this.currentCommand, "")
-                        // replacing ANSI control chars
-                        .replaceAll("\u001B\\[[\\d;]*[^\\d;]|\u001B[\\d;]|\u001B\\[[^\\d;]", "")
+                    // ANSI control chars, overstrikes and pager prompts are already stripped
+                    valueToSave = this.expect.getLastState().getSanitizedBuffer().replace(this.currentCommand, "")
                         .replace(this.telnetRealPrompt, "")
                         .trim();
                 }
@@ -617,7 +648,7 @@ public class GeneralTelnet extends AbstractProtocol {
                 DTOVariableConvertResult currentResultDTO = this.convertVariable(this.coordinates.get("taskName"), currentPair.getTableField(), currentPair.getVariable(), valueToSave);
 
                 if(saveRequired) {
-                    this.result.data.put(currentPair.getTableField(), currentResultDTO.getResult());
+                    this.putResult(currentPair.getTableField(), currentResultDTO.getResult());
                 }
 
                 /*
@@ -719,7 +750,8 @@ public class GeneralTelnet extends AbstractProtocol {
 
         try{
 
-            boolean isFailed = checkResult(this.expect.expect(pair.getExpect()));
+            int expectResult = (pair.getExpectPattern() != null) ? this.expect.expect(pair.getExpectPattern()) : this.expect.expect(pair.getExpect());
+            boolean isFailed = checkResult(expectResult);
 
             if (!isFailed) {
 
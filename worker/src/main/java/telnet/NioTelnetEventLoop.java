@@ -0,0 +1,185 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package telnet;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Selector based event loop for telnet sessions
+ * Small fixed number of daemon threads, sessions are spread between loops round-robin
+ */
+final class NioTelnetEventLoop implements Runnable {
+
+    /*
+     * Loop count, few threads are enough to pump thousands of telnet sessions
+     */
+    private static final int LOOP_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    private static NioTelnetEventLoop[] loops = null;
+    private static final AtomicInteger next   = new AtomicInteger();
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Selection key handler, attached to key
+     */
+    interface Handler {
+
+        /**
+         * Channel is registered, called on loop thread
+         *
+         * @param key SelectionKey - key of the channel
+         */
+        void registered(SelectionKey key);
+
+        /**
+         * @param key SelectionKey - ready key
+         */
+        void handle(SelectionKey key);
+
+        /**
+         * Loop failure, handler must release its resources
+         *
+         * @param e Exception
+         */
+        void fail(Exception e);
+    }
+
+
+    /**
+     * Constructor
+     *
+     * @param name String - thread name
+     * @throws IOException on selector open failure
+     */
+    private NioTelnetEventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Next loop for new session
+     *
+     * @return NioTelnetEventLoop
+     * @throws IOException on loops init failure
+     */
+    static synchronized NioTelnetEventLoop next() throws IOException {
+
+        if(loops == null) {
+            NioTelnetEventLoop[] created = new NioTelnetEventLoop[LOOP_COUNT];
+            for (int i = 0; i < LOOP_COUNT; i++) {
+                created[i] = new NioTelnetEventLoop("telnet-loop-" + i);
+            }
+            loops = created;
+        }
+
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+
+    /**
+     * Run task on loop thread
+     *
+     * @param task Runnable
+     */
+    void execute(Runnable task) {
+        this.tasks.add(task);
+        this.selector.wakeup();
+    }
+
+
+    /**
+     * Register channel on loop thread
+     *
+     * @param channel SelectableChannel - non-blocking channel
+     * @param ops     int               - interest ops
+     * @param handler Handler           - key handler
+     */
+    void register(SelectableChannel channel, int ops, Handler handler) {
+        this.execute(() -> {
+            try {
+                handler.registered(channel.register(this.selector, ops, handler));
+            }
+            catch (ClosedChannelException e) {
+                handler.fail(e);
+            }
+        });
+    }
+
+
+    /**
+     * Loop
+     */
+    @Override
+    public void run() {
+
+        //noinspection InfiniteLoopStatement
+        while (true) {
+
+            try {
+                this.selector.select();
+            }
+            catch (IOException e) {
+                continue;
+            }
+
+            for (Runnable task; (task = this.tasks.poll()) != null; ) {
+                try {
+                    task.run();
+                }
+                catch (RuntimeException ignored) {
+                    // task failure must not stop the loop
+                }
+            }
+
+            Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+
+            while (it.hasNext()) {
+
+                SelectionKey key = it.next();
+                it.remove();
+
+                Handler handler = (Handler) key.attachment();
+
+                try {
+                    if(key.isValid()) {
+                        handler.handle(key);
+                    }
+                }
+                catch (RuntimeException e) {
+                    key.cancel();
+                    handler.fail(e);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,459 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package telnet;
+
+import expect4j.ExpectInputBuffer;
+import expect4j.ExpectSession;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+
+/**
+ * Non-blocking telnet session
+ * Socket is pumped by NioTelnetEventLoop, expect patterns are matched on loop thread as data arrives,
+ * so worker thread only waits for the match result.
+ * All options offered by device are refused, same as commons-net TelnetClient without option handlers.
+ */
+public final class NioTelnetSession implements ExpectSession, NioTelnetEventLoop.Handler {
+
+    private static final int COMMAND_EXECUTION_SUCCESS_OPCODE = -2;
+    private static final int BUFFER_SIZE                      = 8192;
+
+    /*
+     * Telnet commands
+     */
+    private static final int SE   = 240;
+    private static final int SB   = 250;
+    private static final int WILL = 251;
+    private static final int WONT = 252;
+    private static final int DO   = 253;
+    private static final int DONT = 254;
+    private static final int IAC  = 255;
+
+    /*
+     * IAC parser states
+     */
+    private static final int STATE_DATA   = 0;
+    private static final int STATE_IAC    = 1;
+    private static final int STATE_OPTION = 2;
+    private static final int STATE_SB     = 3;
+    private static final int STATE_SB_IAC = 4;
+
+    private final NioTelnetEventLoop loop;
+    private final SocketChannel channel;
+    private final Charset charset = Charset.defaultCharset();
+    private final CompletableFuture<Void> connected = new CompletableFuture<>();
+    private final Queue<ByteBuffer> writeQueue = new ConcurrentLinkedQueue<>();
+
+    /*
+     * Loop thread state
+     */
+    private SelectionKey key;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer dataBuffer = ByteBuffer.allocate(BUFFER_SIZE + 16);
+    private final boolean[] refusedDo   = new boolean[256];
+    private final boolean[] refusedWill = new boolean[256];
+    private int parserState = STATE_DATA;
+    private int parserVerb;
+
+    /*
+     * Expect state
+     */
+    private final ExpectInputBuffer buffer = new ExpectInputBuffer(this.charset);
+
+    private volatile int defaultTimeout = 30000;
+
+
+    /**
+     * Constructor
+     *
+     * @param loop    NioTelnetEventLoop - session event loop
+     * @param channel SocketChannel      - non-blocking channel
+     */
+    private NioTelnetSession(NioTelnetEventLoop loop, SocketChannel channel) {
+        this.loop    = loop;
+        this.channel = channel;
+    }
+
+
+    /**
+     * Open telnet session
+     *
+     * @param host    String - hostname or IP address
+     * @param port    int    - port number
+     * @param timeout int    - connect timeout in milliseconds
+     * @return NioTelnetSession
+     * @throws IOException if connection fails
+     */
+    public static NioTelnetSession connect(String host, int port, int timeout) throws IOException {
+
+        SocketChannel channel = SocketChannel.open();
+        NioTelnetSession session;
+
+        try {
+            channel.configureBlocking(false);
+            session = new NioTelnetSession(NioTelnetEventLoop.next(), channel);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        try {
+            if(channel.connect(new InetSocketAddress(host, port))) {
+                session.connected.complete(null);
+                session.loop.register(channel, SelectionKey.OP_READ, session);
+            }
+            else {
+                session.loop.register(channel, SelectionKey.OP_CONNECT, session);
+            }
+
+            session.connected.get(timeout, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException e) {
+            session.close();
+            throw new SocketTimeoutException("Telnet connect to " + host + ":" + port + " timed out");
+        }
+        catch (ExecutionException e) {
+            session.close();
+            throw (e.getCause() instanceof IOException) ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            session.close();
+            throw new InterruptedIOException("Telnet connect interrupted");
+        }
+        catch (IOException | RuntimeException e) {
+            session.close();
+            throw e;
+        }
+
+        return session;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int expect(String pattern) {
+        return this.buffer.expect(pattern, this.defaultTimeout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int expect(Pattern pattern) {
+        return this.buffer.expect(pattern, this.defaultTimeout);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void send(String text) {
+
+        IOException failure = this.buffer.getFailure();
+
+        if(failure != null) {
+            throw new RuntimeException("Failed to send text", failure);
+        }
+
+        byte[] bytes   = text.getBytes(this.charset);
+        int escapes    = 0;
+
+        for (byte b : bytes) {
+            if((b & 0xFF) == IAC) {
+                escapes++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + escapes);
+
+        // 0xFF in data must be doubled
+        for (byte b : bytes) {
+            buffer.put(b);
+            if((b & 0xFF) == IAC) {
+                buffer.put(b);
+            }
+        }
+
+        buffer.flip();
+        this.writeQueue.add(buffer);
+        this.loop.execute(this::flushWrites);
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDefaultTimeout(int timeout) {
+        this.defaultTimeout = timeout;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ExpectSession.State getLastState() {
+        return this.buffer;
+    }
+
+
+    /**
+     * Close session, pending output is flushed if socket is writable
+     */
+    @Override
+    public void close() {
+
+        this.buffer.close();
+
+        this.loop.execute(() -> {
+            if(this.connected.isDone() && !this.connected.isCompletedExceptionally()) {
+                this.flushWrites();
+            }
+            this.closeChannel();
+        });
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void registered(SelectionKey key) {
+        this.key = key;
+        if(!this.writeQueue.isEmpty() && this.connected.isDone()) {
+            this.flushWrites();
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void handle(SelectionKey key) {
+
+        try {
+
+            if(key.isConnectable()) {
+                this.channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                this.connected.complete(null);
+                this.flushWrites();
+            }
+
+            if(key.isValid() && key.isReadable()) {
+                this.read();
+            }
+
+            if(key.isValid() && key.isWritable()) {
+                this.flushWrites();
+            }
+        }
+        catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void fail(Exception e) {
+
+        IOException exception = (e instanceof IOException) ? (IOException) e : new IOException(e);
+
+        this.buffer.fail(exception);
+        this.connected.completeExceptionally(exception);
+        this.closeChannel();
+    }
+
+
+    /**
+     * Reading socket, loop thread
+     *
+     * @throws IOException on read errors or remote close
+     */
+    private void read() throws IOException {
+
+        int read;
+
+        while ((read = this.channel.read(this.readBuffer)) > 0) {
+
+            this.readBuffer.flip();
+            this.parse();
+            this.readBuffer.clear();
+
+            this.dataBuffer.flip();
+            this.buffer.push(this.dataBuffer);
+
+            // incomplete multibyte char stays for the next read
+            this.dataBuffer.compact();
+        }
+
+        if(read < 0) {
+            throw new EOFException("Telnet connection is closed by remote host");
+        }
+    }
+
+
+    /**
+     * Splitting telnet commands from data, refusing all options
+     */
+    private void parse() {
+
+        while (this.readBuffer.hasRemaining()) {
+
+            int b = this.readBuffer.get() & 0xFF;
+
+            switch (this.parserState) {
+
+                case STATE_DATA:
+                    if(b == IAC) {
+                        this.parserState = STATE_IAC;
+                    }
+                    else {
+                        this.dataBuffer.put((byte) b);
+                    }
+                    break;
+
+                case STATE_IAC:
+                    if(b == IAC) {
+                        this.dataBuffer.put((byte) b);
+                        this.parserState = STATE_DATA;
+                    }
+                    else if(b == WILL || b == WONT || b == DO || b == DONT) {
+                        this.parserVerb  = b;
+                        this.parserState = STATE_OPTION;
+                    }
+                    else if(b == SB) {
+                        this.parserState = STATE_SB;
+                    }
+                    else {
+                        // NOP, GA, AYT etc. are ignored
+                        this.parserState = STATE_DATA;
+                    }
+                    break;
+
+                case STATE_OPTION:
+                    this.negotiate(this.parserVerb, b);
+                    this.parserState = STATE_DATA;
+                    break;
+
+                case STATE_SB:
+                    if(b == IAC) {
+                        this.parserState = STATE_SB_IAC;
+                    }
+                    break;
+
+                case STATE_SB_IAC:
+                    this.parserState = (b == SE) ? STATE_DATA : STATE_SB;
+                    break;
+            }
+        }
+    }
+
+
+    /**
+     * Answering option request
+     * Each option is refused once, repeated requests are not answered to avoid negotiation loops
+     *
+     * @param verb   int - WILL|WONT|DO|DONT
+     * @param option int - option code
+     */
+    private void negotiate(int verb, int option) {
+
+        if(verb == DO && !this.refusedDo[option]) {
+            this.refusedDo[option] = true;
+            this.writeQueue.add(ByteBuffer.wrap(new byte[] {(byte) IAC, (byte) WONT, (byte) option}));
+            this.flushWrites();
+        }
+        else if(verb == WILL && !this.refusedWill[option]) {
+            this.refusedWill[option] = true;
+            this.writeQueue.add(ByteBuffer.wrap(new byte[] {(byte) IAC, (byte) DONT, (byte) option}));
+            this.flushWrites();
+        }
+        // WONT|DONT confirm disabled state, nothing to answer
+    }
+
+
+    /**
+     * Writing queued data, loop thread
+     */
+    private void flushWrites() {
+
+        if(this.key == null || !this.key.isValid() || !this.connected.isDone()) {
+            return;
+        }
+
+        try {
+            ByteBuffer head;
+            while ((head = this.writeQueue.peek()) != null) {
+                this.channel.write(head);
+                if(head.hasRemaining()) {
+                    this.key.interestOps(this.key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+                this.writeQueue.poll();
+            }
+            this.key.interestOps(this.key.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+        catch (IOException e) {
+            this.fail(e);
+        }
+    }
+
+
+    /**
+     * Closing socket
+     * @noinspection EmptyCatchBlock
+     */
+    private void closeChannel() {
+        if(this.key != null) {
+            this.key.cancel();
+        }
+        try {
+            this.channel.close();
+        }
+        catch (IOException e) {}
+    }
+
+}
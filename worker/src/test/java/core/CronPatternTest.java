@@ -0,0 +1,166 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * CronPattern parse and next fire tests
+ */
+class CronPatternTest {
+
+    private static final ZoneId UTC  = ZoneOffset.UTC;
+
+    // DST starts 2026-03-29 03:00 EET, ends 2026-10-25 04:00 EEST
+    private static final ZoneId RIGA = ZoneId.of("Europe/Riga");
+
+
+    @Test
+    void fiveFieldsPatternFiresAtSecondZero() {
+        assertEquals(at("2026-10-19T10:01:00Z"), next("* * * * *", "2026-10-19T10:00:30Z", UTC));
+    }
+
+
+    @Test
+    void nextIsStrictlyAfterGivenTime() {
+        assertEquals(at("2026-10-20T10:00:00Z"), next("0 10 * * *", "2026-10-19T10:00:00Z", UTC));
+    }
+
+
+    @Test
+    void sixFieldsPatternHasSecondsFirst() {
+        assertEquals(at("2026-10-19T10:00:15Z"), next("*/15 * * * * *", "2026-10-19T10:00:07Z", UTC));
+        assertEquals(at("2026-10-19T10:00:30Z"), next("*/15 * * * * *", "2026-10-19T10:00:15Z", UTC));
+    }
+
+
+    @Test
+    void rangeWithStep() {
+        String pattern = "10-30/10 * * * *";
+        assertEquals(at("2026-10-19T10:10:00Z"), next(pattern, "2026-10-19T10:00:00Z", UTC));
+        assertEquals(at("2026-10-19T10:20:00Z"), next(pattern, "2026-10-19T10:10:00Z", UTC));
+        assertEquals(at("2026-10-19T10:30:00Z"), next(pattern, "2026-10-19T10:20:00Z", UTC));
+        assertEquals(at("2026-10-19T11:10:00Z"), next(pattern, "2026-10-19T10:30:00Z", UTC));
+    }
+
+
+    @Test
+    void wrappingRange() {
+        assertEquals(at("2026-10-19T22:00:00Z"), next("0 22-2 * * *", "2026-10-19T02:30:00Z", UTC));
+        assertEquals(at("2026-10-20T00:00:00Z"), next("0 22-2 * * *", "2026-10-19T23:00:00Z", UTC));
+    }
+
+
+    @Test
+    void monthAndDayNames() {
+        assertEquals(at("2027-01-04T09:00:00Z"), next("0 9 * jan mon", "2026-10-19T00:00:00Z", UTC));
+        assertEquals(at("2026-10-24T09:00:00Z"), next("0 9 * * SAT-SUN", "2026-10-19T00:00:00Z", UTC));
+    }
+
+
+    @Test
+    void sundayIsZeroAndSeven() {
+        assertEquals(at("2026-10-25T00:00:00Z"), next("0 0 * * 0", "2026-10-19T00:00:00Z", UTC));
+        assertEquals(at("2026-10-25T00:00:00Z"), next("0 0 * * 7", "2026-10-19T00:00:00Z", UTC));
+    }
+
+
+    @Test
+    void lastDayOfMonth() {
+        assertEquals(at("2026-02-28T00:00:00Z"), next("0 0 L * *", "2026-02-10T00:00:00Z", UTC));
+        assertEquals(at("2028-02-29T00:00:00Z"), next("0 0 L * *", "2028-02-10T00:00:00Z", UTC));
+        assertEquals(at("2026-10-31T00:00:00Z"), next("0 0 15,L * *", "2026-10-19T00:00:00Z", UTC));
+    }
+
+
+    @Test
+    void dayOfMonthAndDayOfWeekMustBothMatch() {
+        assertEquals(at("2026-11-13T00:00:00Z"), next("0 0 13 * fri", "2026-10-19T00:00:00Z", UTC));
+    }
+
+
+    @Test
+    void earliestAlternativeFires() {
+        assertEquals(at("2026-10-19T20:00:00Z"), next("0 8 * * *|0 20 * * *", "2026-10-19T09:00:00Z", UTC));
+        assertEquals(at("2026-10-20T08:00:00Z"), next("0 8 * * *|0 20 * * *", "2026-10-19T21:00:00Z", UTC));
+    }
+
+
+    @Test
+    void impossibleDateNeverFires() {
+        assertEquals(-1, CronPattern.parse("0 0 30 2 *").next(at("2026-10-19T00:00:00Z"), UTC));
+    }
+
+
+    @Test
+    void timeInDstGapIsMovedForward() {
+        // 03:30 local doesn't exist on 2026-03-29, fires at 04:30 EEST
+        assertEquals(at("2026-03-29T01:30:00Z"), next("30 3 * * *", "2026-03-28T23:00:00Z", RIGA));
+        assertEquals(at("2026-03-30T00:30:00Z"), next("30 3 * * *", "2026-03-29T01:30:00Z", RIGA));
+
+        // 03:00 local is moved to 04:00 EEST, skipped 03:30 doesn't fire
+        assertEquals(at("2026-03-29T01:00:00Z"), next("*/30 * * * *", "2026-03-29T00:45:00Z", RIGA));
+        assertEquals(at("2026-03-29T01:30:00Z"), next("*/30 * * * *", "2026-03-29T01:00:00Z", RIGA));
+    }
+
+
+    @Test
+    void repeatedLocalTimeInDstOverlapFiresOnce() {
+        // 03:30 local happens twice on 2026-10-25, fires at 03:30 EEST only
+        assertEquals(at("2026-10-25T00:30:00Z"), next("30 3 * * *", "2026-10-24T22:00:00Z", RIGA));
+        assertEquals(at("2026-10-26T01:30:00Z"), next("30 3 * * *", "2026-10-25T00:30:00Z", RIGA));
+
+        // repeated hour 03:00-04:00 EET is skipped
+        assertEquals(at("2026-10-25T00:00:00Z"), next("*/30 * * * *", "2026-10-24T23:45:00Z", RIGA));
+        assertEquals(at("2026-10-25T00:30:00Z"), next("*/30 * * * *", "2026-10-25T00:00:00Z", RIGA));
+        assertEquals(at("2026-10-25T02:00:00Z"), next("*/30 * * * *", "2026-10-25T00:30:00Z", RIGA));
+    }
+
+
+    @Test
+    void malformedPatternIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse(" "));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* * * * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* 24 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* * 0 * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* * * foo *"));
+        assertThrows(IllegalArgumentException.class, () -> CronPattern.parse("* * * * *|* *"));
+    }
+
+
+    private static long next(String pattern, String after, ZoneId zone) {
+        return CronPattern.parse(pattern).next(at(after), zone);
+    }
+
+
+    private static long at(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+
+}
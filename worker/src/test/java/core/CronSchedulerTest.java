@@ -0,0 +1,144 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * CronScheduler timing wheel tests, wheels are advanced without ticker thread
+ */
+class CronSchedulerTest {
+
+    private static final long START  = Instant.parse("2026-10-19T10:00:00Z").toEpochMilli();
+    private static final long SECOND = 1000;
+    private static final long DAY    = 86400 * SECOND;
+
+    private static final Runnable NOTHING = () -> {};
+
+
+    @Test
+    void schedulesFireInTimeOrderOnEveryWheelLevel() {
+
+        CronScheduler scheduler      = new CronScheduler("test");
+        Map<String, String> patterns = new LinkedHashMap<>();
+
+        // seconds, minutes, hours and days wheels
+        patterns.put(scheduler.schedule("*/7 * * * * *", NOTHING), "*/7 * * * * *");
+        patterns.put(scheduler.schedule("30 */2 * * * *", NOTHING), "30 */2 * * * *");
+        patterns.put(scheduler.schedule("0 15 */3 * * *", NOTHING), "0 15 */3 * * *");
+        patterns.put(scheduler.schedule("5 0 0 * * mon", NOTHING), "5 0 0 * * mon");
+
+        scheduler.rebuildAt(START);
+
+        List<String> expected = expectedFires(patterns, START, START + 8 * DAY);
+        List<String> actual   = new ArrayList<>();
+
+        for (long now = START + SECOND; now <= START + 8 * DAY; now += SECOND) {
+            List<String> due = scheduler.advanceTo(now);
+            Collections.sort(due);
+            for (String id : due) {
+                actual.add(now + " " + id);
+            }
+        }
+
+        assertEquals(expected, actual);
+    }
+
+
+    @Test
+    void scheduleFiresOncePerTickWhenClockLags() {
+
+        CronScheduler scheduler = new CronScheduler("test");
+        String id               = scheduler.schedule("* * * * * *", NOTHING);
+
+        scheduler.rebuildAt(START);
+
+        // ticker woke up 30 seconds late, missed seconds fire once
+        assertEquals(Collections.singletonList(id), scheduler.advanceTo(START + 30 * SECOND));
+        assertEquals(Collections.singletonList(id), scheduler.advanceTo(START + 31 * SECOND));
+    }
+
+
+    @Test
+    void clockJumpRebuildsWheelsAndFiresMissedOnce() {
+
+        CronScheduler scheduler = new CronScheduler("test");
+        String id               = scheduler.schedule("0 * * * * *", NOTHING);
+
+        scheduler.rebuildAt(START);
+
+        assertEquals(Collections.singletonList(id), scheduler.advanceTo(START + 3 * 3600 * SECOND));
+        assertTrue(scheduler.advanceTo(START + 3 * 3600 * SECOND + 30 * SECOND).isEmpty());
+        assertEquals(Collections.singletonList(id), scheduler.advanceTo(START + 3 * 3600 * SECOND + 60 * SECOND));
+    }
+
+
+    @Test
+    void descheduledEntryDoesNotFireFromItsSlot() {
+
+        CronScheduler scheduler = new CronScheduler("test");
+        String removed          = scheduler.schedule("10 * * * * *", NOTHING);
+        String kept             = scheduler.schedule("10 * * * * *", NOTHING);
+
+        scheduler.rebuildAt(START);
+        scheduler.deschedule(removed);
+
+        List<String> fired = new ArrayList<>();
+        for (long now = START + SECOND; now <= START + 60 * SECOND; now += SECOND) {
+            for (String id : scheduler.advanceTo(now)) {
+                fired.add((now - START) / SECOND + " " + id);
+            }
+        }
+
+        assertEquals(Collections.singletonList("10 " + kept), fired);
+    }
+
+
+    /*
+     * Fires of patterns in (from, until], as 'time id' ordered by time and id
+     */
+    private static List<String> expectedFires(Map<String, String> patterns, long from, long until) {
+
+        List<String> fires = new ArrayList<>();
+        ZoneId zone        = ZoneId.systemDefault();
+
+        for (Map.Entry<String, String> pattern : patterns.entrySet()) {
+            CronPattern parsed = CronPattern.parse(pattern.getValue());
+            for (long time = parsed.next(from, zone); time >= 0 && time <= until; time = parsed.next(time, zone)) {
+                fires.add(time + " " + pattern.getKey());
+            }
+        }
+
+        Collections.sort(fires);
+
+        return fires;
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * SpooledOutput export tests, spooled export must give same result as in-memory replace and trim
+ */
+class SpooledOutputTest {
+
+    // Spool file is read back in chunks of this size
+    private static final int READ_CHUNK = 8192;
+
+    // Spool thresholds, 0 keeps output in memory
+    private static final long[] THRESHOLDS = {0, 1, 100};
+
+
+    @Test
+    void commandEchoAndPromptAreRemoved() throws IOException {
+        assertExported("R1#show running-config\r\nhostname R1\r\n!\r\nend\r\nR1#", "show running-config", "R1#");
+    }
+
+
+    @Test
+    void overlappingMatchesAreRemovedLeftToRight() throws IOException {
+        assertExported("aaa", "aa");
+        assertExported("aaaaa", "aa");
+        assertExported("abababa", "aba");
+        assertExported("x\naaa\naaaa\n", "aa");
+    }
+
+
+    @Test
+    void textJoinedByRemovalIsKept() throws IOException {
+        assertExported("aabcbc", "abc");
+        assertExported("x\naabcbcc\n", "abc");
+        assertExported("aabb", "ab", "a");
+    }
+
+
+    @Test
+    void removalsCrossingLineEnds() throws IOException {
+        assertExported("line one\r\nR1#", "\r\nR1#");
+        assertExported("config\n--\n--\n--\nend", "--\n--");
+    }
+
+
+    @Test
+    void emptyRemovalsAreSkipped() throws IOException {
+        assertExported("  text  ", "", null);
+        assertExported("  \r\n text \r\n  ", "text");
+    }
+
+
+    @Test
+    void outputIsSpooledAboveThreshold() throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+
+        try (SpooledOutput output = new SpooledOutput()) {
+
+            output.setSpool(directory, 16);
+            output.append("first line\r\nsecond line\r\nthird");
+
+            assertTrue(output.isSpooled());
+            assertEquals("first line\r\nsecond line\r\nthird", output.getSanitized());
+
+            output.reset("new");
+            assertFalse(output.isSpooled());
+            assertEquals("new", output.getSanitized());
+        }
+        finally {
+            deleteDirectory(directory);
+        }
+    }
+
+
+    /**
+     * Export given text at each spool read boundary inside it and with each threshold,
+     * text is placed after padding in spooled part and once more at the end in memory
+     */
+    private static void assertExported(String text, String... removals) throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+
+        try {
+            for (int shift = 0; shift <= text.length() + 1; shift++) {
+
+                String input    = padding(READ_CHUNK - shift) + text + "\n" + text;
+                String expected = inMemory(input, removals);
+
+                for (long threshold : THRESHOLDS) {
+                    assertEquals(expected, exported(directory, input, threshold, removals), "shift " + shift + ", threshold " + threshold);
+                }
+            }
+        }
+        finally {
+            deleteDirectory(directory);
+        }
+    }
+
+
+    /**
+     * Replace and trim whole sanitized output, as done before export existed
+     */
+    private static String inMemory(String input, String... removals) {
+
+        SpooledOutput output = new SpooledOutput();
+        output.append(input);
+
+        String result = output.getSanitized();
+        for (String removal : removals) {
+            if (removal != null && removal.length() > 0) {
+                result = result.replace(removal, "");
+            }
+        }
+
+        return result.trim();
+    }
+
+
+    /**
+     * Append input char by char with given spool threshold and read exported file
+     */
+    private static String exported(Path directory, String input, long threshold, String... removals) throws IOException {
+
+        try (SpooledOutput output = new SpooledOutput()) {
+
+            output.setSpool(directory, threshold);
+            for (int i = 0; i < input.length(); i++) {
+                output.append(input.substring(i, i + 1));
+            }
+
+            Path file = output.export(directory, removals);
+            try {
+                return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            }
+            finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+
+    /**
+     * Lines of dots with given total length, ending with line break
+     */
+    private static String padding(int length) {
+
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 1; i < length; i++) {
+            result.append(i % 80 == 0 ? '\n' : '.');
+        }
+
+        return result.append('\n').toString();
+    }
+
+
+    /**
+     * Remove temp directory with files left in it
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+}
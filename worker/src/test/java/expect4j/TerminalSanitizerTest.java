@@ -0,0 +1,166 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package expect4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * TerminalSanitizer tests, every input is also fed in chunks split at each position
+ */
+class TerminalSanitizerTest {
+
+    private static final String[] PAGER_PROMPTS = {
+        "--More--",
+        "-- More --",
+        "--- More ---",
+        "---- More ----",
+        "<--- More --->",
+        "--More or (q)uit--",
+        "Press any key to continue",
+        "Press any key to continue (Q to quit)",
+        "Press SPACE to continue",
+    };
+
+
+    @Test
+    void plainTextIsKept() {
+        assertSanitized("hostname R1\r\ninterface Gi0/1\n\tdescription uplink\r\n", "hostname R1\r\ninterface Gi0/1\n\tdescription uplink\r\n");
+    }
+
+
+    @Test
+    void csiSequencesAreStripped() {
+        assertSanitized("\u001B[1;32mgreen\u001B[0m text\u001B[K\r\n", "green text\r\n");
+        assertSanitized("\u001B[?25lhidden cursor\u001B[?25h", "hidden cursor");
+    }
+
+
+    @Test
+    void cursorBackErasesOnCurrentLineOnly() {
+        assertSanitized("abc\u001B[2Dx", "ax");
+        assertSanitized("abc\u001B[Dx", "abx");
+        assertSanitized("line\r\nab\u001B[10Dcd", "line\r\ncd");
+    }
+
+
+    @Test
+    void oscSequencesAreStripped() {
+        assertSanitized("\u001B]0;R1: title\u0007prompt#", "prompt#");
+        assertSanitized("\u001B]2;title\u001B\\prompt#", "prompt#");
+    }
+
+
+    @Test
+    void otherEscapesAreStripped() {
+        assertSanitized("\u001B7saved\u001B8 \u001B(Bcharset", "saved charset");
+    }
+
+
+    @Test
+    void backspaceOverstrikes() {
+        assertSanitized("abc\b\bXY", "aXY");
+        assertSanitized("a\r\n\b\bb", "a\r\nb");
+    }
+
+
+    @Test
+    void loneCarriageReturnRedrawsLine() {
+        assertSanitized("progress 10%\rprogress 100%\r\n", "progress 100%\r\n");
+        assertSanitized("line\r\r\nnext", "line\r\nnext");
+    }
+
+
+    @Test
+    void otherControlCharsAreStripped() {
+        assertSanitized("a\u0000b\u0007c\u007Fd", "abcd");
+    }
+
+
+    @Test
+    void eachPagerPromptIsRemoved() {
+        for (String prompt : PAGER_PROMPTS) {
+            assertSanitized("line 1\r\n" + prompt + "\r        \rline 2\r\n", "line 1\r\nline 2\r\n");
+            assertSanitized("line 1\r\n " + prompt + "\b\b\b\bline 2\r\n", "line 1\r\nline 2\r\n");
+        }
+    }
+
+
+    @Test
+    void pagerPromptErasedWithBackspacesIsRemoved() {
+        String erase = "\b\b\b\b\b\b\b\b\b\b";
+        assertSanitized("line 1\r\n --More-- " + erase + "          " + erase + "line 2\r\n", "line 1\r\nline 2\r\n");
+    }
+
+
+    @Test
+    void longerPagerPromptDoesNotLeak() {
+        assertSanitized("a\r\nPress any key to continue (Q to quit)\rb\r\n", "a\r\nb\r\n");
+        assertSanitized("a\r\nPress any key to continue (Q to quit) \u001B[38D\u001B[Kb\r\n", "a\r\nb\r\n");
+    }
+
+
+    @Test
+    void pagerPromptInsideLineIsKept() {
+        assertSanitized("description see --More--\r\n", "description see --More--\r\n");
+        assertSanitized("banner Press any key to continue\r\n", "banner Press any key to continue\r\n");
+        assertSanitized("--More-- text\r\n", "--More-- text\r\n");
+        assertSanitized("Press any key to continue (Qx\r\n", "Press any key to continue (Qx\r\n");
+    }
+
+
+    @Test
+    void completedLinesAreFlushed() throws IOException {
+
+        TerminalSanitizer sanitizer = new TerminalSanitizer();
+        StringBuilder out           = new StringBuilder();
+
+        sanitizer.append("line 1\r\nline");
+        assertEquals(8, sanitizer.flushLines(out));
+        sanitizer.append("\b\b\b\bredrawn\r\n");
+        sanitizer.flushLines(out);
+
+        assertEquals("line 1\r\nredrawn\r\n", out.toString());
+        assertEquals(0, sanitizer.length());
+    }
+
+
+    /*
+     * Whole input at once, char by char and split in two at every position
+     */
+    private static void assertSanitized(String input, String expected) {
+
+        assertEquals(expected, TerminalSanitizer.sanitize(input), "whole input");
+
+        TerminalSanitizer chars = new TerminalSanitizer();
+        for (int i = 0; i < input.length(); i++) {
+            chars.append(input, i, i + 1);
+        }
+        assertEquals(expected, chars.toString(), "char by char");
+
+        for (int split = 1; split < input.length(); split++) {
+            TerminalSanitizer sanitizer = new TerminalSanitizer().append(input, 0, split).append(input, split, input.length());
+            assertEquals(expected, sanitizer.toString(), "split at " + split);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of cBackup, network equipment configuration backup tool
+ * Copyright (C) 2017, Oļegs Čapligins, Imants Černovs, Dmitrijs Galočkins
+ *
+ * cBackup is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package snmp;
+
+import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.Integer32;
+import org.snmp4j.smi.OID;
+import org.snmp4j.smi.OctetString;
+import org.snmp4j.smi.VariableBinding;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * WalkRows tests
+ */
+class WalkRowsTest {
+
+    private static final String ROWS = "1.3.6.1.2.1.2.2.1.2.1 = Gi0/1\n1.3.6.1.2.1.2.2.1.2.2 = Gi0/2\n1.3.6.1.2.1.2.2.1.8.1 = 1\n";
+
+
+    @Test
+    void rowsBelowThresholdStayInMemory() throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+
+        try (WalkRows rows = new WalkRows(directory, ROWS.length() + 1)) {
+
+            addRows(rows);
+
+            assertFalse(rows.isSpilled());
+            assertEquals(ROWS, rows.toString());
+            assertEquals(0, countFiles(directory));
+        }
+        finally {
+            Files.delete(directory);
+        }
+    }
+
+
+    @Test
+    void rowsAreKeptInMemoryWithoutDirectoryOrThreshold() {
+
+        try (WalkRows rows = new WalkRows(null, 1)) {
+            addRows(rows);
+            assertFalse(rows.isSpilled());
+            assertEquals(ROWS, rows.toString());
+        }
+
+        try (WalkRows rows = new WalkRows(Path.of("."), 0)) {
+            addRows(rows);
+            assertFalse(rows.isSpilled());
+            assertEquals(ROWS, rows.toString());
+        }
+    }
+
+
+    @Test
+    void rowsAboveThresholdAreWrittenToFile() throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+
+        try {
+            for (long threshold = 1; threshold <= ROWS.length(); threshold++) {
+
+                try (WalkRows rows = new WalkRows(directory, threshold)) {
+
+                    addRows(rows);
+
+                    assertTrue(rows.isSpilled(), "threshold " + threshold);
+                    assertEquals("", rows.toString(), "threshold " + threshold);
+
+                    Path file = rows.release();
+                    assertNotNull(file);
+                    assertFalse(rows.isSpilled());
+
+                    assertEquals(ROWS, new String(Files.readAllBytes(file), StandardCharsets.UTF_8), "threshold " + threshold);
+                    Files.delete(file);
+                }
+            }
+        }
+        finally {
+            Files.delete(directory);
+        }
+    }
+
+
+    @Test
+    void fileIsRemovedIfNotReleased() throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+
+        try {
+            try (WalkRows rows = new WalkRows(directory, 1)) {
+                addRows(rows);
+                assertEquals(1, countFiles(directory));
+            }
+            assertEquals(0, countFiles(directory));
+        }
+        finally {
+            Files.delete(directory);
+        }
+    }
+
+
+    @Test
+    void fileFailureStopsRows() throws IOException {
+
+        Path directory = Files.createTempDirectory("cbackup-test-");
+        Files.delete(directory);
+
+        try (WalkRows rows = new WalkRows(directory, 1)) {
+            assertFalse(rows.add(new VariableBinding(new OID("1.3.6.1.2.1.1.5.0"), new OctetString("R1"))));
+            assertNotNull(rows.getFailure());
+            assertFalse(rows.add(new VariableBinding(new OID("1.3.6.1.2.1.1.6.0"), new OctetString("rack 1"))));
+            assertFalse(rows.isSpilled());
+        }
+    }
+
+
+    private static void addRows(WalkRows rows) {
+        assertTrue(rows.add(new VariableBinding(new OID("1.3.6.1.2.1.2.2.1.2.1"), new OctetString("Gi0/1"))));
+        assertTrue(rows.add(new VariableBinding(new OID("1.3.6.1.2.1.2.2.1.2.2"), new OctetString("Gi0/2"))));
+        assertTrue(rows.add(new VariableBinding(new OID("1.3.6.1.2.1.2.2.1.8.1"), new Integer32(1))));
+    }
+
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+}